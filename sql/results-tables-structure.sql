@@ -160,6 +160,7 @@ CREATE TABLE singleton_uniform(
 	gwMc double precision NOT NULL,
 	gwMcLoss double precision NOT NULL,
 	gwTime double precision NOT NULL,
+	gwCacheHits double precision NOT NULL,
 	geWelfare double precision NOT NULL,
 	geRevenue double precision NOT NULL,
 	geWinners double precision NOT NULL,
@@ -168,6 +169,7 @@ CREATE TABLE singleton_uniform(
 	geMc double precision NOT NULL,
 	geMcLoss double precision NOT NULL,
 	geTime double precision NOT NULL,
+	geCacheHits double precision NOT NULL,
 	owWelfare double precision NOT NULL,
 	owRevenue double precision NOT NULL,
 	owWinners double precision NOT NULL,
@@ -176,6 +178,7 @@ CREATE TABLE singleton_uniform(
 	owMc double precision NOT NULL,
 	owMcLoss double precision NOT NULL,
 	owTime double precision NOT NULL,
+	owCacheHits double precision NOT NULL,
 	oeWelfare double precision NOT NULL,
 	oeRevenue double precision NOT NULL,
 	oeWinners double precision NOT NULL,
@@ -184,6 +187,7 @@ CREATE TABLE singleton_uniform(
 	oeMc double precision NOT NULL,
 	oeMcLoss double precision NOT NULL,
 	oeTime double precision NOT NULL,
+	oeCacheHits double precision NOT NULL,
 	wfWelfare double precision NOT NULL,
 	wfRevenue double precision NOT NULL,
 	wfWinners double precision NOT NULL,
@@ -192,6 +196,7 @@ CREATE TABLE singleton_uniform(
 	wfMc double precision NOT NULL,
 	wfMcLoss double precision NOT NULL,
 	wfTime double precision NOT NULL,
+	wfCacheHits double precision NOT NULL,
 	mbWelfare double precision NOT NULL,
 	mbRevenue double precision NOT NULL,
 	mbWinners double precision NOT NULL,
@@ -199,7 +204,8 @@ CREATE TABLE singleton_uniform(
 	mbUmLoss double precision NOT NULL,
 	mbMc double precision NOT NULL,
 	mbMcLoss double precision NOT NULL,
-	mbTime double precision NOT NULL
+	mbTime double precision NOT NULL,
+	mbCacheHits double precision NOT NULL
 	);
 
 CREATE TABLE singleton_elitist( 
@@ -222,6 +228,7 @@ CREATE TABLE singleton_elitist(
 	gwMc double precision NOT NULL,
 	gwMcLoss double precision NOT NULL,
 	gwTime double precision NOT NULL,
+	gwCacheHits double precision NOT NULL,
 	geWelfare double precision NOT NULL,
 	geRevenue double precision NOT NULL,
 	geWinners double precision NOT NULL,
@@ -230,6 +237,7 @@ CREATE TABLE singleton_elitist(
 	geMc double precision NOT NULL,
 	geMcLoss double precision NOT NULL,
 	geTime double precision NOT NULL,
+	geCacheHits double precision NOT NULL,
 	owWelfare double precision NOT NULL,
 	owRevenue double precision NOT NULL,
 	owWinners double precision NOT NULL,
@@ -238,6 +246,7 @@ CREATE TABLE singleton_elitist(
 	owMc double precision NOT NULL,
 	owMcLoss double precision NOT NULL,
 	owTime double precision NOT NULL,
+	owCacheHits double precision NOT NULL,
 	oeWelfare double precision NOT NULL,
 	oeRevenue double precision NOT NULL,
 	oeWinners double precision NOT NULL,
@@ -246,6 +255,7 @@ CREATE TABLE singleton_elitist(
 	oeMc double precision NOT NULL,
 	oeMcLoss double precision NOT NULL,
 	oeTime double precision NOT NULL,
+	oeCacheHits double precision NOT NULL,
 	wfWelfare double precision NOT NULL,
 	wfRevenue double precision NOT NULL,
 	wfWinners double precision NOT NULL,
@@ -254,6 +264,7 @@ CREATE TABLE singleton_elitist(
 	wfMc double precision NOT NULL,
 	wfMcLoss double precision NOT NULL,
 	wfTime double precision NOT NULL,
+	wfCacheHits double precision NOT NULL,
 	mbWelfare double precision NOT NULL,
 	mbRevenue double precision NOT NULL,
 	mbWinners double precision NOT NULL,
@@ -261,7 +272,8 @@ CREATE TABLE singleton_elitist(
 	mbUmLoss double precision NOT NULL,
 	mbMc double precision NOT NULL,
 	mbMcLoss double precision NOT NULL,
-	mbTime double precision NOT NULL
+	mbTime double precision NOT NULL,
+	mbCacheHits double precision NOT NULL
 	);
 
 CREATE TABLE sizeinter_uniform( 
@@ -285,6 +297,7 @@ CREATE TABLE sizeinter_uniform(
 	gwMc double precision NOT NULL,
 	gwMcLoss double precision NOT NULL,
 	gwTime double precision NOT NULL,
+	gwCacheHits double precision NOT NULL,
 	geWelfare double precision NOT NULL,
 	geRevenue double precision NOT NULL,
 	geWinners double precision NOT NULL,
@@ -293,6 +306,7 @@ CREATE TABLE sizeinter_uniform(
 	geMc double precision NOT NULL,
 	geMcLoss double precision NOT NULL,
 	geTime double precision NOT NULL,
+	geCacheHits double precision NOT NULL,
 	owWelfare double precision NOT NULL,
 	owRevenue double precision NOT NULL,
 	owWinners double precision NOT NULL,
@@ -301,6 +315,7 @@ CREATE TABLE sizeinter_uniform(
 	owMc double precision NOT NULL,
 	owMcLoss double precision NOT NULL,
 	owTime double precision NOT NULL,
+	owCacheHits double precision NOT NULL,
 	oeWelfare double precision NOT NULL,
 	oeRevenue double precision NOT NULL,
 	oeWinners double precision NOT NULL,
@@ -309,6 +324,7 @@ CREATE TABLE sizeinter_uniform(
 	oeMc double precision NOT NULL,
 	oeMcLoss double precision NOT NULL,
 	oeTime double precision NOT NULL,
+	oeCacheHits double precision NOT NULL,
 	wfWelfare double precision NOT NULL,
 	wfRevenue double precision NOT NULL,
 	wfWinners double precision NOT NULL,
@@ -317,6 +333,7 @@ CREATE TABLE sizeinter_uniform(
 	wfMc double precision NOT NULL,
 	wfMcLoss double precision NOT NULL,
 	wfTime double precision NOT NULL,
+	wfCacheHits double precision NOT NULL,
 	mbWelfare double precision NOT NULL,
 	mbRevenue double precision NOT NULL,
 	mbWinners double precision NOT NULL,
@@ -324,7 +341,8 @@ CREATE TABLE sizeinter_uniform(
 	mbUmLoss double precision NOT NULL,
 	mbMc double precision NOT NULL,
 	mbMcLoss double precision NOT NULL,
-	mbTime double precision NOT NULL
+	mbTime double precision NOT NULL,
+	mbCacheHits double precision NOT NULL
 	);
 
 CREATE TABLE sizeinter_elitist( 
@@ -348,6 +366,7 @@ CREATE TABLE sizeinter_elitist(
 	gwMc double precision NOT NULL,
 	gwMcLoss double precision NOT NULL,
 	gwTime double precision NOT NULL,
+	gwCacheHits double precision NOT NULL,
 	geWelfare double precision NOT NULL,
 	geRevenue double precision NOT NULL,
 	geWinners double precision NOT NULL,
@@ -356,6 +375,7 @@ CREATE TABLE sizeinter_elitist(
 	geMc double precision NOT NULL,
 	geMcLoss double precision NOT NULL,
 	geTime double precision NOT NULL,
+	geCacheHits double precision NOT NULL,
 	owWelfare double precision NOT NULL,
 	owRevenue double precision NOT NULL,
 	owWinners double precision NOT NULL,
@@ -364,6 +384,7 @@ CREATE TABLE sizeinter_elitist(
 	owMc double precision NOT NULL,
 	owMcLoss double precision NOT NULL,
 	owTime double precision NOT NULL,
+	owCacheHits double precision NOT NULL,
 	oeWelfare double precision NOT NULL,
 	oeRevenue double precision NOT NULL,
 	oeWinners double precision NOT NULL,
@@ -372,6 +393,7 @@ CREATE TABLE sizeinter_elitist(
 	oeMc double precision NOT NULL,
 	oeMcLoss double precision NOT NULL,
 	oeTime double precision NOT NULL,
+	oeCacheHits double precision NOT NULL,
 	wfWelfare double precision NOT NULL,
 	wfRevenue double precision NOT NULL,
 	wfWinners double precision NOT NULL,
@@ -380,6 +402,7 @@ CREATE TABLE sizeinter_elitist(
 	wfMc double precision NOT NULL,
 	wfMcLoss double precision NOT NULL,
 	wfTime double precision NOT NULL,
+	wfCacheHits double precision NOT NULL,
 	mbWelfare double precision NOT NULL,
 	mbRevenue double precision NOT NULL,
 	mbWinners double precision NOT NULL,
@@ -387,7 +410,8 @@ CREATE TABLE sizeinter_elitist(
 	mbUmLoss double precision NOT NULL,
 	mbMc double precision NOT NULL,
 	mbMcLoss double precision NOT NULL,
-	mbTime double precision NOT NULL
+	mbTime double precision NOT NULL,
+	mbCacheHits double precision NOT NULL
 	);
 
 CREATE TABLE TAC( 
@@ -408,6 +432,7 @@ CREATE TABLE TAC(
 	gwMc double precision NOT NULL,
 	gwMcLoss double precision NOT NULL,
 	gwTime double precision NOT NULL,
+	gwCacheHits double precision NOT NULL,
 	geWelfare double precision NOT NULL,
 	geRevenue double precision NOT NULL,
 	geWinners double precision NOT NULL,
@@ -416,6 +441,7 @@ CREATE TABLE TAC(
 	geMc double precision NOT NULL,
 	geMcLoss double precision NOT NULL,
 	geTime double precision NOT NULL,
+	geCacheHits double precision NOT NULL,
 	owWelfare double precision NOT NULL,
 	owRevenue double precision NOT NULL,
 	owWinners double precision NOT NULL,
@@ -424,6 +450,7 @@ CREATE TABLE TAC(
 	owMc double precision NOT NULL,
 	owMcLoss double precision NOT NULL,
 	owTime double precision NOT NULL,
+	owCacheHits double precision NOT NULL,
 	oeWelfare double precision NOT NULL,
 	oeRevenue double precision NOT NULL,
 	oeWinners double precision NOT NULL,
@@ -432,6 +459,7 @@ CREATE TABLE TAC(
 	oeMc double precision NOT NULL,
 	oeMcLoss double precision NOT NULL,
 	oeTime double precision NOT NULL,
+	oeCacheHits double precision NOT NULL,
 	wfWelfare double precision NOT NULL,
 	wfRevenue double precision NOT NULL,
 	wfWinners double precision NOT NULL,
@@ -440,6 +468,7 @@ CREATE TABLE TAC(
 	wfMc double precision NOT NULL,
 	wfMcLoss double precision NOT NULL,
 	wfTime double precision NOT NULL,
+	wfCacheHits double precision NOT NULL,
 	mbWelfare double precision NOT NULL,
 	mbRevenue double precision NOT NULL,
 	mbWinners double precision NOT NULL,
@@ -447,5 +476,6 @@ CREATE TABLE TAC(
 	mbUmLoss double precision NOT NULL,
 	mbMc double precision NOT NULL,
 	mbMcLoss double precision NOT NULL,
-	mbTime double precision NOT NULL
+	mbTime double precision NOT NULL,
+	mbCacheHits double precision NOT NULL
 	);
@@ -6,7 +6,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map.Entry;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 
@@ -52,12 +51,7 @@ public class AscendingAuction {
    */
   public MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> Solve() throws MarketAllocationException, MarketOutcomeException {
     // Initially, we have a zero allocation.
-    HashBasedTable<Goods, Bidder<Goods>, Integer> allocation = HashBasedTable.create();
-    for(Goods good : this.market.getGoods()){
-      for(Bidder<Goods> bidder : this.market.getBidders()){
-        allocation.put(good, bidder, 0);
-      }
-    }
+    MarketAllocation.Builder<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = MarketAllocation.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(this.market);
     // Initially, all prices are zero.
     ArrayList<GoodPrice> goodPricesList = new ArrayList<GoodPrice>();
     for (Goods good : this.market.getGoods()) {
@@ -84,8 +78,9 @@ public class AscendingAuction {
       // Check if we have found a bundle to allocate to a currently unallocated bidder.
       if (bundleToAllocate != null) {
         // Allocate Bundle
+        int bidderIndex = this.market.getBidderIndex(bidderToAllocate);
         for(Entry<Goods, Integer> entry : bundleToAllocate.entrySet()) {
-          allocation.put(entry.getKey(), bidderToAllocate, entry.getValue());
+          allocation.set(this.market.getGoodIndex(entry.getKey()), bidderIndex, entry.getValue());
         }
         // Check if an item is overallocated.
         checkSupplyAndUnallocate(bidderToAllocate, allocation, unallocatedBidders, goodPricesList);
@@ -103,7 +98,7 @@ public class AscendingAuction {
     for(GoodPrice gp : goodPricesList){
       result.put(gp.good, gp.price);
     }
-    return new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(new MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(this.market, allocation, null), result.build());
+    return new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(allocation.build(null), result.build());
   }
   
   /**
@@ -114,22 +109,22 @@ public class AscendingAuction {
    * @param allocation
    * @param unallocatedBidders
    */
-  private void checkSupplyAndUnallocate(Bidder<Goods> bidderToAllocate, HashBasedTable<Goods, Bidder<Goods>, Integer> allocation, HashSet<Bidder<Goods>> unallocatedBidders, ArrayList<GoodPrice> goodPricesList) {
-    for(Goods good : this.market.getGoods()) {
+  private void checkSupplyAndUnallocate(Bidder<Goods> bidderToAllocate, MarketAllocation.Builder<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation, HashSet<Bidder<Goods>> unallocatedBidders, ArrayList<GoodPrice> goodPricesList) {
+    for(int i = 0; i < this.market.getNumberGoods(); i++) {
+      Goods good = this.market.getGoods().get(i);
       int totalAllocation = 0;
-      for (Integer alloc : allocation.row(good).values()) {
-        totalAllocation += alloc;
+      for (int j = 0; j < this.market.getNumberBidders(); j++) {
+        totalAllocation += allocation.get(i, j);
       }
       if(totalAllocation > good.getSupply()) {
         // Good is over allocated. Must unallocate all bidders (other than the current bidder) 
         // that currently have at least one from this good.
-        for(Bidder<Goods> b : this.market.getBidders()) {
+        for(int j = 0; j < this.market.getNumberBidders(); j++) {
+          Bidder<Goods> b = this.market.getBidders().get(j);
           if(b == bidderToAllocate) continue;
-          if(allocation.get(good, b) > 0) {
+          if(allocation.get(i, j) > 0) {
             //Bidder b has at least one from good g. Must completely unallocate bidder b.
-            for(Goods g : this.market.getGoods()) {
-              allocation.put(g, b, 0);
-            }
+            allocation.clearBidder(j);
             // Mark the bidder as unallocated.
             unallocatedBidders.add(b);
           }
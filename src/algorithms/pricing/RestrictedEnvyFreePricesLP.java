@@ -1,13 +1,8 @@
 package algorithms.pricing;
 
 import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumVar;
-import ilog.concert.IloRange;
-import ilog.cplex.IloCplex;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
 import statistics.PricesStatistics;
 import structures.Bidder;
@@ -15,11 +10,15 @@ import structures.Goods;
 import structures.Market;
 import structures.MarketAllocation;
 import structures.exceptions.MarketAllocationException;
-import util.Cplex;
+import util.solver.LinearExpression;
+import util.solver.LinearModel;
+import util.solver.Solution;
+import util.solver.SolverException;
+import util.solver.SolverProvider;
+import util.solver.Solvers;
 import algorithms.pricing.error.PrincingAlgoException;
-
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
+import algorithms.pricing.helper.CompactConditionGraph;
+import algorithms.pricing.helper.PricingCache;
 
 /**
  * LP to find restricted envy-free prices. Implements Compact Condition and Individual Rationality. A restricted Walrasian Equilibrium can found by using the
@@ -40,20 +39,20 @@ public class RestrictedEnvyFreePricesLP<M extends Market<G, B>, G extends Goods,
   protected MarketAllocation<M, G, B> allocatedMarket;
 
   /**
-   * Contains all the linear constrains
+   * The LP, and the variable of the price of each good. Goods that the compact conditions force to have equal prices share a variable.
    */
-  protected ArrayList<IloRange> linearConstrains;
+  protected LinearModel model;
+  protected int[] prices;
 
   /**
-   * This map is used internally to map goods to indices for CPLEX variables.
+   * The compact conditions as a graph on goods, built when the LP is created.
    */
-  protected final HashMap<G, Integer> goodToPriceIndex;
+  protected CompactConditionGraph<M, G, B> compactConditionGraph;
 
   /**
-   * Objects needed to interface with CPlex Library.
+   * The solver. Null means the default provider of util.solver.Solvers.
    */
-  protected IloNumVar[] prices;
-  protected IloCplex cplex;
+  protected SolverProvider solver;
 
   /**
    * By default, set the market clearance conditions.
@@ -65,115 +64,220 @@ public class RestrictedEnvyFreePricesLP<M extends Market<G, B>, G extends Goods,
    */
   protected boolean lpCreated = false;
 
+  /**
+   * Cache of solutions of the market, or null for none.
+   */
+  protected PricingCache<M, G, B> cache;
+
+  /**
+   * The solution found in the cache when the LP was created, if any. The model is then not built.
+   */
+  protected RestrictedEnvyFreePricesLPSolution<M, G, B> cachedSolution;
+
   /**
    * Stores the Statistics. Gets populated once, i.e., implements singleton.
    */
   private PricesStatistics<M, G, B> statistics;
 
   /**
-   * Constructor receives an allocated market and creates the IloCplex object.
+   * Constructor receives an allocated market.
    * 
    * @param allocatedMarket
    *          - a MarketAllocation object.
    * @throws IloException
-   *           in case the LP failed.
+   *           kept for compatibility with callers; the LP itself is built with util.solver.
    */
   public RestrictedEnvyFreePricesLP(MarketAllocation<M, G, B> allocatedMarket) throws IloException {
     this.allocatedMarket = allocatedMarket;
-    //this.cplex = new IloCplex();
-    this.cplex = Cplex.getCplex();
-    // Create a map from goods to a numbers. This gives ordering of the goods.
-    this.goodToPriceIndex = new HashMap<G, Integer>();
-    for (int i = 0; i < this.allocatedMarket.getMarket().getNumberGoods(); i++) {
-      this.goodToPriceIndex.put(this.allocatedMarket.getMarket().getGoods().get(i), i);
-    }
+  }
+
+  /**
+   * Setter. Sets the solver used to solve the LP. For very large markets, a util.solver.PdhgSolver gives approximate prices, whose residuals and gap are
+   * reported in the RestrictedEnvyFreePricesLPSolution.
+   * 
+   * @param solver
+   *          - a SolverProvider, or null to use the default provider of util.solver.Solvers.
+   */
+  public void setSolver(SolverProvider solver) {
+    this.solver = solver;
+  }
+
+  /**
+   * Setter. Sets a cache of solutions, shared with other pricing LPs of the same market: if an equal allocation was priced with the same options, its
+   * solution is returned without building or solving the LP.
+   * 
+   * @param cache
+   *          - a PricingCache of the market of the allocation, or null for none.
+   */
+  public void setCache(PricingCache<M, G, B> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Getter.
+   * 
+   * @return the reserve price of every good, zero in this LP.
+   */
+  protected double getReserve() {
+    return 0.0;
   }
 
   /**
    * This method generates the objective function to be maximized by the LP. The function is seller revenue.
    * 
-   * @throws IloException
    * @throws MarketAllocationException
    */
-  protected void generateObjectiveFunction() throws IloException, MarketAllocationException {
+  protected void generateObjectiveFunction() throws MarketAllocationException {
     // Create the objective function, i.e., the sum of all the prices.
-    IloLinearNumExpr objective = this.cplex.linearNumExpr();
-    for (G good : this.allocatedMarket.getMarket().getGoods()) {
-      for (B bidder : this.allocatedMarket.getMarket().getBidders()) {
-        objective.addTerm(this.allocatedMarket.getAllocation(good, bidder), this.prices[this.goodToPriceIndex.get(good)]);
+    LinearExpression objective = new LinearExpression();
+    for (int i = 0; i < this.allocatedMarket.getMarket().getNumberGoods(); i++) {
+      if (this.allocatedMarket.allocationFromGood(i) > 0) {
+        objective.addTerm(this.allocatedMarket.allocationFromGood(i), this.prices[i]);
       }
     }
-    this.cplex.addMaximize(objective);
+    this.model.maximize(objective);
   }
 
   /**
-   * This method generate the compact conditions.
+   * Tells whether the LP includes the compact conditions. If so, goods whose prices the compact conditions force to be equal share a price variable.
+   * 
+   * @return true by default. Subclasses that do not call generateCompactConditions must return false.
+   */
+  protected boolean usesCompactConditions() {
+    return true;
+  }
+
+  /**
+   * This method generate the compact conditions. For each good i allocated to bidder j, and each good k demanded by j that does not supply all of its
+   * copies to j, the condition reads Price(i) <= Price(k). These conditions are first collected in a CompactConditionGraph: goods in the same equality
+   * class share a price variable (see initVariables), and only the transitive reduction between classes is added to the model, in one call.
    * 
-   * @throws IloException
-   *           in case the LP failed.
    * @throws MarketAllocationException
    */
-  protected void generateCompactConditions() throws IloException, MarketAllocationException {
-    if (this.verbose) {
-      System.out.println("--- Start to generate Compact Conditions ---");
+  protected void generateCompactConditions() throws MarketAllocationException {
+    if (this.compactConditionGraph == null) {
+      this.compactConditionGraph = new CompactConditionGraph<M, G, B>(this.allocatedMarket);
     }
-    for (G good_i : this.allocatedMarket.getMarket().getGoods()) {
-      for (B bidder : this.allocatedMarket.getMarket().getBidders()) {
-        if (this.allocatedMarket.getAllocation(good_i, bidder) > 0) {
-          // In this case we have to add a condition for the compact condition.
-          for (G good_k : this.allocatedMarket.getMarket().getGoods()) {
-            // If good k is connected to bidder j, and good k does not supply all of its items to bidder j.
-            if (good_i != good_k && bidder.demandsGood(good_k) && this.allocatedMarket.getAllocation(good_k, bidder) < good_k.getSupply()) {
-              if (this.verbose) {
-                System.out.println("Add compact condition for good " + good_k + " on bidder " + bidder + ", where x = "
-                    + this.allocatedMarket.getAllocation(good_k, bidder));
-                System.out.println("\t Price(" + good_i + ") <= Price(" + good_k + ")");
-              }
-              this.linearConstrains.add(this.cplex.addLe(
-                  this.cplex.sum(this.cplex.prod(-1.0, this.prices[this.goodToPriceIndex.get(good_k)]),
-                      this.cplex.prod(1.0, this.prices[this.goodToPriceIndex.get(good_i)])), 0.0));
-            }
-          }
-        }
+    CompactConditionGraph<M, G, B> graph = this.compactConditionGraph;
+    // The price variable of the first good of each class represents the class. Other goods of the class get an equality, unless they share it already.
+    int[] classPrice = new int[graph.getNumberClasses()];
+    Arrays.fill(classPrice, -1);
+    int count = 0;
+    for (int i = 0; i < this.prices.length; i++) {
+      int c = graph.getEquivalenceClass(i);
+      if (classPrice[c] < 0) {
+        classPrice[c] = this.prices[i];
+      } else if (classPrice[c] != this.prices[i]) {
+        count++;
+      }
+    }
+    int numberRows = count + graph.getNumberEdges();
+    int[] start = new int[numberRows + 1];
+    int[] variables = new int[2 * numberRows];
+    double[] coefficients = new double[2 * numberRows];
+    double[] lower = new double[numberRows];
+    double[] upper = new double[numberRows];
+    for (int r = 0; r < numberRows; r++) {
+      start[r + 1] = 2 * (r + 1);
+      coefficients[2 * r] = 1.0;
+      coefficients[2 * r + 1] = -1.0;
+    }
+    count = 0;
+    for (int i = 0; i < this.prices.length; i++) {
+      int c = graph.getEquivalenceClass(i);
+      if (classPrice[c] != this.prices[i]) {
+        variables[2 * count] = this.prices[i];
+        variables[2 * count + 1] = classPrice[c];
+        count++;
       }
     }
-    if (this.verbose)
-      System.out.println("--- End generate Compact Conditions ---");
+    for (int e = 0; e < graph.getNumberEdges(); e++) {
+      variables[2 * count] = classPrice[graph.getEdgeSource(e)];
+      variables[2 * count + 1] = classPrice[graph.getEdgeTarget(e)];
+      lower[count] = Double.NEGATIVE_INFINITY;
+      count++;
+    }
+    this.model.addRows(numberRows, start, variables, coefficients, lower, upper);
+    if (this.verbose) {
+      System.out.println("Compact conditions: " + graph.getNumberGoodEdges() + " distinct pairs of goods, " + graph.getNumberClasses()
+          + " equality classes, " + graph.getNumberEdges() + " conditions after transitive reduction.");
+    }
   }
 
   /**
    * This method generates the individual rationality conditions. The individual rationality condition states that winners do not pay more than their reward.
    * 
-   * @throws IloException
-   *           in case the LP failed.
    * @throws MarketAllocationException
    */
-  protected void generateIndividualRationalityConditions() throws IloException, MarketAllocationException {
-    for (B bidder : this.allocatedMarket.getMarket().getBidders()) {
-      // Check if this bidder received at least one copy of a good.
-      if (!this.allocatedMarket.isBidderBundleZero(bidder)) {
-        IloLinearNumExpr lhs = cplex.linearNumExpr();
-        for (G good : this.allocatedMarket.getMarket().getGoods()) {
-          if (this.allocatedMarket.getAllocation(good, bidder) > 0) {
-            lhs.addTerm(this.allocatedMarket.getAllocation(good, bidder), this.prices[this.goodToPriceIndex.get(good)]);
-          }
+  protected void generateIndividualRationalityConditions() throws MarketAllocationException {
+    Market<G, B> market = this.allocatedMarket.getMarket();
+    int numberBidders = market.getNumberBidders();
+    int[] nonZeroEntries = this.allocatedMarket.getNonZeroEntries();
+    // Bucket the non-zero entries of the allocation by bidder: one row per bidder that received at least one copy of a good.
+    int[] row = new int[numberBidders];
+    Arrays.fill(row, -1);
+    int count = 0;
+    int[] length = new int[numberBidders];
+    for (int position : nonZeroEntries) {
+      int j = position % numberBidders;
+      if (row[j] < 0) {
+        row[j] = count++;
+      }
+      length[row[j]]++;
+    }
+    int[] start = new int[count + 1];
+    for (int r = 0; r < count; r++) {
+      start[r + 1] = start[r] + length[r];
+    }
+    int[] next = Arrays.copyOf(start, count);
+    int[] variables = new int[start[count]];
+    double[] coefficients = new double[start[count]];
+    for (int position : nonZeroEntries) {
+      int i = position / numberBidders;
+      int j = position % numberBidders;
+      variables[next[row[j]]] = this.prices[i];
+      coefficients[next[row[j]]++] = this.allocatedMarket.getAllocation(i, j);
+    }
+    // Goods in the same equality class share a price variable, so merge repeated variables within each row.
+    int[] termPosition = new int[this.model.getNumberVariables()];
+    Arrays.fill(termPosition, -1);
+    int terms = 0;
+    for (int r = 0; r < count; r++) {
+      int rowStart = terms;
+      for (int t = start[r]; t < start[r + 1]; t++) {
+        int variable = variables[t];
+        double coefficient = coefficients[t];
+        int position = termPosition[variable];
+        if (position < rowStart) {
+          position = terms++;
+          termPosition[variable] = position;
+          variables[position] = variable;
+          coefficients[position] = 0.0;
         }
-        this.linearConstrains.add(cplex.addLe(lhs, this.allocatedMarket.marginalValue(bidder)));
+        coefficients[position] += coefficient;
+      }
+      start[r] = rowStart;
+    }
+    start[count] = terms;
+    double[] lower = new double[count];
+    double[] upper = new double[count];
+    Arrays.fill(lower, Double.NEGATIVE_INFINITY);
+    for (int j = 0; j < numberBidders; j++) {
+      if (row[j] >= 0) {
+        upper[row[j]] = this.allocatedMarket.marginalValue(market.getBidders().get(j));
       }
     }
+    this.model.addRows(count, start, variables, coefficients, lower, upper);
   }
 
   /**
    * This method implements conditions so that the vector of prices is not unbounded. We will simply constrain the price of a good to be that of the highest
-   * reward of the market.
-   * 
-   * @throws IloException
-   *           in case the LP failed
+   * reward of the market. The conditions are bounds on the price variables rather than constraints.
    */
-  protected void generateBoundConditions() throws IloException {
+  protected void generateBoundConditions() {
     double highestReward = this.allocatedMarket.getMarket().getHighestReward();
-    for (G good : this.allocatedMarket.getMarket().getGoods()) {
-      this.linearConstrains.add(this.cplex.addLe(this.prices[this.goodToPriceIndex.get(good)], Math.ceil(highestReward)));
+    for (int i = 0; i < this.prices.length; i++) {
+      this.model.restrictBounds(this.prices[i], -Double.MAX_VALUE, Math.ceil(highestReward));
     }
   }
 
@@ -190,40 +294,41 @@ public class RestrictedEnvyFreePricesLP<M extends Market<G, B>, G extends Goods,
   /**
    * This method generates the market clearance conditions. This conditions states that prices of unallocated classes must be zero.
    * 
-   * @throws IloException
-   *           - in case the LP failed.
    * @throws MarketAllocationException
    */
-  protected void generateMarketClearanceConditions() throws IloException, MarketAllocationException {
+  protected void generateMarketClearanceConditions() throws MarketAllocationException {
     System.out.println("In RestrictedEnvyFreePricesLP, generateMarketClearanceConditions = 0");
-    for (G good : this.allocatedMarket.getMarket().getGoods()) {
-      if (this.allocatedMarket.allocationFromGood(good) == 0) {
-        this.linearConstrains.add(this.cplex.addLe(this.prices[this.goodToPriceIndex.get(good)], 0.0));
-        this.linearConstrains.add(this.cplex.addGe(this.prices[this.goodToPriceIndex.get(good)], 0.0));
+    for (int i = 0; i < this.allocatedMarket.getMarket().getNumberGoods(); i++) {
+      if (this.allocatedMarket.allocationFromGood(i) == 0) {
+        this.model.restrictBounds(this.prices[i], 0.0, 0.0);
       }
     }
   }
 
   /**
    * Initializes the LP variables.
-   * 
-   * @throws IloException
    */
-  protected void initVariables() throws IloException {
-    // Create Cplex variables.
-    this.linearConstrains = new ArrayList<IloRange>();
-    this.cplex.setParam(IloCplex.BooleanParam.PreInd, false);
+  protected void initVariables() {
     // Create the variables. Vector of prices.
-    this.prices = this.cplex.numVarArray(this.allocatedMarket.getMarket().getNumberGoods(), 0.0, Double.MAX_VALUE);
+    if (!this.usesCompactConditions()) {
+      this.prices = this.model.addVariables(this.allocatedMarket.getMarket().getNumberGoods(), 0.0, Double.MAX_VALUE, false);
+      return;
+    }
+    // One variable per equality class of the compact conditions.
+    this.compactConditionGraph = new CompactConditionGraph<M, G, B>(this.allocatedMarket);
+    int[] classPrice = this.model.addVariables(this.compactConditionGraph.getNumberClasses(), 0.0, Double.MAX_VALUE, false);
+    this.prices = new int[this.allocatedMarket.getMarket().getNumberGoods()];
+    for (int i = 0; i < this.prices.length; i++) {
+      this.prices[i] = classPrice[this.compactConditionGraph.getEquivalenceClass(i)];
+    }
   }
 
   /**
    * Initializes the LP constraints.
    * 
-   * @throws IloException
    * @throws MarketAllocationException
    */
-  protected void createConstraints() throws IloException, MarketAllocationException {
+  protected void createConstraints() throws MarketAllocationException {
     this.generateCompactConditions();
     this.generateIndividualRationalityConditions();
     this.generateBoundConditions();
@@ -237,12 +342,23 @@ public class RestrictedEnvyFreePricesLP<M extends Market<G, B>, G extends Goods,
    * 
    * @throws MarketAllocationException
    * @throws IloException
+   *           kept for compatibility with callers; the LP itself is built with util.solver.
    */
   public void createLP() throws MarketAllocationException, IloException {
     if (!this.lpCreated) {
-      if (!this.verbose) {
-        this.cplex.setOut(null);
+      if (this.cache != null) {
+        try {
+          this.cachedSolution = this.cache.get(this.getClass(), this.allocatedMarket, this.getReserve(), this.marketClearanceConditions);
+        } catch (PrincingAlgoException e) {
+          throw new MarketAllocationException(e.getMessage());
+        }
+        if (this.cachedSolution != null) {
+          this.lpCreated = true;
+          return;
+        }
       }
+      this.model = new LinearModel();
+      this.model.setVerbose(this.verbose);
       // Initialize variables
       this.initVariables();
       // Create Objective Function.
@@ -254,7 +370,7 @@ public class RestrictedEnvyFreePricesLP<M extends Market<G, B>, G extends Goods,
   }
 
   /**
-   * This method solves the LP.
+   * This method solves the LP. The model is kept, so the LP can be solved again without creating it again.
    * 
    * @return an EnvyFreePricesSolutionLP object with the solution of the LP.
    * @throws PrincingAlgoException
@@ -263,24 +379,35 @@ public class RestrictedEnvyFreePricesLP<M extends Market<G, B>, G extends Goods,
     if (!this.lpCreated) {
       throw new PrincingAlgoException("To solve for restricted envy-free prices, you must first create the LP.");
     }
+    if (this.cachedSolution != null) {
+      return this.cachedSolution;
+    }
     RestrictedEnvyFreePricesLPSolution<M, G, B> Solution = new RestrictedEnvyFreePricesLPSolution<M, G, B>(this.allocatedMarket, null, "", -1);
     try {
       // Solve the LP.
-      if (this.cplex.solve()) {
-        double[] LP_Prices = this.cplex.getValues(this.prices);
-        Builder<G, Double> result = ImmutableMap.<G, Double> builder();
-        for (G good : this.allocatedMarket.getMarket().getGoods()) {
-          result.put(good, LP_Prices[this.goodToPriceIndex.get(good)]);
-        }
-        Solution = new RestrictedEnvyFreePricesLPSolution<M, G, B>(this.allocatedMarket, result.build(), this.cplex.getStatus().toString(), this.cplex.getObjValue());
+      Solution lpSolution = (this.solver != null ? this.solver : Solvers.getProvider()).solve(this.model);
+      if (lpSolution.hasValues()) {
+        double[] LP_Prices = lpSolution.getValues(this.prices);
+        Solution = new RestrictedEnvyFreePricesLPSolution<M, G, B>(this.allocatedMarket, LP_Prices, lpSolution.getStatus().toString(), lpSolution.getObjectiveValue(),
+            lpSolution.getPrimalResidual(), lpSolution.getDualResidual(), lpSolution.getGap());
       } else {
-        Solution = new RestrictedEnvyFreePricesLPSolution<M, G, B>(this.allocatedMarket, null, this.cplex.getStatus().toString(), -1);
+        Solution = new RestrictedEnvyFreePricesLPSolution<M, G, B>(this.allocatedMarket, null, lpSolution.getStatus().toString(), -1);
+      }
+      // A solve stopped by a limit may do better next time.
+      util.solver.Solution.Status status = lpSolution.getStatus();
+      if (this.cache != null && status != util.solver.Solution.Status.Unknown && status != util.solver.Solution.Status.Feasible) {
+        this.cache.put(this.getClass(), this.allocatedMarket, this.getReserve(), this.marketClearanceConditions, Solution);
       }
       if (this.verbose) {
-        System.out.println("Solution status = " + this.cplex.getStatus());
-        System.out.println("Solution value  = " + this.cplex.getObjValue());
+        System.out.println("Solution status = " + lpSolution.getStatus());
+        if (lpSolution.hasValues()) {
+          System.out.println("Solution value  = " + lpSolution.getObjectiveValue());
+          if (lpSolution.getGap() > 0.0) {
+            System.out.println("Solution gap    = " + lpSolution.getGap());
+          }
+        }
       }
-    } catch (IloException e) {
+    } catch (SolverException e) {
       System.out.println("Exception: ==>");
       e.printStackTrace();
     }
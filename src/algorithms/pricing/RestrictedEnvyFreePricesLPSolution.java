@@ -8,8 +8,6 @@ import structures.MarketOutcome;
 import structures.exceptions.MarketAllocationException;
 import structures.exceptions.MarketOutcomeException;
 
-import com.google.common.collect.ImmutableMap;
-
 /**
  * This class stores the resulting envy-free prices from LP.
  * It extends MarketPrices.
@@ -29,12 +27,41 @@ public class RestrictedEnvyFreePricesLPSolution<M extends Market<G, B>, G extend
   protected final double optimalValue;
 
   /**
-   * Constructor. Receives no parameters.
+   * Relative primal residual, dual residual and duality gap achieved by the solver. Zero for exact solvers; see util.solver.PdhgSolver.
+   */
+  protected final double primalResidual, dualResidual, gap;
+
+  /**
+   * Constructor.
+   * 
+   * @param marketAllocation - the allocation for which prices were computed.
+   * @param prices - the price of each good, indexed by good index, or null if the LP has no solution.
+   * @param Status - the LP status.
+   * @param optimalValue - the optimal value of the LP.
    */
-  public RestrictedEnvyFreePricesLPSolution(MarketAllocation<M, G, B> marketAllocation, ImmutableMap<G, Double> prices, String Status, double optimalValue) {
+  public RestrictedEnvyFreePricesLPSolution(MarketAllocation<M, G, B> marketAllocation, double[] prices, String Status, double optimalValue) {
+    this(marketAllocation, prices, Status, optimalValue, 0.0, 0.0, 0.0);
+  }
+
+  /**
+   * Constructor of approximate prices.
+   * 
+   * @param marketAllocation - the allocation for which prices were computed.
+   * @param prices - the price of each good, indexed by good index, or null if the LP has no solution.
+   * @param Status - the LP status.
+   * @param optimalValue - the objective value of the LP.
+   * @param primalResidual - the relative violation of the LP constraints.
+   * @param dualResidual - the relative violation of the dual constraints.
+   * @param gap - the relative duality gap.
+   */
+  public RestrictedEnvyFreePricesLPSolution(MarketAllocation<M, G, B> marketAllocation, double[] prices, String Status, double optimalValue,
+      double primalResidual, double dualResidual, double gap) {
     super(marketAllocation, prices);
     this.Status = Status;
     this.optimalValue = optimalValue;
+    this.primalResidual = primalResidual;
+    this.dualResidual = dualResidual;
+    this.gap = gap;
   }
 
   /**
@@ -46,6 +73,44 @@ public class RestrictedEnvyFreePricesLPSolution<M extends Market<G, B>, G extend
     return this.Status;
   }
 
+  /**
+   * Getter.
+   * 
+   * @return the relative primal residual of the prices, i.e., how much they violate the envy-free conditions.
+   */
+  public double getPrimalResidual() {
+    return this.primalResidual;
+  }
+
+  /**
+   * Getter.
+   * 
+   * @return the relative dual residual.
+   */
+  public double getDualResidual() {
+    return this.dualResidual;
+  }
+
+  /**
+   * Getter.
+   * 
+   * @return the relative duality gap, i.e., how far the revenue may be from optimal.
+   */
+  public double getGap() {
+    return this.gap;
+  }
+
+  /**
+   * Gets this solution for another allocation with the same matrix, e.g., the same allocation found by another algorithm. The prices are shared.
+   * 
+   * @param marketAllocation - an allocation equal to the one of this solution.
+   * @return a solution with the prices and the LP information of this one, for the given allocation.
+   */
+  public RestrictedEnvyFreePricesLPSolution<M, G, B> withAllocation(MarketAllocation<M, G, B> marketAllocation) {
+    return new RestrictedEnvyFreePricesLPSolution<M, G, B>(marketAllocation, this.prices, this.Status, this.optimalValue, this.primalResidual,
+        this.dualResidual, this.gap);
+  }
+
   @Override
   public String toString() {
     try {
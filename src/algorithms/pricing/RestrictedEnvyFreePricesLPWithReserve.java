@@ -18,7 +18,7 @@ public class RestrictedEnvyFreePricesLPWithReserve<M extends Market<G, B>, G ext
   /**
    * The reserve price.
    */
-  private final double reserve;
+  private double reserve;
 
   /**
    * Constructor.
@@ -39,16 +39,11 @@ public class RestrictedEnvyFreePricesLPWithReserve<M extends Market<G, B>, G ext
    * @param reservePrice - reserve price.
    */
   private void setReservePrice() {
-    try {
-      if (this.verbose) {
-        System.out.println("Setting Reserve Price of " + this.reserve + " for all goods ");
-      }
-      for (Goods good : this.allocatedMarket.getMarket().getGoods()) {
-        this.linearConstrains.add(this.cplex.addGe(this.prices[this.goodToPriceIndex.get(good)], this.reserve));
-      }
-    } catch (IloException e) {
-      System.out.println("Exception: ==>");
-      e.printStackTrace();
+    if (this.verbose) {
+      System.out.println("Setting Reserve Price of " + this.reserve + " for all goods ");
+    }
+    for (int i = 0; i < this.prices.length; i++) {
+      this.model.restrictBounds(this.prices[i], this.reserve, Double.MAX_VALUE);
     }
   }
 
@@ -56,30 +51,51 @@ public class RestrictedEnvyFreePricesLPWithReserve<M extends Market<G, B>, G ext
    * This method generates the market clearance condition with reserve prices. This conditions state that unallocated items must be priced at the reserve.
    * 
    * @param reserve - reserve price
-   * @throws IloException in case the LP failed
    * @throws MarketAllocationException
    */
   @Override
-  protected void generateMarketClearanceConditions() throws IloException, MarketAllocationException {
+  protected void generateMarketClearanceConditions() throws MarketAllocationException {
     System.out.println("In RestrictedEnvyFreePricesLPWithReserve, generateMarketClearanceConditions = " + this.reserve);
-    for (G good : this.allocatedMarket.getMarket().getGoods()) {
-      if (this.allocatedMarket.allocationFromGood(good) == 0) {
-        this.linearConstrains.add(this.cplex.addLe(this.prices[this.goodToPriceIndex.get(good)], this.reserve));
-        this.linearConstrains.add(this.cplex.addGe(this.prices[this.goodToPriceIndex.get(good)], this.reserve));
+    for (int i = 0; i < this.allocatedMarket.getMarket().getNumberGoods(); i++) {
+      if (this.allocatedMarket.allocationFromGood(i) == 0) {
+        this.model.restrictBounds(this.prices[i], this.reserve, this.reserve);
       }
     }
   }
 
   /**
-   * This method creates the LP.
+   * Changes the reserve price of a created LP, so that it can be solved again for the new reserve. The reserve only enters the bounds of the prices,
+   * which are set as if the LP had been created with the new reserve; constraints are untouched.
+   * 
+   * @param reserve - the reserve price.
+   * @throws MarketAllocationException
+   */
+  void setReserve(double reserve) throws MarketAllocationException {
+    this.reserve = reserve;
+    // Every variable of the model is the price of a good, or of an equality class of goods.
+    for (int k = 0; k < this.model.getNumberVariables(); k++) {
+      this.model.setBounds(k, 0.0, Double.MAX_VALUE);
+    }
+    this.generateBoundConditions();
+    if (this.marketClearanceConditions) {
+      this.generateMarketClearanceConditions();
+    }
+    this.setReservePrice();
+  }
+
+  @Override
+  protected double getReserve() {
+    return this.reserve;
+  }
+
+  /**
+   * Initializes the LP constraints, and the reserve price of every good.
    * 
    * @throws MarketAllocationException
-   * @throws IloException 
-   *
    */
   @Override
-  public void createLP() throws MarketAllocationException, IloException {
-    super.createLP();
+  protected void createConstraints() throws MarketAllocationException {
+    super.createConstraints();
     this.setReservePrice();
   }
 
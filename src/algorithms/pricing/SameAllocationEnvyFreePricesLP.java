@@ -0,0 +1,245 @@
+package algorithms.pricing;
+
+import ilog.concert.IloException;
+
+import java.util.Arrays;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.exceptions.MarketAllocationException;
+import util.solver.Solution;
+import util.solver.SolverException;
+import util.solver.Solvers;
+import util.solver.SolverProvider;
+import algorithms.pricing.error.PrincingAlgoException;
+import algorithms.pricing.helper.PricingCache;
+
+/**
+ * Prices many (allocation, reserve) pairs of the same market, e.g., the reserve candidates of a SearchMetaHeuristic, with the LP of
+ * RestrictedEnvyFreePricesLPWithReserve, re-solving the last LP when consecutive calls price the same allocation.
+ *
+ * The LP is built by RestrictedEnvyFreePricesLPWithReserve itself, so it is the same LP for every allocation, including allocations that give bidders
+ * goods they do not demand. The reserve only enters the bounds of the prices, so pricing an equal allocation at a new reserve changes bounds and
+ * nothing else, and solvers that support it (see LinearModel.setWarmStart) resume from the previous optimal basis. Any other allocation builds a new LP:
+ * the rows are not updated entry by entry, since goods that the compact conditions force to have equal prices share a variable, and a changed entry
+ * can merge or split these classes, which changes the variables of the LP and not only some of its rows.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class SameAllocationEnvyFreePricesLP<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
+
+  /**
+   * Boolean to control whether or not to output information.
+   */
+  protected boolean verbose = false;
+
+  /**
+   * The market.
+   */
+  protected final M market;
+
+  /**
+   * The solver. Null means the default provider of util.solver.Solvers.
+   */
+  protected SolverProvider solver;
+
+  /**
+   * By default, do not set the market clearance conditions.
+   */
+  protected boolean marketClearanceConditions = false;
+
+  /**
+   * Cache of solutions of the market, or null for none.
+   */
+  protected PricingCache<M, G, B> cache;
+
+  /**
+   * The LP of the last allocation priced, or null if there is none yet.
+   */
+  private RestrictedEnvyFreePricesLPWithReserve<M, G, B> lp;
+
+  /**
+   * The allocation of the LP: its non-zero entries, their values and its objective function.
+   */
+  private int[] positions, values;
+  private Class<?> objective;
+
+  /**
+   * Number of LPs built so far.
+   */
+  private int numberOfModels = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param market - the market whose allocations will be priced.
+   */
+  public SameAllocationEnvyFreePricesLP(M market) {
+    this.market = market;
+  }
+
+  /**
+   * Setter. Sets the solver used to solve the LP.
+   *
+   * @param solver
+   *          - a SolverProvider, or null to use the default provider of util.solver.Solvers.
+   */
+  public void setSolver(SolverProvider solver) {
+    this.solver = solver;
+  }
+
+  /**
+   * Setter. Sets a cache of solutions of the market. This LP is built by RestrictedEnvyFreePricesLPWithReserve, so both share cached solutions.
+   *
+   * @param cache
+   *          - a PricingCache of the market of this object, or null for none.
+   */
+  public void setCache(PricingCache<M, G, B> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Set the verbose option.
+   *
+   * @param verbose
+   *          - a boolean, if true, then output information while solving.
+   */
+  public void setVerbose(boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  /**
+   * Setter. Set/Unset market clearance conditions, i.e., unallocated goods are priced at the reserve.
+   *
+   * @param set
+   *          - boolean. If true, set market clearance Conditions. Else, unset.
+   */
+  public void setMarketClearanceConditions(boolean set) {
+    if (set != this.marketClearanceConditions) {
+      this.lp = null;
+    }
+    this.marketClearanceConditions = set;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of LPs built so far. Calls that reuse the LP of the previous call do not build one.
+   */
+  public int getNumberOfModels() {
+    return this.numberOfModels;
+  }
+
+  /**
+   * Finds restricted envy-free prices with reserve for an allocation of the market, reusing the LP of the previous call if it priced an equal allocation.
+   *
+   * @param allocatedMarket - an allocation of the market of this object.
+   * @param reserve - the reserve price of every good.
+   * @return a RestrictedEnvyFreePricesLPSolution object.
+   * @throws MarketAllocationException
+   * @throws PrincingAlgoException in case the allocation is not of the market of this object.
+   */
+  public RestrictedEnvyFreePricesLPSolution<M, G, B> Solve(MarketAllocation<M, G, B> allocatedMarket, double reserve) throws MarketAllocationException,
+      PrincingAlgoException {
+    if (allocatedMarket.getMarket() != this.market) {
+      throw new PrincingAlgoException("The allocation must refer to the market of the LP.");
+    }
+    if (this.cache != null) {
+      RestrictedEnvyFreePricesLPSolution<M, G, B> cached = this.cache.get(RestrictedEnvyFreePricesLPWithReserve.class, allocatedMarket, reserve,
+          this.marketClearanceConditions);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    if (this.lp != null && this.isAllocationOfLP(allocatedMarket)) {
+      this.lp.setReserve(reserve);
+    } else {
+      this.createLP(allocatedMarket, reserve);
+    }
+    try {
+      Solution lpSolution = (this.solver != null ? this.solver : Solvers.getProvider()).solve(this.lp.model);
+      if (this.verbose) {
+        System.out.println("Same-allocation LP: " + this.numberOfModels + " models, status = " + lpSolution.getStatus());
+      }
+      RestrictedEnvyFreePricesLPSolution<M, G, B> solution;
+      if (lpSolution.hasValues()) {
+        solution = new RestrictedEnvyFreePricesLPSolution<M, G, B>(allocatedMarket, lpSolution.getValues(this.lp.prices), lpSolution.getStatus()
+            .toString(), lpSolution.getObjectiveValue(), lpSolution.getPrimalResidual(), lpSolution.getDualResidual(), lpSolution.getGap());
+      } else {
+        solution = new RestrictedEnvyFreePricesLPSolution<M, G, B>(allocatedMarket, null, lpSolution.getStatus().toString(), -1);
+      }
+      // A solve stopped by a limit may do better next time.
+      if (this.cache != null && lpSolution.getStatus() != Solution.Status.Unknown && lpSolution.getStatus() != Solution.Status.Feasible) {
+        this.cache.put(RestrictedEnvyFreePricesLPWithReserve.class, allocatedMarket, reserve, this.marketClearanceConditions, solution);
+      }
+      return solution;
+    } catch (SolverException e) {
+      System.out.println("Exception: ==>");
+      e.printStackTrace();
+      this.lp = null;
+      return new RestrictedEnvyFreePricesLPSolution<M, G, B>(allocatedMarket, null, "", -1);
+    }
+  }
+
+  /**
+   * Builds the LP of an allocation, and keeps the allocation to recognize equal ones.
+   *
+   * @param allocatedMarket - an allocation of the market.
+   * @param reserve - the reserve price of every good.
+   * @throws MarketAllocationException
+   */
+  private void createLP(MarketAllocation<M, G, B> allocatedMarket, double reserve) throws MarketAllocationException {
+    this.lp = null;
+    RestrictedEnvyFreePricesLPWithReserve<M, G, B> lp;
+    try {
+      lp = new RestrictedEnvyFreePricesLPWithReserve<M, G, B>(allocatedMarket, reserve);
+      lp.verbose = this.verbose;
+      lp.setMarketClearanceConditions(this.marketClearanceConditions);
+      lp.createLP();
+    } catch (IloException e) {
+      // Not thrown: the LP is built with util.solver.
+      throw new MarketAllocationException(e.getMessage());
+    }
+    lp.model.setWarmStart(true);
+    this.positions = allocatedMarket.getNonZeroEntries();
+    this.values = this.getValues(allocatedMarket, this.positions);
+    this.objective = (allocatedMarket.getObjectiveFunction() != null) ? allocatedMarket.getObjectiveFunction().getClass() : null;
+    this.lp = lp;
+    this.numberOfModels++;
+  }
+
+  /**
+   * Tells whether an allocation equals the allocation of the LP, i.e., has the same non-zero entries and objective function.
+   *
+   * @param allocatedMarket - an allocation of the market.
+   * @return true if the LP of the allocation is the LP kept by this object.
+   */
+  private boolean isAllocationOfLP(MarketAllocation<M, G, B> allocatedMarket) {
+    if (allocatedMarket == this.lp.allocatedMarket) {
+      return true;
+    }
+    Class<?> objective = (allocatedMarket.getObjectiveFunction() != null) ? allocatedMarket.getObjectiveFunction().getClass() : null;
+    int[] positions = allocatedMarket.getNonZeroEntries();
+    return objective == this.objective && Arrays.equals(positions, this.positions)
+        && Arrays.equals(this.getValues(allocatedMarket, positions), this.values);
+  }
+
+  /**
+   * Getter.
+   *
+   * @param allocatedMarket - an allocation of the market.
+   * @param positions - non-zero entries of the allocation.
+   * @return the value of each entry.
+   */
+  private int[] getValues(MarketAllocation<M, G, B> allocatedMarket, int[] positions) {
+    int numberBidders = this.market.getNumberBidders();
+    int[] values = new int[positions.length];
+    for (int e = 0; e < positions.length; e++) {
+      values[e] = allocatedMarket.getAllocation(positions[e] / numberBidders, positions[e] % numberBidders);
+    }
+    return values;
+  }
+
+}
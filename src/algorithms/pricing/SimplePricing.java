@@ -1,12 +1,11 @@
 package algorithms.pricing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import statistics.PricesStatistics;
 import structures.Bidder;
@@ -15,14 +14,9 @@ import structures.Market;
 import structures.MarketAllocation;
 import structures.MarketOutcome;
 import structures.comparators.BiddersComparatorByRewardToImpressionsRatio;
-import structures.comparators.MarketOutcomeComparatorBySellerRevenue;
 import structures.exceptions.MarketAllocationException;
 import allocations.objectivefunction.SingleStepObjectiveFunction;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
-
 /**
  * Implements a simple pricing scheme for size-interchangeable markets.
  * 
@@ -58,22 +52,73 @@ public class SimplePricing {
   }
 
   /**
-   * Solves for a revenue-maximizing outcome.
+   * Solves for a revenue-maximizing outcome. The candidate prices are the reward to demand ratios of the bidders, which are visited in decreasing order.
+   * Bidders are allocated greedily in that order, and the bidders affordable at a price are a prefix of the order, so lowering the price only allocates
+   * the next bidders: the outcome of each candidate price extends the one of the previous candidate. A single sweep over the bidders computes the
+   * revenue of every candidate price, and only the outcome of the best one is built.
    * 
    * @throws MarketAllocationException
    */
   public PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> Solve() throws MarketAllocationException {
-    Set<Double> seenPrices = new HashSet<Double>();
-    List<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>> listOfOutcomes = new ArrayList<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>>();
-    for (Bidder<Goods> bidder : this.orderedBidders) {
-      double price = bidder.getReward() / bidder.getDemand();
-      if (!seenPrices.contains(price)) {
-        listOfOutcomes.add(this.computeOutcome(price));
-        seenPrices.add(price);
+    int[] bidderToGoodsOffsets = this.market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.market.getBidderToGoods();
+    int[] supply = new int[this.market.getNumberGoods()];
+    for (int i = 0; i < supply.length; i++) {
+      supply[i] = this.market.getGoods().get(i).getSupply();
+    }
+    // The allocation of the sweep, as (good, bidder, quantity) entries in the order they are made.
+    int[] entryGood = new int[bidderToGoods.length];
+    int[] entryBidder = new int[bidderToGoods.length];
+    int[] entryQuantity = new int[bidderToGoods.length];
+    int numberEntries = 0;
+    int allocatedUnits = 0;
+    // Best candidate price so far, and the number of entries of its allocation.
+    double bestPrice = 0.0;
+    double bestRevenue = Double.NEGATIVE_INFINITY;
+    int bestNumberEntries = 0;
+    int next = 0;
+    for (int b = 0; b < this.orderedBidders.size(); b++) {
+      double price = this.orderedBidders.get(b).getReward() / this.orderedBidders.get(b).getDemand();
+      if (b > 0 && price == this.orderedBidders.get(b - 1).getReward() / this.orderedBidders.get(b - 1).getDemand()) {
+        continue;
+      }
+      // Allocate the bidders that became affordable at this price.
+      while (next < this.orderedBidders.size() && this.isAffordable(price, this.orderedBidders.get(next))) {
+        Bidder<Goods> bidder = this.orderedBidders.get(next++);
+        int j = this.market.getBidderIndex(bidder);
+        if (this.isSatisfiable(j, bidder.getDemand(), supply)) {
+          int total = 0;
+          // Visit the goods demanded by the bidder, in the order of the market's goods.
+          for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1] && total < bidder.getDemand(); e++) {
+            int i = bidderToGoods[e];
+            int alloc = Math.min(supply[i], bidder.getDemand() - total);
+            if (alloc > 0) {
+              total += alloc;
+              supply[i] -= alloc;
+              entryGood[numberEntries] = i;
+              entryBidder[numberEntries] = j;
+              entryQuantity[numberEntries++] = alloc;
+            }
+          }
+          allocatedUnits += total;
+        }
+      }
+      // Ties go to the highest price.
+      if (price * allocatedUnits > bestRevenue) {
+        bestRevenue = price * allocatedUnits;
+        bestPrice = price;
+        bestNumberEntries = numberEntries;
       }
     }
-    Collections.sort(listOfOutcomes, new MarketOutcomeComparatorBySellerRevenue<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>());
-    return new PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(listOfOutcomes.get(0), System.nanoTime() - this.startTime);
+    MarketAllocation.Builder<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = MarketAllocation
+        .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(this.market);
+    for (int e = 0; e < bestNumberEntries; e++) {
+      allocation.set(entryGood[e], entryBidder[e], entryQuantity[e]);
+    }
+    double[] prices = new double[this.market.getNumberGoods()];
+    Arrays.fill(prices, bestPrice);
+    return new PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        allocation.build(new SingleStepObjectiveFunction()), prices), System.nanoTime() - this.startTime);
   }
 
   /**
@@ -91,37 +136,34 @@ public class SimplePricing {
       supply.put(good, good.getSupply());
     }
     // Initialize Allocation.
-    HashBasedTable<Goods, Bidder<Goods>, Integer> allocation = HashBasedTable.create();
-    for (Goods good : this.market.getGoods()) {
-      for (Bidder<Goods> bidder : this.market.getBidders()) {
-        allocation.put(good, bidder, 0);
-      }
-    }
+    MarketAllocation.Builder<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = MarketAllocation
+        .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(this.market);
     // Allocate Bidders.
+    int[] bidderToGoodsOffsets = this.market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.market.getBidderToGoods();
     for (Bidder<Goods> bidder : this.orderedBidders) {
       if (this.isSatisfiable(price, bidder, supply)) {
         int total = 0;
-        for (Goods good : this.market.getGoods()) {
-          if (bidder.demandsGood(good)) {
-            int alloc = Math.min(supply.get(good), bidder.getDemand() - total);
-            total += alloc;
-            supply.put(good, supply.get(good) - alloc);
-            allocation.put(good, bidder, alloc);
-            // Optimization: break if this bidder is already satisfied.
-            if (bidder.getDemand() - total == 0) {
-              break;
-            }
+        int j = this.market.getBidderIndex(bidder);
+        // Visit the goods demanded by the bidder, in the order of the market's goods.
+        for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+          int i = bidderToGoods[e];
+          Goods good = this.market.getGoods().get(i);
+          int alloc = Math.min(supply.get(good), bidder.getDemand() - total);
+          total += alloc;
+          supply.put(good, supply.get(good) - alloc);
+          allocation.set(i, j, alloc);
+          // Optimization: break if this bidder is already satisfied.
+          if (bidder.getDemand() - total == 0) {
+            break;
           }
         }
       }
     }
     // Prices
-    Builder<Goods, Double> prices = ImmutableMap.<Goods, Double> builder();
-    for (Goods good : this.market.getGoods()) {
-      prices.put(good, price);
-    }
-    return new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(new MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
-        this.market, allocation, new SingleStepObjectiveFunction()), prices.build());
+    double[] prices = new double[this.market.getNumberGoods()];
+    Arrays.fill(prices, price);
+    return new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(allocation.build(new SingleStepObjectiveFunction()), prices);
   }
 
   /**
@@ -133,8 +175,7 @@ public class SimplePricing {
    * @return true if and only if the bidder can be allocated at the given prices and the remaining supply.
    */
   public boolean isSatisfiable(double price, Bidder<Goods> bidder, Map<Goods, Integer> supply) {
-    // Numerical tolerance.
-    if (price * bidder.getDemand() - bidder.getReward() > 0.000000000001) {
+    if (!this.isAffordable(price, bidder)) {
       return false;
     } else {
       int totalAvailableSupply = 0;
@@ -150,4 +191,37 @@ public class SimplePricing {
     return false;
   }
 
+  /**
+   * Given a single price for all items and a bidder, returns true if the bidder can afford its bundle at the given price.
+   * 
+   * @param price
+   * @param bidder
+   * @return true if and only if the bundle of the bidder costs at most its reward, up to a numerical tolerance.
+   */
+  private boolean isAffordable(double price, Bidder<Goods> bidder) {
+    // Numerical tolerance.
+    return price * bidder.getDemand() - bidder.getReward() <= 0.000000000001;
+  }
+
+  /**
+   * Returns true if there are enough impressions left to satisfy a bidder.
+   * 
+   * @param j - the index of the bidder.
+   * @param demand - the demand of the bidder.
+   * @param supply - the remaining supply, by good index.
+   * @return true if and only if the goods demanded by the bidder have at least its demand in remaining supply.
+   */
+  private boolean isSatisfiable(int j, int demand, int[] supply) {
+    int[] bidderToGoodsOffsets = this.market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.market.getBidderToGoods();
+    int totalAvailableSupply = 0;
+    for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+      totalAvailableSupply += supply[bidderToGoods[e]];
+      if (totalAvailableSupply >= demand) {
+        return true;
+      }
+    }
+    return false;
+  }
+
 }
@@ -0,0 +1,246 @@
+package algorithms.pricing.helper;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+
+/**
+ * The compact conditions of an allocation as a directed graph on goods: there is an edge from good i to good k if i is allocated to a bidder that
+ * demands k and k does not supply all of its copies to that bidder, meaning that Price(i) <= Price(k). The same pair of goods may be linked through
+ * many bidders, and most pairs are implied by others through transitivity.
+ *
+ * This class reduces the graph before it becomes an LP. Goods in the same strongly connected component must have equal prices, so each component is
+ * an equality class that needs a single price variable. The components form a directed acyclic graph, of which only the transitive reduction is kept:
+ * an edge between classes is dropped if its target can be reached through other edges. The remaining edges imply all of the original conditions.
+ *
+ * The reduction uses one bit set of descendants per class, i.e., memory quadratic in the number of classes.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class CompactConditionGraph<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
+
+  /**
+   * The class of each good. Classes are numbered so that every edge goes from a higher to a lower class.
+   */
+  private final int[] goodToClass;
+
+  /**
+   * Number of equality classes.
+   */
+  private final int numberClasses;
+
+  /**
+   * Edges of the transitive reduction, as pairs of classes: Price(edgeSource[e]) <= Price(edgeTarget[e]).
+   */
+  private final int[] edgeSource, edgeTarget;
+
+  /**
+   * Number of distinct edges between different goods, before the reduction.
+   */
+  private final int numberGoodEdges;
+
+  /**
+   * Constructor.
+   *
+   * @param allocatedMarket - a MarketAllocation object.
+   */
+  public CompactConditionGraph(MarketAllocation<M, G, B> allocatedMarket) {
+    Market<G, B> market = allocatedMarket.getMarket();
+    int numberGoods = market.getNumberGoods();
+    int numberBidders = market.getNumberBidders();
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    // Collect the distinct edges of each good. The non-zero entries are sorted by good, so a marker per target suffices to drop repeated edges.
+    int[] start = new int[numberGoods + 1];
+    int[] target = new int[16];
+    int[] marker = new int[numberGoods];
+    Arrays.fill(marker, -1);
+    int numberEdges = 0;
+    int current = 0;
+    for (int position : allocatedMarket.getNonZeroEntries()) {
+      int i = position / numberBidders;
+      int j = position % numberBidders;
+      while (current < i) {
+        start[++current] = numberEdges;
+      }
+      for (int f = bidderToGoodsOffsets[j]; f < bidderToGoodsOffsets[j + 1]; f++) {
+        int k = bidderToGoods[f];
+        if (i != k && marker[k] != i && allocatedMarket.getAllocation(k, j) < market.getGoods().get(k).getSupply()) {
+          marker[k] = i;
+          if (numberEdges == target.length) {
+            target = Arrays.copyOf(target, 2 * numberEdges);
+          }
+          target[numberEdges++] = k;
+        }
+      }
+    }
+    while (current < numberGoods) {
+      start[++current] = numberEdges;
+    }
+    this.numberGoodEdges = numberEdges;
+    this.goodToClass = new int[numberGoods];
+    this.numberClasses = CompactConditionGraph.stronglyConnectedComponents(numberGoods, start, target, this.goodToClass);
+    // Edges between classes, without repetitions, grouped by source class.
+    int[] classStart = new int[this.numberClasses + 1];
+    for (int i = 0; i < numberGoods; i++) {
+      classStart[this.goodToClass[i] + 1] += start[i + 1] - start[i];
+    }
+    for (int c = 0; c < this.numberClasses; c++) {
+      classStart[c + 1] += classStart[c];
+    }
+    int[] next = Arrays.copyOf(classStart, this.numberClasses);
+    int[] classTarget = new int[numberEdges];
+    for (int i = 0; i < numberGoods; i++) {
+      for (int e = start[i]; e < start[i + 1]; e++) {
+        classTarget[next[this.goodToClass[i]]++] = this.goodToClass[target[e]];
+      }
+    }
+    // Transitive reduction. Classes are visited in increasing order, i.e., descendants first. The successors of a class are visited in decreasing order,
+    // i.e., closest first, so that a successor reachable from another one is already among the descendants when it is visited.
+    BitSet[] descendants = new BitSet[this.numberClasses];
+    int[] source = new int[numberEdges];
+    int[] reducedTarget = new int[numberEdges];
+    int count = 0;
+    for (int c = 0; c < this.numberClasses; c++) {
+      descendants[c] = new BitSet();
+      int[] successors = Arrays.copyOfRange(classTarget, classStart[c], classStart[c + 1]);
+      Arrays.sort(successors);
+      for (int s = successors.length - 1; s >= 0; s--) {
+        int d = successors[s];
+        if (d != c && !descendants[c].get(d)) {
+          source[count] = c;
+          reducedTarget[count++] = d;
+          descendants[c].set(d);
+          descendants[c].or(descendants[d]);
+        }
+      }
+    }
+    this.edgeSource = Arrays.copyOf(source, count);
+    this.edgeTarget = Arrays.copyOf(reducedTarget, count);
+  }
+
+  /**
+   * Computes the strongly connected components of a graph with Tarjan's algorithm, without recursion. Components are numbered in the order they are
+   * completed, so every edge between components goes from a higher to a lower number.
+   *
+   * @param n - the number of nodes.
+   * @param start - the position of the first edge of each node in target, and the number of edges at position n.
+   * @param target - the target of each edge.
+   * @param component - receives the component of each node.
+   * @return the number of components.
+   */
+  private static int stronglyConnectedComponents(int n, int[] start, int[] target, int[] component) {
+    int[] index = new int[n];
+    int[] lowLink = new int[n];
+    int[] nextEdge = new int[n];
+    boolean[] onStack = new boolean[n];
+    int[] stack = new int[n];
+    int[] callStack = new int[n];
+    Arrays.fill(index, -1);
+    int counter = 0, stackSize = 0, numberComponents = 0;
+    for (int root = 0; root < n; root++) {
+      if (index[root] >= 0) {
+        continue;
+      }
+      int depth = 0;
+      callStack[depth++] = root;
+      index[root] = lowLink[root] = counter++;
+      nextEdge[root] = start[root];
+      stack[stackSize++] = root;
+      onStack[root] = true;
+      while (depth > 0) {
+        int v = callStack[depth - 1];
+        if (nextEdge[v] < start[v + 1]) {
+          int w = target[nextEdge[v]++];
+          if (index[w] < 0) {
+            index[w] = lowLink[w] = counter++;
+            nextEdge[w] = start[w];
+            stack[stackSize++] = w;
+            onStack[w] = true;
+            callStack[depth++] = w;
+          } else if (onStack[w]) {
+            lowLink[v] = Math.min(lowLink[v], index[w]);
+          }
+        } else {
+          depth--;
+          if (depth > 0) {
+            int parent = callStack[depth - 1];
+            lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+          }
+          if (lowLink[v] == index[v]) {
+            int w;
+            do {
+              w = stack[--stackSize];
+              onStack[w] = false;
+              component[w] = numberComponents;
+            } while (w != v);
+            numberComponents++;
+          }
+        }
+      }
+    }
+    return numberComponents;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of equality classes.
+   */
+  public int getNumberClasses() {
+    return this.numberClasses;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param i - a good index.
+   * @return the equality class of good i.
+   */
+  public int getEquivalenceClass(int i) {
+    return this.goodToClass[i];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of edges of the transitive reduction.
+   */
+  public int getNumberEdges() {
+    return this.edgeSource.length;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param e - an edge of the transitive reduction.
+   * @return the class whose price is at most that of getEdgeTarget(e).
+   */
+  public int getEdgeSource(int e) {
+    return this.edgeSource[e];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param e - an edge of the transitive reduction.
+   * @return the class whose price is at least that of getEdgeSource(e).
+   */
+  public int getEdgeTarget(int e) {
+    return this.edgeTarget[e];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of distinct edges between goods before merging classes and reducing.
+   */
+  public int getNumberGoodEdges() {
+    return this.numberGoodEdges;
+  }
+
+}
@@ -0,0 +1,206 @@
+package algorithms.pricing.helper;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import algorithms.pricing.RestrictedEnvyFreePricesLPSolution;
+import algorithms.pricing.error.PrincingAlgoException;
+
+/**
+ * A cache of pricing LP solutions for the allocations of one market. Different allocation algorithms, or the same algorithm with neighbouring reserves,
+ * often produce the same allocation matrix, and then the same LP. A solution is looked up by the allocation matrix and the options that define the
+ * LP: the formulation (the class of the pricing LP), the objective function of the allocation (which sets the individual rationality bounds), the
+ * reserve price and the market clearance flag. Objective functions have no state, so their class identifies them. A class that solves the LP of
+ * another one by building it with that class (as SameAllocationEnvyFreePricesLP does) may use it as formulation.
+ *
+ * The cache holds at most a given number of solutions and evicts the least recently used one. It can be shared by several threads.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class PricingCache<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
+
+  /**
+   * Default maximum number of solutions.
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+  /**
+   * The market whose allocations are priced.
+   */
+  private final M market;
+
+  /**
+   * Solutions by key, in access order.
+   */
+  private final LinkedHashMap<PricingCache.Key, RestrictedEnvyFreePricesLPSolution<M, G, B>> solutions;
+
+  /**
+   * Number of lookups that found a solution, and that did not.
+   */
+  private int hits, misses;
+
+  /**
+   * Constructor.
+   *
+   * @param market - the market whose allocations are priced.
+   * @param maximumSize - the maximum number of solutions.
+   */
+  public PricingCache(M market, final int maximumSize) {
+    this.market = market;
+    this.solutions = new LinkedHashMap<PricingCache.Key, RestrictedEnvyFreePricesLPSolution<M, G, B>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<PricingCache.Key, RestrictedEnvyFreePricesLPSolution<M, G, B>> eldest) {
+        return this.size() > maximumSize;
+      }
+    };
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param market - the market whose allocations are priced.
+   */
+  public PricingCache(M market) {
+    this(market, PricingCache.DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Looks up the solution of a pricing LP.
+   *
+   * @param formulation - the class of the pricing LP.
+   * @param allocatedMarket - an allocation of the market of this cache.
+   * @param reserve - the reserve price of every good.
+   * @param marketClearanceConditions - whether unallocated goods are priced at the reserve.
+   * @return the solution for allocatedMarket, or null if there is none.
+   * @throws PrincingAlgoException in case the allocation is not of the market of this cache.
+   */
+  public synchronized RestrictedEnvyFreePricesLPSolution<M, G, B> get(Class<?> formulation, MarketAllocation<M, G, B> allocatedMarket, double reserve,
+      boolean marketClearanceConditions) throws PrincingAlgoException {
+    RestrictedEnvyFreePricesLPSolution<M, G, B> solution = this.solutions.get(this.key(formulation, allocatedMarket, reserve, marketClearanceConditions));
+    if (solution == null) {
+      this.misses++;
+      return null;
+    }
+    this.hits++;
+    return (solution.getMarketAllocation() == allocatedMarket) ? solution : solution.withAllocation(allocatedMarket);
+  }
+
+  /**
+   * Stores the solution of a pricing LP.
+   *
+   * @param formulation - the class of the pricing LP.
+   * @param allocatedMarket - an allocation of the market of this cache.
+   * @param reserve - the reserve price of every good.
+   * @param marketClearanceConditions - whether unallocated goods are priced at the reserve.
+   * @param solution - the solution of the LP for allocatedMarket.
+   * @throws PrincingAlgoException in case the allocation is not of the market of this cache.
+   */
+  public synchronized void put(Class<?> formulation, MarketAllocation<M, G, B> allocatedMarket, double reserve, boolean marketClearanceConditions,
+      RestrictedEnvyFreePricesLPSolution<M, G, B> solution) throws PrincingAlgoException {
+    this.solutions.put(this.key(formulation, allocatedMarket, reserve, marketClearanceConditions), solution);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of solutions in the cache.
+   */
+  public synchronized int size() {
+    return this.solutions.size();
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of lookups that found a solution.
+   */
+  public synchronized int getHits() {
+    return this.hits;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of lookups that did not find a solution.
+   */
+  public synchronized int getMisses() {
+    return this.misses;
+  }
+
+  /**
+   * Builds the key of a pricing LP.
+   *
+   * @param formulation - the class of the pricing LP.
+   * @param allocatedMarket - an allocation of the market of this cache.
+   * @param reserve - the reserve price.
+   * @param marketClearanceConditions - the market clearance flag.
+   * @return the key.
+   * @throws PrincingAlgoException in case the allocation is not of the market of this cache.
+   */
+  private PricingCache.Key key(Class<?> formulation, MarketAllocation<M, G, B> allocatedMarket, double reserve, boolean marketClearanceConditions)
+      throws PrincingAlgoException {
+    if (allocatedMarket.getMarket() != this.market) {
+      throw new PrincingAlgoException("The allocation must refer to the market of the pricing cache.");
+    }
+    int[] positions = allocatedMarket.getNonZeroEntries();
+    int[] values = new int[positions.length];
+    int numberBidders = this.market.getNumberBidders();
+    for (int e = 0; e < positions.length; e++) {
+      values[e] = allocatedMarket.getAllocation(positions[e] / numberBidders, positions[e] % numberBidders);
+    }
+    Class<?> objective = (allocatedMarket.getObjectiveFunction() != null) ? allocatedMarket.getObjectiveFunction().getClass() : null;
+    return new PricingCache.Key(formulation, objective, reserve, marketClearanceConditions, positions, values);
+  }
+
+  /**
+   * Key of a pricing LP: its options and the non-zero entries of the allocation matrix. The hash is computed once.
+   */
+  private static final class Key {
+
+    private final Class<?> formulation, objective;
+    private final double reserve;
+    private final boolean marketClearanceConditions;
+    private final int[] positions, values;
+    private final int hash;
+
+    private Key(Class<?> formulation, Class<?> objective, double reserve, boolean marketClearanceConditions, int[] positions, int[] values) {
+      this.formulation = formulation;
+      this.objective = objective;
+      this.reserve = reserve;
+      this.marketClearanceConditions = marketClearanceConditions;
+      this.positions = positions;
+      this.values = values;
+      int hash = Arrays.hashCode(positions);
+      hash = 31 * hash + Arrays.hashCode(values);
+      hash = 31 * hash + Double.hashCode(reserve);
+      hash = 31 * hash + (marketClearanceConditions ? 1 : 0);
+      hash = 31 * hash + formulation.hashCode();
+      this.hash = 31 * hash + ((objective != null) ? objective.hashCode() : 0);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof PricingCache.Key)) {
+        return false;
+      }
+      PricingCache.Key key = (PricingCache.Key) other;
+      return this.hash == key.hash && this.formulation == key.formulation && this.objective == key.objective
+          && Double.compare(this.reserve, key.reserve) == 0 && this.marketClearanceConditions == key.marketClearanceConditions
+          && Arrays.equals(this.positions, key.positions) && Arrays.equals(this.values, key.values);
+    }
+
+  }
+
+}
@@ -0,0 +1,109 @@
+package algorithms.pricing.reserveprices;
+
+import ilog.concert.IloException;
+
+import java.util.ArrayList;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.exceptions.AllocationException;
+import structures.exceptions.BidderCreationException;
+import structures.exceptions.GoodsException;
+import structures.exceptions.MarketAllocationException;
+import algorithms.pricing.error.PrincingAlgoException;
+import allocations.error.AllocationAlgoException;
+import allocations.interfaces.AllocationAlgo;
+
+/**
+ * This class implements an adaptive search for a revenue-maximizing reserve price. The first candidates are those of CriticalPoints (the reward over
+ * demand of each bidder, i.e., the reserves at which bidders leave the market) and of RevMaxHeuristic (the reward over quantity of each allocated
+ * bidder). Candidates are evaluated with pruning (see SearchMetaHeuristic.setPruning), so only those whose revenue upper bound beats the best revenue
+ * found are allocated and priced. Then the search refines around the best reserve: each round tries the midpoints between it and the closest reserves
+ * tried below and above it, for a given number of rounds.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class AdaptiveSearch extends SearchMetaHeuristic {
+
+  /**
+   * Number of refinement rounds.
+   */
+  protected int numberOfRefinements;
+
+  /**
+   * Default number of refinement rounds.
+   */
+  protected static final int defaultNumberOfRefinements = 8;
+
+  /**
+   * Number of refinement rounds done by the current search.
+   */
+  private int refinementRound;
+
+  /**
+   * Constructor.
+   *
+   * @param market
+   * @param AllocAlgo
+   * @throws PrincingAlgoException
+   */
+  public AdaptiveSearch(Market<Goods, Bidder<Goods>> market, AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> AllocAlgo)
+      throws PrincingAlgoException {
+    this(market, AllocAlgo, AdaptiveSearch.defaultNumberOfRefinements);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param market
+   * @param AllocAlgo
+   * @param numberOfRefinements - the number of refinement rounds around the best reserve.
+   * @throws PrincingAlgoException
+   */
+  public AdaptiveSearch(Market<Goods, Bidder<Goods>> market, AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> AllocAlgo,
+      int numberOfRefinements) throws PrincingAlgoException {
+    super(market, AllocAlgo);
+    this.numberOfRefinements = numberOfRefinements;
+    this.pruning = true;
+  }
+
+  @Override
+  protected ArrayList<Double> getListOfReservePrices() {
+    ArrayList<Double> reservePrices = new ArrayList<Double>();
+    for (Bidder<Goods> bidder : this.market.getBidders()) {
+      reservePrices.add(bidder.getReward() / (double) bidder.getDemand());
+    }
+    try {
+      MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> initialMarketAllocation = this.AllocAlgo.Solve(this.market);
+      for (int position : initialMarketAllocation.getNonZeroEntries()) {
+        int i = position / this.market.getNumberBidders();
+        int j = position % this.market.getNumberBidders();
+        reservePrices.add(this.market.getBidders().get(j).getReward() / (double) initialMarketAllocation.getAllocation(i, j));
+      }
+    } catch (IloException | MarketAllocationException | AllocationAlgoException | BidderCreationException | AllocationException | GoodsException e) {
+      System.out.println("An exception occurred in AdaptiveSearch! ");
+      e.printStackTrace();
+    }
+    this.refinementRound = 0;
+    return reservePrices;
+  }
+
+  @Override
+  protected ArrayList<Double> getRefinedReservePrices(double bestReserve, ArrayList<Double> triedReserves) {
+    if (this.refinementRound++ >= this.numberOfRefinements) {
+      return null;
+    }
+    int position = triedReserves.indexOf(bestReserve);
+    ArrayList<Double> reservePrices = new ArrayList<Double>();
+    if (position > 0) {
+      reservePrices.add((triedReserves.get(position - 1) + bestReserve) / 2.0);
+    }
+    if (position >= 0 && position + 1 < triedReserves.size()) {
+      reservePrices.add((bestReserve + triedReserves.get(position + 1)) / 2.0);
+    }
+    return reservePrices;
+  }
+
+}
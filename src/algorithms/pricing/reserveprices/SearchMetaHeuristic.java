@@ -3,10 +3,19 @@ package algorithms.pricing.reserveprices;
 import ilog.concert.IloException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import statistics.PricesStatistics;
 import structures.Bidder;
@@ -23,10 +32,12 @@ import structures.exceptions.MarketCreationException;
 import structures.exceptions.MarketOutcomeException;
 import structures.factory.reserve.BasicMarketWithReserve;
 import algorithms.pricing.RestrictedEnvyFreePricesLPSolution;
-import algorithms.pricing.RestrictedEnvyFreePricesLPWithReserve;
+import algorithms.pricing.SameAllocationEnvyFreePricesLP;
 import algorithms.pricing.error.PrincingAlgoException;
+import algorithms.pricing.helper.PricingCache;
 import allocations.error.AllocationAlgoException;
 import allocations.interfaces.AllocationAlgo;
+import allocations.objectivefunction.interfaces.ObjectiveFunction;
 
 /**
  * This abstract class implements a simple meta heuristic search. Given a list of reserve prices, find an allocation that respects reserve then price to obtain
@@ -34,10 +45,27 @@ import allocations.interfaces.AllocationAlgo;
  * 
  * The list of reserve prices must be given by an implementing class.
  * 
+ * Candidates are independent of each other, so they can be evaluated by several threads (see setParallel). Each thread then has its own allocation
+ * algorithm and pricing LP, and only the best outcomes (see setNumberOfSolutionsKept) are kept.
+ * 
  * @author Enrique Areyan Viqueira
  */
 public abstract class SearchMetaHeuristic {
 
+  /**
+   * Creates allocation algorithms, one per thread, for algorithms that are not thread-safe (e.g., OptimalAllocILP, which keeps its model in a field).
+   */
+  public static interface AllocationAlgoFactory {
+
+    /**
+     * Creates an allocation algorithm.
+     *
+     * @return a new allocation algorithm, used by a single thread.
+     */
+    public AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> create();
+
+  }
+
   /**
    * Market object.
    */
@@ -49,15 +77,56 @@ public abstract class SearchMetaHeuristic {
   protected final AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> AllocAlgo;
 
   /**
-   * ArrayList of MarketPrices.
+   * Number of threads that evaluate reserve candidates. With one thread, candidates are evaluated in the calling thread.
+   */
+  protected int numberThreads = 1;
+
+  /**
+   * Creates the allocation algorithm of each thread. If null, all threads share AllocAlgo, which must then be thread-safe (e.g., GreedyAllocation).
+   */
+  protected AllocationAlgoFactory allocAlgoFactory;
+
+  /**
+   * Maximum number of outcomes kept in setOfSolutions. By default, all outcomes are kept.
+   */
+  protected int numberOfSolutionsKept = Integer.MAX_VALUE;
+
+  /**
+   * Cache of pricing solutions of the market, or null for none.
+   */
+  protected PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> pricingCache;
+
+  /**
+   * By default, evaluate every candidate.
+   */
+  protected boolean pruning = false;
+
+  /**
+   * Number of candidates allocated and priced by the last call to Solve.
+   */
+  private final AtomicInteger numberOfEvaluations = new AtomicInteger();
+
+  /**
+   * Caps on the marginal value of each bidder, for the revenue upper bound, and bidders by decreasing cap per unit. Computed on first use.
+   */
+  private double[] maxMarginalValue, maxValuePerUnit;
+  private Integer[] biddersByValuePerUnit;
+
+  /**
+   * ArrayList of MarketPrices, sorted by decreasing seller revenue, ties broken by the position of the reserve among the candidates.
    */
   protected final ArrayList<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>> setOfSolutions = new ArrayList<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>>();
 
   /**
-   * Map from reserve to ouctome.
+   * Map from reserve to ouctome. Like setOfSolutions, it only holds the outcomes of the last call to Solve.
    */
   protected final Map<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>, Double> reserveToOutcomeMap = new HashMap<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>, Double>();
 
+  /**
+   * Position among the candidates of the reserve of each outcome in setOfSolutions.
+   */
+  private final ArrayList<Integer> candidateOfSolution = new ArrayList<Integer>();
+
   /**
    * Statistics
    */
@@ -86,6 +155,7 @@ public abstract class SearchMetaHeuristic {
   }
 
   /**
+   * Runs the search. The outcomes found by an earlier call are discarded first (see getSetOfSolutions).
    * 
    * @return
    * @throws IloException
@@ -111,41 +181,351 @@ public abstract class SearchMetaHeuristic {
       listOfReservePrices.add(0.0);
       // System.out.println("List of reserves: " + listOfReservePrices);
     }
-    for (Double reserve : listOfReservePrices) {
-      if (!seenReservePrices.contains(reserve)) {
-        // Mark the reserve price as seen.
-        seenReservePrices.add(reserve);
-        // System.out.println("---------- candidate reserve price = " + reserve);
-        // Get the market with the reserve price.
-        BasicMarketWithReserve mwrp = new BasicMarketWithReserve(this.market, reserve);
-        // System.out.println(mwrp.areThereBiddersInTheMarketWithReserve());
-        // Test if there are bidders in the market with reserve.
-        if (mwrp.areThereBiddersInTheMarketWithReserve()) {
-          // Solve for a MarketAllocation in the market with reserve.
-          MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocForMarketWithReserve = this.AllocAlgo.Solve(mwrp.getMarketWithReservePrice());
-          // Deduce a MarketAllocation for the original market.
-          MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocForOriginalMarket = mwrp.deduceAllocation(allocForMarketWithReserve);
-          // Run LP with reserve prices.
-          RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> efp = new RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(allocForOriginalMarket, reserve);
-          efp.createLP();
-          RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> refpSol = efp.Solve();
-          if (refpSol.getStatus().equals("Infeasible")) {
-            throw new PrincingAlgoException("Found an infeasible LP!");
-          }
-          this.setOfSolutions.add(refpSol);
-          this.reserveToOutcomeMap.put(refpSol, reserve);
+    // Candidates, without repetitions so that we don't repeat computation.
+    final ArrayList<Double> candidates = new ArrayList<Double>();
+    // Outcomes of earlier calls are dropped, so that the best outcome is always one of this call.
+    this.setOfSolutions.clear();
+    this.reserveToOutcomeMap.clear();
+    this.candidateOfSolution.clear();
+    this.numberOfEvaluations.set(0);
+    while (listOfReservePrices != null) {
+      int first = candidates.size();
+      for (Double reserve : listOfReservePrices) {
+        if (seenReservePrices.add(reserve)) {
+          candidates.add(reserve);
         }
       }
+      if (candidates.size() == first) {
+        break;
+      }
+      if (this.pruning) {
+        this.sortByRevenueUpperBound(candidates.subList(first, candidates.size()));
+      }
+      this.evaluateInParallel(candidates, first);
+      if (this.setOfSolutions.isEmpty()) {
+        break;
+      }
+      // Further candidates around the best reserve so far, if the implementing class provides them.
+      ArrayList<Double> triedReserves = new ArrayList<Double>(candidates);
+      Collections.sort(triedReserves);
+      listOfReservePrices = this.getRefinedReservePrices(this.reserveToOutcomeMap.get(this.setOfSolutions.get(0)), triedReserves);
     }
-    Collections.sort(this.setOfSolutions, new MarketOutcomeComparatorBySellerRevenue<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>());
     // System.out.println("Max-Rev reserve = " + this.reserveToOutcomeMap.get(setOfSolutions.get(0)));
     return setOfSolutions.get(0);
   }
 
+  /**
+   * Evaluates the candidates from a given position on, with the number of threads of this object.
+   *
+   * @param candidates - the candidate reserve prices.
+   * @param first - the position of the first candidate to evaluate.
+   * @throws IloException
+   * @throws AllocationAlgoException
+   * @throws BidderCreationException
+   * @throws MarketAllocationException
+   * @throws AllocationException
+   * @throws GoodsException
+   * @throws MarketOutcomeException
+   * @throws MarketCreationException
+   * @throws PrincingAlgoException
+   */
+  private void evaluateInParallel(final ArrayList<Double> candidates, int first) throws IloException, AllocationAlgoException, BidderCreationException,
+      MarketAllocationException, AllocationException, GoodsException, MarketOutcomeException, MarketCreationException, PrincingAlgoException {
+    final AtomicInteger next = new AtomicInteger(first);
+    if (this.numberThreads <= 1 || candidates.size() - first <= 1) {
+      this.evaluate(candidates, next, this.AllocAlgo);
+      return;
+    }
+    int numberWorkers = Math.min(this.numberThreads, candidates.size() - first);
+    ExecutorService executor = Executors.newFixedThreadPool(numberWorkers);
+    try {
+      ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int w = 0; w < numberWorkers; w++) {
+        final AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocAlgo = (this.allocAlgoFactory != null) ? this.allocAlgoFactory
+            .create() : this.AllocAlgo;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            SearchMetaHeuristic.this.evaluate(candidates, next, allocAlgo);
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof PrincingAlgoException) {
+            throw (PrincingAlgoException) e.getCause();
+          }
+          throw new PrincingAlgoException("A reserve candidate could not be evaluated: " + e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new PrincingAlgoException("Interrupted while evaluating reserve candidates.");
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Evaluates reserve candidates until there are none left: allocate the market with reserve, deduce an allocation of the original market and price it.
+   * Several threads can run this method at once, each with its own allocation algorithm, sharing the position of the next candidate. With pruning,
+   * candidates come by decreasing revenue upper bound, so the first one whose bound is below the best revenue found ends the search.
+   *
+   * @param candidates - the candidate reserve prices.
+   * @param next - the position of the next candidate to evaluate.
+   * @param allocAlgo - the allocation algorithm of the calling thread.
+   * @throws IloException
+   * @throws AllocationAlgoException
+   * @throws BidderCreationException
+   * @throws MarketAllocationException
+   * @throws AllocationException
+   * @throws GoodsException
+   * @throws MarketOutcomeException
+   * @throws MarketCreationException
+   * @throws PrincingAlgoException
+   */
+  private void evaluate(ArrayList<Double> candidates, AtomicInteger next, AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocAlgo)
+      throws IloException, AllocationAlgoException, BidderCreationException, MarketAllocationException, AllocationException, GoodsException,
+      MarketOutcomeException, MarketCreationException, PrincingAlgoException {
+    // A single pricing LP for the candidates of this thread, kept from one candidate to the next while they share an allocation.
+    SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> pricingLP = new SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        this.market);
+    pricingLP.setCache(this.pricingCache);
+    for (int c = next.getAndIncrement(); c < candidates.size(); c = next.getAndIncrement()) {
+      double reserve = candidates.get(c);
+      if (this.pruning && this.getRevenueUpperBound(reserve) < this.getBestRevenue()) {
+        next.set(candidates.size());
+        break;
+      }
+      // System.out.println("---------- candidate reserve price = " + reserve);
+      // Get the market with the reserve price.
+      BasicMarketWithReserve mwrp = new BasicMarketWithReserve(this.market, reserve);
+      // Test if there are bidders in the market with reserve.
+      if (mwrp.areThereBiddersInTheMarketWithReserve()) {
+        // Solve for a MarketAllocation in the market with reserve.
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocForMarketWithReserve = allocAlgo.Solve(mwrp.getMarketWithReservePrice());
+        // Deduce a MarketAllocation for the original market.
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocForOriginalMarket = mwrp.deduceAllocation(allocForMarketWithReserve);
+        // Run LP with reserve prices, updating the LP of the previous candidate.
+        RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> refpSol = pricingLP.Solve(allocForOriginalMarket, reserve);
+        if (refpSol.getStatus().equals("Infeasible")) {
+          throw new PrincingAlgoException("Found an infeasible LP!");
+        }
+        this.numberOfEvaluations.incrementAndGet();
+        this.keep(c, refpSol, reserve);
+      }
+    }
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the highest seller revenue found so far, or negative infinity if there is none.
+   * @throws MarketOutcomeException
+   * @throws MarketAllocationException
+   */
+  private synchronized double getBestRevenue() throws MarketOutcomeException, MarketAllocationException {
+    return this.setOfSolutions.isEmpty() ? Double.NEGATIVE_INFINITY : this.setOfSolutions.get(0).sellerRevenue();
+  }
+
+  /**
+   * An upper bound on the seller revenue of any outcome with a given reserve, computed without allocating or pricing. Only bidders whose reward is
+   * larger than the reserve times their demand survive, and a winner pays at most its marginal value, which is at most both the largest marginal
+   * value it can get and its largest marginal value per unit times the units it gets. So the revenue is at most:
+   * 
+   * - the best way to split the supply that surviving bidders could absorb among them, with these two caps on their value (a fractional knapsack,
+   * filled by decreasing value per unit);
+   * 
+   * - the sum over goods of their supply times the largest marginal value among the surviving bidders that demand them, since no copy of a good is
+   * priced above the marginal value of the bidder that gets it.
+   * 
+   * Both bounds, and so their minimum, do not increase with the reserve.
+   *
+   * @param reserve - a reserve price.
+   * @return an upper bound on the seller revenue.
+   */
+  protected double getRevenueUpperBound(double reserve) {
+    this.computeMarginalValueCaps();
+    int[] goodToBiddersOffsets = this.market.getGoodToBiddersOffsets();
+    int[] goodToBidders = this.market.getGoodToBidders();
+    boolean[] survives = new boolean[this.market.getNumberBidders()];
+    for (int j = 0; j < survives.length; j++) {
+      Bidder<Goods> bidder = this.market.getBidders().get(j);
+      survives[j] = bidder.getReward() - reserve * bidder.getDemand() > 0;
+    }
+    double goodsBound = 0.0;
+    double supply = 0.0;
+    for (int i = 0; i < this.market.getNumberGoods(); i++) {
+      double highest = -1.0;
+      for (int f = goodToBiddersOffsets[i]; f < goodToBiddersOffsets[i + 1]; f++) {
+        if (survives[goodToBidders[f]]) {
+          highest = Math.max(highest, this.maxMarginalValue[goodToBidders[f]]);
+        }
+      }
+      if (highest >= 0.0) {
+        goodsBound += this.market.getGoods().get(i).getSupply() * highest;
+        supply += this.market.getGoods().get(i).getSupply();
+      }
+    }
+    double knapsackBound = 0.0;
+    for (int j : this.biddersByValuePerUnit) {
+      if (supply <= 0.0) {
+        break;
+      }
+      if (survives[j] && this.maxValuePerUnit[j] > 0.0) {
+        double units = Math.min(supply, this.maxMarginalValue[j] / this.maxValuePerUnit[j]);
+        knapsackBound += units * this.maxValuePerUnit[j];
+        supply -= units;
+      }
+    }
+    return Math.min(knapsackBound, goodsBound);
+  }
+
+  /**
+   * Computes, on first use, the caps on the marginal value of each bidder under the objective function of the allocation algorithm, over all the
+   * quantities the goods it demands can supply: the largest marginal value, and the largest marginal value per unit.
+   */
+  private synchronized void computeMarginalValueCaps() {
+    if (this.biddersByValuePerUnit != null) {
+      return;
+    }
+    ObjectiveFunction f = this.AllocAlgo.getObjectiveFunction();
+    int[] bidderToGoodsOffsets = this.market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.market.getBidderToGoods();
+    final double[] maxMarginalValue = new double[this.market.getNumberBidders()];
+    final double[] maxValuePerUnit = new double[this.market.getNumberBidders()];
+    Integer[] order = new Integer[maxMarginalValue.length];
+    for (int j = 0; j < maxMarginalValue.length; j++) {
+      Bidder<Goods> bidder = this.market.getBidders().get(j);
+      int supply = 0;
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        supply += this.market.getGoods().get(bidderToGoods[e]).getSupply();
+      }
+      double base = f.getObjective(bidder.getReward(), bidder.getDemand(), 0);
+      for (int x = 1; x <= supply; x++) {
+        double marginalValue = f.getObjective(bidder.getReward(), bidder.getDemand(), x) - base;
+        maxMarginalValue[j] = Math.max(maxMarginalValue[j], marginalValue);
+        maxValuePerUnit[j] = Math.max(maxValuePerUnit[j], marginalValue / x);
+      }
+      order[j] = j;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer j1, Integer j2) {
+        return Double.compare(maxValuePerUnit[j2], maxValuePerUnit[j1]);
+      }
+    });
+    this.maxMarginalValue = maxMarginalValue;
+    this.maxValuePerUnit = maxValuePerUnit;
+    this.biddersByValuePerUnit = order;
+  }
+
+  /**
+   * Sorts candidates by decreasing revenue upper bound, ties broken by increasing reserve.
+   *
+   * @param candidates - a list of candidate reserve prices.
+   */
+  private void sortByRevenueUpperBound(List<Double> candidates) {
+    final HashMap<Double, Double> bound = new HashMap<Double, Double>();
+    for (Double reserve : candidates) {
+      bound.put(reserve, this.getRevenueUpperBound(reserve));
+    }
+    Collections.sort(candidates, new Comparator<Double>() {
+      @Override
+      public int compare(Double r1, Double r2) {
+        int order = Double.compare(bound.get(r2), bound.get(r1));
+        return (order != 0) ? order : Double.compare(r1, r2);
+      }
+    });
+  }
+
+  /**
+   * Adds an outcome to setOfSolutions, in order, and drops the last one if there are more than numberOfSolutionsKept.
+   *
+   * @param candidate - the position of the reserve among the candidates.
+   * @param outcome - the outcome found with the reserve.
+   * @param reserve - the reserve.
+   */
+  private synchronized void keep(int candidate, MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome, double reserve) {
+    Comparator<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>> comparator = new MarketOutcomeComparatorBySellerRevenue<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>();
+    int position = this.setOfSolutions.size();
+    while (position > 0) {
+      int order = comparator.compare(outcome, this.setOfSolutions.get(position - 1));
+      if (order > 0 || (order == 0 && candidate > this.candidateOfSolution.get(position - 1))) {
+        break;
+      }
+      position--;
+    }
+    if (position >= this.numberOfSolutionsKept) {
+      return;
+    }
+    this.setOfSolutions.add(position, outcome);
+    this.candidateOfSolution.add(position, candidate);
+    this.reserveToOutcomeMap.put(outcome, reserve);
+    if (this.setOfSolutions.size() > this.numberOfSolutionsKept) {
+      this.reserveToOutcomeMap.remove(this.setOfSolutions.remove(this.setOfSolutions.size() - 1));
+      this.candidateOfSolution.remove(this.candidateOfSolution.size() - 1);
+    }
+  }
+
+  /**
+   * Setter. Evaluates the reserve candidates with several threads.
+   *
+   * @param numberThreads - the number of threads. With one thread, candidates are evaluated in the calling thread.
+   * @param allocAlgoFactory - creates the allocation algorithm of each thread, or null to share the allocation algorithm of this object, which must
+   *          then be thread-safe.
+   */
+  public void setParallel(int numberThreads, AllocationAlgoFactory allocAlgoFactory) {
+    this.numberThreads = numberThreads;
+    this.allocAlgoFactory = allocAlgoFactory;
+  }
+
+  /**
+   * Setter. Sets a cache of pricing solutions of the market. Sharing one cache among the heuristics run on a market, e.g., with different allocation
+   * algorithms, avoids solving again the LP of an allocation that another heuristic already priced with the same reserve.
+   *
+   * @param pricingCache - a PricingCache of the market of this object, or null for none.
+   */
+  public void setPricingCache(PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> pricingCache) {
+    this.pricingCache = pricingCache;
+  }
+
+  /**
+   * Setter. Set/Unset pruning: candidates are evaluated by decreasing revenue upper bound (see getRevenueUpperBound), and the search stops at the
+   * first one whose bound is below the best revenue found, since none of the remaining ones can do better.
+   *
+   * @param pruning - boolean. If true, prune candidates. Else, evaluate all of them.
+   */
+  public void setPruning(boolean pruning) {
+    this.pruning = pruning;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of candidates allocated and priced by the last call to Solve.
+   */
+  public int getNumberOfEvaluations() {
+    return this.numberOfEvaluations.get();
+  }
+
+  /**
+   * Setter. Keeps only the outcomes with highest seller revenue in the set of solutions, instead of one per candidate.
+   *
+   * @param numberOfSolutionsKept - the number of outcomes kept, at least one.
+   */
+  public void setNumberOfSolutionsKept(int numberOfSolutionsKept) {
+    this.numberOfSolutionsKept = Math.max(1, numberOfSolutionsKept);
+  }
+
   /**
    * Getter.
    * 
-   * @return the set of solutions found by the algorithm.
+   * @return the set of solutions found by the last call to Solve, by decreasing seller revenue. Each call to Solve clears it first, so it never
+   *         holds outcomes of earlier calls.
    */
   public ArrayList<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>> getSetOfSolutions() {
     return this.setOfSolutions;
@@ -169,7 +549,12 @@ public abstract class SearchMetaHeuristic {
       BidderCreationException, MarketAllocationException, AllocationException, GoodsException, MarketOutcomeException, MarketCreationException,
       PrincingAlgoException {
     if (this.statistics == null) {
+      // A cache shared with other heuristics may already hold solutions, so only the hits of this search are counted.
+      int hits = (this.pricingCache == null) ? 0 : this.pricingCache.getHits();
       this.statistics = new PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(this.Solve(), System.nanoTime() - this.startTime);
+      if (this.pricingCache != null) {
+        this.statistics.setPricingCacheHits(this.pricingCache.getHits() - hits);
+      }
     }
     return this.statistics;
   }
@@ -181,4 +566,16 @@ public abstract class SearchMetaHeuristic {
    */
   abstract protected ArrayList<Double> getListOfReservePrices();
 
+  /**
+   * Called after each round of candidates, for a search that refines around the best reserve so far. Candidates already tried are skipped, and the
+   * search stops when there are no new ones. By default there is no refinement.
+   * 
+   * @param bestReserve - the reserve of the outcome with highest seller revenue so far.
+   * @param triedReserves - the reserves tried so far, in increasing order, including pruned ones.
+   * @return a list of candidate reserve prices, or null to stop.
+   */
+  protected ArrayList<Double> getRefinedReservePrices(double bestReserve, ArrayList<Double> triedReserves) {
+    return null;
+  }
+
 }
@@ -8,13 +8,14 @@ import structures.Bidder;
 import structures.Goods;
 import structures.Market;
 import structures.MarketAllocation;
+import structures.SupplyLedger;
+import structures.comparators.GoodsComparatorByRemainingSupply;
 import structures.exceptions.AllocationException;
 import structures.exceptions.GoodsException;
 import structures.exceptions.MarketAllocationException;
 import allocations.interfaces.AllocationAlgo;
 import allocations.objectivefunction.SingleStepObjectiveFunction;
 
-import com.google.common.collect.HashBasedTable;
 
 /**
  * This class implements greedy allocation algorithm. The class is parameterized so that a comparator of bidders and goods is received as a parameter. An extra
@@ -31,9 +32,9 @@ public class GreedyAllocation<M extends Market<G, B>, G extends Goods, B extends
   private final Comparator<B> BidderComparator;
 
   /**
-   * Goods comparator
+   * Order in which goods are visited, by remaining supply.
    */
-  private final Comparator<G> GoodsComparator;
+  private final GoodsComparatorByRemainingSupply.Order goodsOrder;
   
   /**
    * Default cap on the number of allocated bidders.
@@ -44,12 +45,12 @@ public class GreedyAllocation<M extends Market<G, B>, G extends Goods, B extends
    * Constructor.
    * 
    * @param BidderComparator
-   * @param GoodsSupplyComparator
+   * @param goodsOrder
    * @param maxNumberAllocatedBidders
    */
-  public GreedyAllocation(Comparator<B> BidderComparator, Comparator<G> GoodsSupplyComparator, int maxNumberAllocatedBidders) {
+  public GreedyAllocation(Comparator<B> BidderComparator, GoodsComparatorByRemainingSupply.Order goodsOrder, int maxNumberAllocatedBidders) {
     this.BidderComparator = BidderComparator;
-    this.GoodsComparator = GoodsSupplyComparator;
+    this.goodsOrder = goodsOrder;
     this.maxNumberAllocatedBidders = maxNumberAllocatedBidders;
   }
 
@@ -70,33 +71,30 @@ public class GreedyAllocation<M extends Market<G, B>, G extends Goods, B extends
     Collections.sort(bidders, this.BidderComparator);
     // MAKE SHALLOW COPY OF GOODS.
     ArrayList<G> goods = new ArrayList<G>(market.getGoods());
-    // Set the remaining supply of each good to be their initial supply.
+    // The remaining supply of each good starts at its initial supply.
     // This will be used to sort the users.
-    for (G good : goods) {
-      good.setRemainingSupply(good.getSupply());
-    }
-    // Make the ArrayList that will store the result of the algorithm.
+    SupplyLedger<G> ledger = new SupplyLedger<G>(market);
+    GoodsComparatorByRemainingSupply<G> goodsComparator = new GoodsComparatorByRemainingSupply<G>(this.goodsOrder, ledger);
+    // Make the builder that will store the result of the algorithm.
     // The allocation is zero at the beginning.
-    HashBasedTable<G, B, Integer> greedyAllocation = HashBasedTable.create();
-    for (G good : market.getGoods()) {
-      for (B bidder : market.getBidders()) {
-        greedyAllocation.put(good, bidder, 0);
-      }
-    }
+    MarketAllocation.Builder<M, G, B> greedyAllocation = MarketAllocation.<M, G, B> builder(market);
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
     int totalAllocatedBidders = 0;
     // Allocate each bidder, if possible, one at a time.
     for (B bidder : bidders) {
+      int j = market.getBidderIndex(bidder);
       int totalAvailableSupply = 0;
       // First, compute if there is enough supply of goods to satisfy this bidder.
-      for (G good : goods) {
-        if (bidder.demandsGood(good) && good.getRemainingSupply() > 0) {
-          totalAvailableSupply += good.getRemainingSupply();
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        if (ledger.getRemainingSupply(bidderToGoods[e]) > 0) {
+          totalAvailableSupply += ledger.getRemainingSupply(bidderToGoods[e]);
         }
       }
       // Check if there is enough supply to satisfy the bidder.
       if (totalAvailableSupply >= bidder.getDemand()) {
         // Order goods
-        Collections.sort(goods, this.GoodsComparator);
+        Collections.sort(goods, goodsComparator);
         // Try to allocate goods to this bidder, one good at the time.
         int totalAllocationToBidderSoFar = 0;
         for (G good : goods) {
@@ -104,10 +102,11 @@ public class GreedyAllocation<M extends Market<G, B>, G extends Goods, B extends
           if (totalAllocationToBidderSoFar < bidder.getDemand()) {
             // If good is in the bidder demand set, AND there is supply
             // remaining from this good.
-            if (bidder.demandsGood(good) && good.getRemainingSupply() > 0) {
-              int amount = Math.min(bidder.getDemand() - totalAllocationToBidderSoFar, good.getRemainingSupply());
-              greedyAllocation.put(good, bidder, amount);
-              good.setRemainingSupply(good.getRemainingSupply() - amount);
+            int i = market.getGoodIndex(good);
+            if (bidder.demandsGood(good) && ledger.getRemainingSupply(i) > 0) {
+              int amount = Math.min(bidder.getDemand() - totalAllocationToBidderSoFar, ledger.getRemainingSupply(i));
+              greedyAllocation.set(i, j, amount);
+              ledger.consume(i, amount);
               totalAllocationToBidderSoFar += amount;
             }
           } else {
@@ -121,7 +120,7 @@ public class GreedyAllocation<M extends Market<G, B>, G extends Goods, B extends
         break;
       }
     }
-    return new MarketAllocation<M, G, B>(market, greedyAllocation, this.getObjectiveFunction());
+    return greedyAllocation.build(this.getObjectiveFunction());
   }
 
   @Override
@@ -24,7 +24,7 @@ public class GreedyAllocationFactory<M extends Market<G, B>, G extends Goods, B
   public static <M extends Market<G, B>, G extends Goods, B extends Bidder<G>> GreedyAllocation<M, G, B> GreedyAllocation() {
     return new GreedyAllocation<M, G, B>(
         new BiddersComparatorByRToSqrtIRatio<G, B>(),
-        new GoodsComparatorByRemainingSupply<G>(GoodsComparatorByRemainingSupply.Order.ascending), 
+        GoodsComparatorByRemainingSupply.Order.ascending, 
         Integer.MAX_VALUE);
   }
   
@@ -36,7 +36,7 @@ public class GreedyAllocationFactory<M extends Market<G, B>, G extends Goods, B
   public static <M extends Market<G, B>, G extends Goods, B extends Bidder<G>> GreedyAllocation<M, G, B> GreedyEgalitarianAllocation() {
     return new GreedyAllocation<M, G, B>(
         new BiddersComparatorBy1ToSqrtIRatio<G, B>(),
-        new GoodsComparatorByRemainingSupply<G>(GoodsComparatorByRemainingSupply.Order.ascending), 
+        GoodsComparatorByRemainingSupply.Order.ascending, 
         Integer.MAX_VALUE);
   }
   
@@ -48,7 +48,7 @@ public class GreedyAllocationFactory<M extends Market<G, B>, G extends Goods, B
   public static <M extends Market<G, B>, G extends Goods, B extends Bidder<G>> GreedyAllocation<M, G, B> GreedyMaxBidderAllocation() {
     return new GreedyAllocation<M, G, B>(
         new BiddersComparatorByReward<G, B>(),
-        new GoodsComparatorByRemainingSupply<G>(GoodsComparatorByRemainingSupply.Order.ascending), 
+        GoodsComparatorByRemainingSupply.Order.ascending, 
         1);    
   }
 
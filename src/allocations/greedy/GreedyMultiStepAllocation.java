@@ -9,6 +9,7 @@ import structures.Bidder;
 import structures.Goods;
 import structures.Market;
 import structures.MarketAllocation;
+import structures.SupplyLedger;
 import structures.comparators.GoodsComparatorByRemainingSupply;
 import structures.exceptions.AllocationException;
 import structures.exceptions.GoodsException;
@@ -18,8 +19,6 @@ import allocations.error.AllocationAlgoException;
 import allocations.interfaces.AllocationAlgo;
 import allocations.objectivefunction.interfaces.ObjectiveFunction;
 
-import com.google.common.collect.HashBasedTable;
-
 /**
  * This class implements greedy allocation with multi-steps.
  * 
@@ -79,21 +78,16 @@ public class GreedyMultiStepAllocation<M extends Market<G, B>, G extends Goods,
    * @throws MarketAllocationException 
    */
   public MarketAllocation<M, G, B> Solve(M market) throws GoodsException, AllocationException, MarketAllocationException {
-    HashBasedTable<G, B,Integer> allocation = HashBasedTable.create();
-    for(G good : market.getGoods()){
-      for(B bidder : market.getBidders()){
-        allocation.put(good, bidder, 0);
-      }
-    }
+    MarketAllocation.Builder<M, G, B> allocation = MarketAllocation.<M, G, B> builder(market);
     
     HashMap<B, Integer> currentAllocationToBidder = new HashMap<B, Integer>();
     /*
-     * First, compute a queue of goods. A good's remaining supply is set to its
+     * First, compute a queue of goods. A good's remaining supply starts at its
      * initial supply.
      */
-    PriorityQueue<G> goodsQueue = new PriorityQueue<G>(new GoodsComparatorByRemainingSupply<G>(GoodsComparatorByRemainingSupply.Order.ascending));
+    SupplyLedger<G> ledger = new SupplyLedger<G>(market);
+    PriorityQueue<G> goodsQueue = new PriorityQueue<G>(new GoodsComparatorByRemainingSupply<G>(GoodsComparatorByRemainingSupply.Order.ascending, ledger));
     for (G good : market.getGoods()) {
-      good.setRemainingSupply(good.getSupply());
       goodsQueue.add(good);
     }
     /*
@@ -119,12 +113,12 @@ public class GreedyMultiStepAllocation<M extends Market<G, B>, G extends Goods,
       while (goodNotFound && (good = goodsQueue.poll()) != null) {
         if (bidder.demandsGood(good) && good.getSupply() >= this.stepSize) {
           // This good is connected to this bidder and has at least s copies available.
-          allocation.put(good, bidder, allocation.get(good, bidder) + this.stepSize);
+          allocation.add(good, bidder, this.stepSize);
           currentAllocationToBidder.put(bidder, currentAllocationToBidder.get(bidder) + this.stepSize);
-          good.setRemainingSupply(good.getRemainingSupply() - this.stepSize);
+          ledger.consume(good, this.stepSize);
           goodNotFound = false;
         }
-        if (good.getRemainingSupply() >= this.stepSize) {
+        if (ledger.getRemainingSupply(good) >= this.stepSize) {
           // This good still has some to give. Put it in this auxiliary queue to
           // be put back in the goodsQueue later.
           auxGoodsSupplyList.add(good);
@@ -150,7 +144,7 @@ public class GreedyMultiStepAllocation<M extends Market<G, B>, G extends Goods,
       }
       goodNotFound = true;
     }
-    return new MarketAllocation<M, G, B>(market, allocation, this.f);
+    return allocation.build(this.f);
   }
 
   /**
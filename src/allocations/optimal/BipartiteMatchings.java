@@ -0,0 +1,361 @@
+package allocations.optimal;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import unitdemand.algorithms.MWBMatchingAlgorithm;
+
+/**
+ * Combinatorial allocation algorithms for markets where every bidder demands a single item. In such markets an allocation is a b-matching between
+ * bidders (capacity 1) and goods (capacity equal to their supply), and the welfare and egalitarian objectives, which are sums of weights of the
+ * allocated bidders, are maximized in polynomial time:
+ *
+ * - When goods are in unit supply (a singleton market), welfare is a maximum-weight bipartite matching, found with MWBMatchingAlgorithm.
+ *
+ * - With any supply, the number of allocated bidders is a maximum-cardinality b-matching, found with Hopcroft-Karp.
+ *
+ * - With any supply, welfare is a maximum-weight b-matching. The sets of bidders that can be allocated together form a transversal matroid, so
+ * bidders are considered in decreasing order of reward and each one is allocated if an augmenting path reaches a good with remaining supply.
+ *
+ * All methods return, for each bidder index, the index of the good the bidder is allocated, or -1.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class BipartiteMatchings {
+
+  /**
+   * Distance of a bidder not reached by the search of Hopcroft-Karp.
+   */
+  private static final int UNREACHED = Integer.MAX_VALUE;
+
+  /**
+   * Checks whether every bidder of a market demands a single item.
+   *
+   * @param market - a Market object.
+   * @return true if all bidders have demand 1.
+   */
+  public static boolean isUnitDemand(Market<?, ?> market) {
+    for (Bidder<?> bidder : market.getBidders()) {
+      if (bidder.getDemand() != 1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether a market is a singleton market, i.e., bidders demand a single item and goods are in unit supply.
+   *
+   * @param market - a Market object.
+   * @return true if all bidders have demand 1 and all goods have supply 1.
+   */
+  public static boolean isSingleton(Market<?, ?> market) {
+    for (Goods good : market.getGoods()) {
+      if (good.getSupply() != 1) {
+        return false;
+      }
+    }
+    return BipartiteMatchings.isUnitDemand(market);
+  }
+
+  /**
+   * Maximum-weight matching of a singleton market, where the weight of bidder j is weights[j].
+   *
+   * @param market - a singleton market.
+   * @param weights - the weight of each bidder.
+   * @return the good allocated to each bidder, or -1.
+   */
+  public static <G extends Goods, B extends Bidder<G>> int[] maxWeightMatching(Market<G, B> market, double[] weights) {
+    int numberGoods = market.getNumberGoods();
+    int numberBidders = market.getNumberBidders();
+    int[] goodOfBidder = new int[numberBidders];
+    Arrays.fill(goodOfBidder, -1);
+    if (numberGoods == 0 || numberBidders == 0) {
+      return goodOfBidder;
+    }
+    // Goods are rows and bidders columns, as in UnitDemandMarketAllocationFactory. Missing edges have weight negative infinity.
+    double[][] weightMatrix = new double[numberGoods][numberBidders];
+    for (double[] row : weightMatrix) {
+      Arrays.fill(row, Double.NEGATIVE_INFINITY);
+    }
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    for (int j = 0; j < numberBidders; j++) {
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        weightMatrix[bidderToGoods[e]][j] = weights[j];
+      }
+    }
+    int[] bidderOfGood = new MWBMatchingAlgorithm(weightMatrix).getMatching();
+    for (int i = 0; i < numberGoods; i++) {
+      if (bidderOfGood[i] > -1 && weightMatrix[i][bidderOfGood[i]] > Double.NEGATIVE_INFINITY) {
+        goodOfBidder[bidderOfGood[i]] = i;
+      }
+    }
+    return goodOfBidder;
+  }
+
+  /**
+   * Maximum-cardinality b-matching of a unit-demand market with Hopcroft-Karp. Each phase finds the shortest augmenting paths with a breadth-first
+   * search from the unallocated bidders and augments along a maximal set of disjoint shortest paths. A path alternates between bidders and goods and
+   * ends at a good with remaining supply.
+   *
+   * @param market - a unit-demand market.
+   * @return the good allocated to each bidder, or -1.
+   */
+  public static <G extends Goods, B extends Bidder<G>> int[] maxCardinalityMatching(Market<G, B> market) {
+    HopcroftKarp search = new HopcroftKarp(market);
+    while (search.bfs()) {
+      for (int j = 0; j < search.goodOfBidder.length; j++) {
+        if (search.goodOfBidder[j] < 0) {
+          search.dfs(j);
+        }
+      }
+    }
+    return search.goodOfBidder;
+  }
+
+  /**
+   * Maximum-weight b-matching of a unit-demand market, where the weight of bidder j is weights[j]. Bidders are considered in decreasing order of weight
+   * and each one is allocated, possibly moving previously allocated bidders to other goods, if an augmenting path exists.
+   *
+   * @param market - a unit-demand market.
+   * @param weights - the weight of each bidder.
+   * @return the good allocated to each bidder, or -1.
+   */
+  public static <G extends Goods, B extends Bidder<G>> int[] maxWeightBMatching(Market<G, B> market, final double[] weights) {
+    int numberBidders = market.getNumberBidders();
+    Integer[] order = new Integer[numberBidders];
+    for (int j = 0; j < numberBidders; j++) {
+      order[j] = j;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer j1, Integer j2) {
+        return Double.compare(weights[j2], weights[j1]);
+      }
+    });
+    HopcroftKarp search = new HopcroftKarp(market);
+    for (int j : order) {
+      if (weights[j] > 0) {
+        search.augmentFrom(j);
+      }
+    }
+    return search.goodOfBidder;
+  }
+
+  /**
+   * State of a b-matching between the bidders and the goods of a unit-demand market. The bidders allocated to good i occupy the slots of good i, and
+   * good i has as many slots as items it can give, i.e., the minimum of its supply and the number of bidders that demand it.
+   *
+   * @author Enrique Areyan Viqueira
+   */
+  private static class HopcroftKarp {
+
+    /**
+     * Adjacency of bidders to goods.
+     */
+    private final int[] bidderToGoodsOffsets, bidderToGoods;
+
+    /**
+     * Good allocated to each bidder, or -1.
+     */
+    private final int[] goodOfBidder;
+
+    /**
+     * Position of each allocated bidder in the slots of its good.
+     */
+    private final int[] slotOfBidder;
+
+    /**
+     * Slots of good i are between slotOffsets[i] and slotOffsets[i + 1]; the first load[i] of them hold the bidders allocated to good i.
+     */
+    private final int[] slotOffsets, slots, load;
+
+    /**
+     * Distance of each bidder from the unallocated bidders in the current phase.
+     */
+    private final int[] distance;
+
+    /**
+     * Distance of the closest bidder that demands a good with remaining supply, i.e., the length of the shortest augmenting paths of the phase.
+     */
+    private int limit;
+
+    /**
+     * Constructor.
+     *
+     * @param market - a unit-demand market.
+     */
+    private HopcroftKarp(Market<?, ?> market) {
+      this.bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+      this.bidderToGoods = market.getBidderToGoods();
+      int numberGoods = market.getNumberGoods();
+      int numberBidders = market.getNumberBidders();
+      int[] goodToBiddersOffsets = market.getGoodToBiddersOffsets();
+      this.slotOffsets = new int[numberGoods + 1];
+      for (int i = 0; i < numberGoods; i++) {
+        int capacity = Math.min(market.getGoods().get(i).getSupply(), goodToBiddersOffsets[i + 1] - goodToBiddersOffsets[i]);
+        this.slotOffsets[i + 1] = this.slotOffsets[i] + Math.max(capacity, 0);
+      }
+      this.slots = new int[this.slotOffsets[numberGoods]];
+      this.load = new int[numberGoods];
+      this.goodOfBidder = new int[numberBidders];
+      Arrays.fill(this.goodOfBidder, -1);
+      this.slotOfBidder = new int[numberBidders];
+      this.distance = new int[numberBidders];
+    }
+
+    /**
+     * Checks whether good i can take one more bidder.
+     *
+     * @param i - a good index.
+     * @return true if good i has an empty slot.
+     */
+    private boolean hasRoom(int i) {
+      return this.slotOffsets[i] + this.load[i] < this.slotOffsets[i + 1];
+    }
+
+    /**
+     * Allocates good i to bidder j, releasing the good previously allocated to j, if any. Good i must have an empty slot.
+     *
+     * @param j - a bidder index.
+     * @param i - a good index.
+     */
+    private void move(int j, int i) {
+      int k = this.goodOfBidder[j];
+      if (k >= 0) {
+        // Fill the slot of j with the last bidder of good k.
+        int last = this.slots[this.slotOffsets[k] + --this.load[k]];
+        this.slots[this.slotOfBidder[j]] = last;
+        this.slotOfBidder[last] = this.slotOfBidder[j];
+      }
+      this.slotOfBidder[j] = this.slotOffsets[i] + this.load[i]++;
+      this.slots[this.slotOfBidder[j]] = j;
+      this.goodOfBidder[j] = i;
+    }
+
+    /**
+     * Breadth-first search from all unallocated bidders. A bidder reaches the goods it demands and is not allocated, and a good without remaining
+     * supply reaches the bidders allocated to it.
+     *
+     * @return true if some good with remaining supply is reachable, i.e., there is an augmenting path.
+     */
+    private boolean bfs() {
+      ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+      for (int j = 0; j < this.goodOfBidder.length; j++) {
+        if (this.goodOfBidder[j] < 0) {
+          this.distance[j] = 0;
+          queue.add(j);
+        } else {
+          this.distance[j] = BipartiteMatchings.UNREACHED;
+        }
+      }
+      this.limit = BipartiteMatchings.UNREACHED;
+      while (!queue.isEmpty()) {
+        int j = queue.poll();
+        if (this.distance[j] >= this.limit) {
+          break;
+        }
+        for (int e = this.bidderToGoodsOffsets[j]; e < this.bidderToGoodsOffsets[j + 1]; e++) {
+          int i = this.bidderToGoods[e];
+          if (i == this.goodOfBidder[j]) {
+            continue;
+          }
+          if (this.hasRoom(i)) {
+            this.limit = Math.min(this.limit, this.distance[j]);
+          } else {
+            for (int s = this.slotOffsets[i]; s < this.slotOffsets[i] + this.load[i]; s++) {
+              if (this.distance[this.slots[s]] == BipartiteMatchings.UNREACHED) {
+                this.distance[this.slots[s]] = this.distance[j] + 1;
+                queue.add(this.slots[s]);
+              }
+            }
+          }
+        }
+      }
+      return this.limit < BipartiteMatchings.UNREACHED;
+    }
+
+    /**
+     * Depth-first search of a shortest augmenting path from bidder j along the layers of the last breadth-first search, augmenting along it if found.
+     * Bidders from which no path is found are removed from the layers for the rest of the phase. The recursion depth is bounded by the length of the
+     * shortest augmenting path.
+     *
+     * @param j - a bidder index.
+     * @return true if the allocation was augmented.
+     */
+    private boolean dfs(int j) {
+      for (int e = this.bidderToGoodsOffsets[j]; e < this.bidderToGoodsOffsets[j + 1]; e++) {
+        int i = this.bidderToGoods[e];
+        if (i == this.goodOfBidder[j]) {
+          continue;
+        }
+        if (this.hasRoom(i)) {
+          if (this.distance[j] == this.limit) {
+            this.move(j, i);
+            return true;
+          }
+        } else if (this.distance[j] < this.limit) {
+          for (int s = this.slotOffsets[i]; s < this.slotOffsets[i] + this.load[i]; s++) {
+            int next = this.slots[s];
+            if (this.distance[next] == this.distance[j] + 1 && this.dfs(next)) {
+              // The bidder left good i, so there is room for j.
+              this.move(j, i);
+              return true;
+            }
+          }
+        }
+      }
+      this.distance[j] = BipartiteMatchings.UNREACHED;
+      return false;
+    }
+
+    /**
+     * Allocates an unallocated bidder through a shortest augmenting path found with a breadth-first search from it, if any.
+     *
+     * @param root - an unallocated bidder index.
+     * @return true if the bidder was allocated.
+     */
+    private boolean augmentFrom(int root) {
+      // The bidder from which each bidder was reached, through the good allocated to the latter.
+      int[] parent = this.distance;
+      Arrays.fill(parent, BipartiteMatchings.UNREACHED);
+      parent[root] = -1;
+      ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+      queue.add(root);
+      while (!queue.isEmpty()) {
+        int j = queue.poll();
+        for (int e = this.bidderToGoodsOffsets[j]; e < this.bidderToGoodsOffsets[j + 1]; e++) {
+          int i = this.bidderToGoods[e];
+          if (i == this.goodOfBidder[j]) {
+            continue;
+          }
+          if (this.hasRoom(i)) {
+            // Shift every bidder on the path to the good of the next one, starting from the end.
+            while (j >= 0) {
+              int previous = parent[j];
+              int good = this.goodOfBidder[j];
+              this.move(j, i);
+              i = good;
+              j = previous;
+            }
+            return true;
+          }
+          for (int s = this.slotOffsets[i]; s < this.slotOffsets[i] + this.load[i]; s++) {
+            if (parent[this.slots[s]] == BipartiteMatchings.UNREACHED) {
+              parent[this.slots[s]] = j;
+              queue.add(this.slots[s]);
+            }
+          }
+        }
+      }
+      return false;
+    }
+
+  }
+
+}
@@ -1,15 +1,9 @@
 package allocations.optimal;
 
-import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumExpr;
-import ilog.concert.IloNumVar;
-
-import java.util.HashMap;
-
 import structures.Bidder;
 import structures.Goods;
 import structures.Market;
+import util.solver.LinearExpression;
 import allocations.objectivefunction.SingleStepObjectiveFunction;
 
 /**
@@ -24,15 +18,21 @@ import allocations.objectivefunction.SingleStepObjectiveFunction;
 public class EgalitarianMaxAllocationILP<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> extends OptimalAllocILP<M, G, B> {
 
   @Override
-  protected IloNumExpr getILPObjective(M market, IloNumVar[] indicatorVariable, HashMap<B, Integer> bidderToCPLEXIndex) throws IloException {
+  protected LinearExpression getILPObjective(M market, int[] indicatorVariable) {
     // LP objective function. \sum_j y_j, i.e., of allocated bidders.
-    IloLinearNumExpr obj = this.cplex.linearNumExpr();
-    for (B bidder : market.getBidders()) {
-      obj.addTerm(1.0, indicatorVariable[bidderToCPLEXIndex.get(bidder)]);
+    LinearExpression obj = new LinearExpression();
+    for (int j = 0; j < market.getNumberBidders(); j++) {
+      obj.addTerm(1.0, indicatorVariable[j]);
     }
     return obj;
   }
   
+  @Override
+  protected int[] solveUnitDemand(M market) {
+    // Max-cardinality (b-)matching.
+    return BipartiteMatchings.maxCardinalityMatching(market);
+  }
+
   @Override
   public SingleStepObjectiveFunction getObjectiveFunction() {
     return new SingleStepObjectiveFunction();
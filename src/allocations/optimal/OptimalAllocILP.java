@@ -1,14 +1,10 @@
 package allocations.optimal;
 
-import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumExpr;
-import ilog.concert.IloNumVar;
-import ilog.cplex.IloCplex;
-
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import structures.Bidder;
 import structures.Goods;
@@ -16,26 +12,46 @@ import structures.Market;
 import structures.MarketAllocation;
 import structures.exceptions.AllocationException;
 import structures.exceptions.MarketAllocationException;
-import util.Cplex;
 import util.Printer;
+import util.solver.CplexProvider;
+import util.solver.LinearExpression;
+import util.solver.LinearModel;
+import util.solver.SimplexSolver;
+import util.solver.Solution;
+import util.solver.SolverException;
+import util.solver.SolverProvider;
+import util.solver.Solvers;
 import allocations.error.AllocationAlgoErrorCodes;
 import allocations.error.AllocationAlgoException;
 import allocations.interfaces.AllocationAlgo;
-
-import com.google.common.collect.HashBasedTable;
+import allocations.objectivefunction.interfaces.ObjectiveFunction;
 
 /**
- * This class uses CPLEX to implement and solve a mixed-ILP to find a single-step, welfare-maximizing allocation for an input market.
+ * This class implements and solves a mixed-ILP to find a single-step, welfare-maximizing allocation for an input market. The ILP is solved by a
+ * util.solver.SolverProvider (by default, the one of util.solver.Solvers).
  * The class implements several parameters to control the search (how many solutions, time limit, etc).
  * 
+ * When every bidder demands a single item and only one solution is asked for, the allocation is a b-matching and subclasses may solve it with a
+ * combinatorial algorithm (see solveUnitDemand and BipartiteMatchings) instead of the ILP.
+ * 
  * @author Enrique Areyan Viqueira
  */
 public abstract class OptimalAllocILP<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> implements AllocationAlgo<M, G, B> {
 
   /**
-   * Cplex object.
+   * The ILP being built.
+   */
+  protected LinearModel model;
+
+  /**
+   * The solver. Null means the default provider of util.solver.Solvers.
    */
-  protected IloCplex cplex;
+  protected SolverProvider solver;
+
+  /**
+   * Number of threads CPLEX may use. A negative value indicates the default of util.Cplex.
+   */
+  protected int threads = -1;
 
   /**
    * Boolean to control whether or not to output.
@@ -52,6 +68,16 @@ public abstract class OptimalAllocILP<M extends Market<G, B>, G extends Goods, B
    */
   protected double timeLimit = -1.0;
 
+  /**
+   * Boolean to control whether unit-demand markets are solved with combinatorial algorithms when possible (see solveUnitDemand).
+   */
+  protected boolean useMatchings = true;
+
+  /**
+   * Heuristic allocations used as starting points of the ILP (see addStart).
+   */
+  protected List<MarketAllocation<M, G, B>> starts = new ArrayList<MarketAllocation<M, G, B>>();
+
   /**
    * Constructor.
    */
@@ -90,6 +116,54 @@ public abstract class OptimalAllocILP<M extends Market<G, B>, G extends Goods, B
     this.timeLimit = timeLimit;
   }
 
+  /**
+   * Set the number of threads CPLEX may use, e.g., 1 when several ILPs are solved concurrently. Zero lets CPLEX decide. It has no effect on the
+   * pure-Java solver, which is single-threaded.
+   * 
+   * @param threads
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Set whether unit-demand markets are solved with combinatorial algorithms when possible, instead of the ILP.
+   * 
+   * @param useMatchings
+   */
+  public void setUseMatchings(boolean useMatchings) {
+    this.useMatchings = useMatchings;
+  }
+
+  /**
+   * Set the solver.
+   * 
+   * @param solver
+   *          - a SolverProvider, or null to use the default provider of util.solver.Solvers.
+   */
+  public void setSolver(SolverProvider solver) {
+    this.solver = solver;
+  }
+
+  /**
+   * Adds a heuristic allocation, e.g., a greedy one, as a starting point of the ILP. When solving its market, each feasible start is handed to the
+   * solver as an incumbent, and the best value among them is used as an objective cutoff, so the search only explores allocations at least as good.
+   * Starts of other markets are ignored.
+   * 
+   * @param start
+   *          - a MarketAllocation object.
+   */
+  public void addStart(MarketAllocation<M, G, B> start) {
+    this.starts.add(start);
+  }
+
+  /**
+   * Removes all starting points.
+   */
+  public void clearStarts() {
+    this.starts.clear();
+  }
+
   /**
    * Solve method. Runs the algorithm.
    * 
@@ -100,162 +174,417 @@ public abstract class OptimalAllocILP<M extends Market<G, B>, G extends Goods, B
    * @throws MarketAllocationException
    */
   public MarketAllocation<M, G, B> Solve(M market) throws AllocationAlgoException, AllocationException, MarketAllocationException {
-    try {
-      this.cplex = Cplex.getCplex();
-      if (!this.verbose) {
-        this.cplex.setOut(null);
+    return this.Solve(market, null);
+  }
+
+  /**
+   * Solve method for a market where each bidder stands for several identical bidders (see AggregatedMarket). The indicator variable of bidder j is an
+   * integer between zero and multiplicity[j] that counts how many of the identical bidders are allocated, so the allocation to bidder j is a multiple of
+   * its demand.
+   * 
+   * @param market
+   *          - a Market object.
+   * @param multiplicity
+   *          - the number of identical bidders each bidder of the market stands for, or null if each bidder stands for itself.
+   * @return a MarketAllocation object.
+   * @throws AllocationException
+   * @throws MarketAllocationException
+   */
+  public MarketAllocation<M, G, B> Solve(M market, int[] multiplicity) throws AllocationAlgoException, AllocationException, MarketAllocationException {
+    if (this.useMatchings && multiplicity == null && this.numSolutions == 1 && BipartiteMatchings.isUnitDemand(market)) {
+      int[] goodOfBidder = this.solveUnitDemand(market);
+      if (goodOfBidder != null) {
+        if (this.verbose) {
+          System.out.println("**** Solved unit-demand market with " + this.getClass().getSimpleName() + " combinatorially");
+        }
+        MarketAllocation.Builder<M, G, B> alloc = MarketAllocation.<M, G, B> builder(market);
+        for (int j = 0; j < goodOfBidder.length; j++) {
+          if (goodOfBidder[j] >= 0) {
+            alloc.set(goodOfBidder[j], j, 1);
+          }
+        }
+        return alloc.build(this.getObjectiveFunction());
       }
-      // Set a time limit.
-      if (this.timeLimit > 0) {
-        this.cplex.setParam(IloCplex.DoubleParam.TiLim, this.timeLimit);
+    }
+    this.model = new LinearModel();
+    this.model.setVerbose(this.verbose);
+    // Set a time limit.
+    if (this.timeLimit > 0) {
+      this.model.setTimeLimit(this.timeLimit);
+    }
+    // How many optimal solutions we want to get.
+    this.model.setSolutionLimit(this.numSolutions);
+    if (this.verbose) {
+      System.out.println("**** Running OptimalAllocILP with the following parameters:");
+      System.out.println("\t numSolutions = " + this.numSolutions);
+      System.out.println("\t timeLimit = " + this.timeLimit);
+    }
+
+    // Indicator variables are indexed by the indices of bidders in the market. Allocation variables only exist for the edges of the market, i.e.,
+    // the goods each bidder demands, and are indexed by the position of the edge in the bidder-to-goods adjacency.
+    int numberBidders = market.getNumberBidders();
+    int numberGoods = market.getNumberGoods();
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    int numberEdges = bidderToGoodsOffsets[numberBidders];
+    // Variables
+    int[] indicatorVariable = new int[numberBidders];
+    for (int j = 0; j < numberBidders; j++) {
+      indicatorVariable[j] = this.model.addVariable(0, (multiplicity == null) ? 1 : multiplicity[j], true);
+    }
+    int[] edgeVariable = new int[numberEdges];
+    for (int j = 0; j < numberBidders; j++) {
+      int demand = market.getBidders().get(j).getDemand() * ((multiplicity == null) ? 1 : multiplicity[j]);
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        edgeVariable[e] = this.model.addVariable(0, Math.min(market.getGoods().get(bidderToGoods[e]).getSupply(), demand), true);
+      }
+    }
+
+    this.model.maximize(this.getILPObjective(market, indicatorVariable));
+
+    // Constraint (1). Allocation satisfies bidder: the allocation to bidder j over its demand equals its indicator variable.
+    int[] start = new int[numberBidders + 1];
+    int[] variables = new int[numberEdges + numberBidders];
+    double[] coefficients = new double[numberEdges + numberBidders];
+    for (int j = 0; j < numberBidders; j++) {
+      double coeff = 1.0 / ((double) market.getBidders().get(j).getDemand());
+      int position = start[j];
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        variables[position] = edgeVariable[e];
+        coefficients[position++] = coeff;
+      }
+      variables[position] = indicatorVariable[j];
+      coefficients[position++] = -1.0;
+      start[j + 1] = position;
+    }
+    this.model.addRows(numberBidders, start, variables, coefficients, new double[numberBidders], new double[numberBidders]);
+
+    // Constrain (2). Allocation from goods can not be more than supply.
+    start = new int[numberGoods + 1];
+    for (int e = 0; e < numberEdges; e++) {
+      start[bidderToGoods[e] + 1]++;
+    }
+    for (int i = 0; i < numberGoods; i++) {
+      start[i + 1] += start[i];
+    }
+    int[] next = Arrays.copyOf(start, numberGoods);
+    variables = new int[numberEdges];
+    coefficients = new double[numberEdges];
+    Arrays.fill(coefficients, 1.0);
+    // The edges of each good, in increasing order of bidders, and the bidder of each edge.
+    int[] edgeOfSupplyRow = new int[numberEdges];
+    int[] edgeBidder = new int[numberEdges];
+    for (int j = 0; j < numberBidders; j++) {
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        edgeBidder[e] = j;
+        edgeOfSupplyRow[next[bidderToGoods[e]]] = e;
+        variables[next[bidderToGoods[e]]++] = edgeVariable[e];
       }
-      // These two next parameters controls how many solutions we want to get.
-      // The first parameter controls how far from the optimal we allow solutions to be,
-      // the second parameter controls how many solutions we will get in total.
-      this.cplex.setParam(IloCplex.DoubleParam.SolnPoolGap, 0.0);
-      if (this.numSolutions > 0) {
-        this.cplex.setParam(IloCplex.IntParam.PopulateLim, this.numSolutions);
-        this.cplex.setParam(IloCplex.IntParam.SolnPoolIntensity, 4);
+    }
+    double[] lower = new double[numberGoods];
+    double[] upper = new double[numberGoods];
+    Arrays.fill(lower, Double.NEGATIVE_INFINITY);
+    for (int i = 0; i < numberGoods; i++) {
+      upper[i] = market.getGoods().get(i).getSupply();
+    }
+    this.model.addRows(numberGoods, start, variables, coefficients, lower, upper);
+
+    // Heuristic allocations of this market are starting points, and the best of them is a cutoff.
+    double cutoff = Double.NEGATIVE_INFINITY;
+    for (MarketAllocation<M, G, B> hint : this.starts) {
+      if (hint.getMarket() == market) {
+        double[] values = this.getStartValues(market, hint, indicatorVariable, edgeVariable);
+        if (values != null && this.model.isFeasible(values, 1e-6)) {
+          this.model.addStart(values);
+          cutoff = Math.max(cutoff, this.model.getObjectiveValue(values));
+        }
       }
+    }
+    if (this.model.getNumberStarts() > 0) {
+      this.model.setCutoff(cutoff);
       if (this.verbose) {
-        System.out.println("**** Running OptimalAllocILP with the following parameters:");
-        System.out.println("\t numSolutions = " + this.numSolutions);
-        System.out.println("\t timeLimit = " + this.timeLimit);
+        System.out.println("\t " + this.model.getNumberStarts() + " starting points, cutoff = " + cutoff);
+      }
+    }
+
+    // Solve the problem and get many solutions.
+    SolverProvider provider = (this.solver != null) ? this.solver : Solvers.getProvider();
+    if (this.threads >= 0 && provider instanceof CplexProvider) {
+      provider = new CplexProvider(this.threads);
+    }
+    // The pure-Java solver enumerates alternative optima lazily, so that they are only searched for when the extra allocations are read.
+    int numberVariables = this.model.getNumberVariables();
+    Iterator<double[]> points;
+    try {
+      if (this.numSolutions != 1 && provider instanceof SimplexSolver) {
+        points = ((SimplexSolver) provider).optimalPoints(this.model);
+      } else {
+        points = OptimalAllocILP.getPoints(provider.solve(this.model), numberVariables, this.verbose);
+      }
+    } catch (SolverException e) {
+      // Report that the solver failed.
+      e.printStackTrace();
+      throw new AllocationAlgoException(AllocationAlgoErrorCodes.CPLEX_FAILED);
+    } finally {
+      this.model = null;
+    }
+    if (!points.hasNext()) {
+      // If we ever do reach this point, then we don't really know what happened.
+      throw new AllocationAlgoException(AllocationAlgoErrorCodes.UNKNOWN_ERROR);
+    }
+    // The first optimal solution is the base solution. The other ones can only differ from it on edges, so only their differences on edges are kept.
+    double[] point = points.next();
+    int[] base = new int[numberEdges];
+    MarketAllocation.Builder<M, G, B> alloc = MarketAllocation.<M, G, B> builder(market);
+    for (int j = 0; j < numberBidders; j++) {
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        // Solvers return doubles, which are rounded into integers.
+        base[e] = (int) Math.round(point[edgeVariable[e]]);
+        alloc.set(bidderToGoods[e], j, base[e]);
       }
+    }
+    MarketAllocation<M, G, B> baseSolution = alloc.build(this.getObjectiveFunction());
+    if (this.verbose) {
+      System.out.println("Solution #0");
+      OptimalAllocILP.printSolution(point, edgeVariable, indicatorVariable);
+    }
+    if (this.numSolutions != 1) {
+      ExtraAllocations<M, G, B> extraAllocations = new ExtraAllocations<M, G, B>(points, (this.numSolutions > 0) ? this.numSolutions - 1
+          : Integer.MAX_VALUE, base, edgeVariable, indicatorVariable, numberBidders, start, edgeOfSupplyRow, edgeBidder, this.getObjectiveFunction(),
+          this.verbose);
+      baseSolution.setExtraAllocationSource(extraAllocations);
+    }
+    if (this.verbose) {
+      System.out.println("**************** End Optimal Alloc ILP ****************");
+    }
+    return baseSolution;
+  }
 
-      // These next two maps point from a good (resp. a bidder) to a positive integer. These maps are used to point from a bidder to its CPLEX variable.
-      HashMap<G, Integer> goodToCPLEXIndex = new HashMap<G, Integer>();
-      HashMap<B, Integer> bidderToCPLEXIndex = new HashMap<B, Integer>();
-      for (int i = 0; i < market.getNumberGoods(); i++) {
-        goodToCPLEXIndex.put(market.getGoods().get(i), i);
+  /**
+   * Converts an allocation into values of the ILP variables.
+   * 
+   * @param market - the market.
+   * @param start - an allocation of the market.
+   * @param indicatorVariable - the indicator variable of each bidder.
+   * @param edgeVariable - the allocation variable of each edge.
+   * @return the values, or null if the allocation gives a bidder goods it does not demand.
+   */
+  private double[] getStartValues(M market, MarketAllocation<M, G, B> start, int[] indicatorVariable, int[] edgeVariable) {
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    double[] values = new double[this.model.getNumberVariables()];
+    for (int j = 0; j < market.getNumberBidders(); j++) {
+      int allocated = 0;
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        values[edgeVariable[e]] = start.getAllocation(bidderToGoods[e], j);
+        allocated += start.getAllocation(bidderToGoods[e], j);
       }
-      for (int j = 0; j < market.getNumberBidders(); j++) {
-        bidderToCPLEXIndex.put(market.getBidders().get(j), j);
+      if (allocated != start.allocationToBidder(j)) {
+        return null;
       }
-      // Variables
-      IloNumVar[] indicatorVariable = this.cplex.boolVarArray(market.getNumberBidders());
-      IloNumVar[][] allocationMatrixVariable = new IloNumVar[market.getNumberGoods()][];
-      for (G good : market.getGoods()) {
-        allocationMatrixVariable[goodToCPLEXIndex.get(good)] = this.cplex.intVarArray(market.getNumberBidders(), 0, Integer.MAX_VALUE);
+      values[indicatorVariable[j]] = allocated / ((double) market.getBidders().get(j).getDemand());
+    }
+    return values;
+  }
+
+  /**
+   * Getter.
+   * 
+   * @param solution - a Solution object.
+   * @param numberVariables - the number of variables of the model.
+   * @param verbose - a boolean, if true, then output information about the solution.
+   * @return an iterator over the points of the solution.
+   */
+  private static Iterator<double[]> getPoints(final Solution solution, int numberVariables, boolean verbose) {
+    if (verbose) {
+      System.out.println("**************** Solutions ****************");
+      System.out.println("Found " + solution.getNumberSolutions() + " optimal solutions.");
+      System.out.println("Solution status = " + solution.getStatus());
+      if (solution.hasValues()) {
+        System.out.println("Solution value  = " + solution.getObjectiveValue());
       }
+    }
+    final int[] variables = new int[numberVariables];
+    for (int k = 0; k < numberVariables; k++) {
+      variables[k] = k;
+    }
+    return new Iterator<double[]>() {
 
-      this.cplex.addMaximize(this.getILPObjective(market, indicatorVariable, bidderToCPLEXIndex));
-
-      // Constraint (1). Allocation from a good not connected to a bidder is zero.
-      // Constraint (2). Allocation satisfies bidder.
-      for (B bidder : market.getBidders()) {
-        double coeff = 1.0 / ((double) bidder.getDemand());
-        IloLinearNumExpr expr = this.cplex.linearNumExpr();
-        for (G good : market.getGoods()) {
-          if (bidder.demandsGood(good)) {
-            expr.addTerm(coeff, allocationMatrixVariable[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)]);
-          } else {
-            this.cplex.addEq(0, allocationMatrixVariable[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)]);
-          }
-        }
-        this.cplex.addGe(expr, indicatorVariable[bidderToCPLEXIndex.get(bidder)]);
-        this.cplex.addLe(expr, indicatorVariable[bidderToCPLEXIndex.get(bidder)]);
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return this.next < solution.getNumberSolutions();
       }
 
-      // Constrain (3). Allocation from goods can not be more than supply.
-      for (G good : market.getGoods()) {
-        IloLinearNumExpr expr = this.cplex.linearNumExpr();
-        for (B bidder : market.getBidders()) {
-          expr.addTerm(1.0, allocationMatrixVariable[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)]);
+      @Override
+      public double[] next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
         }
-        this.cplex.addLe(expr, good.getSupply());
+        return solution.getValues(variables, this.next++);
       }
 
-      // Solve the problem and get many solutions.
-      this.cplex.solve();
-      if (this.cplex.populate()) {
-        int numsol = this.cplex.getSolnPoolNsolns();
-        int numsolreplaced = this.cplex.getSolnPoolNreplaced();
-        // Print some information
-        if (this.verbose) {
-          System.out.println("**************** Populate ****************");
-          System.out.println("The solution pool contains " + numsol + " solutions.");
-          System.out.println(numsolreplaced + " solutions were removed due to the " + "solution pool relative gap parameter.");
-          System.out.println("In total, " + (numsol + numsolreplaced) + " solutions were generated.");
-          System.out.println("Solution status = " + this.cplex.getStatus());
-          System.out.println("Solution value  = " + this.cplex.getObjValue());
-        }
-        // Weed out sub-optimal solutions.
-        HashSet<Integer> optIndeces = new HashSet<Integer>();
-        double optValue = Double.NEGATIVE_INFINITY;
-        for (int l = 0; l < numsol; l++) {
-          double currentOptValue = this.cplex.getObjValue(l);
-          // Note that this assumes a maximization objective!!
-          if (currentOptValue > optValue) {
-            optValue = currentOptValue;
-            optIndeces.clear();
-            optIndeces.add(l);
-          } else if (currentOptValue == optValue) {
-            optIndeces.add(l);
-          }
-        }
-        // Store all the solutions in an ArrayList.
-        ArrayList<int[][]> solutions = new ArrayList<>();
-        for (int l : optIndeces) {
-          // The solution should be a matrix of integers. However, CPLEX returns a matrix of doubles. So we are going to have to cast this into integers.
-          int[][] sol = new int[market.getNumberGoods()][market.getNumberBidders()];
-          double[][] solDouble = new double[market.getNumberGoods()][market.getNumberBidders()];
-          for (G good : market.getGoods()) {
-            solDouble[goodToCPLEXIndex.get(good)] = this.cplex.getValues(allocationMatrixVariable[goodToCPLEXIndex.get(good)], l);
-            // Unfortunately in Java the only way to cast your array is to iterate through each element and cast them one by one
-            for (B bidder : market.getBidders()) {
-              sol[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)] = (int) Math.round(solDouble[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)]);
-            }
-          }
-          solutions.add(sol);
-          if (this.verbose) {
-            System.out.println("Solution #" + l);
-            Printer.printMatrix(sol);
-            System.out.println();
-            for (B bidder : market.getBidders()) {
-              System.out.println(this.cplex.getValue(indicatorVariable[bidderToCPLEXIndex.get(bidder)], l));
-            }
-          }
-        }
-        // First, create a baseSolution. This is the first optimal solution (i.e., at index 0 of array solutions).
-        MarketAllocation<M, G, B> baseSolution = this.createMarketAllocation(market, solutions.get(0), goodToCPLEXIndex, bidderToCPLEXIndex);
-        // If there are more solutions, add all of them (but the base solution itself) to the base solution.
-        if (numsol > 1) {
-          for (int l = 1; l < optIndeces.size(); l++) {
-              baseSolution.addAllocation(this.createMarketAllocation(market, solutions.get(l), goodToCPLEXIndex, bidderToCPLEXIndex));
-          }
-        }
-        if (this.verbose) {
-          System.out.println("**************** End Optimal Alloc ILP ****************");
-        }
-        return baseSolution;
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
       }
-    } catch (IloException e) {
-      // Report that CPLEX failed.
-      e.printStackTrace();
-      throw new AllocationAlgoException(AllocationAlgoErrorCodes.CPLEX_FAILED);
+
+    };
+  }
+
+  /**
+   * Prints the values of the allocation and indicator variables of a solution.
+   * 
+   * @param point - a point of the ILP.
+   * @param edgeVariable - the allocation variable of each edge.
+   * @param indicatorVariable - the indicator variable of each bidder.
+   */
+  private static void printSolution(double[] point, int[] edgeVariable, int[] indicatorVariable) {
+    double[] edgeValues = new double[edgeVariable.length];
+    for (int e = 0; e < edgeVariable.length; e++) {
+      edgeValues[e] = point[edgeVariable[e]];
     }
-    // If we ever do reach this point, then we don't really know what happened.
-    throw new AllocationAlgoException(AllocationAlgoErrorCodes.UNKNOWN_ERROR);
+    double[] indicatorValues = new double[indicatorVariable.length];
+    for (int j = 0; j < indicatorVariable.length; j++) {
+      indicatorValues[j] = point[indicatorVariable[j]];
+    }
+    Printer.printVector(edgeValues);
+    System.out.println();
+    Printer.printVector(indicatorValues);
   }
 
-  private MarketAllocation<M, G, B> createMarketAllocation(M market, int[][] solution, HashMap<G, Integer> goodToCPLEXIndex,
-      HashMap<B, Integer> bidderToCPLEXIndex) throws MarketAllocationException {
-    HashBasedTable<G, B, Integer> alloc = HashBasedTable.create();
-    for (G good : market.getGoods()) {
-      for (B bidder : market.getBidders()) {
-        alloc.put(good, bidder, (int) Math.round(solution[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)]));
+  /**
+   * The alternative optimal allocations of an ILP, turned into diffs against the base allocation one at a time, as they are read.
+   * 
+   * @author Enrique Areyan Viqueira
+   */
+  private static class ExtraAllocations<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> implements MarketAllocation.ExtraAllocationSource<M, G, B> {
+
+    /**
+     * The optimal points of the ILP after the base one, and how many of them may still be added.
+     */
+    private final Iterator<double[]> points;
+    private int remaining;
+
+    /**
+     * The allocation of the base solution on each edge.
+     */
+    private final int[] base;
+
+    /**
+     * The allocation variable of each edge, and the indicator variable of each bidder.
+     */
+    private final int[] edgeVariable, indicatorVariable;
+
+    /**
+     * Number of bidders of the market.
+     */
+    private final int numberBidders;
+
+    /**
+     * The edges of each good, in increasing order of bidders: those of good i are edgeOfSupplyRow[start[i]] to edgeOfSupplyRow[start[i + 1] - 1]. The
+     * bidder of each edge.
+     */
+    private final int[] start, edgeOfSupplyRow, edgeBidder;
+
+    /**
+     * The objective function of the allocations.
+     */
+    private final ObjectiveFunction objective;
+
+    /**
+     * Boolean to control whether or not to output each solution.
+     */
+    private final boolean verbose;
+
+    /**
+     * Buffers for the diff of an allocation.
+     */
+    private final int[] positions, values;
+
+    /**
+     * Number of solutions read so far, including the base one.
+     */
+    private int count = 1;
+
+    /**
+     * Constructor.
+     * 
+     * @param points - the optimal points after the base one.
+     * @param limit - the maximum number of extra allocations.
+     * @param base - the allocation of the base solution on each edge.
+     * @param edgeVariable - the allocation variable of each edge.
+     * @param indicatorVariable - the indicator variable of each bidder.
+     * @param numberBidders - the number of bidders.
+     * @param start - the start of the edges of each good in edgeOfSupplyRow.
+     * @param edgeOfSupplyRow - the edges of each good, in increasing order of bidders.
+     * @param edgeBidder - the bidder of each edge.
+     * @param objective - the objective function of the allocations.
+     * @param verbose - a boolean, if true, then output each solution.
+     */
+    private ExtraAllocations(Iterator<double[]> points, int limit, int[] base, int[] edgeVariable, int[] indicatorVariable, int numberBidders,
+        int[] start, int[] edgeOfSupplyRow, int[] edgeBidder, ObjectiveFunction objective, boolean verbose) {
+      this.points = points;
+      this.remaining = limit;
+      this.base = base;
+      this.edgeVariable = edgeVariable;
+      this.indicatorVariable = indicatorVariable;
+      this.numberBidders = numberBidders;
+      this.start = start;
+      this.edgeOfSupplyRow = edgeOfSupplyRow;
+      this.edgeBidder = edgeBidder;
+      this.objective = objective;
+      this.verbose = verbose;
+      this.positions = new int[base.length];
+      this.values = new int[base.length];
+    }
+
+    @Override
+    public boolean addNext(MarketAllocation<M, G, B> baseSolution) throws MarketAllocationException {
+      if (this.remaining == 0 || !this.points.hasNext()) {
+        return false;
+      }
+      double[] point = this.points.next();
+      this.remaining--;
+      // Diff positions must be increasing, i.e., sorted by good and then by bidder.
+      int length = 0;
+      for (int i = 0; i + 1 < this.start.length; i++) {
+        for (int f = this.start[i]; f < this.start[i + 1]; f++) {
+          int e = this.edgeOfSupplyRow[f];
+          int value = (int) Math.round(point[this.edgeVariable[e]]);
+          if (value != this.base[e]) {
+            this.positions[length] = i * this.numberBidders + this.edgeBidder[e];
+            this.values[length++] = value;
+          }
+        }
+      }
+      baseSolution.addAllocation(this.positions, this.values, length, this.objective);
+      if (this.verbose) {
+        System.out.println("Solution #" + this.count);
+        OptimalAllocILP.printSolution(point, this.edgeVariable, this.indicatorVariable);
       }
+      this.count++;
+      return true;
     }
-    return new MarketAllocation<M, G, B>(market, alloc, this.getObjectiveFunction());
+
+  }
+
+  /**
+   * Solves the ILP of a market where every bidder demands a single item with a combinatorial algorithm. By default, there is none.
+   * 
+   * @param market - a unit-demand market.
+   * @return the index of the good allocated to each bidder, or -1, or null if the ILP must be used.
+   */
+  protected int[] solveUnitDemand(M market) {
+    return null;
   }
 
   /**
-   * Changes the objective of the ILP.
+   * Changes the objective of the ILP. The indicator variable of a bidder is at the bidder's index in the market.
    * 
-   * @return an IloNumExpr with the ILP objective.
-   * @throws IloException
+   * @return a LinearExpression with the ILP objective.
    */
-  protected abstract IloNumExpr getILPObjective(M market, IloNumVar[] indicatorVariable, HashMap<B, Integer> bidderToCPLEXIndex) throws IloException;
+  protected abstract LinearExpression getILPObjective(M market, int[] indicatorVariable);
 
 }
@@ -10,6 +10,10 @@ import log.SqlDB;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 import statistics.PricesStatistics;
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
 import structures.exceptions.AllocationException;
 import structures.exceptions.BidderCreationException;
 import structures.exceptions.GoodsCreationException;
@@ -17,8 +21,13 @@ import structures.exceptions.GoodsException;
 import structures.exceptions.MarketAllocationException;
 import structures.exceptions.MarketCreationException;
 import structures.exceptions.MarketOutcomeException;
+import util.solver.CplexProvider;
+import util.solver.SolverProvider;
+import util.solver.Solvers;
 import algorithms.pricing.error.PrincingAlgoException;
 import allocations.error.AllocationAlgoException;
+import allocations.greedy.GreedyAllocationFactory;
+import allocations.optimal.OptimalAllocILP;
 
 /**
  * Abstract class to test algorithms.
@@ -74,10 +83,39 @@ public abstract class Experiments {
    */
   public static void main(String[] args) throws Exception {
     RunParameters Parameters = new RunParameters(args);
+    // Reported times depend on the solver: the pure-Java default solves the welfare ILPs of large markets much slower than CPLEX.
+    SolverProvider solver = Solvers.getProvider();
+    System.out.println("Solver: " + solver.getClass().getSimpleName() + ((solver instanceof CplexProvider) ? "" : " (run with -Dsolver=cplex to time with CPLEX)"));
     SqlDB dbLogger = new SqlDB(Parameters.dbProvider, Parameters.dbHost, Parameters.dbPort, Parameters.dbName, Parameters.dbUsername, Parameters.dbPassword);
     Parameters.experimentObject.runExperiments(dbLogger);
   }
 
+  /**
+   * Solves an optimal allocation ILP on a market, starting from the greedy welfare and greedy egalitarian allocations of the market. The best of them
+   * is the ILP's first incumbent and its objective cutoff.
+   * 
+   * @param ilp - an OptimalAllocILP object.
+   * @param market - a market.
+   * @return the optimal allocation.
+   * @throws AllocationAlgoException
+   * @throws BidderCreationException
+   * @throws GoodsCreationException
+   * @throws AllocationException
+   * @throws GoodsException
+   * @throws MarketAllocationException
+   */
+  public static MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> solveWithGreedyStarts(
+      OptimalAllocILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> ilp, Market<Goods, Bidder<Goods>> market) throws AllocationAlgoException,
+      BidderCreationException, GoodsCreationException, AllocationException, GoodsException, MarketAllocationException {
+    ilp.addStart(GreedyAllocationFactory.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation().Solve(market));
+    ilp.addStart(GreedyAllocationFactory.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyEgalitarianAllocation().Solve(market));
+    try {
+      return ilp.Solve(market);
+    } finally {
+      ilp.clearStarts();
+    }
+  }
+
   /**
    * Keeps tracks of the statistics.
    * 
@@ -98,6 +136,9 @@ public abstract class Experiments {
     this.getDS(stats, id + "MC").addValue(ps.getMCViolationsRatio());
     this.getDS(stats, id + "MCLoss").addValue((double) ps.getMarketClearanceViolations().getValue());
     this.getDS(stats, id + "Time").addValue(ps.getTime() / 1000000000.0);
+    if (ps.getPricingCacheHits() >= 0) {
+      this.getDS(stats, id + "CacheHits").addValue(ps.getPricingCacheHits());
+    }
   }
 
   /**
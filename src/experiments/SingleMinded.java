@@ -65,11 +65,13 @@ public class SingleMinded extends Experiments {
       for (int i = 0; i < RunParameters.numTrials; i++) {
         // Generate Single-minded random market.
         SingleMindedMarket<Goods, Bidder<Goods>> M = this.getSingleMindedMarket(numGoods, numBidders, k, distribution);
-        // Optimal Utilitarian Allocation.
-        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> utilitarianMaxAlloc = new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>().Solve(M);
+        // Optimal Utilitarian Allocation, starting from the greedy allocations.
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> utilitarianMaxAlloc = Experiments.solveWithGreedyStarts(
+            new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(), M);
         double optimalWelfare = utilitarianMaxAlloc.getValue();
         // Optimal Egalitarian Allocation.
-        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> egalitarianMaxAlloc = new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>().Solve(M);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> egalitarianMaxAlloc = Experiments.solveWithGreedyStarts(
+            new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(), M);
         double optimalEgalitarian = (double) egalitarianMaxAlloc.getNumberOfWinners();
         // Obtain statistics from all algorithms.
         this.populateStats(stats, new SingleMindedApproxWE(M).Solve(), "ap", optimalWelfare, optimalEgalitarian);
@@ -24,6 +24,7 @@ import structures.exceptions.MarketOutcomeException;
 import structures.factory.SingletonMarketFactory;
 import waterfall.Waterfall;
 import algorithms.pricing.error.PrincingAlgoException;
+import algorithms.pricing.helper.PricingCache;
 import algorithms.pricing.reserveprices.RevMaxHeuristic;
 import allocations.error.AllocationAlgoException;
 import allocations.greedy.GreedyAllocationFactory;
@@ -73,14 +74,17 @@ public class Singleton extends Experiments {
         // Optimal Egalitarian Allocation.
         MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> egalitarianMaxAlloc = new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>().Solve(M);
         double optimalEgalitarian = (double) egalitarianMaxAlloc.getNumberOfWinners();
+        // The heuristics often price the same allocations with the same reserves, so they share the pricing solutions of the market. A heuristic
+        // can then be faster because of the ones run before it, so its cache hits are reported next to its time.
+        PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache = new PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(M);
         // Obtain statistics from all algorithms.
         this.populateStats(stats, new SingletonEVP(M).Solve(), "ev", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.GreedyWelfare), "gw", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.GreedyEgalitarian), "ge", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.OptimalWelfare), "ow", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.OptimalEgalitarian), "oe", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.WaterFall), "wf", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.MaxBidder), "mb", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.GreedyWelfare, cache), "gw", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.GreedyEgalitarian, cache), "ge", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.OptimalWelfare, cache), "ow", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.OptimalEgalitarian, cache), "oe", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.WaterFall, cache), "wf", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, this.getRevMaxMarketPrices(M, Allocations.MaxBidder, cache), "mb", optimalWelfare, optimalEgalitarian);
       }
       System.out.println("done!");
       dbLogger.saveSingleton("singleton_" + distribution, numGoods, numBidders, p, stats);
@@ -114,6 +118,7 @@ public class Singleton extends Experiments {
    * 
    * @param market
    * @param whichAllocAlgo
+   * @param cache - the pricing solutions of the market, shared by the heuristics run on it, or null for none.
    * @return
    * @throws IloException
    * @throws AllocationException
@@ -125,7 +130,7 @@ public class Singleton extends Experiments {
    * @throws MarketCreationException
    * @throws MarketOutcomeException
    */
-  public PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> getRevMaxMarketPrices(Market<Goods, Bidder<Goods>> market, Allocations whichAllocAlgo) throws IloException, AllocationException, GoodsException, MarketAllocationException, AllocationAlgoException, BidderCreationException, PrincingAlgoException, MarketOutcomeException, MarketCreationException {
+  public PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> getRevMaxMarketPrices(Market<Goods, Bidder<Goods>> market, Allocations whichAllocAlgo, PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache) throws IloException, AllocationException, GoodsException, MarketAllocationException, AllocationAlgoException, BidderCreationException, PrincingAlgoException, MarketOutcomeException, MarketCreationException {
     // Determine which allocation algorithm to use.
     AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocAlgo = null;
     switch (whichAllocAlgo) {
@@ -148,7 +153,9 @@ public class Singleton extends Experiments {
       allocAlgo = GreedyAllocationFactory.GreedyMaxBidderAllocation();
       break;
     }
-    return new RevMaxHeuristic(market, allocAlgo).getStatistics();
+    RevMaxHeuristic revMaxHeuristic = new RevMaxHeuristic(market, allocAlgo);
+    revMaxHeuristic.setPricingCache(cache);
+    return revMaxHeuristic.getStatistics();
   }
 
 }
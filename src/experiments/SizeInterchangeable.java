@@ -25,6 +25,7 @@ import structures.factory.RandomMarketFactory;
 import waterfall.Waterfall;
 import algorithms.pricing.SimplePricing;
 import algorithms.pricing.error.PrincingAlgoException;
+import algorithms.pricing.helper.PricingCache;
 import algorithms.pricing.reserveprices.RevMaxHeuristic;
 import allocations.error.AllocationAlgoException;
 import allocations.greedy.GreedyAllocationFactory;
@@ -76,20 +77,25 @@ public class SizeInterchangeable extends Experiments {
       for (int i = 0; i < RunParameters.numTrials; i++) {
         // Generate Single-minded random market.
         Market<Goods, Bidder<Goods>> M = this.getSizeInterMarket(numGoods, numBidders, k, p, distribution);
-        // Optimal Utilitarian Allocation.
-        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> utilitarianMaxAlloc = new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>().Solve(M);
+        // Optimal Utilitarian Allocation, starting from the greedy allocations.
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> utilitarianMaxAlloc = Experiments.solveWithGreedyStarts(
+            new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(), M);
         double optimalWelfare = utilitarianMaxAlloc.getValue();
         // Optimal Egalitarian Allocation.
-        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> egalitarianMaxAlloc = new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>().Solve(M);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> egalitarianMaxAlloc = Experiments.solveWithGreedyStarts(
+            new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(), M);
         double optimalEgalitarian = (double) egalitarianMaxAlloc.getNumberOfWinners();
+        // The heuristics often price the same allocations with the same reserves, so they share the pricing solutions of the market. A heuristic
+        // can then be faster because of the ones run before it, so its cache hits are reported next to its time.
+        PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache = new PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(M);
         // Obtain statistics from all algorithms.
         this.populateStats(stats, new SimplePricing(M).Solve(), "sp", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.GreedyWelfare), "gw", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.GreedyEgalitarian), "ge", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.OptimalWelfare), "ow", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.OptimalEgalitarian), "oe", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.WaterFall), "wf", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.MaxBidder), "mb", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.GreedyWelfare, cache), "gw", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.GreedyEgalitarian, cache), "ge", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.OptimalWelfare, cache), "ow", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.OptimalEgalitarian, cache), "oe", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.WaterFall, cache), "wf", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.MaxBidder, cache), "mb", optimalWelfare, optimalEgalitarian);
       }
       System.out.println("done!");
       dbLogger.saveSizeInter(dbName + distribution, numGoods, numBidders, k, p, stats);
@@ -123,6 +129,7 @@ public class SizeInterchangeable extends Experiments {
    * 
    * @param market
    * @param whichAllocAlgo
+   * @param cache - the pricing solutions of the market, shared by the heuristics run on it, or null for none.
    * @return
    * @throws IloException
    * @throws AllocationException
@@ -134,7 +141,7 @@ public class SizeInterchangeable extends Experiments {
    * @throws MarketCreationException
    * @throws MarketOutcomeException
    */
-  public static PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> getRevMaxMarketPrices(Market<Goods, Bidder<Goods>> market, Allocations whichAllocAlgo) throws IloException, AllocationException, GoodsException, MarketAllocationException, AllocationAlgoException, BidderCreationException, PrincingAlgoException, MarketOutcomeException, MarketCreationException {
+  public static PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> getRevMaxMarketPrices(Market<Goods, Bidder<Goods>> market, Allocations whichAllocAlgo, PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache) throws IloException, AllocationException, GoodsException, MarketAllocationException, AllocationAlgoException, BidderCreationException, PrincingAlgoException, MarketOutcomeException, MarketCreationException {
     // Determine which allocation algorithm to use.
     AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocAlgo = null;
     switch (whichAllocAlgo) {
@@ -157,7 +164,9 @@ public class SizeInterchangeable extends Experiments {
       allocAlgo = GreedyAllocationFactory.GreedyMaxBidderAllocation();
       break;
     }
-    return new RevMaxHeuristic(market, allocAlgo).getStatistics();
+    RevMaxHeuristic revMaxHeuristic = new RevMaxHeuristic(market, allocAlgo);
+    revMaxHeuristic.setPricingCache(cache);
+    return revMaxHeuristic.getStatistics();
   }
 
 }
@@ -12,6 +12,7 @@ import structures.Market;
 import structures.MarketAllocation;
 import structures.factory.TACMarketFactory;
 import algorithms.pricing.SimplePricing;
+import algorithms.pricing.helper.PricingCache;
 import allocations.optimal.EgalitarianMaxAllocationILP;
 import allocations.optimal.WelfareMaxAllocationILP;
 
@@ -45,20 +46,25 @@ public class TAC extends Experiments {
       for (int i = 0; i < RunParameters.numTrials; i++) {
         // Generate Single-minded random market.
         Market<Goods, Bidder<Goods>> M = TACMarketFactory.RandomTACMarket(numBidders);
-        // Optimal Utilitarian Allocation.
-        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> utilitarianMaxAlloc = new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>().Solve(M);
+        // Optimal Utilitarian Allocation, starting from the greedy allocations.
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> utilitarianMaxAlloc = Experiments.solveWithGreedyStarts(
+            new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(), M);
         double optimalWelfare = utilitarianMaxAlloc.getValue();
         // Optimal Egalitarian Allocation.
-        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> egalitarianMaxAlloc = new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>().Solve(M);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> egalitarianMaxAlloc = Experiments.solveWithGreedyStarts(
+            new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(), M);
         double optimalEgalitarian = (double) egalitarianMaxAlloc.getNumberOfWinners();
+        // The heuristics often price the same allocations with the same reserves, so they share the pricing solutions of the market. A heuristic
+        // can then be faster because of the ones run before it, so its cache hits are reported next to its time.
+        PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache = new PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(M);
         // Obtain statistics from all algorithms.
         this.populateStats(stats, new SimplePricing(M).Solve(), "sp", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.GreedyWelfare), "gw", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.GreedyEgalitarian), "ge", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.OptimalWelfare), "ow", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.OptimalEgalitarian), "oe", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.WaterFall), "wf", optimalWelfare, optimalEgalitarian);
-        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.MaxBidder), "mb", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.GreedyWelfare, cache), "gw", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.GreedyEgalitarian, cache), "ge", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.OptimalWelfare, cache), "ow", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.OptimalEgalitarian, cache), "oe", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.WaterFall, cache), "wf", optimalWelfare, optimalEgalitarian);
+        this.populateStats(stats, SizeInterchangeable.getRevMaxMarketPrices(M, Allocations.MaxBidder, cache), "mb", optimalWelfare, optimalEgalitarian);
       }
       System.out.println("done!");
       dbLogger.saveTAC("TAC", numBidders, stats);
@@ -0,0 +1,375 @@
+package log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import structures.Bidder;
+import structures.DemandSetPool;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.exceptions.BidderCreationException;
+import structures.exceptions.GoodsCreationException;
+import structures.exceptions.MarketCreationException;
+import allocations.objectivefunction.interfaces.ObjectiveFunction;
+
+/**
+ * Reads files written by a MarketFileWriter. The file is mapped into memory with FileChannel.map and records are read in place: a Record is a view on
+ * the mapped bytes, so a corpus can be scanned (e.g., to compute statistics over supplies or rewards) without creating any Goods or Bidder objects.
+ * Records can be turned back into Market, MarketAllocation and MarketOutcome objects when needed, e.g., to replay an instance.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class MarketFileReader implements Closeable {
+
+  /**
+   * The file being read.
+   */
+  private final FileChannel channel;
+
+  /**
+   * The mapped contents of the file.
+   */
+  private final MappedByteBuffer buffer;
+
+  /**
+   * Position of each record in the file.
+   */
+  private final int[] recordOffsets;
+
+  /**
+   * Constructor. Maps the file and checks its header.
+   *
+   * @param path - the path of the file.
+   * @throws IOException in case the file could not be read or is not a market file of a supported version.
+   */
+  public MarketFileReader(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      if (this.channel.size() < MarketFileWriter.HEADER_SIZE) {
+        throw new IOException("Not a market file.");
+      }
+      this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+      this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+      if (this.buffer.getInt(0) != MarketFileWriter.MAGIC) {
+        throw new IOException("Not a market file.");
+      }
+      if (this.buffer.getInt(4) != MarketFileWriter.VERSION) {
+        throw new IOException("Unsupported market file version " + this.buffer.getInt(4) + ".");
+      }
+      // Hop over the records to find where each one starts.
+      this.recordOffsets = new int[this.buffer.getInt(8)];
+      int offset = MarketFileWriter.HEADER_SIZE;
+      for (int r = 0; r < this.recordOffsets.length; r++) {
+        if (offset + 4 > this.buffer.limit()) {
+          throw new IOException("Market file is truncated.");
+        }
+        this.recordOffsets[r] = offset;
+        offset += 4 + this.buffer.getInt(offset);
+      }
+      if (offset > this.buffer.limit()) {
+        throw new IOException("Market file is truncated.");
+      }
+    } catch (IOException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of records in the file.
+   */
+  public int getNumberRecords() {
+    return this.recordOffsets.length;
+  }
+
+  /**
+   * Gets a view on a record.
+   *
+   * @param r - the number of the record, starting at zero.
+   * @return a Record object that reads directly from the mapped file.
+   */
+  public Record getRecord(int r) {
+    return new Record(this.recordOffsets[r]);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  /**
+   * A view on one record of the file. See MarketFileWriter for the layout.
+   *
+   * @author Enrique Areyan Viqueira
+   */
+  public class Record {
+
+    /**
+     * Flags of the record.
+     */
+    private final int flags;
+
+    /**
+     * Number of goods, bidders and edges.
+     */
+    private final int n, m, e;
+
+    /**
+     * Positions of the columns in the file.
+     */
+    private final int supplyStart, reservePriceStart, demandStart, rewardStart, offsetsStart, edgesStart, allocationStart, pricesStart;
+
+    /**
+     * Number of non-zero allocation entries.
+     */
+    private final int k;
+
+    /**
+     * Constructor.
+     *
+     * @param offset - the position of the record in the file.
+     */
+    private Record(int offset) {
+      MappedByteBuffer b = MarketFileReader.this.buffer;
+      this.flags = b.getInt(offset + 4);
+      this.n = b.getInt(offset + 8);
+      this.m = b.getInt(offset + 12);
+      this.e = b.getInt(offset + 16);
+      this.supplyStart = offset + 20;
+      this.reservePriceStart = this.supplyStart + 4 * this.n;
+      this.demandStart = this.reservePriceStart + 8 * this.n;
+      this.rewardStart = this.demandStart + 4 * this.m;
+      this.offsetsStart = this.rewardStart + 8 * this.m;
+      this.edgesStart = this.offsetsStart + 4 * (this.m + 1);
+      int end = this.edgesStart + 4 * this.e;
+      if (this.hasAllocation()) {
+        this.k = b.getInt(end);
+        this.allocationStart = end + 4;
+        end = this.allocationStart + 8 * this.k;
+      } else {
+        this.k = 0;
+        this.allocationStart = -1;
+      }
+      this.pricesStart = this.hasPrices() ? end : -1;
+    }
+
+    /**
+     * Getter.
+     *
+     * @return the number of goods.
+     */
+    public int getNumberGoods() {
+      return this.n;
+    }
+
+    /**
+     * Getter.
+     *
+     * @return the number of bidders.
+     */
+    public int getNumberBidders() {
+      return this.m;
+    }
+
+    /**
+     * Getter.
+     *
+     * @return the number of edges, i.e., of (good, bidder) pairs where the bidder demands the good.
+     */
+    public int getNumberEdges() {
+      return this.e;
+    }
+
+    /**
+     * Getter.
+     *
+     * @param i - a good index.
+     * @return the supply of good i.
+     */
+    public int getSupply(int i) {
+      return MarketFileReader.this.buffer.getInt(this.supplyStart + 4 * i);
+    }
+
+    /**
+     * Getter.
+     *
+     * @param i - a good index.
+     * @return the reserve price of good i.
+     */
+    public double getReservePrice(int i) {
+      return MarketFileReader.this.buffer.getDouble(this.reservePriceStart + 8 * i);
+    }
+
+    /**
+     * Getter.
+     *
+     * @param j - a bidder index.
+     * @return the demand of bidder j.
+     */
+    public int getDemand(int j) {
+      return MarketFileReader.this.buffer.getInt(this.demandStart + 4 * j);
+    }
+
+    /**
+     * Getter.
+     *
+     * @param j - a bidder index.
+     * @return the reward of bidder j.
+     */
+    public double getReward(int j) {
+      return MarketFileReader.this.buffer.getDouble(this.rewardStart + 8 * j);
+    }
+
+    /**
+     * Getter.
+     *
+     * @param j - a bidder index, or m to get the total number of edges.
+     * @return the position of the first good demanded by bidder j in the edges column. See Market.getBidderToGoodsOffsets.
+     */
+    public int getBidderToGoodsOffset(int j) {
+      return MarketFileReader.this.buffer.getInt(this.offsetsStart + 4 * j);
+    }
+
+    /**
+     * Getter.
+     *
+     * @param edge - a position in the edges column.
+     * @return the index of the good of the edge. See Market.getBidderToGoods.
+     */
+    public int getBidderToGoods(int edge) {
+      return MarketFileReader.this.buffer.getInt(this.edgesStart + 4 * edge);
+    }
+
+    /**
+     * Getter.
+     *
+     * @return true if the record contains an allocation.
+     */
+    public boolean hasAllocation() {
+      return (this.flags & MarketFileWriter.HAS_ALLOCATION) != 0;
+    }
+
+    /**
+     * Getter.
+     *
+     * @return the number of non-zero entries of the allocation.
+     */
+    public int getNumberAllocationEntries() {
+      return this.k;
+    }
+
+    /**
+     * Getter.
+     *
+     * @param entry - the number of a non-zero entry of the allocation.
+     * @return the position of the entry in the allocation matrix, i.e., i * m + j for good i and bidder j.
+     */
+    public int getAllocationPosition(int entry) {
+      return MarketFileReader.this.buffer.getInt(this.allocationStart + 4 * entry);
+    }
+
+    /**
+     * Getter.
+     *
+     * @param entry - the number of a non-zero entry of the allocation.
+     * @return the quantity allocated in the entry.
+     */
+    public int getAllocationQuantity(int entry) {
+      return MarketFileReader.this.buffer.getInt(this.allocationStart + 4 * this.k + 4 * entry);
+    }
+
+    /**
+     * Getter.
+     *
+     * @return true if the record contains prices.
+     */
+    public boolean hasPrices() {
+      return (this.flags & MarketFileWriter.HAS_PRICES) != 0;
+    }
+
+    /**
+     * Getter.
+     *
+     * @param i - a good index.
+     * @return the price of good i.
+     */
+    public double getPrice(int i) {
+      return MarketFileReader.this.buffer.getDouble(this.pricesStart + 8 * i);
+    }
+
+    /**
+     * Creates a market object from this record. Bidders with equal demand sets share one demand set instance.
+     *
+     * @return a market equal to the one written, up to the identity of its goods and bidders.
+     * @throws GoodsCreationException in case a good could not be created.
+     * @throws BidderCreationException in case a bidder could not be created.
+     * @throws MarketCreationException in case the market could not be created.
+     */
+    public Market<Goods, Bidder<Goods>> toMarket() throws GoodsCreationException, BidderCreationException, MarketCreationException {
+      ArrayList<Goods> goods = new ArrayList<Goods>();
+      for (int i = 0; i < this.n; i++) {
+        goods.add(new Goods(this.getSupply(i), this.getReservePrice(i)));
+      }
+      DemandSetPool<Goods> demandSetPool = new DemandSetPool<Goods>();
+      ArrayList<Bidder<Goods>> bidders = new ArrayList<Bidder<Goods>>();
+      for (int j = 0; j < this.m; j++) {
+        HashSet<Goods> demandSet = new HashSet<Goods>();
+        for (int edge = this.getBidderToGoodsOffset(j); edge < this.getBidderToGoodsOffset(j + 1); edge++) {
+          demandSet.add(goods.get(this.getBidderToGoods(edge)));
+        }
+        bidders.add(new Bidder<Goods>(this.getDemand(j), this.getReward(j), demandSetPool.intern(demandSet)));
+      }
+      return new Market<Goods, Bidder<Goods>>(goods, bidders);
+    }
+
+    /**
+     * Creates an allocation object from this record.
+     *
+     * @param market - the market created from this record with toMarket.
+     * @param f - the objective function of the allocation.
+     * @return the allocation written, or null if the record has no allocation.
+     */
+    public MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> toAllocation(Market<Goods, Bidder<Goods>> market, ObjectiveFunction f) {
+      if (!this.hasAllocation()) {
+        return null;
+      }
+      MarketAllocation.Builder<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = MarketAllocation
+          .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(market);
+      for (int entry = 0; entry < this.k; entry++) {
+        int position = this.getAllocationPosition(entry);
+        allocation.set(position / this.m, position % this.m, this.getAllocationQuantity(entry));
+      }
+      return allocation.build(f);
+    }
+
+    /**
+     * Creates an outcome object from this record.
+     *
+     * @param allocation - the allocation created from this record with toAllocation.
+     * @return the outcome written. Its price vector is null if the record has no prices.
+     */
+    public MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> toOutcome(MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation) {
+      double[] prices = null;
+      if (this.hasPrices()) {
+        prices = new double[this.n];
+        for (int i = 0; i < this.n; i++) {
+          prices[i] = this.getPrice(i);
+        }
+      }
+      return new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(allocation, prices);
+    }
+
+  }
+
+}
@@ -0,0 +1,206 @@
+package log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+
+/**
+ * Writes markets, and optionally an allocation and prices for each of them, to a binary file that can be scanned with a MarketFileReader.
+ *
+ * The file starts with a header: a magic number, the format version and the number of records. Each record stores one market as columns (little
+ * endian): an int with the length of the rest of the record, an int with flags, the number of goods n, bidders m and edges e, then supply[n],
+ * reservePrice[n], demand[m], reward[m], bidderToGoodsOffsets[m + 1] and bidderToGoods[e], i.e., the compressed adjacency of the market. If the
+ * record has an allocation, it follows as the number k of non-zero entries, position[k] and quantity[k], where position i * m + j refers to good i and
+ * bidder j. If the record has prices, price[n] comes last.
+ *
+ * Since the reader maps the whole file into memory, a file cannot grow beyond Integer.MAX_VALUE bytes. Large corpora must be split across files.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class MarketFileWriter implements Closeable {
+
+  /**
+   * Magic number at the beginning of every market file ("EFPM").
+   */
+  public static final int MAGIC = 0x4546504D;
+
+  /**
+   * Current version of the format.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * Size of the header in bytes: magic, version and number of records.
+   */
+  public static final int HEADER_SIZE = 12;
+
+  /**
+   * Flag set if the record contains an allocation.
+   */
+  public static final int HAS_ALLOCATION = 1;
+
+  /**
+   * Flag set if the record contains prices.
+   */
+  public static final int HAS_PRICES = 2;
+
+  /**
+   * The file being written.
+   */
+  private final FileChannel channel;
+
+  /**
+   * Number of records written so far.
+   */
+  private int numberRecords;
+
+  /**
+   * Constructor. Creates the file, or truncates it if it exists.
+   *
+   * @param path - the path of the file.
+   * @throws IOException in case the file could not be opened.
+   */
+  public MarketFileWriter(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    this.numberRecords = 0;
+    this.writeHeader();
+  }
+
+  /**
+   * Writes a market with no allocation and no prices.
+   *
+   * @param market - a market.
+   * @throws IOException in case the record could not be written.
+   */
+  public void write(Market<?, ?> market) throws IOException {
+    this.write(market, null, null);
+  }
+
+  /**
+   * Writes an allocation together with its market.
+   *
+   * @param allocation - a market allocation.
+   * @throws IOException in case the record could not be written.
+   */
+  public void write(MarketAllocation<?, ?, ?> allocation) throws IOException {
+    this.write(allocation.getMarket(), allocation, null);
+  }
+
+  /**
+   * Writes an outcome together with its market and allocation.
+   *
+   * @param outcome - a market outcome.
+   * @throws IOException in case the record could not be written.
+   */
+  public void write(MarketOutcome<?, ?, ?> outcome) throws IOException {
+    this.write(outcome.getMarketAllocation().getMarket(), outcome.getMarketAllocation(), outcome);
+  }
+
+  /**
+   * Writes one record.
+   *
+   * @param market - a market.
+   * @param allocation - an allocation of the market, or null.
+   * @param outcome - an outcome with the allocation, or null.
+   * @throws IOException in case the record could not be written.
+   */
+  private void write(Market<?, ?> market, MarketAllocation<?, ?, ?> allocation, MarketOutcome<?, ?, ?> outcome) throws IOException {
+    int n = market.getNumberGoods();
+    int m = market.getNumberBidders();
+    int e = market.getNumberEdges();
+    int[] nonZeroEntries = (allocation == null) ? null : allocation.getNonZeroEntries();
+    boolean hasPrices = outcome != null && outcome.hasPrices();
+    long size = 4L + 4L * 4 + 12L * n + 12L * m + 4L * (m + 1) + 4L * e;
+    if (nonZeroEntries != null) {
+      size += 4L + 8L * nonZeroEntries.length;
+    }
+    if (hasPrices) {
+      size += 8L * n;
+    }
+    if (this.channel.position() + size > Integer.MAX_VALUE) {
+      throw new IOException("Market file is full, records must be split across files.");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt((int) size - 4);
+    buffer.putInt((nonZeroEntries != null ? HAS_ALLOCATION : 0) | (hasPrices ? HAS_PRICES : 0));
+    buffer.putInt(n);
+    buffer.putInt(m);
+    buffer.putInt(e);
+    for (Goods good : market.getGoods()) {
+      buffer.putInt(good.getSupply());
+    }
+    for (Goods good : market.getGoods()) {
+      buffer.putDouble(good.getReservePrice());
+    }
+    for (Bidder<?> bidder : market.getBidders()) {
+      buffer.putInt(bidder.getDemand());
+    }
+    for (Bidder<?> bidder : market.getBidders()) {
+      buffer.putDouble(bidder.getReward());
+    }
+    for (int offset : market.getBidderToGoodsOffsets()) {
+      buffer.putInt(offset);
+    }
+    for (int i : market.getBidderToGoods()) {
+      buffer.putInt(i);
+    }
+    if (nonZeroEntries != null) {
+      buffer.putInt(nonZeroEntries.length);
+      for (int position : nonZeroEntries) {
+        buffer.putInt(position);
+      }
+      for (int position : nonZeroEntries) {
+        buffer.putInt(allocation.getAllocation(position / m, position % m));
+      }
+    }
+    if (hasPrices) {
+      for (double price : outcome.getPrices()) {
+        buffer.putDouble(price);
+      }
+    }
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      this.channel.write(buffer);
+    }
+    this.numberRecords++;
+  }
+
+  /**
+   * Writes the header at the beginning of the file, keeping the current position.
+   *
+   * @throws IOException in case the header could not be written.
+   */
+  private void writeHeader() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(this.numberRecords);
+    header.flip();
+    long position = this.channel.position();
+    this.channel.write(header, 0);
+    this.channel.position(Math.max(position, HEADER_SIZE));
+  }
+
+  /**
+   * Writes the final number of records and closes the file.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      this.writeHeader();
+    } finally {
+      this.channel.close();
+    }
+  }
+
+}
@@ -12,12 +12,9 @@ import structures.MarketAllocation;
 import structures.MarketOutcome;
 import structures.comparators.BiddersComparatorByReward;
 import structures.exceptions.MarketAllocationException;
+import util.Bitset;
 import allocations.objectivefunction.SingleStepObjectiveFunction;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
-
 /**
  * This class implements the approximation WE algorithm for single-minded bidders as presented in Huang, L.S., Li, M., Zhang, B.: Approximation of Walrasian
  * equilibrium in single- minded auctions. Theoretical computer science 337(1), 390–398 (2005)
@@ -32,9 +29,9 @@ public class SingleMindedApproxWE {
   private final SingleMindedMarket<Goods, Bidder<Goods>> market;
 
   /**
-   * A is the boolean matrix encoding the single-minded preferences over items.
+   * Bitset over bidder indices with the bidders that can still be allocated.
    */
-  private final boolean[][] A;
+  private final long[] activeBidders;
 
   /**
    * The list of Rewards keeps tracks of all bidders rewards.
@@ -64,8 +61,13 @@ public class SingleMindedApproxWE {
   public SingleMindedApproxWE(SingleMindedMarket<Goods, Bidder<Goods>> M) {
     this.startTime = System.nanoTime();
     this.market = M;
-    // Make a copy of the connection matrix since we will change in the solve method.
-    this.A = this.market.getCopyOfA();
+    // Initially, every bidder that demands at least one good can be allocated.
+    this.activeBidders = Bitset.create(this.market.getNumberBidders());
+    for (int j = 0; j < this.market.getNumberBidders(); j++) {
+      if (!Bitset.isEmpty(this.market.getDemandSetBits(j))) {
+        Bitset.set(this.activeBidders, j);
+      }
+    }
     // Initialize the allocation matrix and price vector.
     this.X = new int[this.market.getNumberGoods()][this.market.getNumberBidders()];
     this.p = new double[this.market.getNumberGoods()];
@@ -82,14 +84,11 @@ public class SingleMindedApproxWE {
    */
   public PricesStatistics<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> Solve() throws MarketAllocationException {
     // Keep iterating while there still are bidders that can be allocated.
-    while (!matrixAllFalse(this.A)) {
+    while (!Bitset.isEmpty(this.activeBidders)) {
       // Find the commodity which attracts most bidders.
       int mostPopularItem = -1, popularityOfItem = -1;
       for (int i = 0; i < this.market.getNumberGoods(); i++) {
-        int acum = 0;
-        for (int j = 0; j < this.market.getNumberBidders(); j++) {
-          acum += this.A[i][j] ? 1 : 0;
-        }
+        int acum = Bitset.intersectionCardinality(this.market.getDemandingBiddersBits(i), this.activeBidders);
         if (acum >= popularityOfItem) {
           popularityOfItem = acum;
           mostPopularItem = i;
@@ -97,36 +96,25 @@ public class SingleMindedApproxWE {
       }
       // Find the bidder with highest budget that wants the most popular item.
       int winner = -1;
+      long[] demandingMostPopularItem = this.market.getDemandingBiddersBits(mostPopularItem);
       for (Bidder<Goods> bidder : this.listOfBidders) {
-        if (this.A[mostPopularItem][this.market.getBidderIndex(bidder)]) {
+        int j = this.market.getBidderIndex(bidder);
+        if (Bitset.get(this.activeBidders, j) && Bitset.get(demandingMostPopularItem, j)) {
           // Assign prices and bundle
-          winner = this.market.getBidderIndex(bidder);
+          winner = j;
           this.p[mostPopularItem] = bidder.getReward();
           // This bidder has been allocated, remove it.
           this.listOfBidders.remove(bidder);
           break;
         }
       }
-      // Remove any conflicts
-      for (int i = 0; i < this.market.getNumberGoods(); i++) {
-        // The winner claimed item i
-        if (this.A[i][winner]) {
-          // Loop through all bidders
-          for (int j = 0; j < this.market.getNumberBidders(); j++) {
-            if (j != winner && this.A[i][j]) {
-              // This bidder is not a winner and wanted item i.
-              // He can't have it, so remove this bidder.
-              for (int iPrime = 0; iPrime < this.market.getNumberGoods(); iPrime++) {
-                this.A[iPrime][j] = false;
-              }
-            }
-          }
-        }
-      }
-      // Remove winner
-      for (int i = 0; i < this.market.getNumberGoods(); i++) {
-        this.X[i][winner] = (this.A[i][winner]) ? 1 : 0;
-        this.A[i][winner] = false;
+      // Remove any conflicts: every bidder that wanted an item claimed by the winner can't have it, so remove it. This also removes the winner.
+      int[] bidderToGoodsOffsets = this.market.getBidderToGoodsOffsets();
+      int[] bidderToGoods = this.market.getBidderToGoods();
+      for (int e = bidderToGoodsOffsets[winner]; e < bidderToGoodsOffsets[winner + 1]; e++) {
+        int i = bidderToGoods[e];
+        this.X[i][winner] = 1;
+        Bitset.andNotInPlace(this.activeBidders, this.market.getDemandingBiddersBits(i));
       }
     }
 
@@ -134,38 +122,18 @@ public class SingleMindedApproxWE {
      * Create appropriate structures to return the outcome of the market.
      */
     // Allocation
-    HashBasedTable<Goods, Bidder<Goods>, Integer> allocation = HashBasedTable.create();
-    for (Goods good : this.market.getGoods()) {
-      for (Bidder<Goods> bidder : this.market.getBidders()) {
-        allocation.put(good, bidder, this.X[this.market.getGoodIndex(good)][this.market.getBidderIndex(bidder)]);
+    MarketAllocation.Builder<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = MarketAllocation
+        .<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(this.market);
+    for (int i = 0; i < this.market.getNumberGoods(); i++) {
+      for (int j = 0; j < this.market.getNumberBidders(); j++) {
+        allocation.set(i, j, this.X[i][j]);
       }
     }
     // Prices
-    Builder<Goods, Double> result = ImmutableMap.<Goods, Double> builder();
-    for (Goods good : this.market.getGoods()) {
-      result.put(good, this.p[this.market.getGoodIndex(good)]);
-    }
     return new PricesStatistics<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
         new MarketOutcome<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
-            new MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(this.market, allocation, new SingleStepObjectiveFunction()),
-            result.build()), System.nanoTime() - this.startTime);
-  }
-
-  /**
-   * This function returns true if all the entries of a matrix are false. Otherwise, returns false.
-   * 
-   * @param X - a boolean matrix
-   * @return true if all the entries of X are false. Otherwise, false.
-   */
-  protected boolean matrixAllFalse(boolean[][] X) {
-    for (int i = 0; i < X.length; i++) {
-      for (int j = 0; j < X[0].length; j++) {
-        if (X[i][j]) {
-          return false;
-        }
-      }
-    }
-    return true;
+            allocation.build(new SingleStepObjectiveFunction()),
+            this.p.clone()), System.nanoTime() - this.startTime);
   }
 
 }
@@ -5,7 +5,6 @@ import ilog.concert.IloException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 
 import singleminded.structures.SingleMindedMarket;
 import structures.Bidder;
@@ -17,13 +16,12 @@ import structures.exceptions.BidderCreationException;
 import structures.exceptions.GoodsCreationException;
 import structures.exceptions.GoodsException;
 import structures.exceptions.MarketAllocationException;
+import util.Bitset;
 import allocations.error.AllocationAlgoException;
 import allocations.interfaces.AllocationAlgo;
 import allocations.objectivefunction.SingleStepObjectiveFunction;
 import allocations.objectivefunction.interfaces.ObjectiveFunction;
 
-import com.google.common.collect.HashBasedTable;
-
 /**
  * This class implements a lightweight version of the greedy allocation for
  * single-minded markets. @see allocations.greedy.GreedyAllocation
@@ -62,35 +60,28 @@ public class SingleMindedGreedyAllocation<M extends SingleMindedMarket<G, B>, G
   @Override
   public MarketAllocation<SingleMindedMarket<G, B>, G, B> Solve(SingleMindedMarket<G, B> market) throws IloException, AllocationAlgoException, BidderCreationException, GoodsCreationException, AllocationException, GoodsException, MarketAllocationException {
     // The allocation is zero at the beginning. 
-    HashBasedTable<G, B, Integer> greedyAllocation = HashBasedTable.create();
-    for(G good : market.getGoods()){
-      for(B bidder : market.getBidders()){
-        greedyAllocation.put(good, bidder, 0);
-      }
-    }
+    MarketAllocation.Builder<SingleMindedMarket<G, B>, G, B> greedyAllocation = MarketAllocation.<SingleMindedMarket<G, B>, G, B> builder(market);
     // Make an ArrayList of BidderReward so that we can order the rewards.
     ArrayList<B> listOfBidders = new ArrayList<B>(market.getBidders());
     Collections.sort(listOfBidders, this.BidderComparator);
-    HashSet<B> blockedBidders = new HashSet<B>();
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    // Goods taken by bidders allocated so far. A bidder is blocked if its bundle overlaps the goods already taken.
+    long[] takenGoods = Bitset.create(market.getNumberGoods());
     // For each bidder, in order
     for (B bidder : listOfBidders) {
       //System.out.println(bidder + " - " + bidder.getReward() / Math.sqrt(bidder.getDemand()));
-      if (!blockedBidders.contains(bidder)) {
+      int j = market.getBidderIndex(bidder);
+      long[] bundle = market.getDemandSetBits(j);
+      if (!Bitset.intersects(bundle, takenGoods)) {
         // Allocate this bidder
-        for (G good : market.getGoods()) {
-          if (bidder.demandsGood(good)) {
-            greedyAllocation.put(good, bidder, 1);
-            // Remove all bidders (other than the current bidder) that wanted this item.
-            for (B otherBidder : listOfBidders) {
-              if (otherBidder != bidder && otherBidder.demandsGood(good)) {
-                blockedBidders.add(otherBidder);
-              }
-            }
-          }
+        for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+          greedyAllocation.set(bidderToGoods[e], j, 1);
         }
+        Bitset.orInPlace(takenGoods, bundle);
       }
     }
-    return new MarketAllocation<SingleMindedMarket<G, B>, G, B>(market, greedyAllocation, this.getObjectiveFunction());
+    return greedyAllocation.build(this.getObjectiveFunction());
   }
 
   @Override
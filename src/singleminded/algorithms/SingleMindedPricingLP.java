@@ -1,16 +1,15 @@
 package singleminded.algorithms;
 
 import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumVar;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import singleminded.structures.SingleMindedMarket;
 import structures.Bidder;
 import structures.Goods;
 import structures.MarketAllocation;
 import structures.exceptions.MarketAllocationException;
+import util.solver.LinearExpression;
 import algorithms.pricing.RestrictedEnvyFreePricesLP;
 
 /**
@@ -22,14 +21,9 @@ import algorithms.pricing.RestrictedEnvyFreePricesLP;
 public class SingleMindedPricingLP<M extends SingleMindedMarket<G, B>, G extends Goods, B extends Bidder<G>> extends RestrictedEnvyFreePricesLP<M, G, B> {
 
   /**
-   * LoserSlack variables to be used in the LP.
+   * LoserSlack variables to be used in the LP, indexed by bidder, or -1 for winners.
    */
-  private IloNumVar[] losersSlack;
-
-  /**
-   * Map from bidders to indices.
-   */
-  private final HashMap<B, Integer> bidderToSlackIndex;
+  private int[] losersSlack;
 
   /**
    * Constructor.
@@ -39,72 +33,86 @@ public class SingleMindedPricingLP<M extends SingleMindedMarket<G, B>, G extends
    */
   public SingleMindedPricingLP(MarketAllocation<M, G, B> allocatedMarket) throws IloException {
     super(allocatedMarket);
-
-    this.bidderToSlackIndex = new HashMap<B, Integer>();
-    for (int j = 0; j < this.allocatedMarket.getMarket().getNumberBidders(); j++) {
-      this.bidderToSlackIndex.put(this.allocatedMarket.getMarket().getBidders().get(j), j);
-    }
   }
 
   /**
    * This method generates the objective function to be maximized by the LP. The function is seller revenue.
    * 
-   * @throws IloException
    * @throws MarketAllocationException
    */
   @Override
-  public void generateObjectiveFunction() throws IloException, MarketAllocationException {
+  public void generateObjectiveFunction() throws MarketAllocationException {
     // Create the objective function, i.e., the sum of all the prices.
-    IloLinearNumExpr objective = this.cplex.linearNumExpr();
-    for (B bidder : this.allocatedMarket.getMarket().getBidders()) {
-      objective.addTerm(-1.0, this.losersSlack[this.bidderToSlackIndex.get(bidder)]);
-      for (G good : this.allocatedMarket.getMarket().getGoods()) {
-        objective.addTerm(this.allocatedMarket.getAllocation(good, bidder), this.prices[this.goodToPriceIndex.get(good)]);
+    LinearExpression objective = new LinearExpression();
+    for (int j = 0; j < this.allocatedMarket.getMarket().getNumberBidders(); j++) {
+      if (this.losersSlack[j] >= 0) {
+        objective.addTerm(-1.0, this.losersSlack[j]);
+      }
+    }
+    for (int i = 0; i < this.allocatedMarket.getMarket().getNumberGoods(); i++) {
+      if (this.allocatedMarket.allocationFromGood(i) > 0) {
+        objective.addTerm(this.allocatedMarket.allocationFromGood(i), this.prices[i]);
       }
     }
-    this.cplex.addMaximize(objective);
+    this.model.maximize(objective);
   }
 
   /**
-   * Generates the losers conditions.
+   * Generates the losers conditions: the prices of the bundle of a losing bidder plus its slack are at least its reward. The rows are added in one call.
    * 
    * @throws MarketAllocationException
-   * @throws IloException
    */
-  private void generateLosersConditions() throws MarketAllocationException, IloException {
-    for (B bidder : this.allocatedMarket.getMarket().getBidders()) {
-      if (this.allocatedMarket.isBidderBundleZero(bidder)) {
-        IloLinearNumExpr lhs = this.cplex.linearNumExpr();
-        for (G good : this.allocatedMarket.getMarket().getGoods()) {
-          if (bidder.demandsGood(good)) {
-            lhs.addTerm(1.0, this.prices[this.goodToPriceIndex.get(good)]);
-          }
+  private void generateLosersConditions() throws MarketAllocationException {
+    int numberBidders = this.allocatedMarket.getMarket().getNumberBidders();
+    int[] bidderToGoodsOffsets = this.allocatedMarket.getMarket().getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.allocatedMarket.getMarket().getBidderToGoods();
+    int[] start = new int[numberBidders + 1];
+    int[] variables = new int[bidderToGoodsOffsets[numberBidders] + numberBidders];
+    double[] coefficients = new double[variables.length];
+    double[] lower = new double[numberBidders];
+    double[] upper = new double[numberBidders];
+    Arrays.fill(coefficients, 1.0);
+    Arrays.fill(upper, Double.POSITIVE_INFINITY);
+    int count = 0;
+    int terms = 0;
+    for (int j = 0; j < numberBidders; j++) {
+      if (this.losersSlack[j] >= 0) {
+        for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+          variables[terms++] = this.prices[bidderToGoods[e]];
         }
-        lhs.addTerm(1.0, this.losersSlack[this.bidderToSlackIndex.get(bidder)]);
-        this.linearConstrains.add(this.cplex.addGe(lhs, bidder.getReward()));
+        variables[terms++] = this.losersSlack[j];
+        lower[count] = this.allocatedMarket.getMarket().getBidders().get(j).getReward();
+        count++;
+        start[count] = terms;
       }
     }
+    this.model.addRows(count, start, variables, coefficients, lower, upper);
   }
 
   /**
-   * Initializes the LP variables.
-   * 
-   * @throws IloException
+   * Initializes the LP variables. Slack variables are only created for losing bidders.
    */
   @Override
-  protected void initVariables() throws IloException {
+  protected void initVariables() {
     super.initVariables();
-    this.losersSlack = this.cplex.numVarArray(this.allocatedMarket.getMarket().getNumberBidders(), 0.0, Double.MAX_VALUE);
+    this.losersSlack = new int[this.allocatedMarket.getMarket().getNumberBidders()];
+    for (int j = 0; j < this.losersSlack.length; j++) {
+      this.losersSlack[j] = (this.allocatedMarket.allocationToBidder(j) == 0) ? this.model.addVariable(0.0, Double.MAX_VALUE) : -1;
+    }
+  }
+
+  @Override
+  protected boolean usesCompactConditions() {
+    return false;
   }
 
   /**
    * Initializes the LP constraints.
    * 
-   * @throws IloException
    * @throws MarketAllocationException
    */
   @Override
-  protected void createConstraints() throws IloException, MarketAllocationException {
+  protected void createConstraints() throws MarketAllocationException {
     // Create constraints.
     this.generateIndividualRationalityConditions();
     this.generateBoundConditions();
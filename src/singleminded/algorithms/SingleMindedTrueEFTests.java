@@ -18,7 +18,6 @@ import structures.factory.SingleMindedMarketFactory;
 import structures.rewardfunctions.UniformRewardFunction;
 import util.Cplex;
 
-import com.google.common.collect.HashBasedTable;
 
 public class SingleMindedTrueEFTests {
   
@@ -41,6 +40,15 @@ public class SingleMindedTrueEFTests {
    */
 
   public static void TrueEF(int n, int m, double p) throws Exception {
+    IloCplex cplex = Cplex.lease();
+    try {
+      SingleMindedTrueEFTests.TrueEF(cplex, n, m, p);
+    } finally {
+      Cplex.release(cplex);
+    }
+  }
+
+  private static void TrueEF(IloCplex cplex, int n, int m, double p) throws Exception {
 
     // Create a random single minded market
     SingleMindedMarket<Goods, Bidder<Goods>> market = SingleMindedMarketFactory.createRandomParametrizedSingleMindedMarket(n, m, p, UniformRewardFunction.singletonInstance);
@@ -49,7 +57,6 @@ public class SingleMindedTrueEFTests {
     // Solve for each feasible allocation
 
     // IloCP cp = Cplex.getCP();
-    IloCplex cplex = Cplex.getCplex();
     cplex.setParam(IloCplex.DoubleParam.SolnPoolGap, 0.0);
     cplex.setParam(IloCplex.IntParam.PopulateLim, 10000);
     cplex.setParam(IloCplex.IntParam.SolnPoolIntensity, 4);
@@ -99,15 +106,15 @@ public class SingleMindedTrueEFTests {
       for (int l = 0; l < numsol; l++) {
         // if (cp.solve()) {
         //System.out.println("Getting solution #" + l);
-        HashBasedTable<Goods, Bidder<Goods>, Integer> alloc = HashBasedTable.create();
+        MarketAllocation.Builder<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> alloc = MarketAllocation.<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(market);
         double[][] solDouble = new double[market.getNumberGoods()][market.getNumberBidders()];
         for (Goods good : market.getGoods()) {
           solDouble[goodToCPLEXIndex.get(good)] = cplex.getValues(allocationMatrixVariable[goodToCPLEXIndex.get(good)], l);
           for (Bidder<Goods> bidder : market.getBidders()) {
-            alloc.put(good, bidder, (int) Math.round(solDouble[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)]));
+            alloc.set(goodToCPLEXIndex.get(good), bidderToCPLEXIndex.get(bidder), (int) Math.round(solDouble[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)]));
           }
         }
-        listOfAllocations.add(new MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(market, alloc, null));
+        listOfAllocations.add(alloc.build(null));
       }
     }
     // For each allocation, run the pricing algo.
@@ -119,7 +126,15 @@ public class SingleMindedTrueEFTests {
   }
 
   public static void pricing(MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocatedMarket) throws IloException, MarketAllocationException {
-    IloCplex cplex = Cplex.getCplex();
+    IloCplex cplex = Cplex.lease();
+    try {
+      SingleMindedTrueEFTests.pricing(cplex, allocatedMarket);
+    } finally {
+      Cplex.release(cplex);
+    }
+  }
+
+  private static void pricing(IloCplex cplex, MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocatedMarket) throws IloException, MarketAllocationException {
     cplex.setOut(null);
     //allocatedMarket.printAllocation();
     // Create a map from goods to numbers. This gives ordering of the goods.
@@ -1,6 +1,7 @@
 package singleminded.algorithms;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -16,12 +17,9 @@ import structures.comparators.BiddersComparatorByRewardToImpressionsRatio;
 import structures.comparators.MarketOutcomeComparatorBySellerRevenue;
 import structures.exceptions.MarketAllocationException;
 import structures.exceptions.MarketOutcomeException;
+import util.Bitset;
 import allocations.objectivefunction.SingleStepObjectiveFunction;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
-
 /**
  * This class implements the logarithmic approximation for items in Unlimited Supply as states in Guruswami et.al. Note that in the case of limited supply, this
  * algorithm does not produces an envy-free pricing.
@@ -87,46 +85,34 @@ public class UnlimitedSupplyApproximation {
    * @throws MarketOutcomeException
    */
   public MarketOutcome<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> computeOutcome(double price) throws MarketAllocationException, MarketOutcomeException {
-    int[][] alloc = new int[this.market.getNumberGoods()][this.market.getNumberBidders()];
+    MarketAllocation.Builder<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = MarketAllocation
+        .<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(this.market);
+    int[] bidderToGoodsOffsets = this.market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.market.getBidderToGoods();
+    // Goods already allocated. A demand set is available if it does not overlap these goods.
+    long[] takenGoods = Bitset.create(this.market.getNumberGoods());
     for (Bidder<Goods> bidder : this.orderedBidders) {
       // Numerical tolerance.
       if (Math.abs(price * bidder.getDemand() - bidder.getReward()) <= 0.000000000001) {
-        boolean demandSetAvailable = true;
-        goodsLoop: for (Goods good : this.market.getGoods()) {
-          if (bidder.demandsGood(good)) {
-            for (Bidder<Goods> otherBidder : this.market.getBidders()) {
-              if (alloc[this.market.getGoodIndex(good)][this.market.getBidderIndex(otherBidder)] == 1) {
-                demandSetAvailable = false;
-                break goodsLoop;
-              }
-            }
-          }
-        }
-        if (demandSetAvailable) {
-          for (Goods good : bidder.getDemandSet()) {
-            alloc[this.market.getGoodIndex(good)][this.market.getBidderIndex(bidder)] = 1;
+        int j = this.market.getBidderIndex(bidder);
+        long[] bundle = this.market.getDemandSetBits(j);
+        if (!Bitset.intersects(bundle, takenGoods)) {
+          for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+            allocation.set(bidderToGoods[e], j, 1);
           }
+          Bitset.orInPlace(takenGoods, bundle);
         }
       }
     }
     /*
      * Create appropriate structures to return the outcome of the market.
      */
-    // Allocation
-    HashBasedTable<Goods, Bidder<Goods>, Integer> allocation = HashBasedTable.create();
-    for (Goods good : this.market.getGoods()) {
-      for (Bidder<Goods> bidder : this.market.getBidders()) {
-        allocation.put(good, bidder, alloc[this.market.getGoodIndex(good)][this.market.getBidderIndex(bidder)]);
-      }
-    }
     // Prices
-    Builder<Goods, Double> prices = ImmutableMap.<Goods, Double> builder();
-    for (Goods good : this.market.getGoods()) {
-      prices.put(good, price);
-    }
+    double[] prices = new double[this.market.getNumberGoods()];
+    Arrays.fill(prices, price);
     return new MarketOutcome<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
-        new MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(this.market, allocation, new SingleStepObjectiveFunction()),
-        prices.build());
+        allocation.build(new SingleStepObjectiveFunction()),
+        prices);
   }
 
 }
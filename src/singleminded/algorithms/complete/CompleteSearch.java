@@ -9,6 +9,7 @@ import java.util.List;
 import singleminded.structures.SingleMindedMarket;
 import structures.Bidder;
 import structures.Goods;
+import util.Bitset;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -145,17 +146,16 @@ public class CompleteSearch {
    * @param losers
    * @param winner
    */
-  private static void propagateLoss(List<Bidder<Goods>> candidates, HashSet<Bidder<Goods>> winners, HashSet<Bidder<Goods>> losers) {
-    ArrayList<Bidder<Goods>> losingBidders = new ArrayList<Bidder<Goods>>();
+  private void propagateLoss(List<Bidder<Goods>> candidates, HashSet<Bidder<Goods>> winners, HashSet<Bidder<Goods>> losers) {
+    // Goods claimed by some winner.
+    long[] claimedGoods = Bitset.create(this.market.getNumberGoods());
     for (Bidder<Goods> winner : winners) {
-      outer: for (Bidder<Goods> candidate : candidates) {
-        for (Goods good : winner.getDemandSet()) {
-          if (candidate.demandsGood(good)) {
-            losingBidders.add(candidate);
-            continue outer;
-          }
-
-        }
+      Bitset.orInPlace(claimedGoods, this.market.getDemandSetBits(this.market.getBidderIndex(winner)));
+    }
+    ArrayList<Bidder<Goods>> losingBidders = new ArrayList<Bidder<Goods>>();
+    for (Bidder<Goods> candidate : candidates) {
+      if (Bitset.intersects(this.market.getDemandSetBits(this.market.getBidderIndex(candidate)), claimedGoods)) {
+        losingBidders.add(candidate);
       }
     }
     candidates.removeAll(losingBidders);
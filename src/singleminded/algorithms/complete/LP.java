@@ -1,17 +1,15 @@
 package singleminded.algorithms.complete;
 
-import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumVar;
-import ilog.cplex.IloCplex;
-
-import java.util.HashMap;
 import java.util.HashSet;
 
 import singleminded.structures.SingleMindedMarket;
 import structures.Bidder;
 import structures.Goods;
-import util.Cplex;
+import util.solver.LinearExpression;
+import util.solver.LinearModel;
+import util.solver.Solution;
+import util.solver.SolverException;
+import util.solver.Solvers;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
@@ -29,74 +27,71 @@ public class LP {
    * @param market
    * @param winners - all other bidders outside this set are assumed to be losers.
    * @return
-   * @throws IloException 
-   * @throws Exception
+   * @throws LPException
    */
-  public static LPSolution solve(SingleMindedMarket<Goods, Bidder<Goods>> market, HashSet<Bidder<Goods>> winners) throws LPException, IloException {
-    IloCplex cplex = Cplex.getCplex();
-    cplex.setOut(null);
-    // Create a map from goods to a numbers. This gives ordering of the goods.
-    HashMap<Goods, Integer> goodToPriceIndex = new HashMap<Goods, Integer>();
-    for (int i = 0; i < market.getNumberGoods(); i++) {
-      goodToPriceIndex.put(market.getGoods().get(i), i);
-    }
-    IloNumVar[] prices = cplex.numVarArray(market.getNumberGoods(), 0.0, Double.MAX_VALUE);
+  public static LPSolution solve(SingleMindedMarket<Goods, Bidder<Goods>> market, HashSet<Bidder<Goods>> winners) throws LPException {
+    LinearModel model = new LinearModel();
+    // Price variables are indexed by the indices of goods in the market.
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    int[] prices = model.addVariables(market.getNumberGoods(), 0.0, Double.MAX_VALUE, false);
     // Create constraints
-    for (Bidder<Goods> bidder : market.getBidders()) {
+    for (int j = 0; j < market.getNumberBidders(); j++) {
+      Bidder<Goods> bidder = market.getBidders().get(j);
       // System.out.println("bidder " + bidder + " is a winner = " + winners.contains(bidder));
-      IloLinearNumExpr expr = cplex.linearNumExpr();
-      for (Goods good : bidder.getDemandSet()) {
-        expr.addTerm(1.0, prices[goodToPriceIndex.get(good)]);
+      LinearExpression expr = new LinearExpression();
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        expr.addTerm(1.0, prices[bidderToGoods[e]]);
       }
       if (winners.contains(bidder)) {
         // If the bidder is a winner, enforce IR.
-        cplex.addGe(bidder.getReward(), expr);
+        model.addConstraint(expr, LinearModel.Sense.le, bidder.getReward());
       } else {
         // If the bidder is a loser, enforce negation of IR
-        cplex.addLe(bidder.getReward(), expr);
+        model.addConstraint(expr, LinearModel.Sense.ge, bidder.getReward());
       }
     }
     // An artificial constraint - the price of any good cannot be more than the max reward
-    for (Goods good : market.getGoods()) {
-      cplex.addLe(prices[goodToPriceIndex.get(good)], market.getHighestReward());
-
+    for (int i = 0; i < market.getNumberGoods(); i++) {
+      model.addConstraint(new LinearExpression().addTerm(1.0, prices[i]), LinearModel.Sense.le, market.getHighestReward());
     }
     // Create Objective function
-    HashSet<Goods> coveredGoods = new HashSet<Goods>();
-    IloLinearNumExpr expr = cplex.linearNumExpr();
-    for (Bidder<Goods> bidder : market.getBidders()) {
+    boolean[] coveredGoods = new boolean[market.getNumberGoods()];
+    LinearExpression expr = new LinearExpression();
+    for (int j = 0; j < market.getNumberBidders(); j++) {
       // Add the price of only goods that are actually allocated.
-      if (winners.contains(bidder)) {
-        for (Goods good : bidder.getDemandSet()) {
-          if (!coveredGoods.contains(good)) {
-            coveredGoods.add(good);
-            expr.addTerm(1.0, prices[goodToPriceIndex.get(good)]);
+      if (winners.contains(market.getBidders().get(j))) {
+        for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+          int i = bidderToGoods[e];
+          if (!coveredGoods[i]) {
+            coveredGoods[i] = true;
+            expr.addTerm(1.0, prices[i]);
           } else {
             throw new LPException("There are two bidders that demand the same good and they are both winners!");
           }
         }
       }
     }
-    cplex.addMaximize(expr);
+    model.maximize(expr);
     // Solve the LP.
-    if (cplex.solve()) {
-      // System.out.println("Status = " + cplex.getStatus());
-      // System.out.println("ObjValue = " + cplex.getObjValue());
-      double[] LP_Prices = cplex.getValues(prices);
+    Solution solution;
+    try {
+      solution = Solvers.getProvider().solve(model);
+    } catch (SolverException e) {
+      throw new LPException("The solver failed: " + e.getMessage());
+    }
+    if (solution.hasValues()) {
+      // System.out.println("Status = " + solution.getStatus());
+      // System.out.println("ObjValue = " + solution.getObjectiveValue());
+      double[] LP_Prices = solution.getValues(prices);
       Builder<Goods, Double> result = ImmutableMap.<Goods, Double> builder();
-      for (Goods good : market.getGoods()) {
-        result.put(good, LP_Prices[goodToPriceIndex.get(good)]);
-      }
-      return new LPSolution(LPSolution.Status.Optimal, result.build(), cplex.getObjValue());
-    } else {
-      // if (!cplex.isDualFeasible()) {
-      // System.out.println("Primal is unbounded! - discovered during presolve");
-      // return new LPSolution(LPSolution.Status.Unbounded, null, Double.NEGATIVE_INFINITY);
-      // }
-      if (!cplex.isPrimalFeasible()) {
-        // System.out.println("Primal is infeasible! - discovered during presolve");
-        return new LPSolution(LPSolution.Status.Infeasible, null, Double.NEGATIVE_INFINITY);
+      for (int i = 0; i < market.getNumberGoods(); i++) {
+        result.put(market.getGoods().get(i), LP_Prices[i]);
       }
+      return new LPSolution(LPSolution.Status.Optimal, result.build(), solution.getObjectiveValue());
+    } else if (solution.getStatus() == Solution.Status.Infeasible) {
+      // System.out.println("Primal is infeasible!");
+      return new LPSolution(LPSolution.Status.Infeasible, null, Double.NEGATIVE_INFINITY);
     }
     throw new LPException("Unclear what the LP is doing.");
   }
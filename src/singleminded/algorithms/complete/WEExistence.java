@@ -6,7 +6,6 @@ import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex;
 
-import java.util.HashMap;
 
 import singleminded.structures.SingleMindedMarket;
 import structures.Bidder;
@@ -57,55 +56,70 @@ public class WEExistence {
    * @throws IloException
    */
   public static boolean decideWE(SingleMindedMarket<Goods, Bidder<Goods>> market, boolean verbose) throws IloException {
+    IloCplex cplex = Cplex.lease();
+    try {
+      return WEExistence.decideWE(cplex, market, verbose);
+    } finally {
+      Cplex.release(cplex);
+    }
+  }
+
+  /**
+   * Builds and solves the MIP model with a leased Cplex object.
+   * 
+   * @param cplex
+   * @param market
+   * @param verbose
+   * @throws IloException
+   */
+  private static boolean decideWE(IloCplex cplex, SingleMindedMarket<Goods, Bidder<Goods>> market, boolean verbose) throws IloException {
     // Initialization structures.
-    IloCplex cplex = Cplex.getCplex();
     //cplex.setOut(null);
 
-    HashMap<Goods, Integer> goodToCPLEXIndex = new HashMap<Goods, Integer>();
-    HashMap<Bidder<Goods>, Integer> bidderToCPLEXIndex = new HashMap<Bidder<Goods>, Integer>();
-    for (int i = 0; i < market.getNumberGoods(); i++) {
-      goodToCPLEXIndex.put(market.getGoods().get(i), i);
-    }
-    for (int j = 0; j < market.getNumberBidders(); j++) {
-      bidderToCPLEXIndex.put(market.getBidders().get(j), j);
-    }
+    // CPLEX variables are indexed by the indices of goods and bidders in the market.
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    int[] goodToBiddersOffsets = market.getGoodToBiddersOffsets();
+    int[] goodToBidders = market.getGoodToBidders();
     // Variables
     // If we want the search to be over floats, uncomment the next line.
     IloNumVar[] prices = cplex.numVarArray(market.getNumberGoods(), 0.0, Double.MAX_VALUE);
     // IloIntVar[] prices = cplex.intVarArray(market.getNumberGoods(), 0, (int) Math.ceil(market.getHighestReward()));
     IloIntVar[][] allocationMatrixVariable = new IloIntVar[market.getNumberGoods()][];
-    for (Goods good : market.getGoods()) {
-      allocationMatrixVariable[goodToCPLEXIndex.get(good)] = cplex.intVarArray(market.getNumberBidders(), 0, 1);
+    for (int i = 0; i < market.getNumberGoods(); i++) {
+      allocationMatrixVariable[i] = cplex.intVarArray(market.getNumberBidders(), 0, 1);
     }
     // Create constraints.
-    for (Goods g : market.getGoods()) {
+    for (int i = 0; i < market.getNumberGoods(); i++) {
       IloLinearNumExpr allocaSumGoodk = cplex.linearNumExpr();
-      for (Bidder<Goods> b : market.getBidders()) {
-        if (!b.demandsGood(g)) {
+      // Walk the (sorted) bidders of the good alongside all bidders.
+      int e = goodToBiddersOffsets[i];
+      for (int j = 0; j < market.getNumberBidders(); j++) {
+        if (e < goodToBiddersOffsets[i + 1] && goodToBidders[e] == j) {
+          allocaSumGoodk.addTerm(1, allocationMatrixVariable[i][j]);
+          e++;
+        } else {
           // A good not demanded by a bidder has corresponding zero allocation variable.
-          cplex.addEq(0, allocationMatrixVariable[goodToCPLEXIndex.get(g)][bidderToCPLEXIndex.get(b)]);
+          cplex.addEq(0, allocationMatrixVariable[i][j]);
         }
-        // cp.addLe(0, allocationMatrixVariable[goodToCPLEXIndex.get(g)][bidderToCPLEXIndex.get(b)]);
-        allocaSumGoodk.addTerm(1, allocationMatrixVariable[goodToCPLEXIndex.get(g)][bidderToCPLEXIndex.get(b)]);
       }
       // Capacity constraint: items are assumed to be in unit supply.
       cplex.addGe(1, allocaSumGoodk);
       // Walra's law: price of unallocated items is zero.
-      cplex.add(cplex.ifThen(cplex.eq(0, allocaSumGoodk), cplex.eq(0, prices[goodToCPLEXIndex.get(g)])));
+      cplex.add(cplex.ifThen(cplex.eq(0, allocaSumGoodk), cplex.eq(0, prices[i])));
       // Dummy goods (if any) should be priced at zero.
-      if (market.isDummyGood(g)) {
+      if (market.isDummyGood(market.getGoods().get(i))) {
         System.out.println("This is a dummy good");
-        cplex.add(cplex.eq(0, prices[goodToCPLEXIndex.get(g)]));
+        cplex.add(cplex.eq(0, prices[i]));
       }
     }
-    for (Bidder<Goods> b : market.getBidders()) {
+    for (int j = 0; j < market.getNumberBidders(); j++) {
+      Bidder<Goods> b = market.getBidders().get(j);
       IloLinearNumExpr allocaSumBidderi = cplex.linearNumExpr();
       IloLinearNumExpr pricesSumBidderi = cplex.linearNumExpr();
-      for (Goods g : market.getGoods()) {
-        if (b.demandsGood(g)) {
-          allocaSumBidderi.addTerm(1, allocationMatrixVariable[goodToCPLEXIndex.get(g)][bidderToCPLEXIndex.get(b)]);
-          pricesSumBidderi.addTerm(1, prices[goodToCPLEXIndex.get(g)]);
-        }
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        allocaSumBidderi.addTerm(1, allocationMatrixVariable[bidderToGoods[e]][j]);
+        pricesSumBidderi.addTerm(1, prices[bidderToGoods[e]]);
       }
       // If a bidder is allocated, it must be able to afford its bundle.
       cplex.add(cplex.ifThen(cplex.eq(b.getDemand(), allocaSumBidderi), cplex.ge(b.getReward(), pricesSumBidderi)));
@@ -131,12 +145,11 @@ public class WEExistence {
         int[][] X = new int[market.getNumberGoods()][market.getNumberBidders()];
         // int[] p = new int[market.getNumberGoods()];
         double[] p = new double[market.getNumberGoods()];
-        for (Bidder<Goods> bidder : market.getBidders()) {
-          for (Goods good : market.getGoods()) {
-            X[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)] = (int) cplex
-                .getValue(allocationMatrixVariable[goodToCPLEXIndex.get(good)][bidderToCPLEXIndex.get(bidder)]);
-            // p[goodToCPLEXIndex.get(good)] = (int) cplex.getValue(prices[goodToCPLEXIndex.get(good)]);
-            p[goodToCPLEXIndex.get(good)] = cplex.getValue(prices[goodToCPLEXIndex.get(good)]);
+        for (int j = 0; j < market.getNumberBidders(); j++) {
+          for (int i = 0; i < market.getNumberGoods(); i++) {
+            X[i][j] = (int) cplex.getValue(allocationMatrixVariable[i][j]);
+            // p[i] = (int) cplex.getValue(prices[i]);
+            p[i] = cplex.getValue(prices[i]);
           }
         }
         // Print result info.
@@ -1,10 +1,5 @@
 package singleminded.algorithms.complete;
 
-import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumVar;
-import ilog.cplex.IloCplex;
-
 import java.util.HashMap;
 import java.util.HashSet;
 
@@ -18,14 +13,18 @@ import structures.exceptions.GoodsCreationException;
 import structures.exceptions.MarketAllocationException;
 import structures.exceptions.MarketCreationException;
 import structures.factory.SingleMindedMarketFactory;
-import util.Cplex;
 import util.Printer;
+import util.solver.LinearExpression;
+import util.solver.LinearModel;
+import util.solver.Solution;
+import util.solver.SolverException;
+import util.solver.Solvers;
 import allocations.error.AllocationAlgoException;
 import allocations.optimal.WelfareMaxAllocationILP;
 
 public class WEExistenceGivenAlloc {
 
-  public static void main(String[] args) throws GoodsCreationException, BidderCreationException, MarketCreationException, AllocationAlgoException, AllocationException, MarketAllocationException, IloException {
+  public static void main(String[] args) throws GoodsCreationException, BidderCreationException, MarketCreationException, AllocationAlgoException, AllocationException, MarketAllocationException, SolverException {
     System.out.println("WEExistenceGivenAlloc");
 
     //SingleMindedMarket<Goods, Bidder<Goods>> singleMindedMarket = SingleMindedMarkets.singleMindedWithTies();
@@ -44,14 +43,17 @@ public class WEExistenceGivenAlloc {
     MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = welfareMax.Solve(singleMindedMarket);
     allocation.printAllocation();
     System.out.println("value = " + allocation.getValue());
-    System.out.println("Number of extra allocations: " + allocation.getNumExtraAllocations());
+    // Extra allocations are found while iterating, so they are counted along the way.
+    int numberExtraAllocations = 0;
     for (MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> x : allocation.getExtraAllocations()) {
       System.out.println("value = " + x.getValue());
       x.printAllocation();
       if (!WEExistenceGivenAlloc.WEExistence(x)) {
         System.out.println("DOES NOT EXISTS!!!!!!");
       }
+      numberExtraAllocations++;
     }
+    System.out.println("Number of extra allocations: " + numberExtraAllocations);
     if(WEExistenceGivenAlloc.checkWelfareMaxButNoWE(singleMindedMarket)){ 
       System.out.println("Found counter-example");
     } else {
@@ -60,7 +62,7 @@ public class WEExistenceGivenAlloc {
   }
 
   public static void main2(String[] args) throws GoodsCreationException, BidderCreationException, MarketCreationException, AllocationAlgoException,
-      AllocationException, MarketAllocationException, IloException {
+      AllocationException, MarketAllocationException, SolverException {
     for (int n = 1; n < 10; n++) {
       for (int m = 1; m < 10; m++) {
         for (int k = 1; k < n; k++) {
@@ -87,40 +89,32 @@ public class WEExistenceGivenAlloc {
    * @throws MarketAllocationException
    * @throws AllocationException
    * @throws AllocationAlgoException
-   * @throws IloException
+   * @throws SolverException
    */
-  public static boolean checkWelfareMaxButNoWE(SingleMindedMarket<Goods, Bidder<Goods>> singleMindedMarket) throws AllocationAlgoException, AllocationException, MarketAllocationException, IloException {
+  public static boolean checkWelfareMaxButNoWE(SingleMindedMarket<Goods, Bidder<Goods>> singleMindedMarket) throws AllocationAlgoException, AllocationException, MarketAllocationException, SolverException {
     // Find all welfare maximizing solutions.
     WelfareMaxAllocationILP<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> welfareMax = new WelfareMaxAllocationILP<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>();
     welfareMax.setNumSolutions(2100000000);
     MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = welfareMax.Solve(singleMindedMarket);
-    boolean[] allocsSupportWE = new boolean[allocation.getNumExtraAllocations() + 1];
-    allocsSupportWE[0] = WEExistenceGivenAlloc.WEExistence(allocation);
-    int index = 1;
+    // The condition holds as soon as one allocation disagrees with the base one, so the remaining allocations are never searched for. For the same
+    // reason, the allocations are counted while iterating instead of with getNumExtraAllocations().
+    boolean baseSupportsWE = WEExistenceGivenAlloc.WEExistence(allocation);
+    int numberAllocations = 1;
     for (MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> x : allocation.getExtraAllocations()) {
-      allocsSupportWE[index] = WEExistence(x);
-      index++;
-    }
-    // Print some info
-    if (allocation.getNumExtraAllocations() > 1) {
-      System.out.println("Number of Allocations: " + (allocation.getNumExtraAllocations() + 1));
-      System.out.println(singleMindedMarket);
-      for (MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> x : allocation.getExtraAllocations()) {
-        System.out.println("---");
-        x.printAllocation();
+      numberAllocations++;
+      if (numberAllocations == 2) {
+        System.out.println(singleMindedMarket);
       }
-      System.out.println("------");
-    }
-    //Printer.printVector(allocsSupportWE);
-
-    for (int i = 0; i < allocsSupportWE.length; i++) {
-      for (int j = i + 1; j < allocsSupportWE.length; j++) {
-        if ((allocsSupportWE[i] && !allocsSupportWE[j]) || (!allocsSupportWE[i] && allocsSupportWE[j])) {
-          System.out.println("Condition met");
-          return true;
-        }
+      System.out.println("---");
+      x.printAllocation();
+      if (WEExistence(x) != baseSupportsWE) {
+        System.out.println("Condition met after " + numberAllocations + " allocations");
+        return true;
       }
     }
+    if (numberAllocations > 1) {
+      System.out.println("Number of Allocations: " + numberAllocations);
+    }
     return false;
   }
 
@@ -129,28 +123,29 @@ public class WEExistenceGivenAlloc {
    * 
    * @param marketAllocation
    * @return
-   * @throws IloException
+   * @throws SolverException
+   *           in case the solver failed.
    * @throws MarketAllocationException
    */
-  public static boolean WEExistence(MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> marketAllocation) throws IloException,
+  public static boolean WEExistence(MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> marketAllocation) throws SolverException,
       MarketAllocationException {
+    LinearModel model = new LinearModel();
     // Initialization structures.
-    IloCplex cplex = Cplex.getCplex();
 
     // Create a map from goods to a numbers. This gives ordering of the goods.
     HashMap<Goods, Integer> goodToPriceIndex = new HashMap<Goods, Integer>();
     for (int i = 0; i < marketAllocation.getMarket().getNumberGoods(); i++) {
       goodToPriceIndex.put(marketAllocation.getMarket().getGoods().get(i), i);
     }
-    // Cplex Variables
-    IloNumVar[] prices = cplex.numVarArray(marketAllocation.getMarket().getNumberGoods(), 0.0, Double.MAX_VALUE);
+    // Price variables
+    int[] prices = model.addVariables(marketAllocation.getMarket().getNumberGoods(), 0.0, Double.MAX_VALUE, false);
 
     // Get the set of winners.
     HashSet<Bidder<Goods>> winners = marketAllocation.getWinnerSet();
 
     // Add a constraint for each bidder.
     for (Bidder<Goods> bidder : marketAllocation.getMarket().getBidders()) {
-      IloLinearNumExpr bidderPrices = cplex.linearNumExpr();
+      LinearExpression bidderPrices = new LinearExpression();
       for (Goods good : marketAllocation.getMarket().getGoods()) {
         if (bidder.demandsGood(good)) {
           bidderPrices.addTerm(1.0, prices[goodToPriceIndex.get(good)]);
@@ -158,20 +153,21 @@ public class WEExistenceGivenAlloc {
       }
       if (winners.contains(bidder)) {
         // For each winner, make sure it is individually rational.
-        cplex.addGe(bidder.getReward(), bidderPrices);
+        model.addConstraint(bidderPrices, LinearModel.Sense.le, bidder.getReward());
       } else {
         // For each losers, make sure it is ok with prices.
-        cplex.addLe(bidder.getReward(), bidderPrices);
+        model.addConstraint(bidderPrices, LinearModel.Sense.ge, bidder.getReward());
       }
     }
     // Price of unallocated items is zero
     for (Goods good : marketAllocation.getMarket().getGoods()) {
       if (marketAllocation.allocationFromGood(good) == 0) {
-        cplex.addEq(0.0, prices[goodToPriceIndex.get(good)]);
+        model.addConstraint(new LinearExpression().addTerm(1.0, prices[goodToPriceIndex.get(good)]), LinearModel.Sense.eq, 0.0);
       }
     }
-    if (cplex.solve()) {
-      double[] LP_Prices = cplex.getValues(prices);
+    Solution solution = Solvers.getProvider().solve(model);
+    if (solution.hasValues()) {
+      double[] LP_Prices = solution.getValues(prices);
       Printer.printVector(LP_Prices);
       return true;
     } else {
@@ -1,7 +1,6 @@
 package singleminded.structures;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Set;
 
 import structures.Bidder;
@@ -30,16 +29,6 @@ public class SingleMindedMarket<G extends Goods, B extends Bidder<G>> extends Ma
    */
   private final double[] r;
 
-  /**
-   * Map between a good and an index.
-   */
-  private final HashMap<G, Integer> goodsToIndex;
-
-  /**
-   * Map between a bidder and an index.
-   */
-  private final HashMap<B, Integer> biddersToIndex;
-
   /**
    * Set of dummy goods
    */
@@ -67,22 +56,13 @@ public class SingleMindedMarket<G extends Goods, B extends Bidder<G>> extends Ma
             + bidder.getDemandSet().size());
       }
     }
-    // Create maps that point from bidders to indices, and from goods to indices.
-    this.goodsToIndex = new HashMap<G, Integer>();
-    for (int i = 0; i < goods.size(); i++) {
-      this.goodsToIndex.put(goods.get(i), i);
-    }
-    this.biddersToIndex = new HashMap<B, Integer>();
-    for (int j = 0; j < bidders.size(); j++) {
-      this.biddersToIndex.put(bidders.get(j), j);
-    }
     // Produce a matrix to encode the single-minded preferences.
     this.A = new boolean[goods.size()][bidders.size()];
     this.r = new double[bidders.size()];
-    for (B bidder : bidders) {
-      this.r[this.biddersToIndex.get(bidder)] = bidder.getReward();
-      for (G good : goods) {
-        this.A[this.goodsToIndex.get(good)][this.biddersToIndex.get(bidder)] = bidder.demandsGood(good);
+    for (int j = 0; j < bidders.size(); j++) {
+      this.r[j] = bidders.get(j).getReward();
+      for (int e = this.bidderToGoodsOffsets[j]; e < this.bidderToGoodsOffsets[j + 1]; e++) {
+        this.A[this.bidderToGoods[e]][j] = true;
       }
     }
   }
@@ -123,26 +103,6 @@ public class SingleMindedMarket<G extends Goods, B extends Bidder<G>> extends Ma
     return copyOfA;
   }
 
-  /**
-   * Given a bidder, returns its index.
-   * 
-   * @param bidder
-   * @return the bidder index.
-   */
-  public int getBidderIndex(B bidder) {
-    return this.biddersToIndex.get(bidder);
-  }
-
-  /**
-   * Given a good, returns its index.
-   * 
-   * @param good
-   * @return the good index.
-   */
-  public int getGoodIndex(G good) {
-    return this.goodsToIndex.get(good);
-  }
-
   /**
    * Produces a flat string representation of the bidders' preferences over items, i.e., of the edges in the bipartite graph defining the market.
    * 
@@ -1,8 +1,6 @@
 package singleton.algorithms;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
+import java.util.Arrays;
 
 import algorithms.pricing.error.PrincingAlgoException;
 import allocations.objectivefunction.SingleStepObjectiveFunction;
@@ -58,29 +56,18 @@ public class SingletonEVP {
   public PricesStatistics<SingletonMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> Solve() throws PrincingAlgoException, UnitDemandException, MarketAllocationException, MarketOutcomeException {
     UnitDemandMarketOutcome evpUnitDemandOutcome = new EVPApproximation(this.V).Solve();
     int[][] evpAllocation = evpUnitDemandOutcome.getMarketAllocation().getAllocation();
-    HashBasedTable<Goods, Bidder<Goods>, Integer> allocation = HashBasedTable.create();
     // Allocation
-    int i = 0;
-    for (Goods good : this.market.getGoods()) {
-      int j = 0;
-      for (Bidder<Goods> bidder : this.market.getBidders()) {
-        allocation.put(good, bidder, evpAllocation[i][j]);
-        j++;
+    MarketAllocation.Builder<SingletonMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = MarketAllocation
+        .<SingletonMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(this.market);
+    for (int i = 0; i < this.market.getNumberGoods(); i++) {
+      for (int j = 0; j < this.market.getNumberBidders(); j++) {
+        allocation.set(i, j, evpAllocation[i][j]);
       }
-      i++;
     }
-    double[] p = evpUnitDemandOutcome.getPrices();
     // Prices
-    i = 0;
-    Builder<Goods, Double> result = ImmutableMap.<Goods, Double> builder();
-    for (Goods good : this.market.getGoods()) {
-      result.put(good, p[i]);
-      i++;
-    }
+    double[] p = Arrays.copyOf(evpUnitDemandOutcome.getPrices(), this.market.getNumberGoods());
     MarketOutcome<SingletonMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> z = new MarketOutcome<SingletonMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
-        new MarketAllocation<SingletonMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(market, allocation,
-            new SingleStepObjectiveFunction()),
-        result.build());
+        allocation.build(new SingleStepObjectiveFunction()), p);
     return new PricesStatistics<SingletonMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(z);
   }
 
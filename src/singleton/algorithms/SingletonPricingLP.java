@@ -1,16 +1,15 @@
 package singleton.algorithms;
 
 import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumVar;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import singleton.structures.SingletonMarket;
 import structures.Bidder;
 import structures.Goods;
 import structures.MarketAllocation;
 import structures.exceptions.MarketAllocationException;
+import util.solver.LinearExpression;
 import algorithms.pricing.RestrictedEnvyFreePricesLP;
 
 /**
@@ -25,19 +24,15 @@ import algorithms.pricing.RestrictedEnvyFreePricesLP;
 public class SingletonPricingLP<M extends SingletonMarket<G, B>, G extends Goods, B extends Bidder<G>> extends RestrictedEnvyFreePricesLP<M, G, B> {
 
   /**
-   * LoserSlack variables to be used in the LP.
+   * LoserSlack variables to be used in the LP, one per edge of a losing bidder: slack[e] is the variable of edge e of the market's bidder-to-goods
+   * adjacency, or -1 if the bidder of edge e is a winner.
    */
-  private IloNumVar[][] slack;
+  private int[] slack;
 
   /**
-   * Map from bidders to indices.
+   * Number of slack variables.
    */
-  private final HashMap<G, Integer> goodToSlackIndex;
-
-  /**
-   * Map from bidders to indices.
-   */
-  private final HashMap<B, Integer> bidderToSlackIndex;
+  private int numberSlack;
 
   /**
    * Constructor.
@@ -47,78 +42,87 @@ public class SingletonPricingLP<M extends SingletonMarket<G, B>, G extends Goods
    */
   public SingletonPricingLP(MarketAllocation<M, G, B> allocatedMarket) throws IloException {
     super(allocatedMarket);
-
-    this.goodToSlackIndex = new HashMap<G, Integer>();
-    for (int i = 0; i < this.allocatedMarket.getMarket().getNumberGoods(); i++) {
-      this.goodToSlackIndex.put(this.allocatedMarket.getMarket().getGoods().get(i), i);
-    }
-    this.bidderToSlackIndex = new HashMap<B, Integer>();
-    for (int j = 0; j < this.allocatedMarket.getMarket().getNumberBidders(); j++) {
-      this.bidderToSlackIndex.put(this.allocatedMarket.getMarket().getBidders().get(j), j);
-    }
   }
 
   /**
    * This method generates the objective function to be maximized by the LP. The function is seller revenue minus the slack.
    * 
-   * @throws IloException
    * @throws MarketAllocationException
    */
   @Override
-  protected void generateObjectiveFunction() throws IloException, MarketAllocationException {
+  protected void generateObjectiveFunction() throws MarketAllocationException {
     // Create the objective function, i.e., the sum of all the prices.
-    IloLinearNumExpr objective = this.cplex.linearNumExpr();
-    for (G good : this.allocatedMarket.getMarket().getGoods()) {
-      for (B bidder : this.allocatedMarket.getMarket().getBidders()) {
-        objective.addTerm(this.allocatedMarket.getAllocation(good, bidder), this.prices[this.goodToPriceIndex.get(good)]);
-        objective.addTerm(-1.0, this.slack[this.goodToSlackIndex.get(good)][this.bidderToSlackIndex.get(bidder)]);
+    LinearExpression objective = new LinearExpression();
+    for (int i = 0; i < this.allocatedMarket.getMarket().getNumberGoods(); i++) {
+      if (this.allocatedMarket.allocationFromGood(i) > 0) {
+        objective.addTerm(this.allocatedMarket.allocationFromGood(i), this.prices[i]);
       }
     }
-    this.cplex.addMaximize(objective);
+    for (int e = 0; e < this.slack.length; e++) {
+      if (this.slack[e] >= 0) {
+        objective.addTerm(-1.0, this.slack[e]);
+      }
+    }
+    this.model.maximize(objective);
   }
 
   /**
-   * Generates the losers conditions.
+   * Generates the losers conditions: for each good i demanded by a losing bidder j, Price(i) + slack >= reward of j. The rows are added in one call.
    * 
    * @throws MarketAllocationException
-   * @throws IloException
    */
-  private void generateLosersConditions() throws MarketAllocationException, IloException {
-    for (B bidder : this.allocatedMarket.getMarket().getBidders()) {
-      if (this.allocatedMarket.isBidderBundleZero(bidder)) {
-        int j = this.bidderToSlackIndex.get(bidder);
-        for (G good : this.allocatedMarket.getMarket().getGoods()) {
-          if (bidder.demandsGood(good)) {
-            this.linearConstrains.add(this.cplex.addGe(
-                this.cplex.sum(this.prices[this.goodToPriceIndex.get(good)], this.slack[this.goodToSlackIndex.get(good)][j]), bidder.getReward()));
-          }
+  private void generateLosersConditions() throws MarketAllocationException {
+    int[] bidderToGoodsOffsets = this.allocatedMarket.getMarket().getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.allocatedMarket.getMarket().getBidderToGoods();
+    int[] start = new int[this.numberSlack + 1];
+    int[] variables = new int[2 * this.numberSlack];
+    double[] coefficients = new double[2 * this.numberSlack];
+    double[] lower = new double[this.numberSlack];
+    double[] upper = new double[this.numberSlack];
+    Arrays.fill(coefficients, 1.0);
+    Arrays.fill(upper, Double.POSITIVE_INFINITY);
+    int count = 0;
+    for (int j = 0; j < this.allocatedMarket.getMarket().getNumberBidders(); j++) {
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        if (this.slack[e] >= 0) {
+          variables[2 * count] = this.prices[bidderToGoods[e]];
+          variables[2 * count + 1] = this.slack[e];
+          lower[count] = this.allocatedMarket.getMarket().getBidders().get(j).getReward();
+          count++;
+          start[count] = 2 * count;
         }
       }
     }
+    this.model.addRows(count, start, variables, coefficients, lower, upper);
   }
 
   /**
-   * Initializes the LP variables.
-   * 
-   * @throws IloException
+   * Initializes the LP variables. Slack variables are only created for the edges of losing bidders.
    */
   @Override
-  protected void initVariables() throws IloException {
+  protected void initVariables() {
     super.initVariables();
-    this.slack = new IloNumVar[this.allocatedMarket.getMarket().getNumberGoods()][];
-    for (G good : this.allocatedMarket.getMarket().getGoods()) {
-      this.slack[this.goodToSlackIndex.get(good)] = this.cplex.numVarArray(this.allocatedMarket.getMarket().getNumberBidders(), 0.0, Double.MAX_VALUE);
+    int[] bidderToGoodsOffsets = this.allocatedMarket.getMarket().getBidderToGoodsOffsets();
+    this.slack = new int[bidderToGoodsOffsets[this.allocatedMarket.getMarket().getNumberBidders()]];
+    Arrays.fill(this.slack, -1);
+    this.numberSlack = 0;
+    for (int j = 0; j < this.allocatedMarket.getMarket().getNumberBidders(); j++) {
+      if (this.allocatedMarket.allocationToBidder(j) == 0) {
+        for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+          this.slack[e] = this.model.addVariable(0.0, Double.MAX_VALUE);
+          this.numberSlack++;
+        }
+      }
     }
   }
 
   /**
    * Initializes the LP constraints.
    * 
-   * @throws IloException
    * @throws MarketAllocationException
    */
   @Override
-  protected void createConstraints() throws IloException, MarketAllocationException {
+  protected void createConstraints() throws MarketAllocationException {
     super.createConstraints();
     this.generateLosersConditions();
   }
@@ -37,6 +37,11 @@ public class PricesStatistics<M extends Market<G, B>, G extends Goods, B extends
    */
   private long time = -1;
 
+  /**
+   * Number of pricing LP solutions reused from a PricingCache while computing the outcome, or -1 if unknown.
+   */
+  private int pricingCacheHits = -1;
+
   /**
    * epsilon parameter. This class computes envy-freeness violations up to
    * epsilon, to account for numerical error.
@@ -51,7 +56,7 @@ public class PricesStatistics<M extends Market<G, B>, G extends Goods, B extends
   /**
    * An immutable list of envy bidders. Implements singleton.
    */
-  private ImmutableList<B> listOfEnvyBidders;
+  private volatile ImmutableList<B> listOfEnvyBidders;
   
   /**
    * Map from a bidder B to a tuple <Integer,Double> where the integer denotes
@@ -66,7 +71,7 @@ public class PricesStatistics<M extends Market<G, B>, G extends Goods, B extends
    * violations. The second element in the proportion of total price of
    * violating MC prices to total prices. Implements singleton.
    */
-  protected Pair<Integer, Double> marketClearanceViolations;
+  protected volatile Pair<Integer, Double> marketClearanceViolations;
 
   /**
    * Constructor.
@@ -191,6 +196,20 @@ public class PricesStatistics<M extends Market<G, B>, G extends Goods, B extends
    * @throws MarketAllocationException
    */
   public int numberOfEnvyBidders() throws MarketOutcomeException, MarketAllocationException {
+    if (this.listOfEnvyBidders == null) {
+      this.computeEnvyBidders();
+    }
+    return this.listOfEnvyBidders.size();
+  }
+
+  /**
+   * Computes the list of envy bidders and their envyness measures. Synchronized so that the computation happens only once even if several threads
+   * ask for statistics of the same outcome.
+   * 
+   * @throws MarketOutcomeException
+   * @throws MarketAllocationException
+   */
+  private synchronized void computeEnvyBidders() throws MarketOutcomeException, MarketAllocationException {
     if (this.listOfEnvyBidders == null) {
       this.envynessMeasures = new HashMap<B, Pair<Integer,Double>>();
       // Initialize the list of envy-bidders.
@@ -215,7 +234,6 @@ public class PricesStatistics<M extends Market<G, B>, G extends Goods, B extends
       }
       this.listOfEnvyBidders = listOfEnvyBiddersBuilder.build();
     }
-    return this.listOfEnvyBidders.size();
   }
   
   /**
@@ -256,7 +274,8 @@ public class PricesStatistics<M extends Market<G, B>, G extends Goods, B extends
    * @throws MarketAllocationException
    */
   public Pair<Integer, Double> getMarketClearanceViolations() throws MarketAllocationException, MarketOutcomeException {
-    if (this.marketClearanceViolations == null) {
+    Pair<Integer, Double> marketClearanceViolations = this.marketClearanceViolations;
+    if (marketClearanceViolations == null) {
       int violations = 0;
       double totalPricesOfUsers = 0.0;
       double totalPricesOfViolatingUsers = 0.0;
@@ -269,12 +288,13 @@ public class PricesStatistics<M extends Market<G, B>, G extends Goods, B extends
       }
       // If the price of all users is zero, then the ratio should be zero.
       if (totalPricesOfUsers == 0) {
-        this.marketClearanceViolations = new Pair<Integer, Double>(violations, 0.0);
+        marketClearanceViolations = new Pair<Integer, Double>(violations, 0.0);
       } else {
-        this.marketClearanceViolations = new Pair<Integer, Double>(violations, totalPricesOfViolatingUsers / totalPricesOfUsers);
+        marketClearanceViolations = new Pair<Integer, Double>(violations, totalPricesOfViolatingUsers / totalPricesOfUsers);
       }
+      this.marketClearanceViolations = marketClearanceViolations;
     }
-    return this.marketClearanceViolations;
+    return marketClearanceViolations;
   }
   
   /**
@@ -371,6 +391,24 @@ public class PricesStatistics<M extends Market<G, B>, G extends Goods, B extends
   public long getTime() {
     return this.time;
   }
+
+  /**
+   * Getter.
+   * 
+   * @return the number of pricing LP solutions reused from a PricingCache while computing the outcome, or -1 if unknown.
+   */
+  public int getPricingCacheHits() {
+    return this.pricingCacheHits;
+  }
+
+  /**
+   * Setter.
+   * 
+   * @param pricingCacheHits - the number of pricing LP solutions reused from a PricingCache while computing the outcome.
+   */
+  public void setPricingCacheHits(int pricingCacheHits) {
+    this.pricingCacheHits = pricingCacheHits;
+  }
   
   /**
    * Getter.
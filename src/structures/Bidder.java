@@ -26,7 +26,7 @@ public class Bidder<G extends Goods> {
   protected final double reward;
   
   /**
-   * Demand set
+   * Demand set. If the constructor receives an ImmutableSet, e.g., one interned in a DemandSetPool, that instance is kept instead of copied.
    */
   protected final ImmutableSet<G> demandSet;
 
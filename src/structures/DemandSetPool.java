@@ -0,0 +1,83 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A pool of canonical demand sets. Markets with many bidders usually have far fewer distinct demand sets than bidders, e.g., demand sets derived from
+ * a handful of market segments. Interning a demand set before creating a bidder makes all bidders with equal demand sets share one ImmutableSet
+ * instance (Bidder keeps the instance it receives when it is already an ImmutableSet), and assigns each distinct demand set a dense integer id.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class DemandSetPool<G extends Goods> {
+
+  /**
+   * Map from a demand set to its id.
+   */
+  private final HashMap<Set<G>, Integer> demandSetToId;
+
+  /**
+   * Canonical demand sets, indexed by id.
+   */
+  private final ArrayList<ImmutableSet<G>> demandSets;
+
+  /**
+   * Constructor.
+   */
+  public DemandSetPool() {
+    this.demandSetToId = new HashMap<Set<G>, Integer>();
+    this.demandSets = new ArrayList<ImmutableSet<G>>();
+  }
+
+  /**
+   * Returns the canonical instance of a demand set, adding it to the pool if it is not already there.
+   *
+   * @param demandSet - a set of goods.
+   * @return an ImmutableSet equal to demandSet, shared by all callers that intern an equal set.
+   */
+  public synchronized ImmutableSet<G> intern(Set<G> demandSet) {
+    Integer id = this.demandSetToId.get(demandSet);
+    if (id == null) {
+      ImmutableSet<G> canonical = ImmutableSet.copyOf(demandSet);
+      id = this.demandSets.size();
+      this.demandSets.add(canonical);
+      this.demandSetToId.put(canonical, id);
+    }
+    return this.demandSets.get(id);
+  }
+
+  /**
+   * Getter.
+   *
+   * @param demandSet - a set of goods.
+   * @return the id of the demand set, or -1 if it was never interned.
+   */
+  public synchronized int getId(Set<G> demandSet) {
+    Integer id = this.demandSetToId.get(demandSet);
+    return (id == null) ? -1 : id;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param id - the id of a demand set.
+   * @return the canonical demand set with the given id.
+   */
+  public synchronized ImmutableSet<G> getDemandSet(int id) {
+    return this.demandSets.get(id);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of distinct demand sets in the pool.
+   */
+  public synchronized int size() {
+    return this.demandSets.size();
+  }
+
+}
@@ -1,10 +1,9 @@
 package structures;
 
 import structures.exceptions.GoodsCreationException;
-import structures.exceptions.GoodsException;
 
 /**
- * Represents a single kind of goods.
+ * Represents a single kind of goods. Goods are immutable; the remaining supply of a good during a run of an algorithm is kept in a SupplyLedger.
  * 
  * @author Enrique Areyan Viqueira
  */
@@ -19,12 +18,6 @@ public class Goods {
    * Reserve price.
    */
   protected final double reservePrice;
-  
-  /**
-   * A mutable field to denote current supply. This is usually used by
-   * allocation algorithms.
-   */
-  protected int remainingSupply;
 
   /**
    * Constructor
@@ -72,30 +65,8 @@ public class Goods {
     return this.reservePrice;
   }
   
-  /**
-   * Getter.
-   * 
-   * @return the remaining supply of the user.
-   */
-  public int getRemainingSupply(){
-    return this.remainingSupply;
-  }
-  
-  /**
-   * Setter.
-   * 
-   * @param remainingSupply - the remaining supply.
-   * @throws GoodsException in case the remaining supply is less than zero.
-   */
-  public void setRemainingSupply(int remainingSupply) throws GoodsException {
-    if(remainingSupply < 0){
-      throw new GoodsException("Trying to set the remaining supply of a good to a number less than zero.");
-    }
-    this.remainingSupply = remainingSupply;
-  }
-  
   @Override
   public String toString(){
-    return "(" + this.supply + "," + this.remainingSupply + ")";
+    return "(" + this.supply + ")";
   }
 }
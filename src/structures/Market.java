@@ -1,15 +1,25 @@
 package structures;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 
 import structures.exceptions.MarketCreationException;
+import util.Bitset;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 /**
  * A market is a collection of goods and a collection of bidders that demand
  * goods. This class implements a market object and related basic functionality.
  * 
+ * A market is immutable once constructed and can be shared among threads. Derived quantities (highest reward, total supply, bitsets, etc.) are
+ * computed on first use and published through volatile fields. Algorithms must keep any per-run state, e.g., remaining supply, on their own
+ * (see SupplyLedger).
+ * 
  * @author Enrique Areyan Viqueira
  */
 public class Market<G extends Goods, B extends Bidder<G>> {
@@ -17,32 +27,92 @@ public class Market<G extends Goods, B extends Bidder<G>> {
   /**
    * Array of Goods.
    */
-  protected ImmutableList<G> goods;
+  protected final ImmutableList<G> goods;
 
   /**
    * Array of Bidders.
    */
-  protected ImmutableList<B> bidders;
+  protected final ImmutableList<B> bidders;
+
+  /**
+   * Map from a good to its position in the list of goods. Indices are stable for the lifetime of the market.
+   */
+  protected final HashMap<G, Integer> goodToIndex;
+
+  /**
+   * Map from a bidder to its position in the list of bidders. Indices are stable for the lifetime of the market.
+   */
+  protected final HashMap<B, Integer> bidderToIndex;
+
+  /**
+   * Compressed sparse row representation of the bidder to goods adjacency. The indices of the goods demanded by bidder j are stored, in ascending
+   * order, in bidderToGoods[bidderToGoodsOffsets[j]], ..., bidderToGoods[bidderToGoodsOffsets[j + 1] - 1]. A position in bidderToGoods uniquely identifies
+   * an edge of the market.
+   */
+  protected final int[] bidderToGoodsOffsets;
+
+  /**
+   * Indices of demanded goods, grouped by bidder. See bidderToGoodsOffsets.
+   */
+  protected final int[] bidderToGoods;
+
+  /**
+   * Compressed sparse row representation of the good to bidders adjacency. The indices of the bidders that demand good i are stored, in ascending
+   * order, in goodToBidders[goodToBiddersOffsets[i]], ..., goodToBidders[goodToBiddersOffsets[i + 1] - 1].
+   */
+  protected final int[] goodToBiddersOffsets;
+
+  /**
+   * Indices of demanding bidders, grouped by good. See goodToBiddersOffsets.
+   */
+  protected final int[] goodToBidders;
+
+  /**
+   * Optional bitset representation of the adjacency, built on first use. Entry j is the set of indices of goods demanded by bidder j.
+   */
+  protected volatile long[][] bidderToGoodsBits;
+
+  /**
+   * Optional bitset representation of the adjacency, built on first use. Entry i is the set of indices of bidders that demand good i.
+   */
+  protected volatile long[][] goodToBiddersBits;
+
+  /**
+   * Bundle id of each bidder, built on first use. Bidders with equal demand sets have the same bundle id. Bundle ids are dense, numbered from zero in
+   * order of first appearance in the list of bidders.
+   */
+  protected volatile int[] bidderToBundle;
+
+  /**
+   * Compressed sparse row representation of the bundle to bidders relation. The indices of the bidders with bundle b are stored, in ascending order, in
+   * bundleToBidders[bundleToBiddersOffsets[b]], ..., bundleToBidders[bundleToBiddersOffsets[b + 1] - 1]. Built together with bidderToBundle.
+   */
+  protected int[] bundleToBiddersOffsets;
+
+  /**
+   * Indices of bidders, grouped by bundle. See bundleToBiddersOffsets.
+   */
+  protected int[] bundleToBidders;
 
   /**
    * Highest reward among all bidders. Implemented as a singleton.
    */
-  protected double highestReward = -1.0;
+  protected volatile double highestReward = -1.0;
   
   /**
    * Total supply of a market. Implemented as a singleton.
    */
-  protected int totalSupply = -1;
+  protected volatile int totalSupply = -1;
   
   /**
    * Total demand of a market. Implemented as a singleton.
    */
-  protected int totalDemand = -1;
+  protected volatile int totalDemand = -1;
   
   /**
    * Total supply to demand ratio. Implemented as a singleton.
    */
-  protected double supplyToDemandRatio = -1.0;
+  protected volatile double supplyToDemandRatio = -1.0;
 
   /**
    * Constructor for a market. Receives bidders and goods as ArrayLists.
@@ -52,15 +122,7 @@ public class Market<G extends Goods, B extends Bidder<G>> {
    * @throws MarketCreationException in case either list is null or empty.
    */
   public Market(ArrayList<G> goods, ArrayList<B> bidders) throws MarketCreationException{
-    // Create immutable goods list.
-    if(goods == null || goods.size() == 0){
-      throw new MarketCreationException("A market must contain at least one good.");
-    }
-    ImmutableList.Builder<G> goodsBuilder = ImmutableList.builder();
-    goodsBuilder.addAll(goods);
-    this.goods = goodsBuilder.build();
-    // Sets bidders
-    this.setBidders(bidders);
+    this(Market.<G> immutableGoods(goods), Market.<B> immutableBidders(bidders));
   }
   
   /**
@@ -71,12 +133,7 @@ public class Market<G extends Goods, B extends Bidder<G>> {
    * @throws MarketCreationException in case either list is null or empty.
    */
   public Market(ImmutableList<G> goods, ArrayList<B> bidders) throws MarketCreationException {
-    if (goods == null || goods.size() == 0) {
-      throw new MarketCreationException("A market must contain at least one good.");
-    }
-    this.goods = goods;
-    //Sets bidders
-    this.setBidders(bidders);
+    this(goods, Market.<B> immutableBidders(bidders));
   }
   
   /**
@@ -94,23 +151,372 @@ public class Market<G extends Goods, B extends Bidder<G>> {
     if(bidders == null || bidders.size() == 0) {
       throw new MarketCreationException("A market must contain at least one bidder.");
     }
-    this.bidders = bidders;    
+    this.bidders = bidders;
+    // Assign an integer index to each good and each bidder.
+    this.goodToIndex = new HashMap<G, Integer>();
+    for (int i = 0; i < this.goods.size(); i++) {
+      this.goodToIndex.put(this.goods.get(i), i);
+    }
+    this.bidderToIndex = new HashMap<B, Integer>();
+    for (int j = 0; j < this.bidders.size(); j++) {
+      this.bidderToIndex.put(this.bidders.get(j), j);
+    }
+    // Bidder to goods adjacency. Goods in a demand set that are not part of this market are ignored.
+    int numberGoods = this.goods.size();
+    int numberBidders = this.bidders.size();
+    int[] degreeOfGood = new int[numberGoods];
+    this.bidderToGoodsOffsets = new int[numberBidders + 1];
+    int[][] demandedGoods = new int[numberBidders][];
+    for (int j = 0; j < numberBidders; j++) {
+      int[] goodsOfBidder = new int[this.bidders.get(j).getDemandSet().size()];
+      int size = 0;
+      for (G good : this.bidders.get(j).getDemandSet()) {
+        Integer i = this.goodToIndex.get(good);
+        if (i != null) {
+          goodsOfBidder[size++] = i;
+          degreeOfGood[i]++;
+        }
+      }
+      Arrays.sort(goodsOfBidder, 0, size);
+      demandedGoods[j] = goodsOfBidder;
+      this.bidderToGoodsOffsets[j + 1] = this.bidderToGoodsOffsets[j] + size;
+    }
+    this.bidderToGoods = new int[this.bidderToGoodsOffsets[numberBidders]];
+    for (int j = 0; j < numberBidders; j++) {
+      System.arraycopy(demandedGoods[j], 0, this.bidderToGoods, this.bidderToGoodsOffsets[j], this.bidderToGoodsOffsets[j + 1] - this.bidderToGoodsOffsets[j]);
+    }
+    // Good to bidders adjacency. Since bidders are visited in ascending order, so are the bidders of each good.
+    this.goodToBiddersOffsets = new int[numberGoods + 1];
+    for (int i = 0; i < numberGoods; i++) {
+      this.goodToBiddersOffsets[i + 1] = this.goodToBiddersOffsets[i] + degreeOfGood[i];
+    }
+    this.goodToBidders = new int[this.bidderToGoods.length];
+    int[] next = Arrays.copyOf(this.goodToBiddersOffsets, numberGoods);
+    for (int j = 0; j < numberBidders; j++) {
+      for (int e = this.bidderToGoodsOffsets[j]; e < this.bidderToGoodsOffsets[j + 1]; e++) {
+        this.goodToBidders[next[this.bidderToGoods[e]]++] = j;
+      }
+    }
   }
 
   /**
-   * A private method that gets called only by constructors to set the bidders.
+   * Constructor used to derive a new version of a market (see withBidders, withoutBidders, withGoods and withoutGoods). The given structures are
+   * taken as they are and may be shared with other versions, so none of them can be modified afterwards.
    * 
-   * @param bidder - an ArrayList of bidders.
+   * @param goods - the goods.
+   * @param bidders - the bidders.
+   * @param goodToIndex - map from goods to their indices.
+   * @param bidderToIndex - map from bidders to their indices.
+   * @param bidderToGoodsOffsets - offsets of the bidder to goods adjacency.
+   * @param bidderToGoods - the bidder to goods adjacency.
+   * @param goodToBiddersOffsets - offsets of the good to bidders adjacency.
+   * @param goodToBidders - the good to bidders adjacency.
+   */
+  private Market(ImmutableList<G> goods, ImmutableList<B> bidders, HashMap<G, Integer> goodToIndex, HashMap<B, Integer> bidderToIndex,
+      int[] bidderToGoodsOffsets, int[] bidderToGoods, int[] goodToBiddersOffsets, int[] goodToBidders) {
+    this.goods = goods;
+    this.bidders = bidders;
+    this.goodToIndex = goodToIndex;
+    this.bidderToIndex = bidderToIndex;
+    this.bidderToGoodsOffsets = bidderToGoodsOffsets;
+    this.bidderToGoods = bidderToGoods;
+    this.goodToBiddersOffsets = goodToBiddersOffsets;
+    this.goodToBidders = goodToBidders;
+  }
+
+  /**
+   * Returns a new market with the given bidders appended after the bidders of this market. This market is not modified. The new market shares the
+   * goods, the goods' index map and the total supply with this market. The adjacency of existing bidders is copied in bulk, so only the demand sets of
+   * the new bidders are inspected. Note that the result is a plain Market even if this market is an instance of a subclass.
+   * 
+   * @param newBidders - the bidders to add.
+   * @return a market with the bidders of this market followed by newBidders.
+   * @throws MarketCreationException in case a bidder is already part of this market.
+   */
+  public Market<G, B> withBidders(List<B> newBidders) throws MarketCreationException {
+    if (newBidders.isEmpty()) {
+      return this;
+    }
+    int numberGoods = this.goods.size();
+    int oldNumberBidders = this.bidders.size();
+    int numberBidders = oldNumberBidders + newBidders.size();
+    HashMap<B, Integer> bidderToIndex = new HashMap<B, Integer>(this.bidderToIndex);
+    for (int j = oldNumberBidders; j < numberBidders; j++) {
+      if (bidderToIndex.put(newBidders.get(j - oldNumberBidders), j) != null) {
+        throw new MarketCreationException("A bidder can be part of a market only once.");
+      }
+    }
+    // Bidder to goods adjacency: existing rows are copied, new rows are appended.
+    int[] bidderToGoodsOffsets = Arrays.copyOf(this.bidderToGoodsOffsets, numberBidders + 1);
+    int[] addedDegreeOfGood = new int[numberGoods];
+    int[][] demandedGoods = new int[newBidders.size()][];
+    for (int j = oldNumberBidders; j < numberBidders; j++) {
+      B bidder = newBidders.get(j - oldNumberBidders);
+      int[] goodsOfBidder = new int[bidder.getDemandSet().size()];
+      int size = 0;
+      for (G good : bidder.getDemandSet()) {
+        Integer i = this.goodToIndex.get(good);
+        if (i != null) {
+          goodsOfBidder[size++] = i;
+          addedDegreeOfGood[i]++;
+        }
+      }
+      Arrays.sort(goodsOfBidder, 0, size);
+      demandedGoods[j - oldNumberBidders] = goodsOfBidder;
+      bidderToGoodsOffsets[j + 1] = bidderToGoodsOffsets[j] + size;
+    }
+    int[] bidderToGoods = Arrays.copyOf(this.bidderToGoods, bidderToGoodsOffsets[numberBidders]);
+    for (int j = oldNumberBidders; j < numberBidders; j++) {
+      System.arraycopy(demandedGoods[j - oldNumberBidders], 0, bidderToGoods, bidderToGoodsOffsets[j], bidderToGoodsOffsets[j + 1] - bidderToGoodsOffsets[j]);
+    }
+    // Good to bidders adjacency: new bidders have the largest indices, so they go at the end of each good's list.
+    int[] goodToBiddersOffsets = new int[numberGoods + 1];
+    for (int i = 0; i < numberGoods; i++) {
+      goodToBiddersOffsets[i + 1] = goodToBiddersOffsets[i] + (this.goodToBiddersOffsets[i + 1] - this.goodToBiddersOffsets[i]) + addedDegreeOfGood[i];
+    }
+    int[] goodToBidders = new int[bidderToGoods.length];
+    int[] next = new int[numberGoods];
+    for (int i = 0; i < numberGoods; i++) {
+      int oldDegree = this.goodToBiddersOffsets[i + 1] - this.goodToBiddersOffsets[i];
+      System.arraycopy(this.goodToBidders, this.goodToBiddersOffsets[i], goodToBidders, goodToBiddersOffsets[i], oldDegree);
+      next[i] = goodToBiddersOffsets[i] + oldDegree;
+    }
+    for (int j = oldNumberBidders; j < numberBidders; j++) {
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        goodToBidders[next[bidderToGoods[e]]++] = j;
+      }
+    }
+    Market<G, B> market = new Market<G, B>(this.goods, ImmutableList.<B> builder().addAll(this.bidders).addAll(newBidders).build(), this.goodToIndex,
+        bidderToIndex, bidderToGoodsOffsets, bidderToGoods, goodToBiddersOffsets, goodToBidders);
+    // Carry over the aggregates that can be updated cheaply.
+    market.totalSupply = this.totalSupply;
+    if (this.highestReward != -1.0 || this.totalDemand != -1) {
+      double highestReward = this.highestReward;
+      int totalDemand = this.totalDemand;
+      for (B bidder : newBidders) {
+        highestReward = Math.max(highestReward, bidder.getReward());
+        totalDemand += bidder.getDemand();
+      }
+      market.highestReward = (this.highestReward == -1.0) ? -1.0 : highestReward;
+      market.totalDemand = (this.totalDemand == -1) ? -1 : totalDemand;
+    }
+    return market;
+  }
+
+  /**
+   * Returns a new market without the given bidders. This market is not modified. The remaining bidders keep their relative order. The new market
+   * shares the goods, the goods' index map and the total supply with this market, and its adjacency is obtained by filtering the adjacency of this
+   * market. Note that the result is a plain Market even if this market is an instance of a subclass.
+   * 
+   * @param removedBidders - the bidders to remove. Bidders not in this market are ignored.
+   * @return a market with the bidders of this market not in removedBidders.
+   * @throws MarketCreationException in case no bidder would be left.
+   */
+  public Market<G, B> withoutBidders(Collection<B> removedBidders) throws MarketCreationException {
+    int oldNumberBidders = this.bidders.size();
+    int[] newIndex = new int[oldNumberBidders];
+    for (B bidder : removedBidders) {
+      Integer j = this.bidderToIndex.get(bidder);
+      if (j != null) {
+        newIndex[j] = -1;
+      }
+    }
+    ImmutableList.Builder<B> biddersBuilder = ImmutableList.builder();
+    HashMap<B, Integer> bidderToIndex = new HashMap<B, Integer>();
+    int numberBidders = 0;
+    for (int j = 0; j < oldNumberBidders; j++) {
+      if (newIndex[j] != -1) {
+        newIndex[j] = numberBidders++;
+        biddersBuilder.add(this.bidders.get(j));
+        bidderToIndex.put(this.bidders.get(j), newIndex[j]);
+      }
+    }
+    if (numberBidders == oldNumberBidders) {
+      return this;
+    }
+    if (numberBidders == 0) {
+      throw new MarketCreationException("A market must contain at least one bidder.");
+    }
+    int[] bidderToGoodsOffsets = new int[numberBidders + 1];
+    int[] bidderToGoods = new int[this.bidderToGoods.length];
+    for (int j = 0; j < oldNumberBidders; j++) {
+      if (newIndex[j] != -1) {
+        int degree = this.bidderToGoodsOffsets[j + 1] - this.bidderToGoodsOffsets[j];
+        System.arraycopy(this.bidderToGoods, this.bidderToGoodsOffsets[j], bidderToGoods, bidderToGoodsOffsets[newIndex[j]], degree);
+        bidderToGoodsOffsets[newIndex[j] + 1] = bidderToGoodsOffsets[newIndex[j]] + degree;
+      }
+    }
+    bidderToGoods = Arrays.copyOf(bidderToGoods, bidderToGoodsOffsets[numberBidders]);
+    int numberGoods = this.goods.size();
+    int[] goodToBiddersOffsets = new int[numberGoods + 1];
+    int[] goodToBidders = new int[bidderToGoods.length];
+    int size = 0;
+    for (int i = 0; i < numberGoods; i++) {
+      for (int e = this.goodToBiddersOffsets[i]; e < this.goodToBiddersOffsets[i + 1]; e++) {
+        if (newIndex[this.goodToBidders[e]] != -1) {
+          goodToBidders[size++] = newIndex[this.goodToBidders[e]];
+        }
+      }
+      goodToBiddersOffsets[i + 1] = size;
+    }
+    Market<G, B> market = new Market<G, B>(this.goods, biddersBuilder.build(), this.goodToIndex, bidderToIndex, bidderToGoodsOffsets, bidderToGoods,
+        goodToBiddersOffsets, goodToBidders);
+    market.totalSupply = this.totalSupply;
+    return market;
+  }
+
+  /**
+   * Returns a new market with the given goods appended after the goods of this market. This market is not modified. The new market shares the bidders,
+   * the bidders' index map and the bidders' aggregates (highest reward, total demand) with this market. Existing bidders are only asked whether they
+   * demand the new goods. Note that the result is a plain Market even if this market is an instance of a subclass.
+   * 
+   * @param newGoods - the goods to add.
+   * @return a market with the goods of this market followed by newGoods.
+   * @throws MarketCreationException in case a good is already part of this market.
+   */
+  public Market<G, B> withGoods(List<G> newGoods) throws MarketCreationException {
+    if (newGoods.isEmpty()) {
+      return this;
+    }
+    int oldNumberGoods = this.goods.size();
+    int numberGoods = oldNumberGoods + newGoods.size();
+    int numberBidders = this.bidders.size();
+    HashMap<G, Integer> goodToIndex = new HashMap<G, Integer>(this.goodToIndex);
+    for (int i = oldNumberGoods; i < numberGoods; i++) {
+      if (goodToIndex.put(newGoods.get(i - oldNumberGoods), i) != null) {
+        throw new MarketCreationException("A good can be part of a market only once.");
+      }
+    }
+    // Find the bidders of each new good. Bidders are visited in ascending order.
+    int[] goodToBiddersOffsets = Arrays.copyOf(this.goodToBiddersOffsets, numberGoods + 1);
+    int[] addedDegreeOfBidder = new int[numberBidders];
+    int[] addedEdges = new int[numberBidders * newGoods.size()];
+    int size = 0;
+    for (int i = oldNumberGoods; i < numberGoods; i++) {
+      G good = newGoods.get(i - oldNumberGoods);
+      for (int j = 0; j < numberBidders; j++) {
+        if (this.bidders.get(j).demandsGood(good)) {
+          addedEdges[size++] = j;
+          addedDegreeOfBidder[j]++;
+        }
+      }
+      goodToBiddersOffsets[i + 1] = this.goodToBidders.length + size;
+    }
+    int[] goodToBidders = Arrays.copyOf(this.goodToBidders, this.goodToBidders.length + size);
+    System.arraycopy(addedEdges, 0, goodToBidders, this.goodToBidders.length, size);
+    // New goods have the largest indices, so they go at the end of each bidder's list.
+    int[] bidderToGoodsOffsets = new int[numberBidders + 1];
+    for (int j = 0; j < numberBidders; j++) {
+      bidderToGoodsOffsets[j + 1] = bidderToGoodsOffsets[j] + (this.bidderToGoodsOffsets[j + 1] - this.bidderToGoodsOffsets[j]) + addedDegreeOfBidder[j];
+    }
+    int[] bidderToGoods = new int[goodToBidders.length];
+    int[] next = new int[numberBidders];
+    for (int j = 0; j < numberBidders; j++) {
+      int oldDegree = this.bidderToGoodsOffsets[j + 1] - this.bidderToGoodsOffsets[j];
+      System.arraycopy(this.bidderToGoods, this.bidderToGoodsOffsets[j], bidderToGoods, bidderToGoodsOffsets[j], oldDegree);
+      next[j] = bidderToGoodsOffsets[j] + oldDegree;
+    }
+    for (int i = oldNumberGoods; i < numberGoods; i++) {
+      for (int e = goodToBiddersOffsets[i]; e < goodToBiddersOffsets[i + 1]; e++) {
+        bidderToGoods[next[goodToBidders[e]]++] = i;
+      }
+    }
+    Market<G, B> market = new Market<G, B>(ImmutableList.<G> builder().addAll(this.goods).addAll(newGoods).build(), this.bidders, goodToIndex,
+        this.bidderToIndex, bidderToGoodsOffsets, bidderToGoods, goodToBiddersOffsets, goodToBidders);
+    market.highestReward = this.highestReward;
+    market.totalDemand = this.totalDemand;
+    return market;
+  }
+
+  /**
+   * Returns a new market without the given goods. This market is not modified. The remaining goods keep their relative order. The new market shares
+   * the bidders, the bidders' index map and the bidders' aggregates (highest reward, total demand) with this market, and its adjacency is obtained by
+   * filtering the adjacency of this market. Note that the result is a plain Market even if this market is an instance of a subclass.
+   * 
+   * @param removedGoods - the goods to remove. Goods not in this market are ignored.
+   * @return a market with the goods of this market not in removedGoods.
+   * @throws MarketCreationException in case no good would be left.
+   */
+  public Market<G, B> withoutGoods(Collection<G> removedGoods) throws MarketCreationException {
+    int oldNumberGoods = this.goods.size();
+    int[] newIndex = new int[oldNumberGoods];
+    for (G good : removedGoods) {
+      Integer i = this.goodToIndex.get(good);
+      if (i != null) {
+        newIndex[i] = -1;
+      }
+    }
+    ImmutableList.Builder<G> goodsBuilder = ImmutableList.builder();
+    HashMap<G, Integer> goodToIndex = new HashMap<G, Integer>();
+    int numberGoods = 0;
+    for (int i = 0; i < oldNumberGoods; i++) {
+      if (newIndex[i] != -1) {
+        newIndex[i] = numberGoods++;
+        goodsBuilder.add(this.goods.get(i));
+        goodToIndex.put(this.goods.get(i), newIndex[i]);
+      }
+    }
+    if (numberGoods == oldNumberGoods) {
+      return this;
+    }
+    if (numberGoods == 0) {
+      throw new MarketCreationException("A market must contain at least one good.");
+    }
+    int[] goodToBiddersOffsets = new int[numberGoods + 1];
+    int[] goodToBidders = new int[this.goodToBidders.length];
+    for (int i = 0; i < oldNumberGoods; i++) {
+      if (newIndex[i] != -1) {
+        int degree = this.goodToBiddersOffsets[i + 1] - this.goodToBiddersOffsets[i];
+        System.arraycopy(this.goodToBidders, this.goodToBiddersOffsets[i], goodToBidders, goodToBiddersOffsets[newIndex[i]], degree);
+        goodToBiddersOffsets[newIndex[i] + 1] = goodToBiddersOffsets[newIndex[i]] + degree;
+      }
+    }
+    goodToBidders = Arrays.copyOf(goodToBidders, goodToBiddersOffsets[numberGoods]);
+    int numberBidders = this.bidders.size();
+    int[] bidderToGoodsOffsets = new int[numberBidders + 1];
+    int[] bidderToGoods = new int[goodToBidders.length];
+    int size = 0;
+    for (int j = 0; j < numberBidders; j++) {
+      for (int e = this.bidderToGoodsOffsets[j]; e < this.bidderToGoodsOffsets[j + 1]; e++) {
+        if (newIndex[this.bidderToGoods[e]] != -1) {
+          bidderToGoods[size++] = newIndex[this.bidderToGoods[e]];
+        }
+      }
+      bidderToGoodsOffsets[j + 1] = size;
+    }
+    Market<G, B> market = new Market<G, B>(goodsBuilder.build(), this.bidders, goodToIndex, this.bidderToIndex, bidderToGoodsOffsets, bidderToGoods,
+        goodToBiddersOffsets, goodToBidders);
+    market.highestReward = this.highestReward;
+    market.totalDemand = this.totalDemand;
+    return market;
+  }
+
+  /**
+   * A private method that gets called only by constructors to create an immutable list of goods.
+   * 
+   * @param goods - an ArrayList of goods.
+   * @return an ImmutableList with the goods.
    * @throws MarketCreationException in case the list is null or empty.
    */
-  private void setBidders(ArrayList<B> bidders) throws MarketCreationException {
-    // Create immutable bidders list.
+  private static <G extends Goods> ImmutableList<G> immutableGoods(ArrayList<G> goods) throws MarketCreationException {
+    if (goods == null || goods.size() == 0) {
+      throw new MarketCreationException("A market must contain at least one good.");
+    }
+    return ImmutableList.copyOf(goods);
+  }
+
+  /**
+   * A private method that gets called only by constructors to create an immutable list of bidders.
+   * 
+   * @param bidders - an ArrayList of bidders.
+   * @return an ImmutableList with the bidders.
+   * @throws MarketCreationException in case the list is null or empty.
+   */
+  private static <B> ImmutableList<B> immutableBidders(ArrayList<B> bidders) throws MarketCreationException {
     if (bidders == null || bidders.size() == 0) {
       throw new MarketCreationException("A market must contain at least one bidder");
     }
-    ImmutableList.Builder<B> biddersBuilder = ImmutableList.builder();
-    biddersBuilder.addAll(bidders);
-    this.bidders = biddersBuilder.build();
+    return ImmutableList.copyOf(bidders);
   }
 
   /**
@@ -149,6 +555,217 @@ public class Market<G extends Goods, B extends Bidder<G>> {
     return this.bidders.size();
   }
 
+  /**
+   * Gets the index of a good, i.e., its position in the list of goods.
+   * 
+   * @param good - a good object.
+   * @return the index of the good, or -1 if the good is not part of this market.
+   */
+  public int getGoodIndex(G good) {
+    Integer index = this.goodToIndex.get(good);
+    return (index == null) ? -1 : index;
+  }
+
+  /**
+   * Gets the index of a bidder, i.e., its position in the list of bidders.
+   * 
+   * @param bidder - a bidder object.
+   * @return the index of the bidder, or -1 if the bidder is not part of this market.
+   */
+  public int getBidderIndex(B bidder) {
+    Integer index = this.bidderToIndex.get(bidder);
+    return (index == null) ? -1 : index;
+  }
+
+  /**
+   * Gets the number of edges of the market, i.e., the number of (good, bidder) pairs such that the bidder demands the good.
+   * 
+   * @return the number of edges.
+   */
+  public int getNumberEdges() {
+    return this.bidderToGoods.length;
+  }
+
+  /**
+   * Gets the offsets into the bidder to goods adjacency. The goods demanded by bidder j are at positions getBidderToGoodsOffsets()[j] (inclusive)
+   * through getBidderToGoodsOffsets()[j + 1] (exclusive) of getBidderToGoods(). The returned array is shared and must not be modified.
+   * 
+   * @return an array of size getNumberBidders() + 1.
+   */
+  public int[] getBidderToGoodsOffsets() {
+    return this.bidderToGoodsOffsets;
+  }
+
+  /**
+   * Gets the indices of demanded goods grouped by bidder, in ascending order within each bidder. The position of an entry in this array is the edge
+   * index of the corresponding (good, bidder) pair. The returned array is shared and must not be modified.
+   * 
+   * @return an array of size getNumberEdges().
+   */
+  public int[] getBidderToGoods() {
+    return this.bidderToGoods;
+  }
+
+  /**
+   * Gets the offsets into the good to bidders adjacency. The bidders that demand good i are at positions getGoodToBiddersOffsets()[i] (inclusive)
+   * through getGoodToBiddersOffsets()[i + 1] (exclusive) of getGoodToBidders(). The returned array is shared and must not be modified.
+   * 
+   * @return an array of size getNumberGoods() + 1.
+   */
+  public int[] getGoodToBiddersOffsets() {
+    return this.goodToBiddersOffsets;
+  }
+
+  /**
+   * Gets the indices of demanding bidders grouped by good, in ascending order within each good. The returned array is shared and must not be modified.
+   * 
+   * @return an array of size getNumberEdges().
+   */
+  public int[] getGoodToBidders() {
+    return this.goodToBidders;
+  }
+
+  /**
+   * Gets the demand set of a bidder as a bitset over good indices. See util.Bitset. The returned array is shared and must not be modified.
+   * 
+   * @param bidderIndex - the index of a bidder.
+   * @return the bitset of goods demanded by the bidder.
+   */
+  public long[] getDemandSetBits(int bidderIndex) {
+    long[][] bits = this.bidderToGoodsBits;
+    if (bits == null) {
+      this.buildBitsets();
+      bits = this.bidderToGoodsBits;
+    }
+    return bits[bidderIndex];
+  }
+
+  /**
+   * Gets the set of bidders that demand a good as a bitset over bidder indices. See util.Bitset. The returned array is shared and must not be modified.
+   * 
+   * @param goodIndex - the index of a good.
+   * @return the bitset of bidders that demand the good.
+   */
+  public long[] getDemandingBiddersBits(int goodIndex) {
+    long[][] bits = this.goodToBiddersBits;
+    if (bits == null) {
+      this.buildBitsets();
+      bits = this.goodToBiddersBits;
+    }
+    return bits[goodIndex];
+  }
+
+  /**
+   * Builds the bitset representation of the adjacency from the compressed adjacency arrays. Synchronized so that the bitsets are built only once even
+   * if several threads ask for them at the same time.
+   */
+  private synchronized void buildBitsets() {
+    if (this.bidderToGoodsBits != null) {
+      return;
+    }
+    long[][] goodsBits = new long[this.bidders.size()][];
+    long[][] biddersBits = new long[this.goods.size()][];
+    for (int i = 0; i < this.goods.size(); i++) {
+      biddersBits[i] = Bitset.create(this.bidders.size());
+    }
+    for (int j = 0; j < this.bidders.size(); j++) {
+      goodsBits[j] = Bitset.create(this.goods.size());
+      for (int e = this.bidderToGoodsOffsets[j]; e < this.bidderToGoodsOffsets[j + 1]; e++) {
+        Bitset.set(goodsBits[j], this.bidderToGoods[e]);
+        Bitset.set(biddersBits[this.bidderToGoods[e]], j);
+      }
+    }
+    this.goodToBiddersBits = biddersBits;
+    this.bidderToGoodsBits = goodsBits;
+  }
+
+  /**
+   * Gets the bundle id of a bidder. Bidders with equal demand sets share a bundle id, which lets algorithms do per-bundle instead of per-bidder work.
+   * Interning demand sets (see DemandSetPool) makes the grouping cheap, since equal demand sets are then the same object.
+   * 
+   * @param bidderIndex - the index of a bidder.
+   * @return the bundle id of the bidder.
+   */
+  public int getBundleId(int bidderIndex) {
+    int[] bundles = this.bidderToBundle;
+    if (bundles == null) {
+      this.buildBundles();
+      bundles = this.bidderToBundle;
+    }
+    return bundles[bidderIndex];
+  }
+
+  /**
+   * Gets the number of distinct bundles, i.e., of distinct demand sets among bidders.
+   * 
+   * @return the number of bundles.
+   */
+  public int getNumberBundles() {
+    return this.getBundleToBiddersOffsets().length - 1;
+  }
+
+  /**
+   * Getter. The returned array is shared and must not be modified.
+   * 
+   * @return the offsets of the bundle to bidders relation. See bundleToBiddersOffsets.
+   */
+  public int[] getBundleToBiddersOffsets() {
+    if (this.bidderToBundle == null) {
+      this.buildBundles();
+    }
+    return this.bundleToBiddersOffsets;
+  }
+
+  /**
+   * Getter. The returned array is shared and must not be modified.
+   * 
+   * @return the indices of bidders, grouped by bundle. See bundleToBiddersOffsets.
+   */
+  public int[] getBundleToBidders() {
+    if (this.bidderToBundle == null) {
+      this.buildBundles();
+    }
+    return this.bundleToBidders;
+  }
+
+  /**
+   * Groups bidders by demand set. Synchronized so that bundles are built only once.
+   */
+  private synchronized void buildBundles() {
+    if (this.bidderToBundle != null) {
+      return;
+    }
+    int numberBidders = this.bidders.size();
+    HashMap<ImmutableSet<G>, Integer> demandSetToBundle = new HashMap<ImmutableSet<G>, Integer>();
+    int[] bundles = new int[numberBidders];
+    for (int j = 0; j < numberBidders; j++) {
+      ImmutableSet<G> demandSet = this.bidders.get(j).getDemandSet();
+      Integer b = demandSetToBundle.get(demandSet);
+      if (b == null) {
+        b = demandSetToBundle.size();
+        demandSetToBundle.put(demandSet, b);
+      }
+      bundles[j] = b;
+    }
+    int numberBundles = demandSetToBundle.size();
+    int[] offsets = new int[numberBundles + 1];
+    for (int j = 0; j < numberBidders; j++) {
+      offsets[bundles[j] + 1]++;
+    }
+    for (int b = 0; b < numberBundles; b++) {
+      offsets[b + 1] += offsets[b];
+    }
+    int[] bundleBidders = new int[numberBidders];
+    int[] next = Arrays.copyOf(offsets, numberBundles);
+    for (int j = 0; j < numberBidders; j++) {
+      bundleBidders[next[bundles[j]]++] = j;
+    }
+    this.bundleToBiddersOffsets = offsets;
+    this.bundleToBidders = bundleBidders;
+    // Written last: a thread that sees bidderToBundle also sees the arrays above.
+    this.bidderToBundle = bundles;
+  }
+
   /**
    * Computes the highest reward among all bidders in the market.
    * Implements singleton.
@@ -156,16 +773,17 @@ public class Market<G extends Goods, B extends Bidder<G>> {
    * @return the max value of rewards among all bidders.
    */
   public double getHighestReward() {
-    if (this.highestReward == -1.0) {
+    double highestReward = this.highestReward;
+    if (highestReward == -1.0) {
       double tempHighestReward = -1.0;
       for (B bidder : this.bidders) {
         if (bidder.getReward() > tempHighestReward) {
           tempHighestReward = bidder.getReward();
         }
       }
-      this.highestReward = tempHighestReward;
+      this.highestReward = highestReward = tempHighestReward;
     }
-    return this.highestReward;
+    return highestReward;
   }
 
   /**
@@ -174,14 +792,15 @@ public class Market<G extends Goods, B extends Bidder<G>> {
    * @return the total number of goods supplied in the market, i.e., \sum_i N_i.
    */
   public int getTotalSupply() {
-    if (this.totalSupply == -1) {
+    int totalSupply = this.totalSupply;
+    if (totalSupply == -1) {
       int tempTotalSupply = 0;
       for (G good : this.goods) {
         tempTotalSupply += good.getSupply();
       }
-      this.totalSupply = tempTotalSupply;
+      this.totalSupply = totalSupply = tempTotalSupply;
     }
-    return this.totalSupply;
+    return totalSupply;
   }
 
   /**
@@ -190,14 +809,15 @@ public class Market<G extends Goods, B extends Bidder<G>> {
    * @return the total number of goods demanded in the market, i.e., \sum_j I_j
    */
   public int getTotalDemand() {
-    if (this.totalDemand == -1) {
+    int totalDemand = this.totalDemand;
+    if (totalDemand == -1) {
       int tempTotalDemand = 0;
       for (B bidder : this.bidders) {
         tempTotalDemand += bidder.getDemand();
       }
-      this.totalDemand = tempTotalDemand;
+      this.totalDemand = totalDemand = tempTotalDemand;
     }
-    return this.totalDemand;
+    return totalDemand;
   }
 
   /**
@@ -206,7 +826,11 @@ public class Market<G extends Goods, B extends Bidder<G>> {
    * @return the supply to demand ratio of the market.
    */
   public double getSupplyToDemandRatio() {
-    return (this.supplyToDemandRatio == -1.0) ? (double) this.getTotalSupply() / this.getTotalDemand() : this.supplyToDemandRatio;
+    double supplyToDemandRatio = this.supplyToDemandRatio;
+    if (supplyToDemandRatio == -1.0) {
+      this.supplyToDemandRatio = supplyToDemandRatio = (double) this.getTotalSupply() / this.getTotalDemand();
+    }
+    return supplyToDemandRatio;
   }
 
   /**
@@ -1,8 +1,10 @@
 package structures;
 
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import structures.exceptions.MarketAllocationException;
 import allocations.objectivefunction.interfaces.ObjectiveFunction;
@@ -14,6 +16,10 @@ import com.google.common.collect.Table;
  * 
  * An allocation is the result of some allocation algorithm. This class provides a common class for any allocation algorithm to report its results.
  * 
+ * The allocation matrix cannot change after construction and derived quantities (value, winners) are published through volatile fields, so an
+ * allocation can be read from several threads. Extra allocations must be added by the producing algorithm before the object is shared, unless they
+ * come from an ExtraAllocationSource, which is only called while holding the lock of the object.
+ * 
  * @author Enrique Areyan Viqueira
  */
 public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
@@ -24,9 +30,30 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
   protected final M market;
 
   /**
-   * Allocation for the market. An allocation is a Table of goods, bidders and an integer denoting the allocation from a good to a bidder.
+   * Allocation for the market. An allocation is a dense, row-major goods x bidders matrix of integers, where entry i * m + j denotes the allocation from
+   * the good with index i to the bidder with index j, and m is the number of bidders in the market.
+   */
+  protected final int[] allocation;
+
+  /**
+   * Number of bidders in the market, i.e., the length of a row of the allocation matrix.
+   */
+  protected final int numberBidders;
+
+  /**
+   * Total number of items allocated from each good, indexed by good index.
+   */
+  protected final int[] allocationFromGood;
+
+  /**
+   * Total number of items allocated to each bidder, indexed by bidder index.
+   */
+  protected final int[] allocationToBidder;
+
+  /**
+   * Positions, in ascending order, of the non-zero entries of the allocation matrix. Position i * m + j refers to good i and bidder j.
    */
-  protected final Table<G, B, Integer> allocation;
+  protected final int[] nonZeroEntries;
 
   /**
    * Objective function. This is the function that the allocation algorithm reported as having used to perform its allocation.
@@ -36,39 +63,126 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
   /**
    * Value of the allocation.
    */
-  protected double value = -1.0;
+  protected volatile double value = -1.0;
 
   /**
    * Number of winners.
    */
-  protected int numberOfWinners = -1;
+  protected volatile int numberOfWinners = -1;
   
   /**
    * Set of winners.
    */
-  protected HashSet<B> winners;
+  protected volatile HashSet<B> winners;
+
+  /**
+   * In case an allocation algorithm produces multiple allocations. Each extra allocation is stored as a diff against this allocation: the positions of
+   * the matrix where it differs, in ascending order, and its values there. The diff of extra allocation l is in extraPosition and extraValue between
+   * extraStart[l] and extraStart[l + 1]. Extra allocations are only materialized as MarketAllocation objects when they are read.
+   */
+  protected int numberExtraAllocations;
+
+  /**
+   * Start of the diff of each extra allocation, followed by the total length of the diffs.
+   */
+  protected int[] extraStart = new int[] { 0 };
+
+  /**
+   * Positions and values of the diffs of the extra allocations.
+   */
+  protected int[] extraPosition = new int[0], extraValue = new int[0];
 
   /**
-   * In case an allocation algorithm produces multiple allocations.
+   * Objective function of each extra allocation.
    */
-  protected ArrayList<MarketAllocation<M, G, B>> extraAllocations;
+  protected ObjectiveFunction[] extraObjective = new ObjectiveFunction[0];
 
   /**
-   * Constructor. Takes a Market and an allocation.
+   * Source of the extra allocations not added yet, or null if there are none.
+   */
+  protected ExtraAllocationSource<M, G, B> extraSource;
+
+  /**
+   * Constructor. Takes a Market and an allocation given as a Table of goods, bidders and an integer denoting the allocation from a good to a bidder. The
+   * table is copied into the dense representation used internally.
    * 
    * @param m
    * @param allocation
    * @throws MarketAllocationException
    */
   public MarketAllocation(M m, Table<G, B, Integer> allocation, ObjectiveFunction f) throws MarketAllocationException {
+    this(m, MarketAllocation.tableToMatrix(m, allocation), f);
+  }
+
+  /**
+   * Constructor. Takes a Market and a row-major goods x bidders allocation matrix whose length must be the number of goods times the number of bidders.
+   * The matrix is owned by the new object and must not be modified afterwards. Use a Builder to construct allocations incrementally.
+   * 
+   * @param m
+   * @param allocation
+   * @param f
+   */
+  protected MarketAllocation(M m, int[] allocation, ObjectiveFunction f) {
     this.market = m;
-    if (this.market.bidders.size() * this.market.goods.size() != allocation.size()) {
-      throw new MarketAllocationException("Trying to construct a MarketAllocation object for a market with " + this.market.bidders.size() + " bidders and "
-          + this.market.goods.size() + " goods, but with an allocation of size " + allocation.size());
-    }
     this.allocation = allocation;
+    this.numberBidders = this.market.bidders.size();
+    this.allocationFromGood = new int[this.market.goods.size()];
+    this.allocationToBidder = new int[this.numberBidders];
+    int nonZero = 0;
+    for (int i = 0; i < this.allocationFromGood.length; i++) {
+      int offset = i * this.numberBidders;
+      for (int j = 0; j < this.numberBidders; j++) {
+        this.allocationFromGood[i] += this.allocation[offset + j];
+        this.allocationToBidder[j] += this.allocation[offset + j];
+        if (this.allocation[offset + j] != 0) {
+          nonZero++;
+        }
+      }
+    }
+    this.nonZeroEntries = new int[nonZero];
+    nonZero = 0;
+    for (int e = 0; e < this.allocation.length; e++) {
+      if (this.allocation[e] != 0) {
+        this.nonZeroEntries[nonZero++] = e;
+      }
+    }
     this.f = f;
-    this.extraAllocations = new ArrayList<MarketAllocation<M, G, B>>();
+  }
+
+  /**
+   * Copies an allocation given as a Table into a row-major goods x bidders matrix.
+   * 
+   * @param m - the market.
+   * @param allocation - a table with an entry for every (good, bidder) pair of the market.
+   * @return the allocation matrix.
+   * @throws MarketAllocationException in case the table does not match the market.
+   */
+  private static <M extends Market<G, B>, G extends Goods, B extends Bidder<G>> int[] tableToMatrix(M m, Table<G, B, Integer> allocation)
+      throws MarketAllocationException {
+    if (m.bidders.size() * m.goods.size() != allocation.size()) {
+      throw new MarketAllocationException("Trying to construct a MarketAllocation object for a market with " + m.bidders.size() + " bidders and "
+          + m.goods.size() + " goods, but with an allocation of size " + allocation.size());
+    }
+    int[] matrix = new int[allocation.size()];
+    for (Table.Cell<G, B, Integer> cell : allocation.cellSet()) {
+      int i = m.getGoodIndex(cell.getRowKey());
+      int j = m.getBidderIndex(cell.getColumnKey());
+      if (i < 0 || j < 0) {
+        throw new MarketAllocationException("(Good,Bidder) pair not in market.");
+      }
+      matrix[i * m.bidders.size() + j] = cell.getValue();
+    }
+    return matrix;
+  }
+
+  /**
+   * Returns a new builder for an allocation of the given market. All entries of the builder start at zero.
+   * 
+   * @param market - the market to be allocated.
+   * @return a builder.
+   */
+  public static <M extends Market<G, B>, G extends Goods, B extends Bidder<G>> Builder<M, G, B> builder(M market) {
+    return new Builder<M, G, B>(market);
   }
 
   /**
@@ -89,10 +203,33 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
    * @throws MarketAllocationException
    */
   public int getAllocation(G good, B bidder) throws MarketAllocationException {
-    if (!this.allocation.contains(good, bidder)) {
+    int i = this.market.getGoodIndex(good);
+    int j = this.market.getBidderIndex(bidder);
+    if (i < 0 || j < 0) {
       throw new MarketAllocationException("(Good,Bidder) pair not in allocation.");
     }
-    return this.allocation.get(good, bidder);
+    return this.allocation[i * this.numberBidders + j];
+  }
+
+  /**
+   * Getter.
+   * 
+   * @param goodIndex - the index of a good in the market.
+   * @param bidderIndex - the index of a bidder in the market.
+   * @return the allocation from good to bidder.
+   */
+  public int getAllocation(int goodIndex, int bidderIndex) {
+    return this.allocation[goodIndex * this.numberBidders + bidderIndex];
+  }
+
+  /**
+   * Gets the positions of the non-zero entries of the allocation matrix, in ascending order. Position e refers to the good with index e / m and the
+   * bidder with index e % m, where m is the number of bidders. The returned array is shared and must not be modified.
+   * 
+   * @return the positions of the non-zero entries.
+   */
+  public int[] getNonZeroEntries() {
+    return this.nonZeroEntries;
   }
 
   /**
@@ -103,16 +240,17 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
    * @throws MarketAllocationException in case there is a null allocation
    */
   public double getValue() throws MarketAllocationException {
-    if (this.value == -1.0) {
+    double value = this.value;
+    if (value == -1.0) {
       double total = 0.0;
       // Loop through each bidder to check if it is satisfied.
       for (B bidder : this.market.bidders) {
         // Compute the extra reward attained by the bidder under the current allocation.
         total += this.marginalValue(bidder);
       }
-      this.value = total;
+      this.value = value = total;
     }
-    return this.value;
+    return value;
   }
 
   /**
@@ -142,15 +280,7 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
    *           in case the bidder is not found.
    */
   public boolean isBidderBundleZero(B bidder) throws MarketAllocationException {
-    if (!this.allocation.containsColumn(bidder)) {
-      throw new MarketAllocationException("Bidder not found.");
-    }
-    for (Integer alloc : this.allocation.column(bidder).values()) {
-      if (alloc > 0) {
-        return false;
-      }
-    }
-    return true;
+    return this.allocationToBidder(bidder) == 0;
   }
 
   /**
@@ -162,14 +292,21 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
    *           in case the good is not found.
    */
   public int allocationFromGood(G good) throws MarketAllocationException {
-    if (!this.allocation.containsRow(good)) {
+    int i = this.market.getGoodIndex(good);
+    if (i < 0) {
       throw new MarketAllocationException("Good not found.");
     }
-    int totalAllocation = 0;
-    for (Integer alloc : this.allocation.row(good).values()) {
-      totalAllocation += alloc;
-    }
-    return totalAllocation;
+    return this.allocationFromGood[i];
+  }
+
+  /**
+   * Computes the number of items from good i that were allocated.
+   * 
+   * @param goodIndex - a good index.
+   * @return the number of items from good i that were allocated.
+   */
+  public int allocationFromGood(int goodIndex) {
+    return this.allocationFromGood[goodIndex];
   }
 
   /**
@@ -180,14 +317,21 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
    * @throws MarketAllocationException in case a bidder is not found
    */
   public int allocationToBidder(B bidder) throws MarketAllocationException {
-    if (!this.allocation.containsColumn(bidder)) {
+    int j = this.market.getBidderIndex(bidder);
+    if (j < 0) {
       throw new MarketAllocationException("Bidder not found.");
     }
-    int totalAllocation = 0;
-    for (Integer alloc : this.allocation.column(bidder).values()) {
-      totalAllocation += alloc;
-    }
-    return totalAllocation;
+    return this.allocationToBidder[j];
+  }
+
+  /**
+   * Get current bundle number for a bidder.
+   * 
+   * @param bidderIndex - a bidder index.
+   * @return the number of goods allocated to the bidder.
+   */
+  public int allocationToBidder(int bidderIndex) {
+    return this.allocationToBidder[bidderIndex];
   }
 
   /**
@@ -197,38 +341,41 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
    * @throws MarketAllocationException
    */
   public int getNumberOfWinners() throws MarketAllocationException {
-    if (this.numberOfWinners == -1) {
+    int numberOfWinners = this.numberOfWinners;
+    if (numberOfWinners == -1) {
       int total = 0;
-      for (B bidder : this.market.getBidders()) {
-        if (!this.isBidderBundleZero(bidder)) {
+      for (int j = 0; j < this.numberBidders; j++) {
+        if (this.allocationToBidder[j] > 0) {
           total++;
         }
       }
-      this.numberOfWinners = total;
+      this.numberOfWinners = numberOfWinners = total;
     }
-    return this.numberOfWinners;
+    return numberOfWinners;
   }
   
   /**
-   * Computes the set of winners.
+   * Computes the set of winners. The set is cached and shared, so it must not be modified.
    * 
    * @return the set of winners
    * @throws MarketAllocationException
    */
   public HashSet<B> getWinnerSet() throws MarketAllocationException {
-    if(this.winners == null) {
-      this.winners = new HashSet<B>();
-      for(B bidder: this.market.getBidders()) {
-        if(!this.isBidderBundleZero(bidder)) {
-          this.winners.add(bidder);
+    HashSet<B> winners = this.winners;
+    if(winners == null) {
+      winners = new HashSet<B>();
+      for (int j = 0; j < this.numberBidders; j++) {
+        if (this.allocationToBidder[j] > 0) {
+          winners.add(this.market.bidders.get(j));
         }
       }
+      this.winners = winners;
     }
-    return this.winners;
+    return winners;
   }
 
   /**
-   * Add an allocation.
+   * Add an allocation. Only its differences with this allocation are kept.
    * 
    * @param extraAllocation
    * @throws MarketAllocationException
@@ -237,25 +384,154 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
     if (extraAllocation.market != this.market) {
       throw new MarketAllocationException("The extra allocation must refer to the same market object.");
     }
-    this.extraAllocations.add(extraAllocation);
+    int[] positions = new int[this.nonZeroEntries.length + extraAllocation.nonZeroEntries.length];
+    int[] values = new int[positions.length];
+    int length = 0;
+    // Merge the non-zero entries of both allocations, which are sorted, keeping the positions where they differ.
+    int a = 0, b = 0;
+    while (a < this.nonZeroEntries.length || b < extraAllocation.nonZeroEntries.length) {
+      int position;
+      if (b == extraAllocation.nonZeroEntries.length || (a < this.nonZeroEntries.length && this.nonZeroEntries[a] < extraAllocation.nonZeroEntries[b])) {
+        position = this.nonZeroEntries[a++];
+      } else if (a == this.nonZeroEntries.length || extraAllocation.nonZeroEntries[b] < this.nonZeroEntries[a]) {
+        position = extraAllocation.nonZeroEntries[b++];
+      } else {
+        position = this.nonZeroEntries[a++];
+        b++;
+      }
+      if (this.allocation[position] != extraAllocation.allocation[position]) {
+        positions[length] = position;
+        values[length++] = extraAllocation.allocation[position];
+      }
+    }
+    this.addAllocation(positions, values, length, extraAllocation.f);
+  }
+
+  /**
+   * Add an allocation given as a diff against this allocation.
+   * 
+   * @param positions - positions of the allocation matrix, in ascending order, where the extra allocation differs from this one.
+   * @param values - the values of the extra allocation at those positions.
+   * @param length - the number of positions.
+   * @param objective - the objective function of the extra allocation.
+   * @throws MarketAllocationException in case the positions are not increasing or outside of the matrix.
+   */
+  public void addAllocation(int[] positions, int[] values, int length, ObjectiveFunction objective) throws MarketAllocationException {
+    for (int d = 0; d < length; d++) {
+      if (positions[d] < 0 || positions[d] >= this.allocation.length || (d > 0 && positions[d] <= positions[d - 1])) {
+        throw new MarketAllocationException("The positions of an allocation diff must be increasing and inside the allocation matrix.");
+      }
+    }
+    int total = this.extraStart[this.numberExtraAllocations];
+    if (total + length > this.extraPosition.length) {
+      int capacity = Math.max(2 * this.extraPosition.length, total + length);
+      this.extraPosition = Arrays.copyOf(this.extraPosition, capacity);
+      this.extraValue = Arrays.copyOf(this.extraValue, capacity);
+    }
+    if (this.numberExtraAllocations + 1 == this.extraStart.length) {
+      this.extraStart = Arrays.copyOf(this.extraStart, 2 * this.extraStart.length);
+      this.extraObjective = Arrays.copyOf(this.extraObjective, this.extraStart.length);
+    }
+    System.arraycopy(positions, 0, this.extraPosition, total, length);
+    System.arraycopy(values, 0, this.extraValue, total, length);
+    this.extraObjective[this.numberExtraAllocations] = objective;
+    this.extraStart[++this.numberExtraAllocations] = total + length;
+  }
+
+  /**
+   * Setter. Sets a source of further extra allocations, which are added after the ones added so far, one at a time and only when they are read. A
+   * producing algorithm can thus hand out a large number of alternative allocations while consumers that stop early never have them computed.
+   * 
+   * @param source - an ExtraAllocationSource object, or null for none.
+   */
+  public synchronized void setExtraAllocationSource(ExtraAllocationSource<M, G, B> source) {
+    this.extraSource = source;
   }
 
   /**
-   * Get the number of allocations.
+   * Pulls extra allocations from the source, if any, until extra allocation l exists or the source has no more.
+   * 
+   * @param l - the index of an extra allocation.
+   * @return true if extra allocation l exists.
+   */
+  private synchronized boolean hasExtraAllocation(int l) {
+    try {
+      while (l >= this.numberExtraAllocations && this.extraSource != null) {
+        if (!this.extraSource.addNext(this)) {
+          this.extraSource = null;
+        }
+      }
+    } catch (MarketAllocationException e) {
+      throw new IllegalStateException("The source of extra allocations added an invalid allocation.", e);
+    }
+    return l < this.numberExtraAllocations;
+  }
+
+  /**
+   * Get the number of allocations. Extra allocations still in the source are all computed first, so consumers that may stop early should iterate over
+   * getExtraAllocations instead.
    * 
    * @return an integer with the number of allocations.
    */
-  public int getNumExtraAllocations() {
-    return this.extraAllocations.size();
+  public synchronized int getNumExtraAllocations() {
+    while (this.hasExtraAllocation(this.numberExtraAllocations)) {
+      // Drain the source.
+    }
+    return this.numberExtraAllocations;
   }
-  
+
   /**
-   * Get the extra allocations.
+   * Materializes an extra allocation.
    * 
-   * @return an array list with all extra allocations.
+   * @param l - the index of the extra allocation.
+   * @return a new MarketAllocation object.
    */
-  public ArrayList<MarketAllocation<M, G, B>> getExtraAllocations() {
-    return this.extraAllocations;
+  public synchronized MarketAllocation<M, G, B> getExtraAllocation(int l) {
+    if (l < 0 || !this.hasExtraAllocation(l)) {
+      throw new IndexOutOfBoundsException("There is no extra allocation " + l + ".");
+    }
+    int[] matrix = this.allocation.clone();
+    for (int d = this.extraStart[l]; d < this.extraStart[l + 1]; d++) {
+      matrix[this.extraPosition[d]] = this.extraValue[d];
+    }
+    return new MarketAllocation<M, G, B>(this.market, matrix, this.extraObjective[l]);
+  }
+
+  /**
+   * Get the extra allocations. Each one is materialized, and taken from the source if needed, only when the iteration reaches it, so consumers that stop
+   * early do not pay for the rest.
+   * 
+   * @return an iterable over all extra allocations.
+   */
+  public Iterable<MarketAllocation<M, G, B>> getExtraAllocations() {
+    return new Iterable<MarketAllocation<M, G, B>>() {
+      @Override
+      public Iterator<MarketAllocation<M, G, B>> iterator() {
+        return new Iterator<MarketAllocation<M, G, B>>() {
+
+          private int next = 0;
+
+          @Override
+          public boolean hasNext() {
+            return MarketAllocation.this.hasExtraAllocation(this.next);
+          }
+
+          @Override
+          public MarketAllocation<M, G, B> next() {
+            if (!this.hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return MarketAllocation.this.getExtraAllocation(this.next++);
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+
+        };
+      }
+    };
   }
   
   /**
@@ -264,9 +540,9 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
    * @throws MarketAllocationException
    */
   public void printAllocation() throws MarketAllocationException {
-    for (G good : this.market.goods) {
-      for (B bidder : this.market.bidders) {
-        System.out.print("\t " + this.getAllocation(good, bidder));
+    for (int i = 0; i < this.market.goods.size(); i++) {
+      for (int j = 0; j < this.numberBidders; j++) {
+        System.out.print("\t " + this.getAllocation(i, j));
       }
       System.out.print("\n");
     }
@@ -281,4 +557,211 @@ public class MarketAllocation<M extends Market<G, B>, G extends Goods, B extends
     return this.f;
   }
 
+  /**
+   * A source of extra allocations that finds them on demand, e.g., an enumeration of alternative optimal solutions driven by the solver.
+   * 
+   * @author Enrique Areyan Viqueira
+   */
+  public static interface ExtraAllocationSource<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
+
+    /**
+     * Adds the next extra allocation to an allocation, with one of its addAllocation methods.
+     * 
+     * @param base - the allocation that the extra allocations are added to.
+     * @return false if there are no more extra allocations, in which case nothing was added.
+     * @throws MarketAllocationException in case the extra allocation is not valid.
+     */
+    public boolean addNext(MarketAllocation<M, G, B> base) throws MarketAllocationException;
+
+  }
+
+  /**
+   * A builder for MarketAllocation objects. The builder holds a row-major goods x bidders matrix, initially all zeros, that allocation algorithms write
+   * into either by index or by (good, bidder) pair. Calling build hands the matrix over to the resulting MarketAllocation, after which the builder can
+   * no longer be used.
+   * 
+   * @author Enrique Areyan Viqueira
+   */
+  public static class Builder<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
+
+    /**
+     * Market being allocated.
+     */
+    private final M market;
+
+    /**
+     * Number of bidders in the market, i.e., the length of a row of the matrix.
+     */
+    private final int numberBidders;
+
+    /**
+     * The allocation matrix under construction.
+     */
+    private int[] allocation;
+
+    /**
+     * Constructor.
+     * 
+     * @param market - the market to be allocated.
+     */
+    public Builder(M market) {
+      this.market = market;
+      this.numberBidders = market.getNumberBidders();
+      this.allocation = new int[market.getNumberGoods() * this.numberBidders];
+    }
+
+    /**
+     * Getter.
+     * 
+     * @return the market being allocated.
+     */
+    public M getMarket() {
+      return this.market;
+    }
+
+    /**
+     * Sets the allocation from a good to a bidder.
+     * 
+     * @param goodIndex - the index of the good.
+     * @param bidderIndex - the index of the bidder.
+     * @param amount - the number of items of the good allocated to the bidder.
+     * @return this builder.
+     */
+    public Builder<M, G, B> set(int goodIndex, int bidderIndex, int amount) {
+      this.checkNotBuilt();
+      this.allocation[goodIndex * this.numberBidders + bidderIndex] = amount;
+      return this;
+    }
+
+    /**
+     * Sets the allocation from a good to a bidder.
+     * 
+     * @param good - a good object.
+     * @param bidder - a bidder object.
+     * @param amount - the number of items of the good allocated to the bidder.
+     * @return this builder.
+     * @throws MarketAllocationException in case the good or the bidder are not part of the market.
+     */
+    public Builder<M, G, B> set(G good, B bidder, int amount) throws MarketAllocationException {
+      return this.set(this.goodIndex(good), this.bidderIndex(bidder), amount);
+    }
+
+    /**
+     * Adds to the allocation from a good to a bidder.
+     * 
+     * @param goodIndex - the index of the good.
+     * @param bidderIndex - the index of the bidder.
+     * @param amount - the number of items of the good to add to the bidder's allocation.
+     * @return this builder.
+     */
+    public Builder<M, G, B> add(int goodIndex, int bidderIndex, int amount) {
+      this.checkNotBuilt();
+      this.allocation[goodIndex * this.numberBidders + bidderIndex] += amount;
+      return this;
+    }
+
+    /**
+     * Adds to the allocation from a good to a bidder.
+     * 
+     * @param good - a good object.
+     * @param bidder - a bidder object.
+     * @param amount - the number of items of the good to add to the bidder's allocation.
+     * @return this builder.
+     * @throws MarketAllocationException in case the good or the bidder are not part of the market.
+     */
+    public Builder<M, G, B> add(G good, B bidder, int amount) throws MarketAllocationException {
+      return this.add(this.goodIndex(good), this.bidderIndex(bidder), amount);
+    }
+
+    /**
+     * Getter.
+     * 
+     * @param goodIndex - the index of the good.
+     * @param bidderIndex - the index of the bidder.
+     * @return the current allocation from the good to the bidder.
+     */
+    public int get(int goodIndex, int bidderIndex) {
+      this.checkNotBuilt();
+      return this.allocation[goodIndex * this.numberBidders + bidderIndex];
+    }
+
+    /**
+     * Getter.
+     * 
+     * @param good - a good object.
+     * @param bidder - a bidder object.
+     * @return the current allocation from the good to the bidder.
+     * @throws MarketAllocationException in case the good or the bidder are not part of the market.
+     */
+    public int get(G good, B bidder) throws MarketAllocationException {
+      return this.get(this.goodIndex(good), this.bidderIndex(bidder));
+    }
+
+    /**
+     * Removes every item currently allocated to a bidder.
+     * 
+     * @param bidderIndex - the index of the bidder.
+     * @return this builder.
+     */
+    public Builder<M, G, B> clearBidder(int bidderIndex) {
+      this.checkNotBuilt();
+      for (int offset = bidderIndex; offset < this.allocation.length; offset += this.numberBidders) {
+        this.allocation[offset] = 0;
+      }
+      return this;
+    }
+
+    /**
+     * Builds the MarketAllocation. The builder can not be used afterwards.
+     * 
+     * @param f - the objective function used by the allocation algorithm.
+     * @return a MarketAllocation object.
+     */
+    public MarketAllocation<M, G, B> build(ObjectiveFunction f) {
+      this.checkNotBuilt();
+      int[] matrix = this.allocation;
+      this.allocation = null;
+      return new MarketAllocation<M, G, B>(this.market, matrix, f);
+    }
+
+    /**
+     * Looks up the index of a good.
+     * 
+     * @param good - a good object.
+     * @return the index of the good.
+     * @throws MarketAllocationException in case the good is not part of the market.
+     */
+    private int goodIndex(G good) throws MarketAllocationException {
+      int i = this.market.getGoodIndex(good);
+      if (i < 0) {
+        throw new MarketAllocationException("Good not found.");
+      }
+      return i;
+    }
+
+    /**
+     * Looks up the index of a bidder.
+     * 
+     * @param bidder - a bidder object.
+     * @return the index of the bidder.
+     * @throws MarketAllocationException in case the bidder is not part of the market.
+     */
+    private int bidderIndex(B bidder) throws MarketAllocationException {
+      int j = this.market.getBidderIndex(bidder);
+      if (j < 0) {
+        throw new MarketAllocationException("Bidder not found.");
+      }
+      return j;
+    }
+
+    /**
+     * Makes sure build has not been called yet.
+     */
+    private void checkNotBuilt() {
+      if (this.allocation == null) {
+        throw new IllegalStateException("The MarketAllocation has already been built.");
+      }
+    }
+  }
+
 }
@@ -7,7 +7,7 @@ import com.google.common.collect.ImmutableMap;
 
 /**
  * In this class we have an allocated market and prices.
- * Prices are a vector of prices.
+ * Prices are a vector of prices, indexed by good index.
  * 
  * This class support common operations on prices for an allocated market,
  * regardless of the algorithm that produced the allocation and/or prices.
@@ -25,10 +25,21 @@ public class MarketOutcome<M extends Market<G, B>, G extends Goods, B extends Bi
   protected final MarketAllocation<M, G, B> marketAllocation;
   
   /**
-   * This map defines a price for each good.
+   * Price of each good, indexed by good index. Null if no prices are available, e.g., when the LP that computes them is infeasible. A good whose
+   * price is unknown has price NaN.
    */
-  protected final ImmutableMap<G, Double> prices;
-  
+  protected final double[] prices;
+
+  /**
+   * Payment of each bidder, i.e., \sum_{i}x_{i,j}p_{i}, indexed by bidder index. Computed on first use.
+   */
+  private volatile double[] payments;
+
+  /**
+   * Seller revenue. Valid once payments have been computed.
+   */
+  private volatile double revenue;
+
   /**
    * Constructor that takes an allocation and a price map.
    * 
@@ -36,9 +47,39 @@ public class MarketOutcome<M extends Market<G, B>, G extends Goods, B extends Bi
    * @param prices - a map from goods to doubles.
    */
   public MarketOutcome(MarketAllocation<M, G, B> marketAllocation, ImmutableMap<G, Double> prices) {
+    this(marketAllocation, MarketOutcome.<G> toPriceVector(marketAllocation.market, prices));
+  }
+
+  /**
+   * Constructor that takes an allocation and a price vector indexed by good index. The vector is owned by the new object and must not be modified
+   * afterwards.
+   * 
+   * @param marketAllocation - a MarketAllocation object.
+   * @param prices - an array with the price of each good.
+   */
+  public MarketOutcome(MarketAllocation<M, G, B> marketAllocation, double[] prices) {
     this.marketAllocation = marketAllocation;
     this.prices = prices;
   }
+
+  /**
+   * Copies a price map into a price vector indexed by good index.
+   * 
+   * @param market - a market.
+   * @param prices - a map from goods to doubles.
+   * @return the price vector, or null if prices is null.
+   */
+  private static <G extends Goods> double[] toPriceVector(Market<G, ?> market, ImmutableMap<G, Double> prices) {
+    if (prices == null) {
+      return null;
+    }
+    double[] vector = new double[market.getNumberGoods()];
+    for (int i = 0; i < vector.length; i++) {
+      Double price = prices.get(market.getGoods().get(i));
+      vector[i] = (price == null) ? Double.NaN : price;
+    }
+    return vector;
+  }
   
   /**
    * Getter.
@@ -56,10 +97,74 @@ public class MarketOutcome<M extends Market<G, B>, G extends Goods, B extends Bi
    * @throws MarketOutcomeException in case the price of the good is not found.
    */
   public double getPrice(G good) throws MarketOutcomeException {
-    if(!this.prices.containsKey(good)){
+    int i = this.marketAllocation.market.getGoodIndex(good);
+    if (this.prices == null || i < 0 || Double.isNaN(this.prices[i])) {
+      throw new MarketOutcomeException("Price of good not found.");
+    }
+    return this.prices[i];
+  }
+
+  /**
+   * Getter.
+   * 
+   * @param goodIndex - the index of a good in the market.
+   * @return the price of the good.
+   * @throws MarketOutcomeException in case the price of the good is not found.
+   */
+  public double getPrice(int goodIndex) throws MarketOutcomeException {
+    if (this.prices == null || Double.isNaN(this.prices[goodIndex])) {
       throw new MarketOutcomeException("Price of good not found.");
     }
-    return this.prices.get(good);
+    return this.prices[goodIndex];
+  }
+
+  /**
+   * Getter.
+   * 
+   * @return a copy of the price vector, indexed by good index, with NaN for goods without a price, or null if this outcome has no prices.
+   */
+  public double[] getPrices() {
+    return (this.prices == null) ? null : this.prices.clone();
+  }
+
+  /**
+   * Checks if this outcome has prices at all.
+   * 
+   * @return false if the price vector is null, e.g., for the solution of an infeasible LP.
+   */
+  public boolean hasPrices() {
+    return this.prices != null;
+  }
+
+  /**
+   * Computes the payment of each bidder in one pass over the non-zero entries of the allocation.
+   * 
+   * @return the payments, indexed by bidder index.
+   * @throws MarketOutcomeException in case the price vector is null or an allocated good has no price.
+   */
+  private double[] payments() throws MarketOutcomeException {
+    double[] payments = this.payments;
+    if (payments == null) {
+      if (this.prices == null) {
+        throw new MarketOutcomeException("The price vector is null.");
+      }
+      int numberBidders = this.marketAllocation.numberBidders;
+      payments = new double[numberBidders];
+      double revenue = 0.0;
+      for (int e : this.marketAllocation.nonZeroEntries) {
+        double price = this.prices[e / numberBidders];
+        if (Double.isNaN(price)) {
+          throw new MarketOutcomeException("Price of an allocated good not found.");
+        }
+        double payment = this.marketAllocation.allocation[e] * price;
+        payments[e % numberBidders] += payment;
+        revenue += payment;
+      }
+      // Revenue is written first so that it is visible to any thread that sees the payments.
+      this.revenue = revenue;
+      this.payments = payments;
+    }
+    return payments;
   }
   
   /**
@@ -67,15 +172,12 @@ public class MarketOutcome<M extends Market<G, B>, G extends Goods, B extends Bi
    * Seller revenue is defined as: \sum_{i,j}x_{i,j}p_{i}.
    * 
    * @return the seller revenue.
-   * @throws MarketOutcomeException in case the price vector is null.
+   * @throws MarketOutcomeException in case the price vector is null or an allocated good has no price.
    * @throws MarketAllocationException 
    */
   public double sellerRevenue() throws MarketOutcomeException, MarketAllocationException {
-    double value = 0;
-    for (B bidder : this.marketAllocation.market.bidders) {
-      value += this.sellerRevenueFromBidder(bidder);
-    }
-    return value;
+    this.payments();
+    return this.revenue;
   }
   
   /**
@@ -83,31 +185,40 @@ public class MarketOutcome<M extends Market<G, B>, G extends Goods, B extends Bi
    * 
    * @param bidder - a bidder object.
    * @return the seller revenue from the bidder.
-   * @throws MarketOutcomeException in case the price vector is null.
-   * @throws MarketAllocationException 
+   * @throws MarketOutcomeException in case the price vector is null or an allocated good has no price.
+   * @throws MarketAllocationException in case the bidder is not found.
    */
   public double sellerRevenueFromBidder(B bidder) throws MarketOutcomeException, MarketAllocationException {
-    double value = 0;
-    for (G good : this.marketAllocation.market.goods) {
-      value += this.marketAllocation.getAllocation(good, bidder) * this.prices.get(good);
-    }
-    return value;
+    return this.payments()[this.bidderIndex(bidder)];
   }
   
   /**
    * Get current bundle cost for a bidder.
    * @param bidder - a bidder object.
    * @return bidder bundle cost.
-   * @throws MarketAllocationException 
+   * @throws MarketAllocationException in case the bidder is not found, the price vector is null or an allocated good has no price.
    */
   public double getBundleCost(B bidder) throws MarketAllocationException {
-    double cost = 0.0;
-    for (G good : this.marketAllocation.market.goods) {
-      if (this.marketAllocation.getAllocation(good, bidder) > 0) {
-        cost += this.marketAllocation.getAllocation(good, bidder) * this.prices.get(good);
-      }
+    try {
+      return this.payments()[this.bidderIndex(bidder)];
+    } catch (MarketOutcomeException e) {
+      throw new MarketAllocationException(e.getMessage());
+    }
+  }
+
+  /**
+   * Helper method to look up the index of a bidder.
+   * 
+   * @param bidder - a bidder object.
+   * @return the index of the bidder in the market.
+   * @throws MarketAllocationException in case the bidder is not found.
+   */
+  private int bidderIndex(B bidder) throws MarketAllocationException {
+    int j = this.marketAllocation.market.getBidderIndex(bidder);
+    if (j < 0) {
+      throw new MarketAllocationException("Bidder not found.");
     }
-    return cost;
+    return j;
   }
   
   /**
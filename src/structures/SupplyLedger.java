@@ -0,0 +1,107 @@
+package structures;
+
+import structures.exceptions.GoodsException;
+
+/**
+ * Keeps track of the remaining supply of each good of a market during one run of an algorithm. A ledger starts with the full supply of every good and
+ * is owned by the algorithm invocation that created it, so that several algorithms can run on the same (immutable) market at the same time. A ledger
+ * is not thread-safe and should not be shared.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class SupplyLedger<G extends Goods> {
+
+  /**
+   * The market whose supply is tracked.
+   */
+  private final Market<G, ?> market;
+
+  /**
+   * Remaining supply, indexed by the goods' indices in the market.
+   */
+  private final int[] remainingSupply;
+
+  /**
+   * Constructor. The remaining supply of each good is set to be its initial supply.
+   *
+   * @param market - a market.
+   */
+  public SupplyLedger(Market<G, ?> market) {
+    this.market = market;
+    this.remainingSupply = new int[market.getNumberGoods()];
+    for (int i = 0; i < this.remainingSupply.length; i++) {
+      this.remainingSupply[i] = market.getGoods().get(i).getSupply();
+    }
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the market whose supply is tracked.
+   */
+  public Market<G, ?> getMarket() {
+    return this.market;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param goodIndex - the index of a good in the market.
+   * @return the remaining supply of the good.
+   */
+  public int getRemainingSupply(int goodIndex) {
+    return this.remainingSupply[goodIndex];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param good - a good of the market.
+   * @return the remaining supply of the good.
+   * @throws GoodsException in case the good is not part of the market.
+   */
+  public int getRemainingSupply(G good) throws GoodsException {
+    return this.remainingSupply[this.goodIndex(good)];
+  }
+
+  /**
+   * Takes some copies of a good out of the remaining supply.
+   *
+   * @param goodIndex - the index of a good in the market.
+   * @param amount - the number of copies to take.
+   * @throws GoodsException in case the remaining supply would become less than zero.
+   */
+  public void consume(int goodIndex, int amount) throws GoodsException {
+    if (this.remainingSupply[goodIndex] < amount) {
+      throw new GoodsException("Trying to set the remaining supply of a good to a number less than zero.");
+    }
+    this.remainingSupply[goodIndex] -= amount;
+  }
+
+  /**
+   * Takes some copies of a good out of the remaining supply.
+   *
+   * @param good - a good of the market.
+   * @param amount - the number of copies to take.
+   * @throws GoodsException in case the good is not part of the market or the remaining supply would become less than zero.
+   */
+  public void consume(G good, int amount) throws GoodsException {
+    this.consume(this.goodIndex(good), amount);
+  }
+
+  /**
+   * Helper method to look up the index of a good.
+   *
+   * @param good - a good.
+   * @return the index of the good in the market.
+   * @throws GoodsException in case the good is not part of the market.
+   */
+  private int goodIndex(G good) throws GoodsException {
+    int i = this.market.getGoodIndex(good);
+    if (i < 0) {
+      throw new GoodsException("Good not found in the market.");
+    }
+    return i;
+  }
+
+}
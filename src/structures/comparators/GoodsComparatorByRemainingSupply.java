@@ -3,9 +3,10 @@ package structures.comparators;
 import java.util.Comparator;
 
 import structures.Goods;
+import structures.SupplyLedger;
 
 /**
- * This class implements a comparator to compare goods by their remaining supply.
+ * This class implements a comparator to compare goods by their remaining supply, as recorded in the supply ledger of a run of an algorithm.
  * 
  * @author Enrique Areyan Viqueira
  */
@@ -23,29 +24,38 @@ public class GoodsComparatorByRemainingSupply<G extends Goods> implements Compar
    */
   private final Order order;
 
+  /**
+   * The ledger that holds the remaining supply of goods.
+   */
+  private final SupplyLedger<G> ledger;
+
   /**
    * Constructor.
    * 
    * @param Order - the order in which to order goods.
+   * @param ledger - the ledger that holds the remaining supply of goods.
    */
-  public GoodsComparatorByRemainingSupply(Order order) {
+  public GoodsComparatorByRemainingSupply(Order order, SupplyLedger<G> ledger) {
     this.order = order;
+    this.ledger = ledger;
   }
 
   @Override
   public int compare(G g1, G g2) {
+    int s1 = this.ledger.getRemainingSupply(this.ledger.getMarket().getGoodIndex(g1));
+    int s2 = this.ledger.getRemainingSupply(this.ledger.getMarket().getGoodIndex(g2));
     // Descending order of remaining supply.
     if (this.order == Order.descending) {
-      if (g1.getRemainingSupply() < g2.getRemainingSupply()) {
+      if (s1 < s2) {
         return 1;
-      } else if (g1.getRemainingSupply() > g2.getRemainingSupply()) {
+      } else if (s1 > s2) {
         return -1;
       }
     } else if (this.order == Order.ascending) {
       // Ascending order of remaining supply.
-      if (g1.getRemainingSupply() < g2.getRemainingSupply()) {
+      if (s1 < s2) {
         return -1;
-      } else if (g1.getRemainingSupply() > g2.getRemainingSupply()) {
+      } else if (s1 > s2) {
         return 1;
       }
     }
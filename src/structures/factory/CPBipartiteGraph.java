@@ -14,7 +14,15 @@ public class CPBipartiteGraph {
   }
 
   public static void createBiPartiteGraph(int n, int m) throws IloException {
-    IloCP cp = Cplex.getCP();
+    IloCP cp = Cplex.leaseCP();
+    try {
+      CPBipartiteGraph.createBiPartiteGraph(cp, n, m);
+    } finally {
+      Cplex.release(cp);
+    }
+  }
+
+  private static void createBiPartiteGraph(IloCP cp, int n, int m) throws IloException {
     IloNumVar[][] allocationMatrixVariable = new IloNumVar[n][];
     for (int j = 0; j < n; j++) {
       allocationMatrixVariable[j] = cp.intVarArray(m, 0, 1);
@@ -21,6 +21,7 @@ import org.spectrumauctions.sats.core.model.mrvm.MRVMRegionsMap.Region;
 import org.spectrumauctions.sats.core.model.mrvm.MultiRegionModel;
 
 import singleminded.structures.SingleMindedMarket;
+import structures.DemandSetPool;
 import structures.Goods;
 import structures.exceptions.BidderCreationException;
 import structures.exceptions.GoodsCreationException;
@@ -99,6 +100,8 @@ public class SATSFactory {
     ArrayList<structures.Bidder<Goods>> listOfSingleMindedBidders = new ArrayList<structures.Bidder<Goods>>();
     Map<Long, Goods> goodsMap = new HashMap<Long, Goods>();
     HashSet<Goods> setOfDummyGoods = new HashSet<Goods>();
+    // Share one demand set among bids for the same bundle of licenses.
+    DemandSetPool<Goods> demandSetPool = new DemandSetPool<Goods>();
     for (Bidder<?> bidder : satsBidders) {
       SizeBasedUniqueRandomXOR<MRVMLicense> xorBids = bidder.getValueFunction(SizeBasedUniqueRandomXOR.class);
       // xorBids.setDistribution(100, 25, 200);
@@ -122,7 +125,7 @@ public class SATSFactory {
             }
             demandSet.add(goodsMap.get(lic.getId()));
           }
-          listOfSingleMindedBidders.add(new structures.Bidder<Goods>(demandSet.size(), bid.value().doubleValue(), demandSet));
+          listOfSingleMindedBidders.add(new structures.Bidder<Goods>(demandSet.size(), bid.value().doubleValue(), demandSetPool.intern(demandSet)));
         }
       }
     }
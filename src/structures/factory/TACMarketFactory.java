@@ -8,6 +8,7 @@ import java.util.Set;
 
 import simulator.sampling.MarketSegmentSampler;
 import structures.Bidder;
+import structures.DemandSetPool;
 import structures.Goods;
 import structures.Market;
 import structures.exceptions.BidderCreationException;
@@ -55,6 +56,8 @@ public class TACMarketFactory {
       campaigns.add(Sampling.sampleCampaign(0));
     }
     ArrayList<Bidder<Goods>> bidders = new ArrayList<Bidder<Goods>>();
+    // Demand sets come from a handful of market segments, so many campaigns share the same demand set.
+    DemandSetPool<Goods> demandSetPool = new DemandSetPool<Goods>();
     for (int i = 0; i < m; i++) {
       HashSet<Goods> demandSet = new HashSet<Goods>();
       for (Entry<MarketSegment, Goods> good : queries) {
@@ -62,7 +65,7 @@ public class TACMarketFactory {
           demandSet.add(good.getValue());
         }
       }
-      bidders.add(new Bidder<Goods>(campaigns.get(i).getReach(), campaigns.get(i).getReach() * MyRandom.generator.nextDouble(), demandSet));
+      bidders.add(new Bidder<Goods>(campaigns.get(i).getReach(), campaigns.get(i).getReach() * MyRandom.generator.nextDouble(), demandSetPool.intern(demandSet)));
     }
     Market<Goods, Bidder<Goods>> market = new Market<Goods, Bidder<Goods>>(goods, bidders);
 
@@ -12,8 +12,6 @@ import structures.exceptions.BidderCreationException;
 import structures.exceptions.MarketAllocationException;
 import structures.exceptions.MarketCreationException;
 
-import com.google.common.collect.HashBasedTable;
-
 /**
  * This class relates a given input market and reserve price r with a new
  * reserve price Market where bidders that can't afford the reserve price are no
@@ -148,16 +146,16 @@ abstract public class MarketWithReservePrice<M extends Market<G, B>, G extends G
    */
   public MarketAllocation<M, G, B> deduceAllocation(MarketAllocation<M, G, B> allocForMarketWithReserve) throws MarketAllocationException{
     
-    HashBasedTable<G, B, Integer> deducedAllocation = HashBasedTable.create();
-    for(G good : this.market.getGoods()){
-      for(B bidder : this.market.getBidders()){
-        if(this.bidderToBidderMap.containsKey(bidder)){
-          deducedAllocation.put(good, bidder, allocForMarketWithReserve.getAllocation(good, bidder));
-        }else{
-          deducedAllocation.put(good, bidder, 0);
+    MarketAllocation.Builder<M, G, B> deducedAllocation = MarketAllocation.<M, G, B> builder(this.market);
+    for (int i = 0; i < this.market.getNumberGoods(); i++) {
+      G good = this.market.getGoods().get(i);
+      for (int j = 0; j < this.market.getNumberBidders(); j++) {
+        B bidder = this.market.getBidders().get(j);
+        if (this.bidderToBidderMap.containsKey(bidder)) {
+          deducedAllocation.set(i, j, allocForMarketWithReserve.getAllocation(good, bidder));
         }
       }
     }
-    return new MarketAllocation<M, G, B>(this.market, deducedAllocation, allocForMarketWithReserve.getObjectiveFunction());
+    return deducedAllocation.build(allocForMarketWithReserve.getObjectiveFunction());
   }
 }
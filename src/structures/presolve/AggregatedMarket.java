@@ -0,0 +1,288 @@
+package structures.presolve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import structures.Bidder;
+import structures.DemandSetPool;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.exceptions.BidderCreationException;
+import structures.exceptions.GoodsCreationException;
+import structures.exceptions.MarketCreationException;
+
+import com.google.common.primitives.Ints;
+
+/**
+ * This class relates a given input market with an aggregated market where interchangeable goods are merged and, optionally, identical bidders are
+ * represented once.
+ *
+ * Goods demanded by exactly the same bidders and with the same reserve price are interchangeable: they are merged into one good whose supply is the
+ * sum of their supplies. In the deduced outcome, all of them get the price of the merged good.
+ *
+ * Bidders with the same demand, reward and demand set are identical: they are represented by one bidder whose multiplicity is the number of identical
+ * bidders. An allocation of the aggregated market may give a representative bidder up to multiplicity times its demand, e.g., as computed by
+ * OptimalAllocILP.Solve(market, multiplicities), which also removes the symmetric solutions that only permute identical bidders. Since individual
+ * rationality must hold for each identical bidder on its own, pricing algorithms should be run on a market where only goods are aggregated.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class AggregatedMarket<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
+
+  /**
+   * Input market.
+   */
+  protected final M market;
+
+  /**
+   * Aggregated market.
+   */
+  protected final Market<Goods, Bidder<Goods>> aggregatedMarket;
+
+  /**
+   * Index in the aggregated market of the merged good that contains each good of the input market.
+   */
+  protected final int[] goodToAggregatedGood;
+
+  /**
+   * Goods of the input market merged into each good of the aggregated market, in compressed form: the goods of aggregated good c are
+   * aggregatedGoodToGoods[aggregatedGoodToGoodsOffsets[c]], ..., aggregatedGoodToGoods[aggregatedGoodToGoodsOffsets[c + 1] - 1].
+   */
+  protected final int[] aggregatedGoodToGoodsOffsets;
+  protected final int[] aggregatedGoodToGoods;
+
+  /**
+   * Bidders of the input market represented by each bidder of the aggregated market, in compressed form. The multiplicity of a bidder is the length of
+   * its list.
+   */
+  protected final int[] aggregatedBidderToBiddersOffsets;
+  protected final int[] aggregatedBidderToBidders;
+
+  /**
+   * Constructor. Aggregates both goods and bidders.
+   *
+   * @param market - the input market.
+   * @throws GoodsCreationException in case a merged good could not be created.
+   * @throws BidderCreationException in case a representative bidder could not be created.
+   * @throws MarketCreationException in case the aggregated market could not be created.
+   */
+  public AggregatedMarket(M market) throws GoodsCreationException, BidderCreationException, MarketCreationException {
+    this(market, true);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param market - the input market.
+   * @param aggregateBidders - if true, identical bidders are represented once. O/W only goods are merged.
+   * @throws GoodsCreationException in case a merged good could not be created.
+   * @throws BidderCreationException in case a representative bidder could not be created.
+   * @throws MarketCreationException in case the aggregated market could not be created.
+   */
+  public AggregatedMarket(M market, boolean aggregateBidders) throws GoodsCreationException, BidderCreationException, MarketCreationException {
+    this.market = market;
+    int n = market.getNumberGoods();
+    int m = market.getNumberBidders();
+    int[] goodToBiddersOffsets = market.getGoodToBiddersOffsets();
+    int[] goodToBidders = market.getGoodToBidders();
+    // Goods with the same (sorted) list of bidders and the same reserve price are merged.
+    HashMap<List<Object>, Integer> goodClasses = new HashMap<List<Object>, Integer>();
+    this.goodToAggregatedGood = new int[n];
+    for (int i = 0; i < n; i++) {
+      List<Object> key = Arrays.<Object> asList(Ints.asList(Arrays.copyOfRange(goodToBidders, goodToBiddersOffsets[i], goodToBiddersOffsets[i + 1])),
+          market.getGoods().get(i).getReservePrice());
+      Integer c = goodClasses.get(key);
+      if (c == null) {
+        c = goodClasses.size();
+        goodClasses.put(key, c);
+      }
+      this.goodToAggregatedGood[i] = c;
+    }
+    this.aggregatedGoodToGoodsOffsets = new int[goodClasses.size() + 1];
+    this.aggregatedGoodToGoods = AggregatedMarket.group(this.goodToAggregatedGood, this.aggregatedGoodToGoodsOffsets);
+    ArrayList<Goods> aggregatedGoods = new ArrayList<Goods>();
+    for (int c = 0; c < goodClasses.size(); c++) {
+      int supply = 0;
+      for (int e = this.aggregatedGoodToGoodsOffsets[c]; e < this.aggregatedGoodToGoodsOffsets[c + 1]; e++) {
+        supply += market.getGoods().get(this.aggregatedGoodToGoods[e]).getSupply();
+      }
+      G first = market.getGoods().get(this.aggregatedGoodToGoods[this.aggregatedGoodToGoodsOffsets[c]]);
+      aggregatedGoods.add(new Goods(supply, first.getReservePrice()));
+    }
+    // Bidders with the same bundle, demand and reward are identical.
+    HashMap<List<Object>, Integer> bidderClasses = new HashMap<List<Object>, Integer>();
+    int[] bidderToAggregatedBidder = new int[m];
+    for (int j = 0; j < m; j++) {
+      B bidder = market.getBidders().get(j);
+      List<Object> key = aggregateBidders ? Arrays.<Object> asList(market.getBundleId(j), bidder.getDemand(), bidder.getReward()) : Arrays
+          .<Object> asList(j);
+      Integer c = bidderClasses.get(key);
+      if (c == null) {
+        c = bidderClasses.size();
+        bidderClasses.put(key, c);
+      }
+      bidderToAggregatedBidder[j] = c;
+    }
+    this.aggregatedBidderToBiddersOffsets = new int[bidderClasses.size() + 1];
+    this.aggregatedBidderToBidders = AggregatedMarket.group(bidderToAggregatedBidder, this.aggregatedBidderToBiddersOffsets);
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    DemandSetPool<Goods> demandSetPool = new DemandSetPool<Goods>();
+    ArrayList<Bidder<Goods>> aggregatedBidders = new ArrayList<Bidder<Goods>>();
+    for (int c = 0; c < bidderClasses.size(); c++) {
+      int j = this.aggregatedBidderToBidders[this.aggregatedBidderToBiddersOffsets[c]];
+      HashSet<Goods> demandSet = new HashSet<Goods>();
+      for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+        demandSet.add(aggregatedGoods.get(this.goodToAggregatedGood[bidderToGoods[e]]));
+      }
+      B bidder = market.getBidders().get(j);
+      aggregatedBidders.add(new Bidder<Goods>(bidder.getDemand(), bidder.getReward(), demandSetPool.intern(demandSet)));
+    }
+    this.aggregatedMarket = new Market<Goods, Bidder<Goods>>(aggregatedGoods, aggregatedBidders);
+  }
+
+  /**
+   * Groups elements by class, keeping elements of the same class in ascending order.
+   *
+   * @param elementToClass - the class of each element. Classes are numbered in order of first appearance.
+   * @param offsets - output, an array of size number of classes + 1 that will hold the start of each class in the returned array.
+   * @return the elements, sorted by class.
+   */
+  private static int[] group(int[] elementToClass, int[] offsets) {
+    for (int c : elementToClass) {
+      offsets[c + 1]++;
+    }
+    for (int c = 0; c + 1 < offsets.length; c++) {
+      offsets[c + 1] += offsets[c];
+    }
+    int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+    int[] grouped = new int[elementToClass.length];
+    for (int x = 0; x < elementToClass.length; x++) {
+      grouped[next[elementToClass[x]]++] = x;
+    }
+    return grouped;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the input market.
+   */
+  public M getMarket() {
+    return this.market;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the aggregated market.
+   */
+  public Market<Goods, Bidder<Goods>> getAggregatedMarket() {
+    return this.aggregatedMarket;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param goodIndex - the index of a good in the input market.
+   * @return the index of the merged good that contains it in the aggregated market.
+   */
+  public int getAggregatedGoodIndex(int goodIndex) {
+    return this.goodToAggregatedGood[goodIndex];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param bidderIndex - the index of a bidder in the aggregated market.
+   * @return the number of identical bidders of the input market the bidder stands for.
+   */
+  public int getMultiplicity(int bidderIndex) {
+    return this.aggregatedBidderToBiddersOffsets[bidderIndex + 1] - this.aggregatedBidderToBiddersOffsets[bidderIndex];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the multiplicity of each bidder of the aggregated market, indexed by the bidders' indices.
+   */
+  public int[] getMultiplicities() {
+    int[] multiplicities = new int[this.aggregatedMarket.getNumberBidders()];
+    for (int j = 0; j < multiplicities.length; j++) {
+      multiplicities[j] = this.getMultiplicity(j);
+    }
+    return multiplicities;
+  }
+
+  /**
+   * Given a MarketAllocation for the aggregated market, deduce an allocation for the input market. The copies given to a representative bidder are
+   * handed out to the identical bidders it stands for, demand by demand, and copies of a merged good are taken from the goods it contains in order.
+   *
+   * @param allocForAggregatedMarket - an allocation of the aggregated market.
+   * @return an allocation of the input market.
+   */
+  public MarketAllocation<M, G, B> deduceAllocation(MarketAllocation<? extends Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocForAggregatedMarket) {
+    MarketAllocation.Builder<M, G, B> deducedAllocation = MarketAllocation.<M, G, B> builder(this.market);
+    int[] remainingSupply = new int[this.market.getNumberGoods()];
+    for (int i = 0; i < remainingSupply.length; i++) {
+      remainingSupply[i] = this.market.getGoods().get(i).getSupply();
+    }
+    // Position, within each merged good, of the first good with remaining supply.
+    int[] nextGood = Arrays.copyOf(this.aggregatedGoodToGoodsOffsets, this.aggregatedGoodToGoodsOffsets.length - 1);
+    int[] bidderToGoodsOffsets = this.aggregatedMarket.getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.aggregatedMarket.getBidderToGoods();
+    for (int c = 0; c < this.aggregatedMarket.getNumberBidders(); c++) {
+      int demand = this.aggregatedMarket.getBidders().get(c).getDemand();
+      // The identical bidder being served and how many copies it still needs.
+      int copy = this.aggregatedBidderToBiddersOffsets[c];
+      int needed = demand;
+      for (int e = bidderToGoodsOffsets[c]; e < bidderToGoodsOffsets[c + 1]; e++) {
+        int aggregatedGood = bidderToGoods[e];
+        int quantity = allocForAggregatedMarket.getAllocation(aggregatedGood, c);
+        while (quantity > 0 && copy < this.aggregatedBidderToBiddersOffsets[c + 1]
+            && nextGood[aggregatedGood] < this.aggregatedGoodToGoodsOffsets[aggregatedGood + 1]) {
+          int i = this.aggregatedGoodToGoods[nextGood[aggregatedGood]];
+          int amount = Math.min(Math.min(quantity, needed), remainingSupply[i]);
+          deducedAllocation.add(i, this.aggregatedBidderToBidders[copy], amount);
+          quantity -= amount;
+          needed -= amount;
+          remainingSupply[i] -= amount;
+          if (remainingSupply[i] == 0) {
+            nextGood[aggregatedGood]++;
+          }
+          if (needed == 0) {
+            copy++;
+            needed = demand;
+          }
+        }
+      }
+    }
+    return deducedAllocation.build(allocForAggregatedMarket.getObjectiveFunction());
+  }
+
+  /**
+   * Given a MarketOutcome for the aggregated market, deduce an outcome for the input market. Each good gets the price of the merged good that contains
+   * it.
+   *
+   * @param outcomeForAggregatedMarket - an outcome of the aggregated market.
+   * @return an outcome of the input market. Its price vector is null if the given outcome has no prices.
+   */
+  public MarketOutcome<M, G, B> deduceOutcome(MarketOutcome<? extends Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcomeForAggregatedMarket) {
+    MarketAllocation<M, G, B> deducedAllocation = this.deduceAllocation(outcomeForAggregatedMarket.getMarketAllocation());
+    if (!outcomeForAggregatedMarket.hasPrices()) {
+      return new MarketOutcome<M, G, B>(deducedAllocation, (double[]) null);
+    }
+    double[] aggregatedPrices = outcomeForAggregatedMarket.getPrices();
+    double[] prices = new double[this.market.getNumberGoods()];
+    for (int i = 0; i < prices.length; i++) {
+      prices[i] = aggregatedPrices[this.goodToAggregatedGood[i]];
+    }
+    return new MarketOutcome<M, G, B>(deducedAllocation, prices);
+  }
+
+}
@@ -0,0 +1,290 @@
+package structures.presolve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.exceptions.MarketCreationException;
+import allocations.objectivefunction.SingleStepObjectiveFunction;
+import allocations.objectivefunction.interfaces.ObjectiveFunction;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * This class splits a market into the connected components of its bipartite graph of goods and bidders. Components share no goods and no bidders, so
+ * allocations and prices can be computed on each component independently (and in parallel) and then stitched into one outcome of the input market.
+ *
+ * Goods nobody demands and bidders that demand no good of the market do not belong to any component. The former are priced at their reserve price and
+ * the latter get nothing in the stitched outcome.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class MarketDecomposition<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
+
+  /**
+   * An algorithm that computes an outcome for one component. Solvers run concurrently when more than one thread is used, so they must not share state
+   * (e.g., a CPLEX object) between calls.
+   *
+   * @author Enrique Areyan Viqueira
+   */
+  public static interface ComponentSolver<G extends Goods, B extends Bidder<G>> {
+
+    /**
+     * Computes an outcome for a component. Allocation algorithms can return an outcome with no prices.
+     *
+     * @param component - a component of the input market.
+     * @return an outcome of the component.
+     * @throws Exception in case the algorithm failed.
+     */
+    public MarketOutcome<Market<G, B>, G, B> solve(Market<G, B> component) throws Exception;
+
+  }
+
+  /**
+   * Input market.
+   */
+  protected final M market;
+
+  /**
+   * The components, as markets.
+   */
+  protected final ImmutableList<Market<G, B>> components;
+
+  /**
+   * Indices in the input market of the goods of each component, in ascending order.
+   */
+  protected final int[][] componentGoods;
+
+  /**
+   * Indices in the input market of the bidders of each component, in ascending order.
+   */
+  protected final int[][] componentBidders;
+
+  /**
+   * Constructor. Finds the components with a breadth-first search over the adjacency of the market.
+   *
+   * @param market - the input market.
+   * @throws MarketCreationException in case a component could not be created.
+   */
+  public MarketDecomposition(M market) throws MarketCreationException {
+    this.market = market;
+    int n = market.getNumberGoods();
+    int m = market.getNumberBidders();
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    int[] goodToBiddersOffsets = market.getGoodToBiddersOffsets();
+    int[] goodToBidders = market.getGoodToBidders();
+    boolean[] visitedGood = new boolean[n];
+    boolean[] visitedBidder = new boolean[m];
+    // Queue of bidders to visit, shared by all searches since each bidder is queued once.
+    int[] queue = new int[m];
+    ArrayList<int[]> componentGoods = new ArrayList<int[]>();
+    ArrayList<int[]> componentBidders = new ArrayList<int[]>();
+    ImmutableList.Builder<Market<G, B>> components = ImmutableList.builder();
+    for (int root = 0; root < m; root++) {
+      if (visitedBidder[root] || bidderToGoodsOffsets[root] == bidderToGoodsOffsets[root + 1]) {
+        continue;
+      }
+      int head = 0;
+      int tail = 0;
+      int numberGoods = 0;
+      int[] goods = new int[n];
+      queue[tail++] = root;
+      visitedBidder[root] = true;
+      while (head < tail) {
+        int j = queue[head++];
+        for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+          int i = bidderToGoods[e];
+          if (!visitedGood[i]) {
+            visitedGood[i] = true;
+            goods[numberGoods++] = i;
+            for (int f = goodToBiddersOffsets[i]; f < goodToBiddersOffsets[i + 1]; f++) {
+              if (!visitedBidder[goodToBidders[f]]) {
+                visitedBidder[goodToBidders[f]] = true;
+                queue[tail++] = goodToBidders[f];
+              }
+            }
+          }
+        }
+      }
+      goods = Arrays.copyOf(goods, numberGoods);
+      int[] bidders = Arrays.copyOfRange(queue, 0, tail);
+      Arrays.sort(goods);
+      Arrays.sort(bidders);
+      ImmutableList.Builder<G> goodsList = ImmutableList.builder();
+      for (int i : goods) {
+        goodsList.add(market.getGoods().get(i));
+      }
+      ImmutableList.Builder<B> biddersList = ImmutableList.builder();
+      for (int j : bidders) {
+        biddersList.add(market.getBidders().get(j));
+      }
+      componentGoods.add(goods);
+      componentBidders.add(bidders);
+      components.add(new Market<G, B>(goodsList.build(), biddersList.build()));
+    }
+    this.components = components.build();
+    this.componentGoods = componentGoods.toArray(new int[componentGoods.size()][]);
+    this.componentBidders = componentBidders.toArray(new int[componentBidders.size()][]);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the input market.
+   */
+  public M getMarket() {
+    return this.market;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the components of the market, ordered by their smallest bidder index.
+   */
+  public ImmutableList<Market<G, B>> getComponents() {
+    return this.components;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of components.
+   */
+  public int getNumberComponents() {
+    return this.components.size();
+  }
+
+  /**
+   * Getter.
+   *
+   * @param c - a component.
+   * @param goodIndex - the index of a good in the component.
+   * @return the index of the good in the input market.
+   */
+  public int getOriginalGoodIndex(int c, int goodIndex) {
+    return this.componentGoods[c][goodIndex];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param c - a component.
+   * @param bidderIndex - the index of a bidder in the component.
+   * @return the index of the bidder in the input market.
+   */
+  public int getOriginalBidderIndex(int c, int bidderIndex) {
+    return this.componentBidders[c][bidderIndex];
+  }
+
+  /**
+   * Solves each component and stitches the outcomes. Components are handed to the threads largest first, so that a big component does not end up
+   * running alone after all small ones are done.
+   *
+   * @param solver - the algorithm to run on each component.
+   * @param numberThreads - the number of threads. With one thread, components are solved in the calling thread.
+   * @return an outcome of the input market.
+   * @throws Exception in case the solver failed on some component.
+   */
+  public MarketOutcome<M, G, B> solve(final ComponentSolver<G, B> solver, int numberThreads) throws Exception {
+    ArrayList<MarketOutcome<Market<G, B>, G, B>> outcomes = new ArrayList<MarketOutcome<Market<G, B>, G, B>>();
+    if (numberThreads <= 1 || this.components.size() <= 1) {
+      for (Market<G, B> component : this.components) {
+        outcomes.add(solver.solve(component));
+      }
+      return this.deduceOutcome(outcomes);
+    }
+    Integer[] order = new Integer[this.components.size()];
+    for (int c = 0; c < order.length; c++) {
+      order[c] = c;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer c1, Integer c2) {
+        return Integer.compare(MarketDecomposition.this.components.get(c2).getNumberEdges(), MarketDecomposition.this.components.get(c1).getNumberEdges());
+      }
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberThreads, this.components.size()));
+    try {
+      ArrayList<Future<MarketOutcome<Market<G, B>, G, B>>> futures = new ArrayList<Future<MarketOutcome<Market<G, B>, G, B>>>();
+      for (int c = 0; c < order.length; c++) {
+        futures.add(null);
+      }
+      for (Integer c : order) {
+        final Market<G, B> component = this.components.get(c);
+        futures.set(c, executor.submit(new Callable<MarketOutcome<Market<G, B>, G, B>>() {
+          @Override
+          public MarketOutcome<Market<G, B>, G, B> call() throws Exception {
+            return solver.solve(component);
+          }
+        }));
+      }
+      for (Future<MarketOutcome<Market<G, B>, G, B>> future : futures) {
+        try {
+          outcomes.add(future.get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception) {
+            throw (Exception) e.getCause();
+          }
+          throw e;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return this.deduceOutcome(outcomes);
+  }
+
+  /**
+   * Given an outcome for each component, deduce an outcome for the input market.
+   *
+   * @param outcomes - the outcome of each component, in the order of getComponents.
+   * @return an outcome of the input market. Its price vector is null if some outcome has no prices.
+   */
+  public MarketOutcome<M, G, B> deduceOutcome(List<? extends MarketOutcome<? extends Market<G, B>, G, B>> outcomes) {
+    MarketAllocation.Builder<M, G, B> deducedAllocation = MarketAllocation.<M, G, B> builder(this.market);
+    ObjectiveFunction f = null;
+    boolean hasPrices = true;
+    double[] prices = new double[this.market.getNumberGoods()];
+    for (int i = 0; i < prices.length; i++) {
+      prices[i] = this.market.getGoods().get(i).getReservePrice();
+    }
+    for (int c = 0; c < outcomes.size(); c++) {
+      MarketOutcome<? extends Market<G, B>, G, B> outcome = outcomes.get(c);
+      MarketAllocation<? extends Market<G, B>, G, B> allocation = outcome.getMarketAllocation();
+      int numberBidders = this.componentBidders[c].length;
+      for (int position : allocation.getNonZeroEntries()) {
+        int i = position / numberBidders;
+        int j = position % numberBidders;
+        deducedAllocation.set(this.componentGoods[c][i], this.componentBidders[c][j], allocation.getAllocation(i, j));
+      }
+      if (f == null) {
+        f = allocation.getObjectiveFunction();
+      }
+      if (outcome.hasPrices()) {
+        double[] componentPrices = outcome.getPrices();
+        for (int i = 0; i < this.componentGoods[c].length; i++) {
+          prices[this.componentGoods[c][i]] = componentPrices[i];
+        }
+      } else {
+        hasPrices = false;
+      }
+    }
+    if (f == null) {
+      f = new SingleStepObjectiveFunction();
+    }
+    return new MarketOutcome<M, G, B>(deducedAllocation.build(f), hasPrices ? prices : null);
+  }
+
+}
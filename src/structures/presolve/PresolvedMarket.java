@@ -0,0 +1,352 @@
+package structures.presolve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.exceptions.MarketCreationException;
+import util.Bitset;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * This class relates a given input market with a reduced market where bidders that can never win and goods that nobody demands are no longer part of
+ * the market. The reduced market can be handed to an allocation algorithm and a pricing algorithm (e.g., WelfareMaxAllocationILP and
+ * RestrictedEnvyFreePricesLP), whose results can then be deduced for the input market.
+ *
+ * The following reductions are available:
+ *
+ * infeasibleDemand: a bidder whose demand exceeds the total supply of the goods it demands can never be satisfied.
+ *
+ * reserveNotCovered: a bidder whose reward is less than the cheapest way of buying its demand at the goods' reserve prices can never win in an outcome
+ * that respects reserve prices. With the default reserve price of zero no bidder is removed.
+ *
+ * dominated: a single-minded bidder, i.e., one that demands every copy of every good in its demand set, is dominated if another single-minded bidder
+ * with a strictly higher reward demands a subset of its goods. Replacing the former by the latter in an allocation is feasible and strictly increases
+ * welfare, so the former never wins in a welfare-maximizing allocation.
+ *
+ * undemandedGood: a good that no surviving bidder demands can never be allocated. It is applied after the bidder reductions.
+ *
+ * Removed bidders are losers in the deduced outcome and removed goods are priced at their reserve price, which is what the market clearance
+ * conditions would give them. Note that losers only matter for algorithms that put constraints on losers; the restricted envy-free prices LP does not.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class PresolvedMarket<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
+
+  /**
+   * Define the reductions enum.
+   */
+  public static enum Reduction {
+    infeasibleDemand, reserveNotCovered, dominated, undemandedGood
+  }
+
+  /**
+   * Input market.
+   */
+  protected final M market;
+
+  /**
+   * Reduced market. Null if no bidder survives the reductions.
+   */
+  protected final Market<G, B> reducedMarket;
+
+  /**
+   * Map from removed bidders to the reduction that removed them.
+   */
+  protected final ImmutableMap<B, Reduction> removedBidders;
+
+  /**
+   * Goods removed because nobody demands them.
+   */
+  protected final ImmutableList<G> removedGoods;
+
+  /**
+   * Index in the input market of each good of the reduced market.
+   */
+  protected final int[] originalGoodIndex;
+
+  /**
+   * Index in the input market of each bidder of the reduced market.
+   */
+  protected final int[] originalBidderIndex;
+
+  /**
+   * Constructor. Applies all reductions.
+   *
+   * @param market - the input market.
+   * @throws MarketCreationException in case the reduced market could not be created.
+   */
+  public PresolvedMarket(M market) throws MarketCreationException {
+    this(market, EnumSet.allOf(Reduction.class));
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param market - the input market.
+   * @param reductions - the reductions to apply.
+   * @throws MarketCreationException in case the reduced market could not be created.
+   */
+  public PresolvedMarket(M market, EnumSet<Reduction> reductions) throws MarketCreationException {
+    this.market = market;
+    int n = market.getNumberGoods();
+    int m = market.getNumberBidders();
+    int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = market.getBidderToGoods();
+    // Reduction that removes each bidder, or null if the bidder survives.
+    Reduction[] bidderReduction = new Reduction[m];
+    for (int j = 0; j < m; j++) {
+      B bidder = market.getBidders().get(j);
+      if (reductions.contains(Reduction.infeasibleDemand) && bidder.getDemand() > this.demandedSupply(j)) {
+        bidderReduction[j] = Reduction.infeasibleDemand;
+      } else if (reductions.contains(Reduction.reserveNotCovered) && bidder.getReward() < this.costAtReserve(j)) {
+        bidderReduction[j] = Reduction.reserveNotCovered;
+      }
+    }
+    if (reductions.contains(Reduction.dominated)) {
+      // Highest reward of a single-minded bidder with each bundle. Bidders with the same bundle share the same demand set bits.
+      double[] bundleReward = new double[market.getNumberBundles()];
+      Arrays.fill(bundleReward, Double.NEGATIVE_INFINITY);
+      int[] bundleRepresentative = new int[market.getNumberBundles()];
+      for (int j = 0; j < m; j++) {
+        if (this.isSingleMinded(j)) {
+          int b = market.getBundleId(j);
+          if (market.getBidders().get(j).getReward() > bundleReward[b]) {
+            bundleReward[b] = market.getBidders().get(j).getReward();
+            bundleRepresentative[b] = j;
+          }
+        }
+      }
+      for (int j = 0; j < m; j++) {
+        if (bidderReduction[j] == null && this.isSingleMinded(j)) {
+          long[] demandSet = market.getDemandSetBits(j);
+          double reward = market.getBidders().get(j).getReward();
+          for (int b = 0; b < bundleReward.length; b++) {
+            if (bundleReward[b] > reward && this.isSubset(market.getDemandSetBits(bundleRepresentative[b]), demandSet)) {
+              bidderReduction[j] = Reduction.dominated;
+              break;
+            }
+          }
+        }
+      }
+    }
+    ImmutableMap.Builder<B, Reduction> removedBidders = ImmutableMap.builder();
+    ArrayList<B> removedBiddersList = new ArrayList<B>();
+    int[] originalBidderIndex = new int[m];
+    int numberBidders = 0;
+    boolean[] demanded = new boolean[n];
+    for (int j = 0; j < m; j++) {
+      if (bidderReduction[j] != null) {
+        removedBidders.put(market.getBidders().get(j), bidderReduction[j]);
+        removedBiddersList.add(market.getBidders().get(j));
+      } else {
+        originalBidderIndex[numberBidders++] = j;
+        for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+          demanded[bidderToGoods[e]] = true;
+        }
+      }
+    }
+    this.removedBidders = removedBidders.build();
+    this.originalBidderIndex = Arrays.copyOf(originalBidderIndex, numberBidders);
+    ImmutableList.Builder<G> removedGoods = ImmutableList.builder();
+    int[] originalGoodIndex = new int[n];
+    int numberGoods = 0;
+    for (int i = 0; i < n; i++) {
+      if (!demanded[i] && reductions.contains(Reduction.undemandedGood)) {
+        removedGoods.add(market.getGoods().get(i));
+      } else {
+        originalGoodIndex[numberGoods++] = i;
+      }
+    }
+    this.removedGoods = removedGoods.build();
+    this.originalGoodIndex = Arrays.copyOf(originalGoodIndex, numberGoods);
+    // If there are surviving bidders, create the reduced market. o/w the reduced market is null.
+    if (numberBidders > 0) {
+      this.reducedMarket = market.withoutBidders(removedBiddersList).withoutGoods(this.removedGoods);
+    } else {
+      this.reducedMarket = null;
+    }
+  }
+
+  /**
+   * Computes the total supply of the goods demanded by a bidder.
+   *
+   * @param j - a bidder index.
+   * @return the number of copies of goods the bidder could be allocated.
+   */
+  private int demandedSupply(int j) {
+    int supply = 0;
+    for (int e = this.market.getBidderToGoodsOffsets()[j]; e < this.market.getBidderToGoodsOffsets()[j + 1]; e++) {
+      supply += this.market.getGoods().get(this.market.getBidderToGoods()[e]).getSupply();
+    }
+    return supply;
+  }
+
+  /**
+   * Computes the cheapest way of buying the demand of a bidder at the goods' reserve prices.
+   *
+   * @param j - a bidder index.
+   * @return the cost of the cheapest copies of demanded goods, or infinity if there are not enough copies.
+   */
+  private double costAtReserve(int j) {
+    int[] bidderToGoodsOffsets = this.market.getBidderToGoodsOffsets();
+    int[] bidderToGoods = this.market.getBidderToGoods();
+    Goods[] demandedGoods = new Goods[bidderToGoodsOffsets[j + 1] - bidderToGoodsOffsets[j]];
+    for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+      demandedGoods[e - bidderToGoodsOffsets[j]] = this.market.getGoods().get(bidderToGoods[e]);
+    }
+    Arrays.sort(demandedGoods, new Comparator<Goods>() {
+      @Override
+      public int compare(Goods g1, Goods g2) {
+        return Double.compare(g1.getReservePrice(), g2.getReservePrice());
+      }
+    });
+    int demand = this.market.getBidders().get(j).getDemand();
+    double cost = 0.0;
+    for (Goods good : demandedGoods) {
+      int copies = Math.min(demand, good.getSupply());
+      cost += copies * good.getReservePrice();
+      demand -= copies;
+      if (demand == 0) {
+        return cost;
+      }
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Checks if a bidder is single-minded, i.e., if it demands every copy of every good in its demand set.
+   *
+   * @param j - a bidder index.
+   * @return true if the bidder is single-minded.
+   */
+  private boolean isSingleMinded(int j) {
+    return this.market.getBidders().get(j).getDemand() == this.demandedSupply(j);
+  }
+
+  /**
+   * Checks if a bitset is contained in another.
+   *
+   * @param a - a bitset.
+   * @param b - a bitset.
+   * @return true if every element of a is in b.
+   */
+  private boolean isSubset(long[] a, long[] b) {
+    long[] difference = a.clone();
+    Bitset.andNotInPlace(difference, b);
+    return Bitset.isEmpty(difference);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the input market.
+   */
+  public M getMarket() {
+    return this.market;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the reduced market, or null if all bidders were removed.
+   */
+  public Market<G, B> getReducedMarket() {
+    return this.reducedMarket;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return false if all bidders were removed by the reductions.
+   */
+  public boolean areThereBiddersInTheReducedMarket() {
+    return this.reducedMarket != null;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return a map from each removed bidder to the reduction that removed it.
+   */
+  public ImmutableMap<B, Reduction> getRemovedBidders() {
+    return this.removedBidders;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the goods removed because nobody demands them.
+   */
+  public ImmutableList<G> getRemovedGoods() {
+    return this.removedGoods;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param goodIndex - the index of a good in the reduced market.
+   * @return the index of the good in the input market.
+   */
+  public int getOriginalGoodIndex(int goodIndex) {
+    return this.originalGoodIndex[goodIndex];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param bidderIndex - the index of a bidder in the reduced market.
+   * @return the index of the bidder in the input market.
+   */
+  public int getOriginalBidderIndex(int bidderIndex) {
+    return this.originalBidderIndex[bidderIndex];
+  }
+
+  /**
+   * Given a MarketAllocation for the reduced market, deduce an allocation for the input market. Removed bidders get nothing.
+   *
+   * @param allocForReducedMarket - an allocation of the reduced market.
+   * @return an allocation of the input market.
+   */
+  public MarketAllocation<M, G, B> deduceAllocation(MarketAllocation<? extends Market<G, B>, G, B> allocForReducedMarket) {
+    MarketAllocation.Builder<M, G, B> deducedAllocation = MarketAllocation.<M, G, B> builder(this.market);
+    int numberBidders = this.originalBidderIndex.length;
+    for (int position : allocForReducedMarket.getNonZeroEntries()) {
+      int i = position / numberBidders;
+      int j = position % numberBidders;
+      deducedAllocation.set(this.originalGoodIndex[i], this.originalBidderIndex[j], allocForReducedMarket.getAllocation(i, j));
+    }
+    return deducedAllocation.build(allocForReducedMarket.getObjectiveFunction());
+  }
+
+  /**
+   * Given a MarketOutcome for the reduced market, deduce an outcome for the input market. Removed goods are priced at their reserve price.
+   *
+   * @param outcomeForReducedMarket - an outcome of the reduced market.
+   * @return an outcome of the input market. Its price vector is null if the given outcome has no prices.
+   */
+  public MarketOutcome<M, G, B> deduceOutcome(MarketOutcome<? extends Market<G, B>, G, B> outcomeForReducedMarket) {
+    MarketAllocation<M, G, B> deducedAllocation = this.deduceAllocation(outcomeForReducedMarket.getMarketAllocation());
+    if (!outcomeForReducedMarket.hasPrices()) {
+      return new MarketOutcome<M, G, B>(deducedAllocation, (double[]) null);
+    }
+    double[] prices = new double[this.market.getNumberGoods()];
+    for (int i = 0; i < prices.length; i++) {
+      prices[i] = this.market.getGoods().get(i).getReservePrice();
+    }
+    double[] reducedPrices = outcomeForReducedMarket.getPrices();
+    for (int i = 0; i < this.originalGoodIndex.length; i++) {
+      prices[this.originalGoodIndex[i]] = reducedPrices[i];
+    }
+    return new MarketOutcome<M, G, B>(deducedAllocation, prices);
+  }
+
+}
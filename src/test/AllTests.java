@@ -4,14 +4,20 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import test.algorithms.BipartiteMatchingsTest;
+import test.algorithms.CompactConditionGraphTest;
+import test.algorithms.SameAllocationEnvyFreePricesLPTest;
+import test.algorithms.PricingCacheTest;
 import test.algorithms.EVPApproximationTest;
 import test.algorithms.EgalitarianMaxAllocationTest;
 import test.algorithms.GreedyAllocationTest;
 import test.algorithms.MaxWEQReservePricesTest;
 import test.algorithms.MaxWEQTest;
+import test.algorithms.PdhgSolverTest;
 import test.algorithms.RestrictedEnvyFreePricesLPTest;
 import test.algorithms.RevMaxHeuristicTest;
 import test.algorithms.SimplePricingTest;
+import test.algorithms.SimplexSolverTest;
 import test.algorithms.SingleMindedPricingLPTest;
 import test.algorithms.SingletonEVPTest;
 import test.algorithms.SingletonPricingLPTest;
@@ -23,10 +29,19 @@ import test.factory.TACMarketFactoryTest;
 import test.factory.UnitDemandMarketAllocationFactoryTest;
 import test.factory.UnitMarketFactoryTest;
 import test.structures.BiddersComparatorByRToSqrtIRatioTest;
+import test.structures.AggregatedMarketTest;
+import test.structures.BitsetTest;
+import test.structures.DemandSetPoolTest;
 import test.structures.GoodsComparatorByRemainingSupplyTest;
 import test.structures.MarketAllocationTest;
+import test.structures.MarketDecompositionTest;
+import test.structures.MarketFileTest;
+import test.structures.MarketOutcomeTest;
+import test.structures.MarketTest;
 import test.structures.MatchingTest;
+import test.structures.PresolvedMarketTest;
 import test.structures.PricesStatisticsTest;
+import test.structures.SupplyLedgerTest;
 
 @RunWith(Suite.class)
 @SuiteClasses({ RandomMarketFactoryTest.class, SingletonMarketFactoryTest.class, UnitMarketFactoryTest.class, RevMaxHeuristicTest.class,
@@ -34,7 +49,14 @@ import test.structures.PricesStatisticsTest;
     SimplePricingTest.class, SingletonPricingLPTest.class, SingleMindedPricingLPTest.class, SingletonMarkets.class, RestrictedEnvyFreePricesLPTest.class,
     UnitDemandMarketAllocationFactoryTest.class, MatchingTest.class, SingletonEVPTest.class, MarketAllocationTest.class, PricesStatisticsTest.class,
     EgalitarianMaxAllocationTest.class, TACMarketFactoryTest.class, WelfareMaxAllocationILPTest.class, BiddersComparatorByRToSqrtIRatioTest.class,
-    GoodsComparatorByRemainingSupplyTest.class, GreedyAllocationTest.class })
+    GoodsComparatorByRemainingSupplyTest.class, GreedyAllocationTest.class, MarketTest.class,
+    BitsetTest.class, SupplyLedgerTest.class, MarketOutcomeTest.class,
+    DemandSetPoolTest.class, MarketFileTest.class, PresolvedMarketTest.class,
+    AggregatedMarketTest.class, MarketDecompositionTest.class, SimplexSolverTest.class, PdhgSolverTest.class,
+    CompactConditionGraphTest.class,
+    BipartiteMatchingsTest.class,
+    SameAllocationEnvyFreePricesLPTest.class,
+    PricingCacheTest.class })
 public class AllTests {
 
 }
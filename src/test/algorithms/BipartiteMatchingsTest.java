@@ -0,0 +1,68 @@
+package test.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.factory.RandomMarketFactory;
+import structures.factory.SingletonMarketFactory;
+import structures.rewardfunctions.UniformIntegerRewardFunction;
+import allocations.optimal.BipartiteMatchings;
+import allocations.optimal.EgalitarianMaxAllocationILP;
+import allocations.optimal.OptimalAllocILP;
+import allocations.optimal.WelfareMaxAllocationILP;
+
+import com.google.common.collect.ImmutableList;
+
+public class BipartiteMatchingsTest {
+
+  @Test
+  public void testAgainstILP() throws Exception {
+    for (int n = 1; n < 9; n++) {
+      for (int m = 1; m < 9; m++) {
+        for (int t = 0; t < 3; t++) {
+          // Singleton markets, and unit-demand markets with multi-unit supply and integer rewards, i.e., with ties.
+          Market<Goods, Bidder<Goods>> singleton = SingletonMarketFactory.uniformRewardSingletonRandomMarket(n, m, 0.5);
+          Market<Goods, Bidder<Goods>> unitDemand = RandomMarketFactory.randomMarket(n, 1, 3, m, 1, 1, UniformIntegerRewardFunction.singletonInstance, 0.4);
+          assertTrue(BipartiteMatchings.isSingleton(singleton));
+          assertTrue(BipartiteMatchings.isUnitDemand(unitDemand));
+          for (Market<Goods, Bidder<Goods>> market : ImmutableList.of(singleton, unitDemand)) {
+            this.compare(new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(),
+                new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(), market, true);
+            this.compare(new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(),
+                new EgalitarianMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(), market, false);
+          }
+        }
+      }
+    }
+  }
+
+  private void compare(OptimalAllocILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> matching,
+      OptimalAllocILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> ilp, Market<Goods, Bidder<Goods>> market, boolean welfare) throws Exception {
+    ilp.setUseMatchings(false);
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> expected = ilp.Solve(market);
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> actual = matching.Solve(market);
+    // Optimal allocations may differ, but not their objective values.
+    if (welfare) {
+      assertEquals(expected.getValue(), actual.getValue(), 0.000001);
+    } else {
+      assertEquals(expected.getNumberOfWinners(), actual.getNumberOfWinners());
+    }
+    // The allocation is feasible.
+    for (int i = 0; i < market.getNumberGoods(); i++) {
+      assertTrue(actual.allocationFromGood(i) <= market.getGoods().get(i).getSupply());
+      for (int j = 0; j < market.getNumberBidders(); j++) {
+        assertTrue(actual.getAllocation(i, j) == 0 || market.getBidders().get(j).demandsGood(market.getGoods().get(i)));
+      }
+    }
+    for (int j = 0; j < market.getNumberBidders(); j++) {
+      assertTrue(actual.allocationToBidder(j) <= 1);
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+package test.algorithms;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.factory.RandomMarketFactory;
+import algorithms.pricing.helper.CompactConditionGraph;
+import allocations.greedy.GreedyAllocationFactory;
+
+public class CompactConditionGraphTest {
+
+  @Test
+  public void testReduction() throws Exception {
+    for (int n = 1; n < 12; n++) {
+      for (int m = 1; m < 12; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory.GreedyAllocation().Solve(market);
+        CompactConditionGraph<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> graph = new CompactConditionGraph<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            allocation);
+        // Reachability between classes through the edges of the reduction.
+        boolean[][] reach = this.closure(graph, -1);
+        for (int e = 0; e < graph.getNumberEdges(); e++) {
+          assertTrue(graph.getEdgeSource(e) > graph.getEdgeTarget(e));
+          // No edge is implied by the others.
+          assertFalse(this.closure(graph, e)[graph.getEdgeSource(e)][graph.getEdgeTarget(e)]);
+        }
+        // Every compact condition is implied by the reduction.
+        for (int position : allocation.getNonZeroEntries()) {
+          int i = position / m;
+          int j = position % m;
+          for (int f = market.getBidderToGoodsOffsets()[j]; f < market.getBidderToGoodsOffsets()[j + 1]; f++) {
+            int k = market.getBidderToGoods()[f];
+            if (i != k && allocation.getAllocation(k, j) < market.getGoods().get(k).getSupply()) {
+              int a = graph.getEquivalenceClass(i);
+              int b = graph.getEquivalenceClass(k);
+              assertTrue(a == b || reach[a][b]);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @param graph - a CompactConditionGraph.
+   * @param skip - an edge to leave out, or -1.
+   * @return the transitive closure of the edges of the graph.
+   */
+  private boolean[][] closure(CompactConditionGraph<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> graph, int skip) {
+    int c = graph.getNumberClasses();
+    boolean[][] reach = new boolean[c][c];
+    for (int e = 0; e < graph.getNumberEdges(); e++) {
+      if (e != skip) {
+        reach[graph.getEdgeSource(e)][graph.getEdgeTarget(e)] = true;
+      }
+    }
+    for (int k = 0; k < c; k++) {
+      for (int a = 0; a < c; a++) {
+        if (reach[a][k]) {
+          for (int b = 0; b < c; b++) {
+            reach[a][b] |= reach[k][b];
+          }
+        }
+      }
+    }
+    return reach;
+  }
+
+}
@@ -0,0 +1,68 @@
+package test.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.factory.RandomMarketFactory;
+import util.solver.LinearExpression;
+import util.solver.LinearModel;
+import util.solver.PdhgSolver;
+import util.solver.SimplexSolver;
+import util.solver.Solution;
+import algorithms.pricing.RestrictedEnvyFreePricesLP;
+import algorithms.pricing.RestrictedEnvyFreePricesLPSolution;
+import allocations.greedy.GreedyAllocationFactory;
+
+public class PdhgSolverTest {
+
+  @Test
+  public void testLP() throws Exception {
+    // max x + y s.t. x + 2y <= 4, 3x + y <= 6, x, y >= 0. Optimum at (1.6, 1.2).
+    LinearModel model = new LinearModel();
+    int x = model.addVariable(0.0, Double.MAX_VALUE);
+    int y = model.addVariable(0.0, Double.MAX_VALUE);
+    model.addConstraint(new LinearExpression().addTerm(1.0, x).addTerm(2.0, y), LinearModel.Sense.le, 4.0);
+    model.addConstraint(new LinearExpression().addTerm(3.0, x).addTerm(1.0, y), LinearModel.Sense.le, 6.0);
+    model.maximize(new LinearExpression().addTerm(1.0, x).addTerm(1.0, y));
+    Solution solution = new PdhgSolver().solve(model);
+    assertEquals(Solution.Status.Optimal, solution.getStatus());
+    assertEquals(2.8, solution.getObjectiveValue(), 0.0001);
+    assertEquals(1.6, solution.getValue(x), 0.0001);
+    assertEquals(1.2, solution.getValue(y), 0.0001);
+    assertTrue(solution.getGap() <= PdhgSolver.DEFAULT_TOLERANCE);
+    // Stopping after a few iterations gives an approximate point, with its gap.
+    solution = new PdhgSolver(1e-12, 1e-12, 64, true).solve(model);
+    assertEquals(Solution.Status.Feasible, solution.getStatus());
+    assertTrue(solution.hasValues());
+  }
+
+  @Test
+  public void testPricingLP() throws Exception {
+    for (int n = 2; n < 12; n += 3) {
+      for (int m = 2; m < 12; m += 3) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory.GreedyAllocation().Solve(market);
+        RestrictedEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> exact = new RestrictedEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            allocation);
+        exact.setSolver(new SimplexSolver());
+        exact.createLP();
+        RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> exactPrices = exact.Solve();
+        RestrictedEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> approximate = new RestrictedEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            allocation);
+        approximate.setSolver(new PdhgSolver());
+        approximate.createLP();
+        RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> approximatePrices = approximate.Solve();
+        assertEquals("Optimal", approximatePrices.getStatus());
+        assertTrue(approximatePrices.getGap() <= PdhgSolver.DEFAULT_TOLERANCE);
+        assertEquals(exactPrices.sellerRevenue(), approximatePrices.sellerRevenue(), 0.001 * (1.0 + exactPrices.sellerRevenue()));
+      }
+    }
+  }
+
+}
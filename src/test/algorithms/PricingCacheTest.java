@@ -0,0 +1,148 @@
+package test.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.factory.RandomMarketFactory;
+import util.solver.SimplexSolver;
+import algorithms.pricing.RestrictedEnvyFreePricesLPSolution;
+import algorithms.pricing.RestrictedEnvyFreePricesLPWithReserve;
+import algorithms.pricing.SameAllocationEnvyFreePricesLP;
+import algorithms.pricing.helper.PricingCache;
+import allocations.greedy.GreedyAllocation;
+import allocations.greedy.GreedyAllocationFactory;
+
+import com.google.common.collect.ImmutableList;
+
+public class PricingCacheTest {
+
+  @Test
+  public void testEqualAllocations() throws Exception {
+    GreedyAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> greedy = GreedyAllocationFactory.GreedyAllocation();
+    for (int n = 1; n < 7; n++) {
+      for (int m = 1; m < 7; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache = new PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            market);
+        // Two equal allocations, as separate objects.
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> first = greedy.Solve(market);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> second = greedy.Solve(market);
+        RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> expected = this.solve(first, 0.5, null);
+        RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> miss = this.solve(first, 0.5, cache);
+        RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> hit = this.solve(second, 0.5, cache);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertSame(second, hit.getMarketAllocation());
+        this.assertSamePrices(expected, miss);
+        this.assertSamePrices(expected, hit);
+        // Other options are other LPs.
+        this.solve(second, 0.25, cache);
+        assertEquals(2, cache.getMisses());
+      }
+    }
+  }
+
+  @Test
+  public void testSameAllocationLP() throws Exception {
+    // SameAllocationEnvyFreePricesLP builds the LP of RestrictedEnvyFreePricesLPWithReserve, so either one reuses the prices of the other, also for allocations
+    // that give bidders goods they do not demand.
+    GreedyAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> greedy = GreedyAllocationFactory.GreedyAllocation();
+    for (int n = 1; n < 7; n++) {
+      for (int m = 1; m < 7; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> greedyAllocation = greedy.Solve(market);
+        MarketAllocation.Builder<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder = MarketAllocation
+            .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(market);
+        boolean added = false;
+        for (int i = 0; i < n; i++) {
+          Goods good = market.getGoods().get(i);
+          for (int j = 0; j < m; j++) {
+            builder.set(i, j, greedyAllocation.getAllocation(i, j));
+            if (!added && !market.getBidders().get(j).demandsGood(good) && greedyAllocation.allocationFromGood(i) < good.getSupply()) {
+              builder.add(i, j, 1);
+              added = true;
+            }
+          }
+        }
+        for (MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation : ImmutableList.of(greedyAllocation,
+            builder.build(greedyAllocation.getObjectiveFunction()))) {
+          PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache = new PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+              market);
+          // SameAllocationEnvyFreePricesLP fills the cache and RestrictedEnvyFreePricesLPWithReserve hits it, then the other way around.
+          this.assertSamePrices(this.solve(allocation, 0.5, null), this.solveSameAllocation(allocation, 0.5, cache));
+          this.assertSamePrices(this.solveSameAllocation(allocation, 0.5, null), this.solve(allocation, 0.5, cache));
+          this.assertSamePrices(this.solveSameAllocation(allocation, 0.25, null), this.solve(allocation, 0.25, cache));
+          this.assertSamePrices(this.solve(allocation, 0.25, null), this.solveSameAllocation(allocation, 0.25, cache));
+          assertEquals(2, cache.getMisses());
+          assertEquals(2, cache.getHits());
+        }
+      }
+    }
+  }
+
+  /**
+   * Asserts that two solutions of the same LP have the same status and prices.
+   * 
+   * @param expected - a RestrictedEnvyFreePricesLPSolution.
+   * @param actual - another RestrictedEnvyFreePricesLPSolution.
+   */
+  private void assertSamePrices(RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> expected,
+      RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> actual) throws Exception {
+    assertEquals(expected.getStatus(), actual.getStatus());
+    if (expected.getStatus().equals("Optimal")) {
+      assertEquals(expected.sellerRevenue(), actual.sellerRevenue(), 0.000001);
+      for (int i = 0; i < expected.getMarketAllocation().getMarket().getNumberGoods(); i++) {
+        assertEquals(expected.getPrice(i), actual.getPrice(i), 0.000001);
+      }
+    }
+  }
+
+  @Test
+  public void testLeastRecentlyUsed() throws Exception {
+    Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(3, 3, 1.0);
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory
+        .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation().Solve(market);
+    PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache = new PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        market, 2);
+    RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> solution = this.solve(allocation, 0.0, null);
+    cache.put(RestrictedEnvyFreePricesLPWithReserve.class, allocation, 0.0, false, solution);
+    cache.put(RestrictedEnvyFreePricesLPWithReserve.class, allocation, 1.0, false, solution);
+    // Using the first solution makes the second one the least recently used.
+    assertNotNull(cache.get(RestrictedEnvyFreePricesLPWithReserve.class, allocation, 0.0, false));
+    cache.put(RestrictedEnvyFreePricesLPWithReserve.class, allocation, 2.0, false, solution);
+    assertEquals(2, cache.size());
+    assertNull(cache.get(RestrictedEnvyFreePricesLPWithReserve.class, allocation, 1.0, false));
+    assertNotNull(cache.get(RestrictedEnvyFreePricesLPWithReserve.class, allocation, 0.0, false));
+    assertNotNull(cache.get(RestrictedEnvyFreePricesLPWithReserve.class, allocation, 2.0, false));
+  }
+
+  private RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> solve(
+      MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation, double reserve,
+      PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache) throws Exception {
+    RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> lp = new RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        allocation, reserve);
+    lp.setSolver(new SimplexSolver());
+    lp.setCache(cache);
+    lp.createLP();
+    return lp.Solve();
+  }
+
+  private RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> solveSameAllocation(
+      MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation, double reserve,
+      PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache) throws Exception {
+    SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> lp = new SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        allocation.getMarket());
+    lp.setSolver(new SimplexSolver());
+    lp.setCache(cache);
+    return lp.Solve(allocation, reserve);
+  }
+
+}
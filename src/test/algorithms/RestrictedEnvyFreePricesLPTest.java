@@ -1,5 +1,6 @@
 package test.algorithms;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import ilog.concert.IloException;
 
@@ -25,6 +26,7 @@ import algorithms.pricing.RestrictedEnvyFreePricesLP;
 import algorithms.pricing.RestrictedEnvyFreePricesLPSolution;
 import algorithms.pricing.error.PrincingAlgoException;
 import algorithms.pricing.helper.Output;
+import algorithms.pricing.helper.PricingCache;
 import algorithms.pricing.helper.SupplyHelper;
 import algorithms.pricing.helper.SupplyHelperList;
 import allocations.greedy.GreedyAllocationFactory;
@@ -49,6 +51,31 @@ public class RestrictedEnvyFreePricesLPTest {
   }
 
   @SuppressWarnings("serial")
+  @Test
+  public void testSolveTwice() throws Exception {
+    // A created LP can be solved again, with or without a cache.
+    for (int n = 1; n < 6; n++) {
+      for (int m = 1; m < 6; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> ga = GreedyAllocationFactory.GreedyAllocation().Solve(market);
+        PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache = new PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            market);
+        for (int t = 0; t < 2; t++) {
+          RestrictedEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> lp = new RestrictedEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+              ga);
+          // The second LP is answered by the cache.
+          lp.setCache(cache);
+          lp.createLP();
+          RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> first = lp.Solve();
+          RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> second = lp.Solve();
+          assertEquals(first.getStatus(), second.getStatus());
+          assertEquals(first.sellerRevenue(), second.sellerRevenue(), 0.000001);
+        }
+        assertEquals(1, cache.getHits());
+      }
+    }
+  }
+
   @Test
   public void test() throws BidderCreationException, MarketCreationException, AllocationException, GoodsException, MarketAllocationException,
       PrincingAlgoException, IloException, MarketOutcomeException {
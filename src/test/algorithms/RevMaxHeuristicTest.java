@@ -1,5 +1,7 @@
 package test.algorithms;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import ilog.concert.IloException;
 
@@ -18,15 +20,20 @@ import structures.exceptions.GoodsException;
 import structures.exceptions.MarketAllocationException;
 import structures.exceptions.MarketCreationException;
 import structures.exceptions.MarketOutcomeException;
+import structures.factory.RandomMarketFactory;
 import structures.factory.SingletonMarketFactory;
 import test.SizeInterchangeableMarkets;
 import waterfall.Waterfall;
 import algorithms.pricing.RestrictedEnvyFreePricesLP;
 import algorithms.pricing.error.PrincingAlgoException;
+import algorithms.pricing.helper.PricingCache;
+import algorithms.pricing.reserveprices.AdaptiveSearch;
 import algorithms.pricing.reserveprices.RevMaxHeuristic;
+import algorithms.pricing.reserveprices.SearchMetaHeuristic;
 import allocations.error.AllocationAlgoException;
 import allocations.greedy.GreedyAllocation;
 import allocations.greedy.GreedyAllocationFactory;
+import allocations.interfaces.AllocationAlgo;
 import allocations.optimal.WelfareMaxAllocationILP;
 
 public class RevMaxHeuristicTest<M extends Market<G, B>, G extends Goods, B extends Bidder<G>> {
@@ -60,6 +67,89 @@ public class RevMaxHeuristicTest<M extends Market<G, B>, G extends Goods, B exte
     }
   }
 
+  @Test
+  public void testParallel() throws Exception {
+    SearchMetaHeuristic.AllocationAlgoFactory welfareMax = new SearchMetaHeuristic.AllocationAlgoFactory() {
+      @Override
+      public AllocationAlgo<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> create() {
+        return new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>();
+      }
+    };
+    for (int n = 1; n < 8; n++) {
+      for (int m = 1; m < 8; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        // A shared, thread-safe greedy allocation, and an ILP per thread.
+        RevMaxHeuristic sequential = new RevMaxHeuristic(market, GreedyAllocationFactory.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation());
+        RevMaxHeuristic parallel = new RevMaxHeuristic(market, GreedyAllocationFactory.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation());
+        parallel.setParallel(4, null);
+        this.compare(sequential, parallel);
+        sequential = new RevMaxHeuristic(market, welfareMax.create());
+        parallel = new RevMaxHeuristic(market, welfareMax.create());
+        parallel.setParallel(4, welfareMax);
+        this.compare(sequential, parallel);
+        // Only the best outcomes are kept.
+        RevMaxHeuristic best = new RevMaxHeuristic(market, welfareMax.create());
+        best.setParallel(3, welfareMax);
+        best.setNumberOfSolutionsKept(2);
+        best.Solve();
+        assertEquals(Math.min(2, sequential.getSetOfSolutions().size()), best.getSetOfSolutions().size());
+        for (int s = 0; s < best.getSetOfSolutions().size(); s++) {
+          assertEquals(sequential.getSetOfSolutions().get(s).sellerRevenue(), best.getSetOfSolutions().get(s).sellerRevenue(), 0.000001);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSharedPricingCache() throws Exception {
+    // A search never prices the same allocation and reserve twice, so only a second heuristic on the same market reuses solutions.
+    for (int n = 1; n < 6; n++) {
+      for (int m = 1; m < 6; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> cache = new PricingCache<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            market);
+        RevMaxHeuristic first = new RevMaxHeuristic(market, GreedyAllocationFactory.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation());
+        first.setPricingCache(cache);
+        RevMaxHeuristic second = new RevMaxHeuristic(market, GreedyAllocationFactory.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation());
+        second.setPricingCache(cache);
+        PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> firstStats = first.getStatistics();
+        PricesStatistics<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> secondStats = second.getStatistics();
+        assertEquals(0, firstStats.getPricingCacheHits());
+        assertTrue(secondStats.getPricingCacheHits() > 0);
+        assertEquals(cache.getHits(), secondStats.getPricingCacheHits());
+        assertEquals(firstStats.getSellerRevenue(), secondStats.getSellerRevenue(), 0.000001);
+      }
+    }
+  }
+
+  @Test
+  public void testAdaptiveSearch() throws Exception {
+    for (int n = 1; n < 8; n++) {
+      for (int m = 1; m < 8; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        GreedyAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> ga = GreedyAllocationFactory.GreedyAllocation();
+        // Pruning never loses the best candidate.
+        AdaptiveSearch pruned = new AdaptiveSearch(market, ga, 0);
+        AdaptiveSearch exhaustive = new AdaptiveSearch(market, ga, 0);
+        exhaustive.setPruning(false);
+        assertEquals(exhaustive.Solve().sellerRevenue(), pruned.Solve().sellerRevenue(), 0.000001);
+        assertTrue(pruned.getNumberOfEvaluations() <= exhaustive.getNumberOfEvaluations());
+        // The candidates of RevMaxHeuristic are among those of the adaptive search, and refinement only adds more.
+        AdaptiveSearch refined = new AdaptiveSearch(market, ga);
+        assertTrue(refined.Solve().sellerRevenue() >= new RevMaxHeuristic(market, ga).Solve().sellerRevenue() - 0.000001);
+        assertTrue(refined.Solve().sellerRevenue() >= pruned.Solve().sellerRevenue() - 0.000001);
+      }
+    }
+  }
+
+  private void compare(SearchMetaHeuristic sequential, SearchMetaHeuristic parallel) throws Exception {
+    assertEquals(sequential.Solve().sellerRevenue(), parallel.Solve().sellerRevenue(), 0.000001);
+    assertEquals(sequential.getSetOfSolutions().size(), parallel.getSetOfSolutions().size());
+    for (int s = 0; s < sequential.getSetOfSolutions().size(); s++) {
+      assertEquals(sequential.getSetOfSolutions().get(s).sellerRevenue(), parallel.getSetOfSolutions().get(s).sellerRevenue(), 0.000001);
+    }
+  }
+
   @Test
   public void test() throws BidderCreationException, MarketCreationException, AllocationException, GoodsException, MarketAllocationException,
       AllocationAlgoException, IloException, PrincingAlgoException, MarketOutcomeException {
@@ -0,0 +1,141 @@
+package test.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.factory.RandomMarketFactory;
+import structures.factory.reserve.BasicMarketWithReserve;
+import util.solver.SimplexSolver;
+import algorithms.pricing.SameAllocationEnvyFreePricesLP;
+import algorithms.pricing.RestrictedEnvyFreePricesLPSolution;
+import algorithms.pricing.RestrictedEnvyFreePricesLPWithReserve;
+import allocations.greedy.GreedyAllocation;
+import allocations.greedy.GreedyAllocationFactory;
+
+public class SameAllocationEnvyFreePricesLPTest {
+
+  @Test
+  public void testAgainstRestrictedEnvyFreePricesLPWithReserve() throws Exception {
+    GreedyAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> greedy = GreedyAllocationFactory.GreedyAllocation();
+    for (int n = 1; n < 7; n++) {
+      for (int m = 1; m < 7; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> sameAllocation = new SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            market);
+        sameAllocation.setSolver(new SimplexSolver());
+        // The reserve candidates of RevMaxHeuristic: the reward of each bidder, then zero.
+        for (int j = 0; j <= m; j++) {
+          double reserve = (j < m) ? market.getBidders().get(j).getReward() / market.getBidders().get(j).getDemand() : 0.0;
+          BasicMarketWithReserve withReserve = new BasicMarketWithReserve(market, reserve);
+          if (!withReserve.areThereBiddersInTheMarketWithReserve()) {
+            continue;
+          }
+          MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = withReserve.deduceAllocation(greedy.Solve(withReserve
+              .getMarketWithReservePrice()));
+          RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> lp = new RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+              allocation, reserve);
+          lp.setSolver(new SimplexSolver());
+          lp.createLP();
+          RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> expected = lp.Solve();
+          RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> actual = sameAllocation.Solve(allocation, reserve);
+          assertEquals(expected.getStatus(), actual.getStatus());
+          assertEquals(expected.sellerRevenue(), actual.sellerRevenue(), 0.000001);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testAllocationOffDemandedGoods() throws Exception {
+    // Allocations may give a bidder a good it does not demand. Such goods are priced by both LPs.
+    GreedyAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> greedy = GreedyAllocationFactory.GreedyAllocation();
+    int tested = 0;
+    for (int n = 2; n < 7; n++) {
+      for (int m = 1; m < 7; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> greedyAllocation = greedy.Solve(market);
+        MarketAllocation.Builder<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder = MarketAllocation
+            .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(market);
+        for (int i = 0; i < n; i++) {
+          for (int j = 0; j < m; j++) {
+            builder.set(i, j, greedyAllocation.getAllocation(i, j));
+          }
+        }
+        // One more copy of a good with copies left, to a bidder that does not demand it.
+        boolean added = false;
+        for (int i = 0; i < n && !added; i++) {
+          for (int j = 0; j < m && !added; j++) {
+            Goods good = market.getGoods().get(i);
+            if (!market.getBidders().get(j).demandsGood(good) && greedyAllocation.allocationFromGood(i) < good.getSupply()) {
+              builder.add(i, j, 1);
+              added = true;
+            }
+          }
+        }
+        if (!added) {
+          continue;
+        }
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = builder.build(greedyAllocation.getObjectiveFunction());
+        SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> sameAllocation = new SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            market);
+        sameAllocation.setSolver(new SimplexSolver());
+        RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> lp = new RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            allocation, 0.25);
+        lp.setSolver(new SimplexSolver());
+        lp.createLP();
+        RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> expected = lp.Solve();
+        RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> actual = sameAllocation.Solve(allocation, 0.25);
+        assertEquals(expected.getStatus(), actual.getStatus());
+        if (expected.getStatus().equals("Optimal")) {
+          assertEquals(expected.sellerRevenue(), actual.sellerRevenue(), 0.000001);
+          for (int i = 0; i < n; i++) {
+            assertEquals(expected.getPrice(i), actual.getPrice(i), 0.000001);
+          }
+        }
+        tested++;
+      }
+    }
+    assertTrue(tested > 0);
+  }
+
+  @Test
+  public void testReuseAcrossReserves() throws Exception {
+    // One allocation priced at many reserves: a single LP, re-solved from its kept tableau, agrees with fresh LPs.
+    GreedyAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> greedy = GreedyAllocationFactory.GreedyAllocation();
+    for (int n = 1; n < 7; n++) {
+      for (int m = 1; m < 7; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = greedy.Solve(market);
+        for (boolean clearance : new boolean[] { false, true }) {
+          SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> sameAllocation = new SameAllocationEnvyFreePricesLP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+              market);
+          sameAllocation.setSolver(new SimplexSolver());
+          sameAllocation.setMarketClearanceConditions(clearance);
+          for (double reserve : new double[] { 0.0, 0.5, 0.1, 0.9, 0.3, 0.0 }) {
+            RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> lp = new RestrictedEnvyFreePricesLPWithReserve<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+                allocation, reserve);
+            lp.setSolver(new SimplexSolver());
+            lp.setMarketClearanceConditions(clearance);
+            lp.createLP();
+            RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> expected = lp.Solve();
+            // An equal allocation, as a separate object, reuses the LP too.
+            RestrictedEnvyFreePricesLPSolution<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> actual = sameAllocation.Solve(
+                (reserve < 0.5) ? allocation : greedy.Solve(market), reserve);
+            assertEquals(expected.getStatus(), actual.getStatus());
+            if (expected.getStatus().equals("Optimal")) {
+              assertEquals(expected.sellerRevenue(), actual.sellerRevenue(), 0.000001);
+            }
+          }
+          assertEquals(1, sameAllocation.getNumberOfModels());
+        }
+      }
+    }
+  }
+
+}
@@ -1,5 +1,6 @@
 package test.algorithms;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -78,4 +79,28 @@ public class SimplePricingTest {
       }
     }
   }
+
+  @Test
+  public void sweepTest() throws Exception {
+    for (int n = 1; n < 15; n++) {
+      for (int m = 1; m < 15; m++) {
+        for (int p = 1; p <= 4; p++) {
+          Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.25 * p);
+          SimplePricing sp = new SimplePricing(market);
+          // The best outcome among all candidate prices, each computed from scratch.
+          double bestRevenue = Double.NEGATIVE_INFINITY;
+          for (Bidder<Goods> bidder : market.getBidders()) {
+            bestRevenue = Math.max(bestRevenue, sp.computeOutcome(bidder.getReward() / bidder.getDemand()).sellerRevenue());
+          }
+          MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = sp.Solve().getMarketOutcome();
+          assertEquals(bestRevenue, outcome.sellerRevenue(), 0.000001);
+          // The outcome of the sweep is the one computed from scratch at its price.
+          MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> expected = sp.computeOutcome(outcome.getPrice(0));
+          for (Bidder<Goods> bidder : market.getBidders()) {
+            assertEquals(expected.getMarketAllocation().allocationToBidder(bidder), outcome.getMarketAllocation().allocationToBidder(bidder));
+          }
+        }
+      }
+    }
+  }
 }
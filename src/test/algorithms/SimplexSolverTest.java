@@ -0,0 +1,270 @@
+package test.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import util.solver.LinearExpression;
+import util.solver.LinearModel;
+import util.solver.SimplexSolver;
+import util.solver.Solution;
+
+import com.google.common.primitives.Longs;
+
+public class SimplexSolverTest {
+
+  @Test
+  public void testLP() throws Exception {
+    // max x + y s.t. x + 2y <= 4, 3x + y <= 6, x, y >= 0. Optimum at (1.6, 1.2).
+    LinearModel model = new LinearModel();
+    int x = model.addVariable(0.0, Double.MAX_VALUE);
+    int y = model.addVariable(0.0, Double.MAX_VALUE);
+    model.addConstraint(new LinearExpression().addTerm(1.0, x).addTerm(2.0, y), LinearModel.Sense.le, 4.0);
+    model.addConstraint(new LinearExpression().addTerm(3.0, x).addTerm(1.0, y), LinearModel.Sense.le, 6.0);
+    model.maximize(new LinearExpression().addTerm(1.0, x).addTerm(1.0, y));
+    Solution solution = new SimplexSolver().solve(model);
+    assertEquals(Solution.Status.Optimal, solution.getStatus());
+    assertEquals(2.8, solution.getObjectiveValue(), 0.000001);
+    assertEquals(1.6, solution.getValue(x), 0.000001);
+    assertEquals(1.2, solution.getValue(y), 0.000001);
+    // A free variable and an equality constraint: min x s.t. x + y = 3, 0 <= y <= 10.
+    model = new LinearModel();
+    x = model.addVariable(-Double.MAX_VALUE, Double.MAX_VALUE);
+    y = model.addVariable(0.0, 10.0);
+    model.addConstraint(new LinearExpression().addTerm(1.0, x).addTerm(1.0, y), LinearModel.Sense.eq, 3.0);
+    model.minimize(new LinearExpression().addTerm(1.0, x));
+    solution = new SimplexSolver().solve(model);
+    assertEquals(Solution.Status.Optimal, solution.getStatus());
+    assertEquals(-7.0, solution.getValue(x), 0.000001);
+  }
+
+  @Test
+  public void testInfeasibleAndUnbounded() throws Exception {
+    LinearModel model = new LinearModel();
+    int x = model.addVariable(0.0, Double.MAX_VALUE);
+    model.addConstraint(new LinearExpression().addTerm(1.0, x), LinearModel.Sense.ge, 3.0);
+    model.addConstraint(new LinearExpression().addTerm(1.0, x), LinearModel.Sense.le, 2.0);
+    assertEquals(Solution.Status.Infeasible, new SimplexSolver().solve(model).getStatus());
+    model = new LinearModel();
+    x = model.addVariable(0.0, Double.MAX_VALUE);
+    int y = model.addVariable(0.0, Double.MAX_VALUE);
+    model.addConstraint(new LinearExpression().addTerm(1.0, x).addTerm(-1.0, y), LinearModel.Sense.le, 1.0);
+    model.maximize(new LinearExpression().addTerm(1.0, x));
+    assertEquals(Solution.Status.Unbounded, new SimplexSolver().solve(model).getStatus());
+  }
+
+  @Test
+  public void testBulkRowsAndBounds() throws Exception {
+    // Same LP as in testLP, with the rows added in one call and x restricted to [0.5, 1].
+    LinearModel model = new LinearModel();
+    int[] x = model.addVariables(2, 0.0, Double.MAX_VALUE, false);
+    model.addRows(2, new int[] { 0, 2, 4 }, new int[] { x[0], x[1], x[0], x[1] }, new double[] { 1.0, 2.0, 3.0, 1.0 }, new double[] {
+        -Double.MAX_VALUE, -Double.MAX_VALUE }, new double[] { 4.0, 6.0 });
+    model.restrictBounds(x[0], 0.5, 1.0);
+    model.maximize(new LinearExpression().addTerm(1.0, x[0]).addTerm(1.0, x[1]));
+    assertEquals(2, model.getNumberConstraints());
+    Solution solution = new SimplexSolver().solve(model);
+    assertEquals(Solution.Status.Optimal, solution.getStatus());
+    assertEquals(2.5, solution.getObjectiveValue(), 0.000001);
+    // Crossing bounds make the model infeasible.
+    model.restrictBounds(x[0], 2.0, Double.MAX_VALUE);
+    assertEquals(Solution.Status.Infeasible, new SimplexSolver().solve(model).getStatus());
+  }
+
+  @Test
+  public void testWarmStart() throws Exception {
+    // Random LPs solved again from their kept tableau after bound changes, compared against a copy of the model solved from scratch.
+    Random random = new Random(0);
+    for (int t = 0; t < 100; t++) {
+      int n = 1 + random.nextInt(8);
+      int m = 1 + random.nextInt(6);
+      LinearModel[] models = new LinearModel[] { new LinearModel(), new LinearModel() };
+      models[1].setWarmStart(true);
+      int[] x = models[0].addVariables(n, 0.0, 10.0, false);
+      models[1].addVariables(n, 0.0, 10.0, false);
+      for (int i = 0; i < m; i++) {
+        LinearExpression expr = new LinearExpression();
+        for (int j = 0; j < n; j++) {
+          expr.addTerm(random.nextInt(7) - 1, x[j]);
+        }
+        double rhs = 1 + random.nextInt(8);
+        for (LinearModel model : models) {
+          model.addConstraint(expr, LinearModel.Sense.le, rhs);
+        }
+      }
+      LinearExpression objective = new LinearExpression();
+      for (int j = 0; j < n; j++) {
+        objective.addTerm(random.nextInt(10) - 2, x[j]);
+      }
+      for (LinearModel model : models) {
+        model.maximize(objective);
+      }
+      for (int round = 0; round < 10; round++) {
+        Solution cold = new SimplexSolver().solve(models[0]);
+        Solution warm = new SimplexSolver().solve(models[1]);
+        assertEquals(cold.getStatus(), warm.getStatus());
+        if (cold.hasValues()) {
+          assertEquals(cold.getObjectiveValue(), warm.getObjectiveValue(), 0.000001);
+          assertTrue(models[1].isFeasible(warm.getValues(x), 0.000001));
+        }
+        // Relax or tighten some bounds, possibly to infinite or crossing ones.
+        int changes = 1 + random.nextInt(3);
+        for (int c = 0; c < changes; c++) {
+          int k = x[random.nextInt(n)];
+          double lower = (random.nextInt(5) == 0) ? -Double.MAX_VALUE : random.nextInt(4);
+          double upper = (random.nextInt(5) == 0) ? Double.MAX_VALUE : 2 + random.nextInt(9);
+          for (LinearModel model : models) {
+            model.setBounds(k, lower, upper);
+          }
+        }
+        // Now and then, a new constraint, which discards the kept tableau.
+        if (random.nextInt(4) == 0) {
+          LinearExpression expr = new LinearExpression().addTerm(1.0, x[random.nextInt(n)]).addTerm(1.0, x[random.nextInt(n)]);
+          double rhs = 2 + random.nextInt(8);
+          for (LinearModel model : models) {
+            model.addConstraint(expr, LinearModel.Sense.le, rhs);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBranchAndBound() throws Exception {
+    // Random binary programs, compared against enumeration of all points.
+    Random random = new Random(0);
+    for (int t = 0; t < 200; t++) {
+      int n = 1 + random.nextInt(8);
+      int m = 1 + random.nextInt(4);
+      double[][] a = new double[m][n];
+      double[] b = new double[m];
+      double[] c = new double[n];
+      LinearModel model = new LinearModel();
+      int[] x = model.addVariables(n, 0, 1, true);
+      for (int i = 0; i < m; i++) {
+        LinearExpression expr = new LinearExpression();
+        for (int j = 0; j < n; j++) {
+          a[i][j] = random.nextInt(7) - 1;
+          expr.addTerm(a[i][j], x[j]);
+        }
+        b[i] = random.nextInt(8);
+        model.addConstraint(expr, LinearModel.Sense.le, b[i]);
+      }
+      LinearExpression objective = new LinearExpression();
+      for (int j = 0; j < n; j++) {
+        c[j] = random.nextInt(10) - 2;
+        objective.addTerm(c[j], x[j]);
+      }
+      model.maximize(objective);
+      model.setSolutionLimit(0);
+      double best = Double.NEGATIVE_INFINITY;
+      int numberOptimal = 0;
+      for (int point = 0; point < (1 << n); point++) {
+        boolean feasible = true;
+        for (int i = 0; i < m && feasible; i++) {
+          double lhs = 0.0;
+          for (int j = 0; j < n; j++) {
+            lhs += ((point >> j) & 1) * a[i][j];
+          }
+          feasible = lhs <= b[i];
+        }
+        if (feasible) {
+          double value = 0.0;
+          for (int j = 0; j < n; j++) {
+            value += ((point >> j) & 1) * c[j];
+          }
+          if (value > best) {
+            best = value;
+            numberOptimal = 1;
+          } else if (value == best) {
+            numberOptimal++;
+          }
+        }
+      }
+      Solution solution = new SimplexSolver().solve(model);
+      // The zero vector is always feasible.
+      assertEquals(Solution.Status.Optimal, solution.getStatus());
+      assertEquals(best, solution.getObjectiveValue(), 0.000001);
+      assertEquals(numberOptimal, solution.getNumberSolutions());
+    }
+  }
+
+  @Test
+  public void testOptimalPoints() throws Exception {
+    // The lazy enumeration yields the same optimal points as the eager one, each of them once.
+    Random random = new Random(1);
+    for (int t = 0; t < 200; t++) {
+      int n = 1 + random.nextInt(8);
+      int m = 1 + random.nextInt(4);
+      LinearModel model = new LinearModel();
+      int[] x = model.addVariables(n, 0, 1, true);
+      for (int i = 0; i < m; i++) {
+        LinearExpression expr = new LinearExpression();
+        for (int j = 0; j < n; j++) {
+          expr.addTerm(random.nextInt(7) - 1, x[j]);
+        }
+        model.addConstraint(expr, LinearModel.Sense.le, random.nextInt(8));
+      }
+      LinearExpression objective = new LinearExpression();
+      for (int j = 0; j < n; j++) {
+        objective.addTerm(random.nextInt(4) - 1, x[j]);
+      }
+      model.maximize(objective);
+      model.setSolutionLimit(0);
+      Solution solution = new SimplexSolver().solve(model);
+      HashSet<List<Long>> expected = new HashSet<List<Long>>();
+      for (int l = 0; l < solution.getNumberSolutions(); l++) {
+        expected.add(this.round(solution.getValues(x, l)));
+      }
+      HashSet<List<Long>> actual = new HashSet<List<Long>>();
+      Iterator<double[]> points = new SimplexSolver().optimalPoints(model);
+      while (points.hasNext()) {
+        double[] point = points.next();
+        assertEquals(solution.getObjectiveValue(), model.getObjectiveValue(point), 0.000001);
+        assertTrue(actual.add(this.round(point)));
+      }
+      assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void testOptimalPointsAreLazy() throws Exception {
+    // Every one of the 2^40 points is optimal, so only a lazy enumeration can return the first ones.
+    LinearModel model = new LinearModel();
+    int[] x = model.addVariables(40, 0, 1, true);
+    LinearExpression expr = new LinearExpression();
+    for (int j = 0; j < x.length; j++) {
+      expr.addTerm(1.0, x[j]);
+    }
+    model.addConstraint(expr, LinearModel.Sense.le, x.length);
+    model.maximize(new LinearExpression());
+    model.setSolutionLimit(0);
+    Iterator<double[]> points = new SimplexSolver().optimalPoints(model);
+    HashSet<List<Long>> seen = new HashSet<List<Long>>();
+    for (int l = 0; l < 1000; l++) {
+      assertTrue(points.hasNext());
+      assertTrue(seen.add(this.round(points.next())));
+    }
+  }
+
+  /**
+   * Rounds a point, so that points can be compared.
+   * 
+   * @param point - a point.
+   * @return the rounded point.
+   */
+  private List<Long> round(double[] point) {
+    long[] rounded = new long[point.length];
+    for (int k = 0; k < point.length; k++) {
+      rounded[k] = Math.round(point[k]);
+    }
+    return Longs.asList(rounded);
+  }
+
+}
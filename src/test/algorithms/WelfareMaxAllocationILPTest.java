@@ -1,5 +1,10 @@
 package test.algorithms;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
 import org.junit.Test;
 
 import singleminded.structures.SingleMindedMarket;
@@ -7,7 +12,10 @@ import structures.Bidder;
 import structures.Goods;
 import structures.Market;
 import structures.MarketAllocation;
+import structures.factory.RandomMarketFactory;
 import structures.factory.SingleMindedMarketFactory;
+import test.SingleMindedMarkets;
+import allocations.greedy.GreedyAllocationFactory;
 import allocations.optimal.WelfareMaxAllocationILP;
 
 public class WelfareMaxAllocationILPTest {
@@ -22,4 +30,40 @@ public class WelfareMaxAllocationILPTest {
 
   }
 
+  @Test
+  public void testSolveWithStarts() throws Exception {
+    for (int n = 1; n < 8; n++) {
+      for (int m = 1; m < 8; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.randomUniformRewardMarket(n, m, 0.5);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> greedy = GreedyAllocationFactory.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation()
+            .Solve(market);
+        double cold = new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>().Solve(market).getValue();
+        WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> ilp = new WelfareMaxAllocationILP<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>();
+        ilp.addStart(greedy);
+        double warm = ilp.Solve(market).getValue();
+        assertEquals(cold, warm, 0.000001);
+        assertTrue(warm >= greedy.getValue() - 0.000001);
+      }
+    }
+  }
+
+  @Test
+  public void testAlternativeOptima() throws Exception {
+    // Three bidders want the same two goods: each one alone is an optimal allocation.
+    SingleMindedMarket<Goods, Bidder<Goods>> market = SingleMindedMarkets.singleMindedWithTies();
+    WelfareMaxAllocationILP<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> ilp = new WelfareMaxAllocationILP<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>();
+    ilp.setNumSolutions(100);
+    MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = ilp.Solve(market);
+    // The extra allocations are found while iterating, before they are counted.
+    HashSet<Bidder<Goods>> winners = new HashSet<Bidder<Goods>>(allocation.getWinnerSet());
+    for (MarketAllocation<SingleMindedMarket<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> x : allocation.getExtraAllocations()) {
+      assertEquals(allocation.getValue(), x.getValue(), 0.000001);
+      assertEquals(1, x.getNumberOfWinners());
+      assertEquals(2, x.allocationToBidder(x.getWinnerSet().iterator().next()));
+      winners.addAll(x.getWinnerSet());
+    }
+    assertEquals(3, winners.size());
+    assertEquals(2, allocation.getNumExtraAllocations());
+  }
+
 }
@@ -0,0 +1,92 @@
+package test.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.factory.RandomMarketFactory;
+import structures.presolve.AggregatedMarket;
+import allocations.greedy.GreedyAllocationFactory;
+import allocations.objectivefunction.SingleStepObjectiveFunction;
+
+import com.google.common.collect.ImmutableSet;
+
+public class AggregatedMarketTest {
+
+  @Test
+  public void testAggregation() throws Exception {
+    ArrayList<Goods> goods = new ArrayList<Goods>();
+    Goods g0 = new Goods(1);
+    Goods g1 = new Goods(1);
+    Goods g2 = new Goods(2);
+    goods.add(g0);
+    goods.add(g1);
+    goods.add(g2);
+    ArrayList<Bidder<Goods>> bidders = new ArrayList<Bidder<Goods>>();
+    bidders.add(new Bidder<Goods>(1, 2.0, new HashSet<Goods>(ImmutableSet.of(g0, g1))));
+    bidders.add(new Bidder<Goods>(1, 2.0, new HashSet<Goods>(ImmutableSet.of(g0, g1))));
+    bidders.add(new Bidder<Goods>(2, 3.0, new HashSet<Goods>(ImmutableSet.of(g0, g1, g2))));
+    Market<Goods, Bidder<Goods>> market = new Market<Goods, Bidder<Goods>>(goods, bidders);
+    AggregatedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> aggregated = new AggregatedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        market);
+    Market<Goods, Bidder<Goods>> aggregatedMarket = aggregated.getAggregatedMarket();
+    // g0 and g1 are merged, the first two bidders are identical.
+    assertEquals(2, aggregatedMarket.getNumberGoods());
+    assertEquals(2, aggregatedMarket.getNumberBidders());
+    assertEquals(aggregated.getAggregatedGoodIndex(0), aggregated.getAggregatedGoodIndex(1));
+    assertEquals(2, aggregatedMarket.getGoods().get(aggregated.getAggregatedGoodIndex(0)).getSupply());
+    assertEquals(2, aggregated.getMultiplicity(0));
+    assertEquals(1, aggregated.getMultiplicity(1));
+    // Both identical bidders win, the third bidder gets g2.
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = MarketAllocation
+        .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(aggregatedMarket).set(0, 0, 2).set(1, 1, 2).build(new SingleStepObjectiveFunction());
+    MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = aggregated
+        .deduceOutcome(new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(allocation, new double[] { 1.5, 0.5 }));
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> deduced = outcome.getMarketAllocation();
+    assertEquals(1, deduced.getAllocation(0, 0));
+    assertEquals(1, deduced.getAllocation(1, 1));
+    assertEquals(2, deduced.getAllocation(2, 2));
+    assertEquals(7.0, deduced.getValue(), 0.0);
+    assertEquals(1.5, outcome.getPrice(g0), 0.0);
+    assertEquals(1.5, outcome.getPrice(g1), 0.0);
+    assertEquals(0.5, outcome.getPrice(g2), 0.0);
+    assertEquals(4.0, outcome.sellerRevenue(), 0.0);
+  }
+
+  @Test
+  public void testDeduceAllocation() throws Exception {
+    for (int n = 1; n < 8; n++) {
+      for (int m = 1; m < 8; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(n, m, 0.25, 1);
+        AggregatedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> aggregated = new AggregatedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            market, false);
+        Market<Goods, Bidder<Goods>> aggregatedMarket = aggregated.getAggregatedMarket();
+        assertEquals(market.getNumberBidders(), aggregatedMarket.getNumberBidders());
+        assertEquals(market.getTotalSupply(), aggregatedMarket.getTotalSupply());
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory
+            .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation().Solve(aggregatedMarket);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> deduced = aggregated.deduceAllocation(allocation);
+        assertEquals(allocation.getValue(), deduced.getValue(), 0.00000001);
+        for (int j = 0; j < m; j++) {
+          assertEquals(allocation.allocationToBidder(j), deduced.allocationToBidder(j));
+          for (int i = 0; i < n; i++) {
+            assertTrue(deduced.getAllocation(i, j) == 0 || market.getBidders().get(j).demandsGood(market.getGoods().get(i)));
+          }
+        }
+        for (int i = 0; i < n; i++) {
+          assertTrue(deduced.allocationFromGood(i) <= market.getGoods().get(i).getSupply());
+        }
+      }
+    }
+  }
+
+}
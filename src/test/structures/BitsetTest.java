@@ -0,0 +1,54 @@
+package test.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import util.Bitset;
+
+public class BitsetTest {
+
+  @Test
+  public void testBasicOperations() {
+    long[] a = Bitset.create(130);
+    assertEquals(a.length, 3);
+    assertTrue(Bitset.isEmpty(a));
+    Bitset.set(a, 0);
+    Bitset.set(a, 63);
+    Bitset.set(a, 64);
+    Bitset.set(a, 129);
+    assertTrue(Bitset.get(a, 63));
+    assertTrue(Bitset.get(a, 64));
+    assertFalse(Bitset.get(a, 65));
+    assertEquals(Bitset.cardinality(a), 4);
+    Bitset.clear(a, 63);
+    assertFalse(Bitset.get(a, 63));
+    assertEquals(Bitset.nextSetBit(a, 0), 0);
+    assertEquals(Bitset.nextSetBit(a, 1), 64);
+    assertEquals(Bitset.nextSetBit(a, 65), 129);
+    assertEquals(Bitset.nextSetBit(a, 130), -1);
+  }
+
+  @Test
+  public void testSetOperations() {
+    long[] a = Bitset.create(100);
+    long[] b = Bitset.create(100);
+    Bitset.set(a, 1);
+    Bitset.set(a, 70);
+    Bitset.set(b, 2);
+    assertFalse(Bitset.intersects(a, b));
+    Bitset.set(b, 70);
+    assertTrue(Bitset.intersects(a, b));
+    assertEquals(Bitset.intersectionCardinality(a, b), 1);
+    assertEquals(Bitset.cardinality(Bitset.and(a, b)), 1);
+    assertEquals(Bitset.cardinality(Bitset.or(a, b)), 3);
+    Bitset.andNotInPlace(a, b);
+    assertTrue(Bitset.get(a, 1));
+    assertFalse(Bitset.get(a, 70));
+    Bitset.orInPlace(a, b);
+    assertEquals(Bitset.cardinality(a), 3);
+  }
+
+}
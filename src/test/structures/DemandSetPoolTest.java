@@ -0,0 +1,44 @@
+package test.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.DemandSetPool;
+import structures.Goods;
+
+import com.google.common.collect.ImmutableSet;
+
+public class DemandSetPoolTest {
+
+  @Test
+  public void testIntern() throws Exception {
+    Goods g0 = new Goods(1);
+    Goods g1 = new Goods(2);
+    DemandSetPool<Goods> pool = new DemandSetPool<Goods>();
+    HashSet<Goods> a = new HashSet<Goods>();
+    a.add(g0);
+    a.add(g1);
+    HashSet<Goods> b = new HashSet<Goods>();
+    b.add(g1);
+    b.add(g0);
+    HashSet<Goods> c = new HashSet<Goods>();
+    c.add(g0);
+    ImmutableSet<Goods> internedA = pool.intern(a);
+    assertSame(internedA, pool.intern(b));
+    assertEquals(internedA, a);
+    assertEquals(pool.getId(a), 0);
+    assertEquals(pool.getId(pool.intern(c)), 1);
+    assertEquals(pool.getId(new HashSet<Goods>()), -1);
+    assertEquals(pool.size(), 2);
+    assertSame(pool.getDemandSet(0), internedA);
+    // Bidders keep the interned instance.
+    Bidder<Goods> bidder = new Bidder<Goods>(1, 1.0, internedA);
+    assertSame(bidder.getDemandSet(), internedA);
+  }
+
+}
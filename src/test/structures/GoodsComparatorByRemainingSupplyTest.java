@@ -10,6 +10,7 @@ import org.junit.Test;
 import structures.Bidder;
 import structures.Goods;
 import structures.Market;
+import structures.SupplyLedger;
 import structures.comparators.GoodsComparatorByRemainingSupply;
 import structures.factory.RandomMarketFactory;
 
@@ -23,26 +24,24 @@ public class GoodsComparatorByRemainingSupplyTest {
         for (int p = 1; p < 5; p++) {
           Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(n, m, p * 0.25, 1);
           ArrayList<Goods> goods = new ArrayList<Goods>(market.getGoods());
-          for (Goods good : goods) {
-            good.setRemainingSupply(good.getSupply());
-          }
+          SupplyLedger<Goods> ledger = new SupplyLedger<Goods>(market);
           // Test ascending ordering
-          Collections.sort(goods, new GoodsComparatorByRemainingSupply<Goods>(GoodsComparatorByRemainingSupply.Order.ascending));
+          Collections.sort(goods, new GoodsComparatorByRemainingSupply<Goods>(GoodsComparatorByRemainingSupply.Order.ascending, ledger));
           int i = 0;
           for (Goods g : goods) {
             if (i < goods.size() - 1) {
-              if (g.getRemainingSupply() > goods.get(i + 1).getSupply()) {
+              if (ledger.getRemainingSupply(g) > ledger.getRemainingSupply(goods.get(i + 1))) {
                 fail("Ascending ordering fails");
               }
             }
             i++;
           }
           // Test descending ordering
-          Collections.sort(goods, new GoodsComparatorByRemainingSupply<Goods>(GoodsComparatorByRemainingSupply.Order.descending));
+          Collections.sort(goods, new GoodsComparatorByRemainingSupply<Goods>(GoodsComparatorByRemainingSupply.Order.descending, ledger));
           i = 0;
           for (Goods g : goods) {
             if (i < goods.size() - 1) {
-              if (g.getRemainingSupply() < goods.get(i + 1).getSupply()) {
+              if (ledger.getRemainingSupply(g) < ledger.getRemainingSupply(goods.get(i + 1))) {
                 fail("Descending ordering fails");
               }
             }
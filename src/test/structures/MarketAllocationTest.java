@@ -9,14 +9,20 @@ import singleminded.algorithms.SingleMindedGreedyAllocation;
 import singleminded.structures.SingleMindedMarket;
 import structures.Bidder;
 import structures.Goods;
+import structures.Market;
 import structures.MarketAllocation;
 import structures.exceptions.AllocationException;
 import structures.exceptions.BidderCreationException;
+import structures.exceptions.GoodsCreationException;
 import structures.exceptions.GoodsException;
 import structures.exceptions.MarketAllocationException;
 import structures.exceptions.MarketCreationException;
 import test.SingleMindedMarkets;
+import test.SizeInterchangeableMarkets;
 import allocations.error.AllocationAlgoException;
+import allocations.objectivefunction.SingleStepObjectiveFunction;
+
+import com.google.common.collect.HashBasedTable;
 
 public class MarketAllocationTest {
 
@@ -90,4 +96,76 @@ public class MarketAllocationTest {
 
   }
 
+  @Test
+  public void testBuilder() throws BidderCreationException, GoodsCreationException, MarketCreationException, MarketAllocationException {
+    Market<Goods, Bidder<Goods>> market = SizeInterchangeableMarkets.market0();
+    Goods g0 = market.getGoods().get(0);
+    Goods g1 = market.getGoods().get(1);
+    Bidder<Goods> b1 = market.getBidders().get(1);
+    MarketAllocation.Builder<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder = MarketAllocation
+        .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(market);
+    builder.set(g0, b1, 2).set(1, 2, 1).add(g1, b1, 1);
+    assertEquals(builder.get(1, 1), 1);
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = builder.build(new SingleStepObjectiveFunction());
+    assertEquals(allocation.getAllocation(g0, b1), 2);
+    assertEquals(allocation.getAllocation(0, 1), 2);
+    assertEquals(allocation.getAllocation(g1, b1), 1);
+    assertEquals(allocation.getAllocation(0, 0), 0);
+    assertEquals(allocation.allocationToBidder(b1), 3);
+    assertEquals(allocation.allocationFromGood(g1), 2);
+    assertEquals(allocation.isBidderBundleZero(market.getBidders().get(0)), true);
+    assertEquals(allocation.getNumberOfWinners(), 2);
+    assertEquals(allocation.getValue(), market.getBidders().get(1).getReward(), 0.00000001);
+
+    // An allocation constructed from a table must be the same as one constructed with a builder.
+    HashBasedTable<Goods, Bidder<Goods>, Integer> table = HashBasedTable.create();
+    for (int i = 0; i < market.getNumberGoods(); i++) {
+      for (int j = 0; j < market.getNumberBidders(); j++) {
+        table.put(market.getGoods().get(i), market.getBidders().get(j), allocation.getAllocation(i, j));
+      }
+    }
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> fromTable = new MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        market, table, new SingleStepObjectiveFunction());
+    for (int i = 0; i < market.getNumberGoods(); i++) {
+      for (int j = 0; j < market.getNumberBidders(); j++) {
+        assertEquals(fromTable.getAllocation(i, j), allocation.getAllocation(i, j));
+      }
+    }
+  }
+
+  @Test(expected = MarketAllocationException.class)
+  public void testTableOfWrongSize() throws BidderCreationException, GoodsCreationException, MarketCreationException, MarketAllocationException {
+    Market<Goods, Bidder<Goods>> market = SizeInterchangeableMarkets.market0();
+    HashBasedTable<Goods, Bidder<Goods>, Integer> table = HashBasedTable.create();
+    table.put(market.getGoods().get(0), market.getBidders().get(0), 1);
+    new MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(market, table, new SingleStepObjectiveFunction());
+  }
+
+  @Test
+  public void testExtraAllocations() throws BidderCreationException, GoodsCreationException, MarketCreationException, MarketAllocationException {
+    Market<Goods, Bidder<Goods>> market = SizeInterchangeableMarkets.market0();
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> base = MarketAllocation.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(
+        market).set(0, 1, 2).set(1, 2, 1).build(new SingleStepObjectiveFunction());
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> extra = MarketAllocation.<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(
+        market).set(0, 1, 1).set(1, 0, 1).build(new SingleStepObjectiveFunction());
+    base.addAllocation(extra);
+    // The same allocation, given directly as a diff: position i * m + j holds the allocation from good i to bidder j.
+    int m = market.getNumberBidders();
+    base.addAllocation(new int[] { 1, m, m + 2 }, new int[] { 1, 1, 0 }, 3, new SingleStepObjectiveFunction());
+    assertEquals(base.getNumExtraAllocations(), 2);
+    int count = 0;
+    for (MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> x : base.getExtraAllocations()) {
+      for (int i = 0; i < market.getNumberGoods(); i++) {
+        for (int j = 0; j < m; j++) {
+          assertEquals(x.getAllocation(i, j), extra.getAllocation(i, j));
+        }
+      }
+      count++;
+    }
+    assertEquals(count, 2);
+    // The base allocation is not modified.
+    assertEquals(base.getAllocation(0, 1), 2);
+    assertEquals(base.getAllocation(1, 0), 0);
+  }
+
 }
@@ -0,0 +1,100 @@
+package test.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.factory.RandomMarketFactory;
+import structures.presolve.MarketDecomposition;
+import structures.presolve.MarketDecomposition.ComponentSolver;
+import allocations.greedy.GreedyAllocationFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+public class MarketDecompositionTest {
+
+  /**
+   * Allocates greedily and prices every good at 1.
+   */
+  private static final ComponentSolver<Goods, Bidder<Goods>> greedySolver = new ComponentSolver<Goods, Bidder<Goods>>() {
+    @Override
+    public MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> solve(Market<Goods, Bidder<Goods>> component) throws Exception {
+      MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory
+          .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation().Solve(component);
+      double[] prices = new double[component.getNumberGoods()];
+      for (int i = 0; i < prices.length; i++) {
+        prices[i] = 1.0;
+      }
+      return new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(allocation, prices);
+    }
+  };
+
+  @Test
+  public void testComponents() throws Exception {
+    ArrayList<Goods> goods = new ArrayList<Goods>();
+    for (int i = 0; i < 5; i++) {
+      goods.add(new Goods(1, 0.25));
+    }
+    ArrayList<Bidder<Goods>> bidders = new ArrayList<Bidder<Goods>>();
+    bidders.add(new Bidder<Goods>(1, 1.0, new HashSet<Goods>(ImmutableSet.of(goods.get(0), goods.get(3)))));
+    bidders.add(new Bidder<Goods>(1, 2.0, new HashSet<Goods>(ImmutableSet.of(goods.get(1)))));
+    bidders.add(new Bidder<Goods>(1, 3.0, new HashSet<Goods>(ImmutableSet.of(goods.get(3)))));
+    Market<Goods, Bidder<Goods>> market = new Market<Goods, Bidder<Goods>>(goods, bidders);
+    MarketDecomposition<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> decomposition = new MarketDecomposition<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        market);
+    // Components {g0, g3, b0, b2} and {g1, b1}. Goods g2 and g4 are isolated.
+    assertEquals(2, decomposition.getNumberComponents());
+    assertEquals(2, decomposition.getComponents().get(0).getNumberGoods());
+    assertEquals(2, decomposition.getComponents().get(0).getNumberBidders());
+    assertEquals(3, decomposition.getOriginalGoodIndex(0, 1));
+    assertEquals(2, decomposition.getOriginalBidderIndex(0, 1));
+    assertEquals(1, decomposition.getOriginalBidderIndex(1, 0));
+    MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = decomposition.solve(greedySolver, 2);
+    assertEquals(6.0, outcome.getMarketAllocation().getValue(), 0.0);
+    assertEquals(1, outcome.getMarketAllocation().getAllocation(3, 2));
+    assertEquals(1, outcome.getMarketAllocation().getAllocation(1, 1));
+    assertEquals(1.0, outcome.getPrice(goods.get(3)), 0.0);
+    assertEquals(0.25, outcome.getPrice(goods.get(2)), 0.0);
+  }
+
+  @Test
+  public void testSolve() throws Exception {
+    for (int n = 1; n < 10; n++) {
+      for (int m = 1; m < 10; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(n, m, 0.2, 1);
+        MarketDecomposition<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> decomposition = new MarketDecomposition<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            market);
+        // Every edge of the market belongs to exactly one component.
+        int edges = 0;
+        for (Market<Goods, Bidder<Goods>> component : decomposition.getComponents()) {
+          edges += component.getNumberEdges();
+        }
+        assertEquals(market.getNumberEdges(), edges);
+        MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> sequential = decomposition.solve(greedySolver, 1);
+        MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> parallel = decomposition.solve(greedySolver, 4);
+        double value = 0.0;
+        for (Market<Goods, Bidder<Goods>> component : decomposition.getComponents()) {
+          value += greedySolver.solve(component).getMarketAllocation().getValue();
+        }
+        assertEquals(value, sequential.getMarketAllocation().getValue(), 0.00000001);
+        assertEquals(value, parallel.getMarketAllocation().getValue(), 0.00000001);
+        for (int i = 0; i < n; i++) {
+          assertTrue(parallel.getMarketAllocation().allocationFromGood(i) <= market.getGoods().get(i).getSupply());
+          for (int j = 0; j < m; j++) {
+            assertEquals(sequential.getMarketAllocation().getAllocation(i, j), parallel.getMarketAllocation().getAllocation(i, j));
+          }
+        }
+      }
+    }
+  }
+
+}
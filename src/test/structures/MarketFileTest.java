@@ -0,0 +1,79 @@
+package test.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import log.MarketFileReader;
+import log.MarketFileWriter;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.factory.RandomMarketFactory;
+import algorithms.pricing.SimplePricing;
+import allocations.objectivefunction.SingleStepObjectiveFunction;
+
+public class MarketFileTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    File file = File.createTempFile("markets", ".bin");
+    file.deleteOnExit();
+    ArrayList<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>> outcomes = new ArrayList<MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>>();
+    try (MarketFileWriter writer = new MarketFileWriter(file.toPath())) {
+      for (int n = 1; n < 5; n++) {
+        for (int m = 1; m < 5; m++) {
+          Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(n, m, 0.5, 1);
+          MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = new SimplePricing(market).Solve().getMarketOutcome();
+          writer.write(outcome);
+          outcomes.add(outcome);
+        }
+      }
+      writer.write(outcomes.get(0).getMarketAllocation().getMarket());
+    }
+    try (MarketFileReader reader = new MarketFileReader(file.toPath())) {
+      assertEquals(reader.getNumberRecords(), outcomes.size() + 1);
+      for (int r = 0; r < outcomes.size(); r++) {
+        MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = outcomes.get(r);
+        Market<Goods, Bidder<Goods>> market = outcome.getMarketAllocation().getMarket();
+        MarketFileReader.Record record = reader.getRecord(r);
+        assertTrue(record.hasAllocation());
+        assertTrue(record.hasPrices());
+        Market<Goods, Bidder<Goods>> readMarket = record.toMarket();
+        assertEquals(readMarket.getNumberGoods(), market.getNumberGoods());
+        assertEquals(readMarket.getNumberBidders(), market.getNumberBidders());
+        for (int i = 0; i < market.getNumberGoods(); i++) {
+          assertEquals(readMarket.getGoods().get(i).getSupply(), market.getGoods().get(i).getSupply());
+        }
+        for (int j = 0; j < market.getNumberBidders(); j++) {
+          assertEquals(readMarket.getBidders().get(j).getDemand(), market.getBidders().get(j).getDemand());
+          assertEquals(readMarket.getBidders().get(j).getReward(), market.getBidders().get(j).getReward(), 0.0);
+          for (int i = 0; i < market.getNumberGoods(); i++) {
+            assertEquals(readMarket.getBidders().get(j).demandsGood(readMarket.getGoods().get(i)), market.getBidders().get(j).demandsGood(market.getGoods().get(i)));
+          }
+        }
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> readAllocation = record.toAllocation(readMarket, new SingleStepObjectiveFunction());
+        for (int i = 0; i < market.getNumberGoods(); i++) {
+          for (int j = 0; j < market.getNumberBidders(); j++) {
+            assertEquals(readAllocation.getAllocation(i, j), outcome.getMarketAllocation().getAllocation(i, j));
+          }
+        }
+        assertEquals(record.toOutcome(readAllocation).sellerRevenue(), outcome.sellerRevenue(), 0.0);
+      }
+      MarketFileReader.Record marketOnly = reader.getRecord(outcomes.size());
+      assertFalse(marketOnly.hasAllocation());
+      assertFalse(marketOnly.hasPrices());
+      assertNull(marketOnly.toAllocation(marketOnly.toMarket(), new SingleStepObjectiveFunction()));
+    }
+  }
+
+}
@@ -0,0 +1,135 @@
+package test.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.exceptions.MarketOutcomeException;
+import structures.factory.RandomMarketFactory;
+import allocations.greedy.GreedyAllocationFactory;
+
+import com.google.common.collect.ImmutableMap;
+
+public class MarketOutcomeTest {
+
+  @Test
+  public void testRevenueAndPayments() throws Exception {
+    Random random = new Random(0);
+    for (int n = 1; n < 6; n++) {
+      for (int m = 1; m < 6; m++) {
+        Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(n, m, 0.5, 1);
+        MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory
+            .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation().Solve(market);
+        ImmutableMap.Builder<Goods, Double> priceMap = ImmutableMap.<Goods, Double> builder();
+        double[] prices = new double[n];
+        for (int i = 0; i < n; i++) {
+          prices[i] = random.nextDouble();
+          priceMap.put(market.getGoods().get(i), prices[i]);
+        }
+        MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            allocation, prices);
+        MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcomeFromMap = new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            allocation, priceMap.build());
+        // Compare against the definition, \sum_{i,j}x_{i,j}p_{i}.
+        double revenue = 0.0;
+        for (int j = 0; j < m; j++) {
+          double payment = 0.0;
+          for (int i = 0; i < n; i++) {
+            payment += allocation.getAllocation(i, j) * prices[i];
+          }
+          Bidder<Goods> bidder = market.getBidders().get(j);
+          assertEquals(outcome.sellerRevenueFromBidder(bidder), payment, 0.00000001);
+          assertEquals(outcome.getBundleCost(bidder), payment, 0.00000001);
+          revenue += payment;
+        }
+        assertEquals(outcome.sellerRevenue(), revenue, 0.00000001);
+        assertEquals(outcomeFromMap.sellerRevenue(), revenue, 0.00000001);
+        for (int i = 0; i < n; i++) {
+          assertEquals(outcomeFromMap.getPrice(market.getGoods().get(i)), prices[i], 0.0);
+        }
+      }
+    }
+  }
+
+  @Test(expected = MarketOutcomeException.class)
+  public void testNullPrices() throws Exception {
+    Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(3, 3, 0.5, 1);
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory
+        .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation().Solve(market);
+    new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(allocation, (double[]) null).sellerRevenue();
+  }
+
+  @Test
+  public void testMissingPrices() throws Exception {
+    // Prices by good and by index agree on which goods have no price.
+    Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(3, 3, 0.5, 1);
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory
+        .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation().Solve(market);
+    MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        allocation, new double[] { 1.0, Double.NaN, 2.0 });
+    MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> noPrices = new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        allocation, (double[]) null);
+    for (int i = 0; i < 3; i++) {
+      Goods good = market.getGoods().get(i);
+      assertEquals(i != 1, this.hasPrice(outcome, i));
+      assertEquals(i != 1, this.hasPrice(outcome, good));
+      assertFalse(this.hasPrice(noPrices, i));
+      assertFalse(this.hasPrice(noPrices, good));
+    }
+    assertTrue(Double.isNaN(outcome.getPrices()[1]));
+    assertNull(noPrices.getPrices());
+  }
+
+  @Test
+  public void testMissingPriceOfAllocatedGood() throws Exception {
+    // Only a missing price of an allocated good makes the revenue unknown.
+    for (int t = 0; t < 10; t++) {
+      Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(4, 4, 0.5, 1);
+      MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> allocation = GreedyAllocationFactory
+          .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> GreedyAllocation().Solve(market);
+      for (int i = 0; i < 4; i++) {
+        double[] prices = new double[] { 1.0, 1.0, 1.0, 1.0 };
+        prices[i] = Double.NaN;
+        MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+            allocation, prices);
+        boolean hasRevenue;
+        try {
+          outcome.sellerRevenue();
+          hasRevenue = true;
+        } catch (MarketOutcomeException e) {
+          hasRevenue = false;
+        }
+        assertEquals(allocation.allocationFromGood(i) == 0, hasRevenue);
+      }
+    }
+  }
+
+  private boolean hasPrice(MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome, int i) {
+    try {
+      outcome.getPrice(i);
+      return true;
+    } catch (MarketOutcomeException e) {
+      return false;
+    }
+  }
+
+  private boolean hasPrice(MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome, Goods good) {
+    try {
+      outcome.getPrice(good);
+      return true;
+    } catch (MarketOutcomeException e) {
+      return false;
+    }
+  }
+
+}
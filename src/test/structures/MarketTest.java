@@ -0,0 +1,165 @@
+package test.structures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.exceptions.MarketCreationException;
+import structures.factory.RandomMarketFactory;
+import util.Bitset;
+
+import com.google.common.collect.ImmutableList;
+
+public class MarketTest {
+
+  @Test
+  public void testIndices() throws Exception {
+    Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(5, 7, 0.5, 1);
+    for (int i = 0; i < market.getNumberGoods(); i++) {
+      assertEquals(market.getGoodIndex(market.getGoods().get(i)), i);
+    }
+    for (int j = 0; j < market.getNumberBidders(); j++) {
+      assertEquals(market.getBidderIndex(market.getBidders().get(j)), j);
+    }
+    assertEquals(market.getGoodIndex(new Goods(1)), -1);
+  }
+
+  @Test
+  public void testAdjacency() throws Exception {
+    for (int n = 1; n < 6; n++) {
+      for (int m = 1; m < 6; m++) {
+        for (int p = 1; p < 5; p++) {
+          Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(n, m, p * 0.25, 1);
+          int[] bidderToGoodsOffsets = market.getBidderToGoodsOffsets();
+          int[] bidderToGoods = market.getBidderToGoods();
+          int[] goodToBiddersOffsets = market.getGoodToBiddersOffsets();
+          int[] goodToBidders = market.getGoodToBidders();
+          int edges = 0;
+          for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+              if (market.getBidders().get(j).demandsGood(market.getGoods().get(i))) {
+                edges++;
+              }
+            }
+          }
+          assertEquals(market.getNumberEdges(), edges);
+          // Bidder to goods: exactly the demanded goods, in ascending order.
+          for (int j = 0; j < m; j++) {
+            Bidder<Goods> bidder = market.getBidders().get(j);
+            assertEquals(bidderToGoodsOffsets[j + 1] - bidderToGoodsOffsets[j], bidder.getDemandSet().size());
+            for (int e = bidderToGoodsOffsets[j]; e < bidderToGoodsOffsets[j + 1]; e++) {
+              assertTrue(bidder.demandsGood(market.getGoods().get(bidderToGoods[e])));
+              assertTrue(e == bidderToGoodsOffsets[j] || bidderToGoods[e - 1] < bidderToGoods[e]);
+            }
+          }
+          // Good to bidders: exactly the demanding bidders, in ascending order.
+          for (int i = 0; i < n; i++) {
+            for (int e = goodToBiddersOffsets[i]; e < goodToBiddersOffsets[i + 1]; e++) {
+              assertTrue(market.getBidders().get(goodToBidders[e]).demandsGood(market.getGoods().get(i)));
+              assertTrue(e == goodToBiddersOffsets[i] || goodToBidders[e - 1] < goodToBidders[e]);
+            }
+          }
+          assertEquals(goodToBiddersOffsets[n], edges);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDemandSetBits() throws Exception {
+    Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(70, 9, 0.5, 1);
+    for (int i = 0; i < market.getNumberGoods(); i++) {
+      for (int j = 0; j < market.getNumberBidders(); j++) {
+        boolean demands = market.getBidders().get(j).demandsGood(market.getGoods().get(i));
+        assertEquals(Bitset.get(market.getDemandSetBits(j), i), demands);
+        assertEquals(Bitset.get(market.getDemandingBiddersBits(i), j), demands);
+      }
+    }
+  }
+
+  @Test
+  public void testBundles() throws Exception {
+    for (int p = 1; p < 5; p++) {
+      Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(2, 12, p * 0.25, 1);
+      int[] offsets = market.getBundleToBiddersOffsets();
+      int[] bundleToBidders = market.getBundleToBidders();
+      assertEquals(offsets[market.getNumberBundles()], market.getNumberBidders());
+      for (int j = 0; j < market.getNumberBidders(); j++) {
+        for (int k = 0; k < market.getNumberBidders(); k++) {
+          boolean sameDemandSet = market.getBidders().get(j).getDemandSet().equals(market.getBidders().get(k).getDemandSet());
+          assertEquals(market.getBundleId(j) == market.getBundleId(k), sameDemandSet);
+        }
+      }
+      for (int b = 0; b < market.getNumberBundles(); b++) {
+        for (int e = offsets[b]; e < offsets[b + 1]; e++) {
+          assertEquals(market.getBundleId(bundleToBidders[e]), b);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testStructuralSharing() throws Exception {
+    for (int p = 1; p < 5; p++) {
+      Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(6, 8, p * 0.25, 1);
+      market.getHighestReward();
+      market.getTotalSupply();
+      market.getTotalDemand();
+      List<Goods> goods = market.getGoods();
+      List<Bidder<Goods>> bidders = market.getBidders();
+      // Removing and adding back bidders and goods gives the original market.
+      Market<Goods, Bidder<Goods>> withoutBidders = market.withoutBidders(bidders.subList(5, 8));
+      assertSameMarket(withoutBidders, new Market<Goods, Bidder<Goods>>(ImmutableList.copyOf(goods), ImmutableList.copyOf(bidders.subList(0, 5))));
+      assertSameMarket(withoutBidders.withBidders(bidders.subList(5, 8)), market);
+      Market<Goods, Bidder<Goods>> withoutGoods = market.withoutGoods(goods.subList(4, 6));
+      assertSameMarket(withoutGoods, new Market<Goods, Bidder<Goods>>(ImmutableList.copyOf(goods.subList(0, 4)), ImmutableList.copyOf(bidders)));
+      assertSameMarket(withoutGoods.withGoods(goods.subList(4, 6)), market);
+      // Removing from the middle keeps the relative order.
+      Market<Goods, Bidder<Goods>> withoutMiddle = market.withoutBidders(ImmutableList.of(bidders.get(2))).withoutGoods(ImmutableList.of(goods.get(1)));
+      ArrayList<Goods> expectedGoods = new ArrayList<Goods>(goods);
+      expectedGoods.remove(1);
+      ArrayList<Bidder<Goods>> expectedBidders = new ArrayList<Bidder<Goods>>(bidders);
+      expectedBidders.remove(2);
+      assertSameMarket(withoutMiddle, new Market<Goods, Bidder<Goods>>(expectedGoods, expectedBidders));
+      // The goods are shared when only bidders change.
+      assertTrue(withoutBidders.getGoods() == market.getGoods());
+      assertTrue(withoutGoods.getBidders() == market.getBidders());
+    }
+  }
+
+  @Test(expected = MarketCreationException.class)
+  public void testWithBiddersTwice() throws Exception {
+    Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(2, 2, 0.5, 1);
+    market.withBidders(market.getBidders());
+  }
+
+  /**
+   * Checks that two markets have the same goods, bidders, adjacency and aggregates.
+   */
+  private static void assertSameMarket(Market<Goods, Bidder<Goods>> actual, Market<Goods, Bidder<Goods>> expected) throws Exception {
+    assertEquals(expected.getGoods(), actual.getGoods());
+    assertEquals(expected.getBidders(), actual.getBidders());
+    for (int i = 0; i < expected.getNumberGoods(); i++) {
+      assertEquals(i, actual.getGoodIndex(expected.getGoods().get(i)));
+    }
+    for (int j = 0; j < expected.getNumberBidders(); j++) {
+      assertEquals(j, actual.getBidderIndex(expected.getBidders().get(j)));
+    }
+    assertArrayEquals(expected.getBidderToGoodsOffsets(), actual.getBidderToGoodsOffsets());
+    assertArrayEquals(expected.getBidderToGoods(), actual.getBidderToGoods());
+    assertArrayEquals(expected.getGoodToBiddersOffsets(), actual.getGoodToBiddersOffsets());
+    assertArrayEquals(expected.getGoodToBidders(), actual.getGoodToBidders());
+    assertEquals(expected.getHighestReward(), actual.getHighestReward(), 0.0);
+    assertEquals(expected.getTotalSupply(), actual.getTotalSupply());
+    assertEquals(expected.getTotalDemand(), actual.getTotalDemand());
+  }
+
+}
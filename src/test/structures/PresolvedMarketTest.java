@@ -0,0 +1,95 @@
+package test.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.MarketAllocation;
+import structures.MarketOutcome;
+import structures.presolve.PresolvedMarket;
+import structures.presolve.PresolvedMarket.Reduction;
+import allocations.objectivefunction.SingleStepObjectiveFunction;
+
+import com.google.common.collect.ImmutableSet;
+
+public class PresolvedMarketTest {
+
+  @Test
+  public void testReductions() throws Exception {
+    ArrayList<Goods> goods = new ArrayList<Goods>();
+    Goods g0 = new Goods(1);
+    Goods g1 = new Goods(1);
+    Goods g2 = new Goods(2, 0.5);
+    goods.add(g0);
+    goods.add(g1);
+    goods.add(g2);
+    ArrayList<Bidder<Goods>> bidders = new ArrayList<Bidder<Goods>>();
+    Bidder<Goods> b0 = new Bidder<Goods>(1, 5.0, new HashSet<Goods>(ImmutableSet.of(g0)));
+    Bidder<Goods> b1 = new Bidder<Goods>(2, 10.0, new HashSet<Goods>(ImmutableSet.of(g0, g1)));
+    Bidder<Goods> b2 = new Bidder<Goods>(2, 3.0, new HashSet<Goods>(ImmutableSet.of(g0, g1)));
+    Bidder<Goods> b3 = new Bidder<Goods>(5, 7.0, new HashSet<Goods>(ImmutableSet.of(g1)));
+    bidders.add(b0);
+    bidders.add(b1);
+    bidders.add(b2);
+    bidders.add(b3);
+    Market<Goods, Bidder<Goods>> market = new Market<Goods, Bidder<Goods>>(goods, bidders);
+    PresolvedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> presolved = new PresolvedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        market);
+    // b2 is dominated by b0, b3 can never be satisfied and nobody left demands g2.
+    assertEquals(2, presolved.getRemovedBidders().size());
+    assertEquals(Reduction.dominated, presolved.getRemovedBidders().get(b2));
+    assertEquals(Reduction.infeasibleDemand, presolved.getRemovedBidders().get(b3));
+    assertEquals(presolved.getRemovedGoods().size(), 1);
+    assertEquals(presolved.getRemovedGoods().get(0), g2);
+    Market<Goods, Bidder<Goods>> reducedMarket = presolved.getReducedMarket();
+    assertEquals(2, reducedMarket.getNumberGoods());
+    assertEquals(2, reducedMarket.getNumberBidders());
+    assertEquals(1, presolved.getOriginalBidderIndex(1));
+    assertEquals(1, presolved.getOriginalGoodIndex(1));
+    // Deduce an outcome where b1 wins.
+    MarketAllocation<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> reducedAllocation = MarketAllocation
+        .<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> builder(reducedMarket).set(0, 1, 1).set(1, 1, 1).build(new SingleStepObjectiveFunction());
+    MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> outcome = presolved
+        .deduceOutcome(new MarketOutcome<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(reducedAllocation, new double[] { 4.0, 6.0 }));
+    assertEquals(1, outcome.getMarketAllocation().getAllocation(g0, b1));
+    assertEquals(1, outcome.getMarketAllocation().getAllocation(g1, b1));
+    assertEquals(2, outcome.getMarketAllocation().allocationToBidder(1));
+    assertEquals(0, outcome.getMarketAllocation().allocationToBidder(2));
+    assertEquals(10.0, outcome.getMarketAllocation().getValue(), 0.0);
+    assertEquals(6.0, outcome.getPrice(g1), 0.0);
+    assertEquals(0.5, outcome.getPrice(g2), 0.0);
+    assertEquals(10.0, outcome.sellerRevenue(), 0.0);
+    // Without reductions the reduced market is the input market.
+    presolved = new PresolvedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(market, EnumSet.noneOf(Reduction.class));
+    assertEquals(market, presolved.getReducedMarket());
+  }
+
+  @Test
+  public void testReserve() throws Exception {
+    ArrayList<Goods> goods = new ArrayList<Goods>();
+    goods.add(new Goods(2, 3.0));
+    goods.add(new Goods(2, 1.0));
+    ArrayList<Bidder<Goods>> bidders = new ArrayList<Bidder<Goods>>();
+    // The cheapest way to buy 3 copies costs 1 + 1 + 3 = 5.
+    bidders.add(new Bidder<Goods>(3, 4.0, new HashSet<Goods>(goods)));
+    bidders.add(new Bidder<Goods>(3, 5.0, new HashSet<Goods>(goods)));
+    Market<Goods, Bidder<Goods>> market = new Market<Goods, Bidder<Goods>>(goods, bidders);
+    PresolvedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>> presolved = new PresolvedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(
+        market);
+    assertEquals(Reduction.reserveNotCovered, presolved.getRemovedBidders().get(market.getBidders().get(0)));
+    assertEquals(1, presolved.getReducedMarket().getNumberBidders());
+    // Once the second bidder is priced out as well, nothing is left.
+    bidders.remove(1);
+    presolved = new PresolvedMarket<Market<Goods, Bidder<Goods>>, Goods, Bidder<Goods>>(new Market<Goods, Bidder<Goods>>(goods, bidders));
+    assertFalse(presolved.areThereBiddersInTheReducedMarket());
+  }
+
+}
@@ -0,0 +1,39 @@
+package test.structures;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import structures.Bidder;
+import structures.Goods;
+import structures.Market;
+import structures.SupplyLedger;
+import structures.exceptions.GoodsException;
+import structures.factory.RandomMarketFactory;
+
+public class SupplyLedgerTest {
+
+  @Test
+  public void testConsume() throws Exception {
+    Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(4, 3, 0.5, 1);
+    SupplyLedger<Goods> ledger = new SupplyLedger<Goods>(market);
+    SupplyLedger<Goods> otherLedger = new SupplyLedger<Goods>(market);
+    for (int i = 0; i < market.getNumberGoods(); i++) {
+      Goods good = market.getGoods().get(i);
+      assertEquals(ledger.getRemainingSupply(good), good.getSupply());
+      ledger.consume(i, good.getSupply());
+      assertEquals(ledger.getRemainingSupply(i), 0);
+      // Ledgers of the same market are independent of each other.
+      assertEquals(otherLedger.getRemainingSupply(i), good.getSupply());
+    }
+  }
+
+  @Test(expected = GoodsException.class)
+  public void testConsumeTooMuch() throws Exception {
+    Market<Goods, Bidder<Goods>> market = RandomMarketFactory.generateUniformRewardOverSuppliedMarket(4, 3, 0.5, 1);
+    SupplyLedger<Goods> ledger = new SupplyLedger<Goods>(market);
+    Goods good = market.getGoods().get(0);
+    ledger.consume(good, good.getSupply() + 1);
+  }
+
+}
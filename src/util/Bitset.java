@@ -0,0 +1,190 @@
+package util;
+
+/**
+ * Static helpers to work with sets of small integers (e.g., indices of goods or bidders in a market) represented as arrays of longs. Element i is
+ * stored in bit i % 64 of word i / 64. All binary operations expect both arrays to have the same length, i.e., to be created for the same universe.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class Bitset {
+
+  /**
+   * Creates an empty bitset for a universe of the given size.
+   *
+   * @param size - the number of elements in the universe.
+   * @return an array of longs with all bits set to zero.
+   */
+  public static long[] create(int size) {
+    return new long[(size + 63) >>> 6];
+  }
+
+  /**
+   * Adds an element to a bitset.
+   *
+   * @param bits - a bitset.
+   * @param i - an element.
+   */
+  public static void set(long[] bits, int i) {
+    bits[i >>> 6] |= 1L << i;
+  }
+
+  /**
+   * Removes an element from a bitset.
+   *
+   * @param bits - a bitset.
+   * @param i - an element.
+   */
+  public static void clear(long[] bits, int i) {
+    bits[i >>> 6] &= ~(1L << i);
+  }
+
+  /**
+   * Checks membership.
+   *
+   * @param bits - a bitset.
+   * @param i - an element.
+   * @return true if i is in the bitset.
+   */
+  public static boolean get(long[] bits, int i) {
+    return (bits[i >>> 6] & (1L << i)) != 0;
+  }
+
+  /**
+   * Checks if two bitsets share at least one element.
+   *
+   * @param a - a bitset.
+   * @param b - a bitset.
+   * @return true if the intersection of a and b is not empty.
+   */
+  public static boolean intersects(long[] a, long[] b) {
+    for (int w = 0; w < a.length; w++) {
+      if ((a[w] & b[w]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if a bitset is empty.
+   *
+   * @param bits - a bitset.
+   * @return true if no bit is set.
+   */
+  public static boolean isEmpty(long[] bits) {
+    for (int w = 0; w < bits.length; w++) {
+      if (bits[w] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes the number of elements of a bitset.
+   *
+   * @param bits - a bitset.
+   * @return the number of bits set.
+   */
+  public static int cardinality(long[] bits) {
+    int count = 0;
+    for (int w = 0; w < bits.length; w++) {
+      count += Long.bitCount(bits[w]);
+    }
+    return count;
+  }
+
+  /**
+   * Computes the size of the intersection of two bitsets without materializing it.
+   *
+   * @param a - a bitset.
+   * @param b - a bitset.
+   * @return the number of elements in both a and b.
+   */
+  public static int intersectionCardinality(long[] a, long[] b) {
+    int count = 0;
+    for (int w = 0; w < a.length; w++) {
+      count += Long.bitCount(a[w] & b[w]);
+    }
+    return count;
+  }
+
+  /**
+   * Computes the intersection of two bitsets.
+   *
+   * @param a - a bitset.
+   * @param b - a bitset.
+   * @return a new bitset with the elements in both a and b.
+   */
+  public static long[] and(long[] a, long[] b) {
+    long[] result = new long[a.length];
+    for (int w = 0; w < a.length; w++) {
+      result[w] = a[w] & b[w];
+    }
+    return result;
+  }
+
+  /**
+   * Computes the union of two bitsets.
+   *
+   * @param a - a bitset.
+   * @param b - a bitset.
+   * @return a new bitset with the elements in a or b.
+   */
+  public static long[] or(long[] a, long[] b) {
+    long[] result = new long[a.length];
+    for (int w = 0; w < a.length; w++) {
+      result[w] = a[w] | b[w];
+    }
+    return result;
+  }
+
+  /**
+   * Adds all elements of b to a, in place.
+   *
+   * @param a - the bitset to be modified.
+   * @param b - a bitset.
+   */
+  public static void orInPlace(long[] a, long[] b) {
+    for (int w = 0; w < a.length; w++) {
+      a[w] |= b[w];
+    }
+  }
+
+  /**
+   * Removes all elements of b from a, in place.
+   *
+   * @param a - the bitset to be modified.
+   * @param b - a bitset.
+   */
+  public static void andNotInPlace(long[] a, long[] b) {
+    for (int w = 0; w < a.length; w++) {
+      a[w] &= ~b[w];
+    }
+  }
+
+  /**
+   * Returns the smallest element of a bitset that is greater than or equal to i.
+   *
+   * @param bits - a bitset.
+   * @param i - the element from which to start the search.
+   * @return the next element, or -1 if there is none.
+   */
+  public static int nextSetBit(long[] bits, int i) {
+    int w = i >>> 6;
+    if (w >= bits.length) {
+      return -1;
+    }
+    long word = bits[w] & (-1L << i);
+    while (true) {
+      if (word != 0) {
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+      }
+      if (++w == bits.length) {
+        return -1;
+      }
+      word = bits[w];
+    }
+  }
+
+}
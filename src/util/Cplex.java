@@ -4,55 +4,133 @@ import ilog.concert.IloException;
 import ilog.cp.IloCP;
 import ilog.cplex.IloCplex;
 
+import java.util.ArrayDeque;
+
 /**
- * A class with a singleton method to get the Cplex object.
- * 
+ * A pool of Cplex (and CP) objects. A caller leases an object, builds and solves its model, and returns the object with release. While leased, an
+ * object is confined to the caller, so independent models (e.g., the pricing LPs of different allocations) can be solved concurrently, and a model
+ * that leases a second object while building its own (a nested call) does not wipe the caller's model.
+ *
+ * Every lease of a Cplex object starts from an empty model, the default parameters and output to System.out, so that parameters set by a previous
+ * lease (time limits, solution pool sizes, etc.) do not leak into the next one. A CP object only starts from an empty model and output to System.out:
+ * CP parameters cannot be reset to their defaults as a whole, so a lessee of a CP object must not change its parameters, and must end any search it
+ * started before releasing it. Released objects are kept for reuse, since creating a Cplex object is expensive.
+ *
  * @author Enrique Areyan Viqueira
  */
 public class Cplex {
 
   /**
-   * Cplex object.
+   * Idle Cplex objects.
+   */
+  private static final ArrayDeque<IloCplex> idleCplex = new ArrayDeque<IloCplex>();
+
+  /**
+   * Idle CP (constraint programming) objects.
    */
-  private static IloCplex cplexUniqueObject;
+  private static final ArrayDeque<IloCP> idleCP = new ArrayDeque<IloCP>();
 
   /**
-   * CP (constraint programming) unique object.
+   * Default number of threads of a leased Cplex object. Zero lets Cplex decide.
    */
-  private static IloCP cpUniqueObject;
+  private static volatile int defaultThreads = 0;
+
+  /**
+   * Setter. Sets the number of threads used by Cplex objects leased with lease(), e.g., 1 when many models are solved concurrently.
+   *
+   * @param threads - the number of threads, or zero to let Cplex decide.
+   */
+  public static void setDefaultThreads(int threads) {
+    Cplex.defaultThreads = threads;
+  }
 
   /**
-   * Returns a unique instance of cplex.
-   * 
-   * @return
-   * @throws IloException
+   * Getter.
+   *
+   * @return the number of threads used by Cplex objects leased with lease().
    */
-  public static IloCplex getCplex() throws IloException {
-    if (Cplex.cplexUniqueObject == null) {
-      Cplex.cplexUniqueObject = new IloCplex();
+  public static int getDefaultThreads() {
+    return Cplex.defaultThreads;
+  }
+
+  /**
+   * Leases a Cplex object that uses the default number of threads.
+   *
+   * @return a Cplex object with an empty model and default parameters.
+   * @throws IloException in case the object could not be created.
+   */
+  public static IloCplex lease() throws IloException {
+    return Cplex.lease(Cplex.defaultThreads);
+  }
+
+  /**
+   * Leases a Cplex object. The object must be returned with release once the caller is done with the model.
+   *
+   * @param threads - the number of threads the object may use, or zero to let Cplex decide.
+   * @return a Cplex object with an empty model and default parameters.
+   * @throws IloException in case the object could not be created.
+   */
+  public static IloCplex lease(int threads) throws IloException {
+    IloCplex cplex;
+    synchronized (Cplex.idleCplex) {
+      cplex = Cplex.idleCplex.pollFirst();
+    }
+    if (cplex == null) {
+      cplex = new IloCplex();
+    } else {
+      cplex.clearModel();
+      cplex.setDefaults();
+      cplex.setOut(System.out);
+    }
+    cplex.setParam(IloCplex.IntParam.Threads, threads);
+    return cplex;
+  }
+
+  /**
+   * Returns a leased Cplex object to the pool. The object must not be used after it is released.
+   *
+   * @param cplex - a leased Cplex object, or null.
+   */
+  public static void release(IloCplex cplex) {
+    if (cplex != null) {
+      synchronized (Cplex.idleCplex) {
+        Cplex.idleCplex.addFirst(cplex);
+      }
     }
-    Cplex.cplexUniqueObject.clearModel();
-    return Cplex.cplexUniqueObject;
   }
 
   /**
-   * Returns a unique instance of CP model.
-   * 
-   * @return
-   * @throws IloException
+   * Leases a CP model. The object must be returned with release once the caller is done with the model. Its parameters are shared with every other
+   * lease of the same object, so the caller must not change them.
+   *
+   * @return a CP object with an empty model and default parameters.
+   * @throws IloException in case the object could not be created.
    */
-  public static IloCP getCP() throws IloException {
-    if (Cplex.cpUniqueObject == null) {
-      Cplex.cpUniqueObject = new IloCP();
+  public static IloCP leaseCP() throws IloException {
+    IloCP cp;
+    synchronized (Cplex.idleCP) {
+      cp = Cplex.idleCP.pollFirst();
+    }
+    if (cp == null) {
+      cp = new IloCP();
     } else {
-      Cplex.cpUniqueObject.clearModel();
-      Cplex.cpUniqueObject.abortSearch();
-      Cplex.cpUniqueObject.startNewSearch();
-      //Cplex.getCplex();
-      //Cplex.cpUniqueObject.end();
+      cp.clearModel();
+      cp.setOut(System.out);
+    }
+    return cp;
+  }
+
+  /**
+   * Returns a leased CP object to the pool. The object must not be used after it is released, and any search started on it must have been ended.
+   *
+   * @param cp - a leased CP object, or null.
+   */
+  public static void release(IloCP cp) {
+    if (cp != null) {
+      synchronized (Cplex.idleCP) {
+        Cplex.idleCP.addFirst(cp);
+      }
     }
-    return Cplex.cpUniqueObject;
-    //return new IloCP();
   }
 
 }
@@ -0,0 +1,179 @@
+package util.solver;
+
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+import ilog.cplex.IloCplex;
+
+import java.util.ArrayList;
+
+import util.Cplex;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Solves models with CPLEX. The IloCplex object is leased from util.Cplex for the duration of each solve. Integer programs with a solution limit larger
+ * than one are solved with CPLEX's populate, keeping only the solutions whose objective value equals the optimal one. Starting points become MIP starts
+ * and the cutoff becomes CutLo (when maximizing) or CutUp (when minimizing).
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class CplexProvider implements SolverProvider {
+
+  /**
+   * Number of threads CPLEX may use. A negative value indicates the default of util.Cplex.
+   */
+  private final int threads;
+
+  /**
+   * Constructor. Uses the default number of threads of util.Cplex.
+   */
+  public CplexProvider() {
+    this(-1);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param threads - the number of threads CPLEX may use. Zero lets CPLEX decide; a negative value uses the default of util.Cplex.
+   */
+  public CplexProvider(int threads) {
+    this.threads = threads;
+  }
+
+  @Override
+  public String getName() {
+    return "cplex";
+  }
+
+  @Override
+  public Solution solve(LinearModel model) throws SolverException {
+    IloCplex cplex = null;
+    try {
+      cplex = (this.threads < 0) ? Cplex.lease() : Cplex.lease(this.threads);
+      return this.solve(cplex, model);
+    } catch (IloException e) {
+      throw new SolverException("CPLEX failed.", e);
+    } finally {
+      Cplex.release(cplex);
+    }
+  }
+
+  /**
+   * Solves a model with a leased Cplex object.
+   *
+   * @param cplex - a leased IloCplex object.
+   * @param model - a LinearModel object.
+   * @return a Solution object.
+   * @throws IloException in case CPLEX failed.
+   */
+  private Solution solve(IloCplex cplex, LinearModel model) throws IloException {
+    if (!model.isVerbose()) {
+      cplex.setOut(null);
+    }
+    if (model.getTimeLimit() > 0) {
+      cplex.setParam(IloCplex.DoubleParam.TiLim, model.getTimeLimit());
+    }
+    boolean populate = model.getSolutionLimit() > 1 && model.hasIntegerVariables();
+    if (populate) {
+      // Only solutions as good as the optimal one, and at most as many as the solution limit.
+      cplex.setParam(IloCplex.DoubleParam.SolnPoolGap, 0.0);
+      cplex.setParam(IloCplex.IntParam.PopulateLim, model.getSolutionLimit());
+      cplex.setParam(IloCplex.IntParam.SolnPoolIntensity, 4);
+    }
+    IloNumVar[] variables = new IloNumVar[model.getNumberVariables()];
+    for (int k = 0; k < variables.length; k++) {
+      variables[k] = cplex.numVar(CplexProvider.toCplex(model.getLowerBound(k)), CplexProvider.toCplex(model.getUpperBound(k)),
+          model.isInteger(k) ? IloNumVarType.Int : IloNumVarType.Float);
+    }
+    for (int r = 0; r < model.getNumberConstraints(); r++) {
+      IloLinearNumExpr expr = cplex.linearNumExpr();
+      for (int position = model.getRowStart(r); position < model.getRowStart(r + 1); position++) {
+        expr.addTerm(model.getRowCoefficient(position), variables[model.getRowVariable(position)]);
+      }
+      cplex.addRange(CplexProvider.toCplex(model.getRowLower(r)), expr, CplexProvider.toCplex(model.getRowUpper(r)));
+    }
+    IloLinearNumExpr objective = cplex.linearNumExpr();
+    for (int k = 0; k < variables.length; k++) {
+      if (model.getObjectiveCoefficient(k) != 0.0) {
+        objective.addTerm(model.getObjectiveCoefficient(k), variables[k]);
+      }
+    }
+    if (model.isMaximization()) {
+      cplex.addMaximize(objective);
+    } else {
+      cplex.addMinimize(objective);
+    }
+    if (model.hasIntegerVariables()) {
+      for (int t = 0; t < model.getNumberStarts(); t++) {
+        cplex.addMIPStart(variables, model.getStart(t));
+      }
+      if (!Double.isNaN(model.getCutoff())) {
+        cplex.setParam(model.isMaximization() ? IloCplex.DoubleParam.CutLo : IloCplex.DoubleParam.CutUp, model.getCutoff());
+      }
+    }
+    boolean solved = cplex.solve();
+    Solution.Status status = CplexProvider.toStatus(cplex.getStatus());
+    if (!solved) {
+      return new Solution(status);
+    }
+    if (!populate || !cplex.populate()) {
+      return new Solution(status, ImmutableList.of(cplex.getValues(variables)), new double[] { cplex.getObjValue() });
+    }
+    // Weed out sub-optimal solutions.
+    int numsol = cplex.getSolnPoolNsolns();
+    double optValue = model.isMaximization() ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    ArrayList<Integer> optIndices = new ArrayList<Integer>();
+    for (int l = 0; l < numsol; l++) {
+      double currentOptValue = cplex.getObjValue(l);
+      if (model.isMaximization() ? currentOptValue > optValue : currentOptValue < optValue) {
+        optValue = currentOptValue;
+        optIndices.clear();
+        optIndices.add(l);
+      } else if (currentOptValue == optValue) {
+        optIndices.add(l);
+      }
+    }
+    ImmutableList.Builder<double[]> values = ImmutableList.builder();
+    double[] objectiveValues = new double[optIndices.size()];
+    for (int s = 0; s < optIndices.size(); s++) {
+      values.add(cplex.getValues(variables, optIndices.get(s)));
+      objectiveValues[s] = optValue;
+    }
+    return new Solution(status, values.build(), objectiveValues);
+  }
+
+  /**
+   * Converts an infinite bound into CPLEX's convention.
+   *
+   * @param bound - a bound of a LinearModel.
+   * @return the bound as understood by CPLEX.
+   */
+  private static double toCplex(double bound) {
+    if (bound == Double.POSITIVE_INFINITY) {
+      return Double.MAX_VALUE;
+    } else if (bound == Double.NEGATIVE_INFINITY) {
+      return -Double.MAX_VALUE;
+    }
+    return bound;
+  }
+
+  /**
+   * Converts a CPLEX status.
+   *
+   * @param status - a CPLEX status.
+   * @return the corresponding Solution.Status.
+   */
+  private static Solution.Status toStatus(IloCplex.Status status) {
+    String name = String.valueOf(status);
+    for (Solution.Status s : Solution.Status.values()) {
+      if (s.name().equals(name)) {
+        return s;
+      }
+    }
+    // E.g., InfeasibleOrUnbounded or Error.
+    return Solution.Status.Unknown;
+  }
+
+}
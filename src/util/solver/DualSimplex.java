@@ -0,0 +1,368 @@
+package util.solver;
+
+import java.util.Arrays;
+
+/**
+ * Bounded dual simplex on a dense tableau, used by SimplexSolver.
+ *
+ * Each constraint lower <= a x <= upper gets a logical variable r = a x with bounds [lower, upper], so that the constraints read A x - r = 0 and the
+ * logical variables give a first basis. Every variable is boxed: infinite bounds are replaced by artificial bounds of magnitude BIG. In a boxed
+ * problem any basis is dual feasible once each nonbasic variable sits at the bound given by the sign of its reduced cost, so the method needs no
+ * phase one, and a basis can be reused after bounds change (as in branch-and-bound) by moving nonbasic variables to the right bound. If an optimal
+ * solution of the boxed problem has a nonbasic variable at an artificial bound with a non-zero reduced cost, the model is unbounded.
+ *
+ * The tableau holds B^-1 [A -I], which is fine for the small models of this library (tens to a few hundred goods and bidders). Free constraints,
+ * with both bounds infinite, cannot be violated and get no row; their logical variables are always basic.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+class DualSimplex {
+
+  /**
+   * Magnitude of artificial bounds.
+   */
+  static final double BIG = 1e9;
+
+  /**
+   * Tolerances on bound violations, reduced costs and pivot elements.
+   */
+  private static final double PRIMAL_TOLERANCE = 1e-7;
+  private static final double DUAL_TOLERANCE = 1e-9;
+  private static final double PIVOT_TOLERANCE = 1e-9;
+
+  /**
+   * Number of consecutive degenerate iterations after which Bland's rule is used to avoid cycling.
+   */
+  private static final int DEGENERATE_ITERATIONS = 50;
+
+  /**
+   * Number of structural variables, of rows (constraints that are not free) and of variables (structural and logical).
+   */
+  private final int n, m, numberColumns;
+
+  /**
+   * Number of constraints of the model.
+   */
+  private final int numberConstraints;
+
+  /**
+   * Row of each constraint of the model, -1 for free constraints.
+   */
+  private final int[] rowOfConstraint;
+
+  /**
+   * The tableau, B^-1 [A -I], by rows.
+   */
+  private final double[][] tableau;
+
+  /**
+   * Cost of each variable, with the objective written as a minimization. Logical variables have zero cost.
+   */
+  private final double[] cost;
+
+  /**
+   * Reduced cost of each variable.
+   */
+  private final double[] reducedCost;
+
+  /**
+   * Bounds of each variable, with infinite bounds replaced by artificial ones.
+   */
+  private final double[] lower, upper;
+
+  /**
+   * True if the lower (upper) bound of a variable is artificial.
+   */
+  private final boolean[] artificialLower, artificialUpper;
+
+  /**
+   * Variable of each row of the basis.
+   */
+  private final int[] basis;
+
+  /**
+   * Row of each basic variable, -1 for nonbasic variables.
+   */
+  private final int[] basisRow;
+
+  /**
+   * True if a nonbasic variable is at its upper bound.
+   */
+  private final boolean[] atUpper;
+
+  /**
+   * Value of each variable.
+   */
+  private final double[] x;
+
+  /**
+   * Constructor. Builds the tableau of a model, with the logical variables as basis.
+   *
+   * @param model - a LinearModel object.
+   */
+  DualSimplex(LinearModel model) {
+    this.n = model.getNumberVariables();
+    this.numberConstraints = model.getNumberConstraints();
+    this.rowOfConstraint = new int[this.numberConstraints];
+    int rows = 0;
+    for (int c = 0; c < this.numberConstraints; c++) {
+      boolean free = model.getRowLower(c) == Double.NEGATIVE_INFINITY && model.getRowUpper(c) == Double.POSITIVE_INFINITY;
+      this.rowOfConstraint[c] = free ? -1 : rows++;
+    }
+    this.m = rows;
+    this.numberColumns = this.n + this.m;
+    this.tableau = new double[this.m][this.numberColumns];
+    this.cost = new double[this.numberColumns];
+    this.reducedCost = new double[this.numberColumns];
+    this.lower = new double[this.numberColumns];
+    this.upper = new double[this.numberColumns];
+    this.artificialLower = new boolean[this.numberColumns];
+    this.artificialUpper = new boolean[this.numberColumns];
+    this.basis = new int[this.m];
+    this.basisRow = new int[this.numberColumns];
+    this.atUpper = new boolean[this.numberColumns];
+    this.x = new double[this.numberColumns];
+    double sign = model.isMaximization() ? -1.0 : 1.0;
+    for (int k = 0; k < this.n; k++) {
+      this.cost[k] = sign * model.getObjectiveCoefficient(k);
+      this.reducedCost[k] = this.cost[k];
+      this.basisRow[k] = -1;
+    }
+    for (int c = 0; c < this.numberConstraints; c++) {
+      int r = this.rowOfConstraint[c];
+      if (r < 0) {
+        continue;
+      }
+      // B = -I, so B^-1 [A -I] = [-A I].
+      for (int position = model.getRowStart(c); position < model.getRowStart(c + 1); position++) {
+        this.tableau[r][model.getRowVariable(position)] = -model.getRowCoefficient(position);
+      }
+      this.tableau[r][this.n + r] = 1.0;
+      this.basis[r] = this.n + r;
+      this.basisRow[this.n + r] = r;
+      this.setBoxedBounds(this.n + r, model.getRowLower(c), model.getRowUpper(c));
+    }
+    for (int k = 0; k < this.n; k++) {
+      this.setBounds(k, model.getLowerBound(k), model.getUpperBound(k));
+    }
+  }
+
+  /**
+   * Changes the bounds of a structural variable. A nonbasic variable is moved to the bound that keeps the basis dual feasible.
+   *
+   * @param k - a structural variable.
+   * @param lowerBound - the new lower bound, possibly Double.NEGATIVE_INFINITY.
+   * @param upperBound - the new upper bound, possibly Double.POSITIVE_INFINITY.
+   */
+  void setBounds(int k, double lowerBound, double upperBound) {
+    this.setBoxedBounds(k, lowerBound, upperBound);
+    if (this.basisRow[k] < 0) {
+      // Any bound will do if the reduced cost is zero, but prefer a real one.
+      this.placeNonbasic(k, this.artificialLower[k] && !this.artificialUpper[k]);
+    }
+  }
+
+  /**
+   * Moves a nonbasic variable to the bound given by the sign of its reduced cost, which keeps the basis dual feasible.
+   *
+   * @param k - a nonbasic variable.
+   * @param preferUpper - the bound to use if the reduced cost is zero.
+   */
+  private void placeNonbasic(int k, boolean preferUpper) {
+    if (this.reducedCost[k] > DualSimplex.DUAL_TOLERANCE) {
+      this.atUpper[k] = false;
+    } else if (this.reducedCost[k] < -DualSimplex.DUAL_TOLERANCE) {
+      this.atUpper[k] = true;
+    } else {
+      this.atUpper[k] = preferUpper;
+    }
+    this.x[k] = this.atUpper[k] ? this.upper[k] : this.lower[k];
+  }
+
+  /**
+   * Stores the bounds of a variable, replacing infinite bounds by artificial ones.
+   *
+   * @param k - a variable.
+   * @param lowerBound - the lower bound.
+   * @param upperBound - the upper bound.
+   */
+  private void setBoxedBounds(int k, double lowerBound, double upperBound) {
+    this.artificialLower[k] = lowerBound == Double.NEGATIVE_INFINITY;
+    this.artificialUpper[k] = upperBound == Double.POSITIVE_INFINITY;
+    this.lower[k] = this.artificialLower[k] ? -DualSimplex.BIG : lowerBound;
+    this.upper[k] = this.artificialUpper[k] ? DualSimplex.BIG : upperBound;
+  }
+
+  /**
+   * Runs the dual simplex method from the current basis.
+   *
+   * @param deadline - the value of System.nanoTime() at which to give up.
+   * @return Optimal, Infeasible, Unbounded, or Unknown if the deadline or the iteration limit was reached.
+   */
+  Solution.Status run(long deadline) {
+    int maxIterations = 1000 + 100 * (this.m + this.numberColumns);
+    // Each round moves at least one variable off an artificial bound.
+    for (int round = 0; round <= this.numberColumns; round++) {
+      Solution.Status status = this.iterate(deadline, maxIterations);
+      if (status != Solution.Status.Optimal) {
+        return status;
+      }
+      // Artificial bounds must not be active at an optimal solution.
+      boolean moved = false;
+      for (int k = 0; k < this.numberColumns; k++) {
+        if (this.basisRow[k] < 0 && (this.atUpper[k] ? this.artificialUpper[k] : this.artificialLower[k])) {
+          if (Math.abs(this.reducedCost[k]) > DualSimplex.DUAL_TOLERANCE) {
+            return Solution.Status.Unbounded;
+          }
+          if (this.atUpper[k] ? !this.artificialLower[k] : !this.artificialUpper[k]) {
+            // The variable does not affect the objective, so it can sit at its real bound instead.
+            this.atUpper[k] = !this.atUpper[k];
+            this.x[k] = this.atUpper[k] ? this.upper[k] : this.lower[k];
+            moved = true;
+          }
+        }
+      }
+      if (!moved) {
+        return Solution.Status.Optimal;
+      }
+    }
+    return Solution.Status.Unknown;
+  }
+
+  /**
+   * Dual simplex iterations until the basis is primal feasible.
+   *
+   * @param deadline - the value of System.nanoTime() at which to give up.
+   * @param maxIterations - the maximum number of iterations.
+   * @return Optimal, Infeasible or Unknown.
+   */
+  private Solution.Status iterate(long deadline, int maxIterations) {
+    int degenerate = 0;
+    int[] pivotRowSupport = new int[this.numberColumns];
+    for (int iteration = 0; iteration < maxIterations; iteration++) {
+      if ((iteration & 63) == 63 && System.nanoTime() > deadline) {
+        return Solution.Status.Unknown;
+      }
+      this.computeBasicValues();
+      boolean bland = degenerate > DualSimplex.DEGENERATE_ITERATIONS;
+      // Leaving variable: the most infeasible basic variable, or the one with the smallest index under Bland's rule.
+      int r = -1;
+      double largestInfeasibility = 0.0;
+      for (int i = 0; i < this.m; i++) {
+        int k = this.basis[i];
+        double infeasibility = Math.max(this.lower[k] - this.x[k] - DualSimplex.PRIMAL_TOLERANCE * (1.0 + Math.abs(this.lower[k])), this.x[k]
+            - this.upper[k] - DualSimplex.PRIMAL_TOLERANCE * (1.0 + Math.abs(this.upper[k])));
+        if (infeasibility > 0 && (bland ? (r < 0 || k < this.basis[r]) : infeasibility > largestInfeasibility)) {
+          r = i;
+          largestInfeasibility = infeasibility;
+        }
+      }
+      if (r < 0) {
+        return Solution.Status.Optimal;
+      }
+      int leaving = this.basis[r];
+      boolean increase = this.x[leaving] < this.lower[leaving];
+      // Entering variable: ratio test on the pivot row, ties broken by the largest pivot element (or the smallest index under Bland's rule).
+      double[] row = this.tableau[r];
+      int q = -1;
+      double minRatio = Double.POSITIVE_INFINITY;
+      for (int j = 0; j < this.numberColumns; j++) {
+        double alpha = row[j];
+        if (this.basisRow[j] >= 0 || Math.abs(alpha) <= DualSimplex.PIVOT_TOLERANCE || this.lower[j] == this.upper[j]) {
+          continue;
+        }
+        // x[leaving] = - sum_j alpha_j x_j over nonbasic j.
+        if (increase == (this.atUpper[j] ? alpha < 0 : alpha > 0)) {
+          continue;
+        }
+        double ratio = Math.abs(this.reducedCost[j]) / Math.abs(alpha);
+        if (q < 0 || ratio < minRatio - DualSimplex.DUAL_TOLERANCE
+            || (ratio <= minRatio + DualSimplex.DUAL_TOLERANCE && !bland && Math.abs(alpha) > Math.abs(row[q]))) {
+          q = j;
+          minRatio = ratio;
+        }
+      }
+      if (q < 0) {
+        return Solution.Status.Infeasible;
+      }
+      degenerate = (minRatio <= DualSimplex.DUAL_TOLERANCE) ? degenerate + 1 : 0;
+      this.pivot(r, q, pivotRowSupport);
+      this.atUpper[leaving] = !increase;
+      this.x[leaving] = increase ? this.lower[leaving] : this.upper[leaving];
+    }
+    return Solution.Status.Unknown;
+  }
+
+  /**
+   * Makes variable q basic in row r.
+   *
+   * @param r - the pivot row.
+   * @param q - the entering variable.
+   * @param support - scratch space for the non-zero positions of the pivot row.
+   */
+  private void pivot(int r, int q, int[] support) {
+    double[] row = this.tableau[r];
+    double pivot = row[q];
+    int size = 0;
+    for (int j = 0; j < this.numberColumns; j++) {
+      if (row[j] != 0.0) {
+        row[j] /= pivot;
+        support[size++] = j;
+      }
+    }
+    row[q] = 1.0;
+    for (int i = 0; i < this.m; i++) {
+      double[] other = this.tableau[i];
+      double factor = other[q];
+      if (i != r && factor != 0.0) {
+        for (int s = 0; s < size; s++) {
+          other[support[s]] -= factor * row[support[s]];
+        }
+        other[q] = 0.0;
+      }
+    }
+    double factor = this.reducedCost[q];
+    if (factor != 0.0) {
+      for (int s = 0; s < size; s++) {
+        this.reducedCost[support[s]] -= factor * row[support[s]];
+      }
+    }
+    this.reducedCost[q] = 0.0;
+    int leaving = this.basis[r];
+    this.basis[r] = q;
+    this.basisRow[q] = r;
+    this.basisRow[leaving] = -1;
+  }
+
+  /**
+   * Computes the values of the basic variables from those of the nonbasic ones.
+   */
+  private void computeBasicValues() {
+    int[] nonZero = new int[this.numberColumns];
+    int size = 0;
+    for (int j = 0; j < this.numberColumns; j++) {
+      if (this.basisRow[j] < 0 && this.x[j] != 0.0) {
+        nonZero[size++] = j;
+      }
+    }
+    for (int i = 0; i < this.m; i++) {
+      double[] row = this.tableau[i];
+      double value = 0.0;
+      for (int s = 0; s < size; s++) {
+        value -= row[nonZero[s]] * this.x[nonZero[s]];
+      }
+      this.x[this.basis[i]] = value;
+    }
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the values of the structural variables.
+   */
+  double[] getValues() {
+    this.computeBasicValues();
+    return Arrays.copyOf(this.x, this.n);
+  }
+
+}
@@ -0,0 +1,84 @@
+package util.solver;
+
+import java.util.Arrays;
+
+/**
+ * A linear expression over the variables of a LinearModel, i.e., a sum of terms coefficient * variable. A variable may appear in several terms, in
+ * which case its coefficients are added up when the expression is added to a model.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class LinearExpression {
+
+  /**
+   * Variable of each term.
+   */
+  private int[] variables;
+
+  /**
+   * Coefficient of each term.
+   */
+  private double[] coefficients;
+
+  /**
+   * Number of terms.
+   */
+  private int size;
+
+  /**
+   * Constructor. Creates an empty expression.
+   */
+  public LinearExpression() {
+    this.variables = new int[4];
+    this.coefficients = new double[4];
+    this.size = 0;
+  }
+
+  /**
+   * Adds the term coefficient * variable to the expression.
+   *
+   * @param coefficient - the coefficient of the term.
+   * @param variable - a variable of the model.
+   * @return this expression.
+   */
+  public LinearExpression addTerm(double coefficient, int variable) {
+    if (this.size == this.variables.length) {
+      this.variables = Arrays.copyOf(this.variables, 2 * this.size);
+      this.coefficients = Arrays.copyOf(this.coefficients, 2 * this.size);
+    }
+    this.variables[this.size] = variable;
+    this.coefficients[this.size] = coefficient;
+    this.size++;
+    return this;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of terms of the expression.
+   */
+  public int getNumberTerms() {
+    return this.size;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param t - a term.
+   * @return the variable of term t.
+   */
+  public int getVariable(int t) {
+    return this.variables[t];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param t - a term.
+   * @return the coefficient of term t.
+   */
+  public double getCoefficient(int t) {
+    return this.coefficients[t];
+  }
+
+}
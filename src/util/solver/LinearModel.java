@@ -0,0 +1,670 @@
+package util.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A linear (or mixed-integer linear) program: variables with bounds, an optional integrality requirement per variable, linear constraints and a linear
+ * objective. Models are built by the algorithms (e.g., RestrictedEnvyFreePricesLP, OptimalAllocILP) and handed to a SolverProvider, so that they do
+ * not depend on a particular solver.
+ *
+ * Variables and constraints are identified by the consecutive integers returned when they are added. Bounds of magnitude at least INFINITY (e.g.,
+ * Double.MAX_VALUE) mean the variable is unbounded in that direction.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class LinearModel {
+
+  /**
+   * Define the sense of a constraint: expression <= rhs, expression >= rhs or expression = rhs.
+   */
+  public static enum Sense {
+    le, ge, eq
+  }
+
+  /**
+   * Bounds at least this large in magnitude are treated as infinite.
+   */
+  public static final double INFINITY = 1e20;
+
+  /**
+   * Lower bound, upper bound and integrality of each variable.
+   */
+  private double[] lowerBounds, upperBounds;
+  private boolean[] integer;
+
+  /**
+   * Number of variables.
+   */
+  private int numberVariables;
+
+  /**
+   * Constraints stored by rows: the terms of row r are at positions rowStart[r] to rowStart[r + 1] - 1 of rowVariables and rowCoefficients.
+   */
+  private int[] rowStart;
+  private int[] rowVariables;
+  private double[] rowCoefficients;
+
+  /**
+   * Position of the term of each variable in the last constraint added, used to merge terms on the same variable. Positions of earlier constraints are
+   * smaller than the start of the current one, so the array never needs to be cleared.
+   */
+  private int[] termPosition = new int[0];
+
+  /**
+   * Each constraint is written as rowLower <= expression <= rowUpper.
+   */
+  private double[] rowLower, rowUpper;
+
+  /**
+   * Number of constraints.
+   */
+  private int numberConstraints;
+
+  /**
+   * Objective coefficient of each variable.
+   */
+  private double[] objective;
+
+  /**
+   * True if the objective is maximized, false if it is minimized.
+   */
+  private boolean maximize;
+
+  /**
+   * Time limit in seconds. A non-positive value means no limit.
+   */
+  private double timeLimit = -1.0;
+
+  /**
+   * Maximum number of optimal solutions to report. Providers that cannot enumerate alternative optima report one.
+   */
+  private int solutionLimit = 1;
+
+  /**
+   * Boolean to control whether or not the solver outputs information.
+   */
+  private boolean verbose = false;
+
+  /**
+   * Starting points for integer programs, i.e., MIP starts.
+   */
+  private final ArrayList<double[]> starts = new ArrayList<double[]>();
+
+  /**
+   * Objective cutoff: only points whose objective value is at least the cutoff (when maximizing) or at most the cutoff (when minimizing) are of
+   * interest. NaN means no cutoff.
+   */
+  private double cutoff = Double.NaN;
+
+  /**
+   * True if solvers may keep their state between solves of this model, see setWarmStart.
+   */
+  private boolean warmStart = false;
+
+  /**
+   * Dual simplex of the last solve by SimplexSolver, kept only if warmStart is true. Adding variables or constraints, or changing the objective,
+   * discards it.
+   */
+  DualSimplex simplex;
+
+  /**
+   * Constructor. Creates an empty model that minimizes zero.
+   */
+  public LinearModel() {
+    this.lowerBounds = new double[16];
+    this.upperBounds = new double[16];
+    this.integer = new boolean[16];
+    this.objective = new double[16];
+    this.rowStart = new int[17];
+    this.rowVariables = new int[64];
+    this.rowCoefficients = new double[64];
+    this.rowLower = new double[16];
+    this.rowUpper = new double[16];
+  }
+
+  /**
+   * Adds a continuous variable.
+   *
+   * @param lowerBound - lower bound of the variable.
+   * @param upperBound - upper bound of the variable.
+   * @return the index of the variable.
+   */
+  public int addVariable(double lowerBound, double upperBound) {
+    return this.addVariable(lowerBound, upperBound, false);
+  }
+
+  /**
+   * Adds a variable.
+   *
+   * @param lowerBound - lower bound of the variable.
+   * @param upperBound - upper bound of the variable.
+   * @param integer - true if the variable must take an integer value.
+   * @return the index of the variable.
+   */
+  public int addVariable(double lowerBound, double upperBound, boolean integer) {
+    if (this.numberVariables == this.lowerBounds.length) {
+      int capacity = 2 * this.numberVariables;
+      this.lowerBounds = Arrays.copyOf(this.lowerBounds, capacity);
+      this.upperBounds = Arrays.copyOf(this.upperBounds, capacity);
+      this.integer = Arrays.copyOf(this.integer, capacity);
+      this.objective = Arrays.copyOf(this.objective, capacity);
+    }
+    this.lowerBounds[this.numberVariables] = (lowerBound <= -LinearModel.INFINITY) ? Double.NEGATIVE_INFINITY : lowerBound;
+    this.upperBounds[this.numberVariables] = (upperBound >= LinearModel.INFINITY) ? Double.POSITIVE_INFINITY : upperBound;
+    this.integer[this.numberVariables] = integer;
+    this.simplex = null;
+    return this.numberVariables++;
+  }
+
+  /**
+   * Adds several variables with the same bounds.
+   *
+   * @param count - the number of variables.
+   * @param lowerBound - lower bound of the variables.
+   * @param upperBound - upper bound of the variables.
+   * @param integer - true if the variables must take integer values.
+   * @return the indices of the variables.
+   */
+  public int[] addVariables(int count, double lowerBound, double upperBound, boolean integer) {
+    int[] variables = new int[count];
+    for (int k = 0; k < count; k++) {
+      variables[k] = this.addVariable(lowerBound, upperBound, integer);
+    }
+    return variables;
+  }
+
+  /**
+   * Intersects the bounds of a variable with [lowerBound, upperBound]. A simple bound on a variable is cheaper for every solver than a constraint on a
+   * single variable. If the bounds cross, the model is infeasible (see hasEmptyDomain).
+   *
+   * @param k - a variable.
+   * @param lowerBound - a lower bound, possibly -Double.MAX_VALUE.
+   * @param upperBound - an upper bound, possibly Double.MAX_VALUE.
+   */
+  public void restrictBounds(int k, double lowerBound, double upperBound) {
+    if (k < 0 || k >= this.numberVariables) {
+      throw new IllegalArgumentException("Variable " + k + " is not part of the model.");
+    }
+    if (lowerBound > -LinearModel.INFINITY) {
+      this.lowerBounds[k] = Math.max(this.lowerBounds[k], lowerBound);
+    }
+    if (upperBound < LinearModel.INFINITY) {
+      this.upperBounds[k] = Math.min(this.upperBounds[k], upperBound);
+    }
+  }
+
+  /**
+   * Replaces the bounds of a variable. Unlike restrictBounds, the bounds may be relaxed, e.g., when the model is reused with different data.
+   *
+   * @param k - a variable.
+   * @param lowerBound - the lower bound, possibly -Double.MAX_VALUE.
+   * @param upperBound - the upper bound, possibly Double.MAX_VALUE.
+   */
+  public void setBounds(int k, double lowerBound, double upperBound) {
+    if (k < 0 || k >= this.numberVariables) {
+      throw new IllegalArgumentException("Variable " + k + " is not part of the model.");
+    }
+    this.lowerBounds[k] = (lowerBound <= -LinearModel.INFINITY) ? Double.NEGATIVE_INFINITY : lowerBound;
+    this.upperBounds[k] = (upperBound >= LinearModel.INFINITY) ? Double.POSITIVE_INFINITY : upperBound;
+  }
+
+  /**
+   * Adds the constraint expression (sense) rhs.
+   *
+   * @param expression - the left-hand side.
+   * @param sense - le, ge or eq.
+   * @param rhs - the right-hand side.
+   * @return the index of the constraint.
+   */
+  public int addConstraint(LinearExpression expression, Sense sense, double rhs) {
+    switch (sense) {
+      case le:
+        return this.addRange(Double.NEGATIVE_INFINITY, expression, rhs);
+      case ge:
+        return this.addRange(rhs, expression, Double.POSITIVE_INFINITY);
+      default:
+        return this.addRange(rhs, expression, rhs);
+    }
+  }
+
+  /**
+   * Adds the constraint lower <= expression <= upper. Terms on the same variable are merged.
+   *
+   * @param lower - the lower bound of the expression.
+   * @param expression - a linear expression.
+   * @param upper - the upper bound of the expression.
+   * @return the index of the constraint.
+   */
+  public int addRange(double lower, LinearExpression expression, double upper) {
+    if (this.numberConstraints == this.rowLower.length) {
+      int capacity = 2 * this.numberConstraints;
+      this.rowLower = Arrays.copyOf(this.rowLower, capacity);
+      this.rowUpper = Arrays.copyOf(this.rowUpper, capacity);
+      this.rowStart = Arrays.copyOf(this.rowStart, capacity + 1);
+    }
+    int start = this.rowStart[this.numberConstraints];
+    int end = start;
+    for (int t = 0; t < expression.getNumberTerms(); t++) {
+      int variable = expression.getVariable(t);
+      if (variable < 0 || variable >= this.numberVariables) {
+        throw new IllegalArgumentException("Variable " + variable + " is not part of the model.");
+      }
+      if (this.termPosition.length < this.numberVariables) {
+        int[] termPosition = Arrays.copyOf(this.termPosition, Math.max(this.numberVariables, 2 * this.termPosition.length));
+        Arrays.fill(termPosition, this.termPosition.length, termPosition.length, -1);
+        this.termPosition = termPosition;
+      }
+      int position = this.termPosition[variable];
+      if (position < start) {
+        position = end;
+        this.termPosition[variable] = position;
+        if (end == this.rowVariables.length) {
+          this.rowVariables = Arrays.copyOf(this.rowVariables, 2 * end);
+          this.rowCoefficients = Arrays.copyOf(this.rowCoefficients, 2 * end);
+        }
+        this.rowVariables[end] = variable;
+        this.rowCoefficients[end] = 0.0;
+        end++;
+      }
+      this.rowCoefficients[position] += expression.getCoefficient(t);
+    }
+    this.rowLower[this.numberConstraints] = (lower <= -LinearModel.INFINITY) ? Double.NEGATIVE_INFINITY : lower;
+    this.rowUpper[this.numberConstraints] = (upper >= LinearModel.INFINITY) ? Double.POSITIVE_INFINITY : upper;
+    this.rowStart[this.numberConstraints + 1] = end;
+    this.simplex = null;
+    return this.numberConstraints++;
+  }
+
+  /**
+   * Adds count constraints in one call, given by rows: the terms of the r-th constraint are at positions start[r] to start[r + 1] - 1 of variables and
+   * coefficients, and the constraint reads lower[r] <= expression <= upper[r]. Unlike addRange, terms are copied as they are, so the caller must not
+   * repeat a variable within a row.
+   *
+   * @param count - the number of constraints.
+   * @param start - the position of the first term of each constraint, and the total number of terms at position count.
+   * @param variables - the variable of each term.
+   * @param coefficients - the coefficient of each term.
+   * @param lower - the lower bound of each constraint, possibly -Double.MAX_VALUE.
+   * @param upper - the upper bound of each constraint, possibly Double.MAX_VALUE.
+   * @return the index of the first constraint added.
+   */
+  public int addRows(int count, int[] start, int[] variables, double[] coefficients, double[] lower, double[] upper) {
+    int first = this.numberConstraints;
+    int offset = this.rowStart[first] - start[0];
+    int terms = start[count] - start[0];
+    if (this.numberConstraints + count > this.rowLower.length) {
+      int capacity = Math.max(2 * this.rowLower.length, this.numberConstraints + count);
+      this.rowLower = Arrays.copyOf(this.rowLower, capacity);
+      this.rowUpper = Arrays.copyOf(this.rowUpper, capacity);
+      this.rowStart = Arrays.copyOf(this.rowStart, capacity + 1);
+    }
+    if (this.rowStart[first] + terms > this.rowVariables.length) {
+      int capacity = Math.max(2 * this.rowVariables.length, this.rowStart[first] + terms);
+      this.rowVariables = Arrays.copyOf(this.rowVariables, capacity);
+      this.rowCoefficients = Arrays.copyOf(this.rowCoefficients, capacity);
+    }
+    for (int p = start[0]; p < start[count]; p++) {
+      if (variables[p] < 0 || variables[p] >= this.numberVariables) {
+        throw new IllegalArgumentException("Variable " + variables[p] + " is not part of the model.");
+      }
+    }
+    System.arraycopy(variables, start[0], this.rowVariables, this.rowStart[first], terms);
+    System.arraycopy(coefficients, start[0], this.rowCoefficients, this.rowStart[first], terms);
+    for (int r = 0; r < count; r++) {
+      this.rowLower[first + r] = (lower[r] <= -LinearModel.INFINITY) ? Double.NEGATIVE_INFINITY : lower[r];
+      this.rowUpper[first + r] = (upper[r] >= LinearModel.INFINITY) ? Double.POSITIVE_INFINITY : upper[r];
+      this.rowStart[first + r + 1] = start[r + 1] + offset;
+    }
+    this.numberConstraints += count;
+    this.simplex = null;
+    return first;
+  }
+
+  /**
+   * Sets the objective to be maximized. Replaces any previous objective.
+   *
+   * @param expression - a linear expression.
+   */
+  public void maximize(LinearExpression expression) {
+    this.setObjective(expression, true);
+  }
+
+  /**
+   * Sets the objective to be minimized. Replaces any previous objective.
+   *
+   * @param expression - a linear expression.
+   */
+  public void minimize(LinearExpression expression) {
+    this.setObjective(expression, false);
+  }
+
+  /**
+   * Sets the objective.
+   *
+   * @param expression - a linear expression.
+   * @param maximize - true to maximize, false to minimize.
+   */
+  private void setObjective(LinearExpression expression, boolean maximize) {
+    Arrays.fill(this.objective, 0.0);
+    for (int t = 0; t < expression.getNumberTerms(); t++) {
+      this.objective[expression.getVariable(t)] += expression.getCoefficient(t);
+    }
+    this.maximize = maximize;
+    this.simplex = null;
+  }
+
+  /**
+   * Setter.
+   *
+   * @param timeLimit - time limit in seconds. A non-positive value means no limit.
+   */
+  public void setTimeLimit(double timeLimit) {
+    this.timeLimit = timeLimit;
+  }
+
+  /**
+   * Setter. Asks for up to solutionLimit optimal solutions of an integer program (see Solution.getNumberSolutions).
+   *
+   * @param solutionLimit - the maximum number of solutions. A negative or zero value indicates no limit.
+   */
+  public void setSolutionLimit(int solutionLimit) {
+    this.solutionLimit = (solutionLimit > 0) ? solutionLimit : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Setter.
+   *
+   * @param verbose - a boolean, if true, then the solver outputs information.
+   */
+  public void setVerbose(boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  /**
+   * Setter. With warm start on, SimplexSolver keeps the tableau of a linear program after solving it, and the next solve only applies the new variable
+   * bounds and resumes the dual simplex from the last optimal basis. This pays off when a model is solved many times with bounds as the only change;
+   * any other change to the model starts from scratch again.
+   *
+   * @param warmStart - a boolean, if true, then solvers may keep their state between solves.
+   */
+  public void setWarmStart(boolean warmStart) {
+    this.warmStart = warmStart;
+    if (!warmStart) {
+      this.simplex = null;
+    }
+  }
+
+  /**
+   * Adds a starting point for an integer program. Solvers use feasible starts as incumbents, and ignore infeasible ones.
+   *
+   * @param values - a value for each variable.
+   */
+  public void addStart(double[] values) {
+    if (values.length != this.numberVariables) {
+      throw new IllegalArgumentException("A start needs a value for each of the " + this.numberVariables + " variables.");
+    }
+    this.starts.add(values.clone());
+  }
+
+  /**
+   * Setter. Sets an objective cutoff for integer programs, e.g., the value of a known solution: solvers may discard any point worse than the cutoff,
+   * and report the model as infeasible if there is no point at least as good.
+   *
+   * @param cutoff - the cutoff, or NaN for none.
+   */
+  public void setCutoff(double cutoff) {
+    this.cutoff = cutoff;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of variables.
+   */
+  public int getNumberVariables() {
+    return this.numberVariables;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param k - a variable.
+   * @return the lower bound of variable k, possibly Double.NEGATIVE_INFINITY.
+   */
+  public double getLowerBound(int k) {
+    return this.lowerBounds[k];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param k - a variable.
+   * @return the upper bound of variable k, possibly Double.POSITIVE_INFINITY.
+   */
+  public double getUpperBound(int k) {
+    return this.upperBounds[k];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param k - a variable.
+   * @return true if variable k must take an integer value.
+   */
+  public boolean isInteger(int k) {
+    return this.integer[k];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return true if some variable must take an integer value.
+   */
+  public boolean hasIntegerVariables() {
+    for (int k = 0; k < this.numberVariables; k++) {
+      if (this.integer[k]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return true if the bounds of some variable cross, which makes the model infeasible.
+   */
+  public boolean hasEmptyDomain() {
+    for (int k = 0; k < this.numberVariables; k++) {
+      if (this.lowerBounds[k] > this.upperBounds[k]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of constraints.
+   */
+  public int getNumberConstraints() {
+    return this.numberConstraints;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param r - a constraint.
+   * @return the position of the first term of constraint r in getRowVariables and getRowCoefficients. For r = getNumberConstraints(), the total
+   *         number of terms.
+   */
+  public int getRowStart(int r) {
+    return this.rowStart[r];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param position - the position of a term.
+   * @return the variable of the term.
+   */
+  public int getRowVariable(int position) {
+    return this.rowVariables[position];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param position - the position of a term.
+   * @return the coefficient of the term.
+   */
+  public double getRowCoefficient(int position) {
+    return this.rowCoefficients[position];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param r - a constraint.
+   * @return the lower bound of constraint r, possibly Double.NEGATIVE_INFINITY.
+   */
+  public double getRowLower(int r) {
+    return this.rowLower[r];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param r - a constraint.
+   * @return the upper bound of constraint r, possibly Double.POSITIVE_INFINITY.
+   */
+  public double getRowUpper(int r) {
+    return this.rowUpper[r];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param k - a variable.
+   * @return the objective coefficient of variable k.
+   */
+  public double getObjectiveCoefficient(int k) {
+    return this.objective[k];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return true if the objective is maximized.
+   */
+  public boolean isMaximization() {
+    return this.maximize;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the time limit in seconds. A non-positive value means no limit.
+   */
+  public double getTimeLimit() {
+    return this.timeLimit;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the maximum number of optimal solutions to report.
+   */
+  public int getSolutionLimit() {
+    return this.solutionLimit;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return true if the solver should output information.
+   */
+  public boolean isVerbose() {
+    return this.verbose;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return true if solvers may keep their state between solves.
+   */
+  public boolean isWarmStart() {
+    return this.warmStart;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of starting points.
+   */
+  public int getNumberStarts() {
+    return this.starts.size();
+  }
+
+  /**
+   * Getter.
+   *
+   * @param s - a starting point, between zero and getNumberStarts() - 1.
+   * @return the values of starting point s.
+   */
+  public double[] getStart(int s) {
+    return this.starts.get(s);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the objective cutoff, or NaN if there is none.
+   */
+  public double getCutoff() {
+    return this.cutoff;
+  }
+
+  /**
+   * Checks whether a point satisfies the bounds, the integrality requirements and the constraints of the model.
+   *
+   * @param values - a value for each variable.
+   * @param tolerance - the absolute violation allowed.
+   * @return true if the point is feasible.
+   */
+  public boolean isFeasible(double[] values, double tolerance) {
+    for (int k = 0; k < this.numberVariables; k++) {
+      if (values[k] < this.lowerBounds[k] - tolerance || values[k] > this.upperBounds[k] + tolerance
+          || (this.integer[k] && Math.abs(values[k] - Math.rint(values[k])) > tolerance)) {
+        return false;
+      }
+    }
+    for (int r = 0; r < this.numberConstraints; r++) {
+      double activity = 0.0;
+      for (int position = this.rowStart[r]; position < this.rowStart[r + 1]; position++) {
+        activity += this.rowCoefficients[position] * values[this.rowVariables[position]];
+      }
+      if (activity < this.rowLower[r] - tolerance || activity > this.rowUpper[r] + tolerance) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes the objective value of a vector of values.
+   *
+   * @param values - a value for each variable.
+   * @return the objective value.
+   */
+  public double getObjectiveValue(double[] values) {
+    double value = 0.0;
+    for (int k = 0; k < this.numberVariables; k++) {
+      value += this.objective[k] * values[k];
+    }
+    return value;
+  }
+
+}
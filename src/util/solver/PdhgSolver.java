@@ -0,0 +1,533 @@
+package util.solver;
+
+import java.util.Arrays;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A matrix-free first-order SolverProvider for very large linear programs, based on the primal-dual hybrid gradient method with restarts (as in PDLP).
+ * It only needs products with the constraint matrix and its transpose, which are computed directly on the rows of the LinearModel, so its memory is
+ * linear in the number of non-zero coefficients; this makes it usable on pricing LPs whose compact conditions are too many for the simplex method.
+ *
+ * The model min c'x s.t. L <= Ax <= U, lb <= x <= ub is solved as the saddle point problem min_x max_y c'x + y'Ax - h(y), where h is the support
+ * function of [L, U]. Before iterating, the matrix is equilibrated (Ruiz scaling followed by Pock-Chambolle scaling, so that its norm is at most one).
+ * Every few iterations the current and the averaged iterates are evaluated; the method restarts from the better of them when its error has decreased
+ * enough since the last restart, and stops when the relative primal residual, dual residual and duality gap are all within the tolerances.
+ *
+ * The solution is approximate: its status is Optimal if the tolerances were met and Feasible if the iteration or time limit was reached first, in which
+ * case it holds the best point found. In both cases the achieved residuals and gap are reported in the Solution. Infeasibility and unboundedness are
+ * not detected. Integer variables are not supported.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class PdhgSolver implements SolverProvider {
+
+  /**
+   * Default relative tolerance on the residuals and on the gap.
+   */
+  public static final double DEFAULT_TOLERANCE = 1e-6;
+
+  /**
+   * Default maximum number of iterations.
+   */
+  public static final int DEFAULT_ITERATION_LIMIT = 200000;
+
+  /**
+   * The iterates are evaluated every this many iterations.
+   */
+  private static final int EVALUATION_FREQUENCY = 64;
+
+  /**
+   * Number of Ruiz equilibration passes.
+   */
+  private static final int RUIZ_ITERATIONS = 10;
+
+  /**
+   * Step size, relative to the bound of one on the norm of the scaled matrix.
+   */
+  private static final double STEP_SIZE = 0.99;
+
+  /**
+   * Restart criteria: restart if the error decreased by this factor since the last restart, or if it decreased by the necessary factor and stopped
+   * improving, or if this fraction of all iterations went by since the last restart.
+   */
+  private static final double SUFFICIENT_REDUCTION = 0.2;
+  private static final double NECESSARY_REDUCTION = 0.8;
+  private static final double ARTIFICIAL_RESTART = 0.36;
+
+  /**
+   * Relative tolerance on the primal and dual residuals.
+   */
+  private final double feasibilityTolerance;
+
+  /**
+   * Relative tolerance on the duality gap.
+   */
+  private final double gapTolerance;
+
+  /**
+   * Maximum number of iterations.
+   */
+  private final int iterationLimit;
+
+  /**
+   * Whether or not to restart.
+   */
+  private final boolean restarts;
+
+  /**
+   * Constructor with the default tolerances.
+   */
+  public PdhgSolver() {
+    this(PdhgSolver.DEFAULT_TOLERANCE, PdhgSolver.DEFAULT_TOLERANCE, PdhgSolver.DEFAULT_ITERATION_LIMIT, true);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param feasibilityTolerance - relative tolerance on the primal and dual residuals.
+   * @param gapTolerance - relative tolerance on the duality gap.
+   * @param iterationLimit - maximum number of iterations.
+   * @param restarts - true to use adaptive restarts, false to run plain PDHG.
+   */
+  public PdhgSolver(double feasibilityTolerance, double gapTolerance, int iterationLimit, boolean restarts) {
+    this.feasibilityTolerance = feasibilityTolerance;
+    this.gapTolerance = gapTolerance;
+    this.iterationLimit = iterationLimit;
+    this.restarts = restarts;
+  }
+
+  @Override
+  public String getName() {
+    return "pdhg";
+  }
+
+  @Override
+  public Solution solve(LinearModel model) throws SolverException {
+    if (model.hasIntegerVariables()) {
+      throw new SolverException("The first-order solver does not support integer variables.");
+    }
+    if (model.hasEmptyDomain()) {
+      return new Solution(Solution.Status.Infeasible);
+    }
+    return new Run(model).solve();
+  }
+
+  /**
+   * The state of one solve: the scaled problem, the iterates and their averages.
+   *
+   * @author Enrique Areyan Viqueira
+   */
+  private class Run {
+
+    /**
+     * The model.
+     */
+    private final LinearModel model;
+
+    /**
+     * Number of variables and of constraints.
+     */
+    private final int n, m;
+
+    /**
+     * The scaled constraint matrix, by rows.
+     */
+    private final int[] start, column;
+    private final double[] a;
+
+    /**
+     * Row scaling R and column scaling C: the scaled matrix is R A C.
+     */
+    private final double[] rowScale, columnScale;
+
+    /**
+     * The scaled problem: objective (as a minimization), variable bounds and constraint bounds.
+     */
+    private final double[] c, lb, ub, rl, ru;
+
+    /**
+     * The original problem: objective (as a minimization), variable bounds and constraint bounds.
+     */
+    private final double[] originalC, originalLb, originalUb, originalRl, originalRu;
+
+    /**
+     * Norms of the original objective and of the finite constraint bounds, used to make residuals relative.
+     */
+    private final double objectiveNorm, boundNorm;
+
+    /**
+     * Constructor. Copies and scales the model.
+     *
+     * @param model - a LinearModel object without integer variables.
+     */
+    private Run(LinearModel model) {
+      this.model = model;
+      this.n = model.getNumberVariables();
+      this.m = model.getNumberConstraints();
+      this.start = new int[this.m + 1];
+      this.column = new int[model.getRowStart(this.m)];
+      this.a = new double[this.column.length];
+      for (int r = 0; r < this.m; r++) {
+        this.start[r + 1] = model.getRowStart(r + 1);
+        for (int p = model.getRowStart(r); p < model.getRowStart(r + 1); p++) {
+          this.column[p] = model.getRowVariable(p);
+          this.a[p] = model.getRowCoefficient(p);
+        }
+      }
+      double sign = model.isMaximization() ? -1.0 : 1.0;
+      this.originalC = new double[this.n];
+      this.originalLb = new double[this.n];
+      this.originalUb = new double[this.n];
+      for (int k = 0; k < this.n; k++) {
+        this.originalC[k] = sign * model.getObjectiveCoefficient(k);
+        this.originalLb[k] = model.getLowerBound(k);
+        this.originalUb[k] = model.getUpperBound(k);
+      }
+      this.originalRl = new double[this.m];
+      this.originalRu = new double[this.m];
+      double boundNorm = 0.0;
+      for (int r = 0; r < this.m; r++) {
+        this.originalRl[r] = model.getRowLower(r);
+        this.originalRu[r] = model.getRowUpper(r);
+        double bound = Math.max(PdhgSolver.finite(this.originalRl[r]), PdhgSolver.finite(this.originalRu[r]));
+        boundNorm += bound * bound;
+      }
+      this.boundNorm = Math.sqrt(boundNorm);
+      this.objectiveNorm = PdhgSolver.norm(this.originalC);
+      // Equilibrate the matrix.
+      this.rowScale = new double[this.m];
+      this.columnScale = new double[this.n];
+      Arrays.fill(this.rowScale, 1.0);
+      Arrays.fill(this.columnScale, 1.0);
+      for (int i = 0; i < PdhgSolver.RUIZ_ITERATIONS; i++) {
+        this.scale(true);
+      }
+      this.scale(false);
+      this.c = new double[this.n];
+      this.lb = new double[this.n];
+      this.ub = new double[this.n];
+      for (int k = 0; k < this.n; k++) {
+        this.c[k] = this.columnScale[k] * this.originalC[k];
+        this.lb[k] = this.originalLb[k] / this.columnScale[k];
+        this.ub[k] = this.originalUb[k] / this.columnScale[k];
+      }
+      this.rl = new double[this.m];
+      this.ru = new double[this.m];
+      for (int r = 0; r < this.m; r++) {
+        this.rl[r] = this.rowScale[r] * this.originalRl[r];
+        this.ru[r] = this.rowScale[r] * this.originalRu[r];
+      }
+    }
+
+    /**
+     * Scales the rows and columns of the matrix once.
+     *
+     * @param ruiz - true to divide by the square root of the largest absolute value of each row and column (Ruiz), false to divide by the square root
+     *          of their sums of absolute values (Pock-Chambolle).
+     */
+    private void scale(boolean ruiz) {
+      double[] rowFactor = new double[this.m];
+      double[] columnFactor = new double[this.n];
+      for (int r = 0; r < this.m; r++) {
+        for (int p = this.start[r]; p < this.start[r + 1]; p++) {
+          double abs = Math.abs(this.a[p]);
+          if (ruiz) {
+            rowFactor[r] = Math.max(rowFactor[r], abs);
+            columnFactor[this.column[p]] = Math.max(columnFactor[this.column[p]], abs);
+          } else {
+            rowFactor[r] += abs;
+            columnFactor[this.column[p]] += abs;
+          }
+        }
+      }
+      for (int r = 0; r < this.m; r++) {
+        rowFactor[r] = (rowFactor[r] > 0.0) ? 1.0 / Math.sqrt(rowFactor[r]) : 1.0;
+        this.rowScale[r] *= rowFactor[r];
+      }
+      for (int k = 0; k < this.n; k++) {
+        columnFactor[k] = (columnFactor[k] > 0.0) ? 1.0 / Math.sqrt(columnFactor[k]) : 1.0;
+        this.columnScale[k] *= columnFactor[k];
+      }
+      for (int r = 0; r < this.m; r++) {
+        for (int p = this.start[r]; p < this.start[r + 1]; p++) {
+          this.a[p] *= rowFactor[r] * columnFactor[this.column[p]];
+        }
+      }
+    }
+
+    /**
+     * Computes Ax with the scaled matrix.
+     *
+     * @param x - a primal point.
+     * @param result - receives Ax.
+     */
+    private void multiply(double[] x, double[] result) {
+      for (int r = 0; r < this.m; r++) {
+        double sum = 0.0;
+        for (int p = this.start[r]; p < this.start[r + 1]; p++) {
+          sum += this.a[p] * x[this.column[p]];
+        }
+        result[r] = sum;
+      }
+    }
+
+    /**
+     * Computes A'y with the scaled matrix.
+     *
+     * @param y - a dual point.
+     * @param result - receives A'y.
+     */
+    private void multiplyTranspose(double[] y, double[] result) {
+      Arrays.fill(result, 0.0);
+      for (int r = 0; r < this.m; r++) {
+        if (y[r] != 0.0) {
+          for (int p = this.start[r]; p < this.start[r + 1]; p++) {
+            result[this.column[p]] += this.a[p] * y[r];
+          }
+        }
+      }
+    }
+
+    /**
+     * Evaluates a scaled point in terms of the original problem.
+     *
+     * @param x - a scaled primal point.
+     * @param ax - its product with the scaled matrix.
+     * @param y - a scaled dual point.
+     * @param aty - its product with the transpose of the scaled matrix.
+     * @return the relative primal residual, dual residual and duality gap, and the primal objective value (as a minimization).
+     */
+    private double[] evaluate(double[] x, double[] ax, double[] y, double[] aty) {
+      double primalResidual = 0.0, primalObjective = 0.0;
+      double dualResidual = 0.0, dualObjective = 0.0;
+      for (int r = 0; r < this.m; r++) {
+        double row = ax[r] / this.rowScale[r];
+        double violation = row - Math.min(Math.max(row, this.originalRl[r]), this.originalRu[r]);
+        primalResidual += violation * violation;
+        double dual = y[r] * this.rowScale[r];
+        if (dual > 0.0 && this.originalRu[r] < Double.POSITIVE_INFINITY) {
+          dualObjective -= dual * this.originalRu[r];
+        } else if (dual < 0.0 && this.originalRl[r] > Double.NEGATIVE_INFINITY) {
+          dualObjective -= dual * this.originalRl[r];
+        }
+      }
+      for (int k = 0; k < this.n; k++) {
+        primalObjective += this.originalC[k] * x[k] * this.columnScale[k];
+        double reducedCost = this.originalC[k] + aty[k] / this.columnScale[k];
+        if (reducedCost > 0.0) {
+          if (this.originalLb[k] > Double.NEGATIVE_INFINITY) {
+            dualObjective += reducedCost * this.originalLb[k];
+          } else {
+            dualResidual += reducedCost * reducedCost;
+          }
+        } else if (reducedCost < 0.0) {
+          if (this.originalUb[k] < Double.POSITIVE_INFINITY) {
+            dualObjective += reducedCost * this.originalUb[k];
+          } else {
+            dualResidual += reducedCost * reducedCost;
+          }
+        }
+      }
+      return new double[] { Math.sqrt(primalResidual) / (1.0 + this.boundNorm), Math.sqrt(dualResidual) / (1.0 + this.objectiveNorm),
+          Math.abs(primalObjective - dualObjective) / (1.0 + Math.abs(primalObjective) + Math.abs(dualObjective)), primalObjective };
+    }
+
+    /**
+     * Runs the method.
+     *
+     * @return a Solution object.
+     */
+    private Solution solve() {
+      long deadline = (this.model.getTimeLimit() > 0) ? System.nanoTime() + (long) (this.model.getTimeLimit() * 1e9) : Long.MAX_VALUE;
+      double[] x = new double[this.n], ax = new double[this.m], y = new double[this.m], aty = new double[this.n];
+      double[] nextX = new double[this.n], nextAx = new double[this.m];
+      double[] sumX = new double[this.n], sumAx = new double[this.m], sumY = new double[this.m], sumAty = new double[this.n];
+      double[] averageX = new double[this.n], averageAx = new double[this.m], averageY = new double[this.m], averageAty = new double[this.n];
+      for (int k = 0; k < this.n; k++) {
+        x[k] = Math.min(Math.max(0.0, this.lb[k]), this.ub[k]);
+      }
+      this.multiply(x, ax);
+      // The primal weight balances the primal and dual step sizes.
+      double scaledObjectiveNorm = PdhgSolver.norm(this.c);
+      double scaledBoundNorm = 0.0;
+      for (int r = 0; r < this.m; r++) {
+        double bound = Math.max(PdhgSolver.finite(this.rl[r]), PdhgSolver.finite(this.ru[r]));
+        scaledBoundNorm += bound * bound;
+      }
+      scaledBoundNorm = Math.sqrt(scaledBoundNorm);
+      double primalWeight = (scaledObjectiveNorm > 0.0 && scaledBoundNorm > 0.0) ? scaledObjectiveNorm / scaledBoundNorm : 1.0;
+      double[] restartX = x.clone(), restartY = y.clone();
+      double restartError = Double.POSITIVE_INFINITY, lastError = Double.POSITIVE_INFINITY;
+      int sinceRestart = 0;
+      // The best point evaluated so far.
+      double[] bestX = x.clone();
+      double[] best = this.evaluate(x, ax, y, aty);
+      boolean converged = this.isConverged(best);
+      int iteration = 0;
+      while (!converged && iteration < PdhgSolver.this.iterationLimit && System.nanoTime() < deadline) {
+        double tau = PdhgSolver.STEP_SIZE / primalWeight;
+        double sigma = PdhgSolver.STEP_SIZE * primalWeight;
+        for (int i = 0; i < PdhgSolver.EVALUATION_FREQUENCY; i++) {
+          // Primal step, projected onto the bounds.
+          for (int k = 0; k < this.n; k++) {
+            nextX[k] = Math.min(Math.max(x[k] - tau * (this.c[k] + aty[k]), this.lb[k]), this.ub[k]);
+          }
+          this.multiply(nextX, nextAx);
+          // Dual step at the extrapolated point: y - sigma * proj_[L, U]((y + sigma * A(2x' - x)) / sigma).
+          for (int r = 0; r < this.m; r++) {
+            double v = y[r] + sigma * (2.0 * nextAx[r] - ax[r]);
+            y[r] = v - sigma * Math.min(Math.max(v / sigma, this.rl[r]), this.ru[r]);
+          }
+          this.multiplyTranspose(y, aty);
+          double[] swap = x;
+          x = nextX;
+          nextX = swap;
+          swap = ax;
+          ax = nextAx;
+          nextAx = swap;
+          PdhgSolver.add(sumX, x);
+          PdhgSolver.add(sumAx, ax);
+          PdhgSolver.add(sumY, y);
+          PdhgSolver.add(sumAty, aty);
+        }
+        iteration += PdhgSolver.EVALUATION_FREQUENCY;
+        sinceRestart += PdhgSolver.EVALUATION_FREQUENCY;
+        // Evaluate the current and the average iterates.
+        PdhgSolver.divide(sumX, sinceRestart, averageX);
+        PdhgSolver.divide(sumAx, sinceRestart, averageAx);
+        PdhgSolver.divide(sumY, sinceRestart, averageY);
+        PdhgSolver.divide(sumAty, sinceRestart, averageAty);
+        double[] current = this.evaluate(x, ax, y, aty);
+        double[] average = this.evaluate(averageX, averageAx, averageY, averageAty);
+        boolean useAverage = PdhgSolver.error(average) < PdhgSolver.error(current);
+        double[] candidate = useAverage ? average : current;
+        if (PdhgSolver.error(candidate) < PdhgSolver.error(best)) {
+          best = candidate;
+          bestX = (useAverage ? averageX : x).clone();
+        }
+        converged = this.isConverged(candidate);
+        if (this.model.isVerbose()) {
+          System.out.println("PDHG iteration " + iteration + ": primal residual = " + candidate[0] + ", dual residual = " + candidate[1] + ", gap = "
+              + candidate[2]);
+        }
+        double error = PdhgSolver.error(candidate);
+        if (PdhgSolver.this.restarts
+            && (error <= PdhgSolver.SUFFICIENT_REDUCTION * restartError
+                || (error <= PdhgSolver.NECESSARY_REDUCTION * restartError && error > lastError) || sinceRestart >= PdhgSolver.ARTIFICIAL_RESTART
+                * iteration)) {
+          if (useAverage) {
+            System.arraycopy(averageX, 0, x, 0, this.n);
+            System.arraycopy(averageAx, 0, ax, 0, this.m);
+            System.arraycopy(averageY, 0, y, 0, this.m);
+            System.arraycopy(averageAty, 0, aty, 0, this.n);
+          }
+          // Update the primal weight with the movement since the last restart.
+          double primalMovement = PdhgSolver.distance(x, restartX);
+          double dualMovement = PdhgSolver.distance(y, restartY);
+          if (primalMovement > 1e-10 && dualMovement > 1e-10) {
+            primalWeight = Math.exp(0.5 * Math.log(dualMovement / primalMovement) + 0.5 * Math.log(primalWeight));
+          }
+          System.arraycopy(x, 0, restartX, 0, this.n);
+          System.arraycopy(y, 0, restartY, 0, this.m);
+          Arrays.fill(sumX, 0.0);
+          Arrays.fill(sumAx, 0.0);
+          Arrays.fill(sumY, 0.0);
+          Arrays.fill(sumAty, 0.0);
+          sinceRestart = 0;
+          restartError = error;
+          lastError = Double.POSITIVE_INFINITY;
+        } else {
+          lastError = error;
+        }
+      }
+      double[] values = new double[this.n];
+      for (int k = 0; k < this.n; k++) {
+        values[k] = bestX[k] * this.columnScale[k];
+      }
+      return new Solution(converged ? Solution.Status.Optimal : Solution.Status.Feasible, ImmutableList.of(values),
+          new double[] { this.model.getObjectiveValue(values) }, best[0], best[1], best[2]);
+    }
+
+    /**
+     * Decides whether an evaluated point meets the tolerances.
+     *
+     * @param evaluation - the result of evaluate.
+     * @return true if the residuals and the gap are within the tolerances.
+     */
+    private boolean isConverged(double[] evaluation) {
+      return evaluation[0] <= PdhgSolver.this.feasibilityTolerance && evaluation[1] <= PdhgSolver.this.feasibilityTolerance
+          && evaluation[2] <= PdhgSolver.this.gapTolerance;
+    }
+
+  }
+
+  /**
+   * Combines the residuals and the gap of an evaluated point into a single error.
+   *
+   * @param evaluation - the result of Run.evaluate.
+   * @return the Euclidean norm of the relative residuals and gap.
+   */
+  private static double error(double[] evaluation) {
+    return Math.sqrt(evaluation[0] * evaluation[0] + evaluation[1] * evaluation[1] + evaluation[2] * evaluation[2]);
+  }
+
+  /**
+   * @param bound - a bound, possibly infinite.
+   * @return the absolute value of the bound, or zero if it is infinite.
+   */
+  private static double finite(double bound) {
+    return Double.isInfinite(bound) ? 0.0 : Math.abs(bound);
+  }
+
+  /**
+   * @param v - a vector.
+   * @return the Euclidean norm of v.
+   */
+  private static double norm(double[] v) {
+    double sum = 0.0;
+    for (double value : v) {
+      sum += value * value;
+    }
+    return Math.sqrt(sum);
+  }
+
+  /**
+   * @param u - a vector.
+   * @param v - a vector of the same length.
+   * @return the Euclidean distance between u and v.
+   */
+  private static double distance(double[] u, double[] v) {
+    double sum = 0.0;
+    for (int i = 0; i < u.length; i++) {
+      sum += (u[i] - v[i]) * (u[i] - v[i]);
+    }
+    return Math.sqrt(sum);
+  }
+
+  /**
+   * Adds v to sum.
+   *
+   * @param sum - a vector.
+   * @param v - a vector of the same length.
+   */
+  private static void add(double[] sum, double[] v) {
+    for (int i = 0; i < sum.length; i++) {
+      sum[i] += v[i];
+    }
+  }
+
+  /**
+   * Divides a vector by a positive integer.
+   *
+   * @param v - a vector.
+   * @param count - a positive integer.
+   * @param result - receives v / count.
+   */
+  private static void divide(double[] v, int count, double[] result) {
+    for (int i = 0; i < v.length; i++) {
+      result[i] = v[i] / count;
+    }
+  }
+
+}
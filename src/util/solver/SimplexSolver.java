@@ -0,0 +1,508 @@
+package util.solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Longs;
+
+/**
+ * A pure-Java SolverProvider. Linear programs are solved with a bounded dual simplex (see DualSimplex). Integer programs are solved with a depth-first
+ * branch-and-bound on top of it: each node only changes bounds, so it restarts the dual simplex from the basis of the previously solved node instead
+ * of solving its LP from scratch.
+ *
+ * When the model asks for more than one solution, branch-and-bound enumerates alternative optimal solutions: nodes whose bound ties the incumbent are
+ * not pruned, and a node with an integral optimal solution is split further (x <= v - 1, x >= v + 1 and x = v on an integer variable x with value v)
+ * until all integer variables are fixed, so that every optimal integer point is reached exactly once. optimalPoints runs the same enumeration lazily,
+ * one optimal point at a time.
+ *
+ * A linear program with warm start on (see LinearModel.setWarmStart) keeps its tableau in the model. If only variable bounds change before the next
+ * solve, the new bounds are applied to the kept tableau and the dual simplex resumes from the last basis, exactly as in a branch-and-bound node. A
+ * resumed solve that does not end with a feasible optimal point is repeated from scratch.
+ *
+ * Feasible starting points of the model become the first incumbent, and nodes whose bound is worse than the model's cutoff are pruned, so a good
+ * heuristic solution prunes most of the tree from the first node.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class SimplexSolver implements SolverProvider {
+
+  /**
+   * Values within this distance of an integer are integral.
+   */
+  private static final double INTEGRALITY_TOLERANCE = 1e-6;
+
+  /**
+   * Relative tolerance to compare objective values.
+   */
+  private static final double OBJECTIVE_TOLERANCE = 1e-9;
+
+  /**
+   * Absolute violation of bounds and constraints allowed for a point found from a kept tableau.
+   */
+  private static final double FEASIBILITY_TOLERANCE = 1e-6;
+
+  /**
+   * A node of the branch-and-bound tree: the bounds of the structural variables and the objective value of the parent's LP (as a minimization), which
+   * bounds the objective value of the node.
+   *
+   * @author Enrique Areyan Viqueira
+   */
+  private static class Node {
+
+    /**
+     * Bounds of the structural variables.
+     */
+    private final double[] lower, upper;
+
+    /**
+     * The objective value of the parent, as a minimization.
+     */
+    private final double bound;
+
+    /**
+     * Constructor.
+     *
+     * @param lower - lower bounds.
+     * @param upper - upper bounds.
+     * @param bound - objective value of the parent.
+     */
+    private Node(double[] lower, double[] upper, double bound) {
+      this.lower = lower;
+      this.upper = upper;
+      this.bound = bound;
+    }
+
+  }
+
+  @Override
+  public String getName() {
+    return "java";
+  }
+
+  @Override
+  public Solution solve(LinearModel model) {
+    long deadline = (model.getTimeLimit() > 0) ? System.nanoTime() + (long) (model.getTimeLimit() * 1e9) : Long.MAX_VALUE;
+    if (model.hasEmptyDomain()) {
+      return new Solution(Solution.Status.Infeasible);
+    }
+    if (!model.hasIntegerVariables()) {
+      DualSimplex lp = model.simplex;
+      if (lp != null) {
+        for (int k = 0; k < model.getNumberVariables(); k++) {
+          lp.setBounds(k, model.getLowerBound(k), model.getUpperBound(k));
+        }
+        Solution.Status status = lp.run(deadline);
+        if (status == Solution.Status.Unknown) {
+          return new Solution(status);
+        }
+        // A kept tableau accumulates rounding errors, so anything but a feasible optimal point is checked from scratch.
+        if (status == Solution.Status.Optimal && model.isFeasible(lp.getValues(), SimplexSolver.FEASIBILITY_TOLERANCE)) {
+          return this.toSolution(model, lp);
+        }
+      }
+      lp = new DualSimplex(model);
+      model.simplex = model.isWarmStart() ? lp : null;
+      Solution.Status status = lp.run(deadline);
+      if (status != Solution.Status.Optimal) {
+        return new Solution(status);
+      }
+      return this.toSolution(model, lp);
+    }
+    return this.branchAndBound(model, new DualSimplex(model), deadline, model.getSolutionLimit() > 1);
+  }
+
+  /**
+   * Enumerates the optimal points of a model one at a time, e.g., to go through many alternative optima without holding them all in memory. The
+   * optimal value is found first, by branch-and-bound. Then a second depth-first search is driven by the iterator: each call to hasNext explores the
+   * tree only until the next optimal point, which is reached at the node where all integer variables are fixed, so every optimal integer point is
+   * returned exactly once and none has to be remembered. The solution limit of the model is ignored; the time limit bounds both searches, and the
+   * enumeration stops silently when it is reached.
+   *
+   * @param model - a LinearModel object.
+   * @return an iterator over the optimal points, empty if there are none. If the first search hits the time limit, the iterator returns the best point
+   *         found, and a linear program returns its single optimal point.
+   */
+  public Iterator<double[]> optimalPoints(LinearModel model) {
+    long deadline = (model.getTimeLimit() > 0) ? System.nanoTime() + (long) (model.getTimeLimit() * 1e9) : Long.MAX_VALUE;
+    Solution solution = model.hasIntegerVariables() && !model.hasEmptyDomain() ? this.branchAndBound(model, new DualSimplex(model), deadline, false)
+        : this.solve(model);
+    if (!solution.hasValues()) {
+      return ImmutableList.<double[]> of().iterator();
+    }
+    if (solution.getStatus() != Solution.Status.Optimal || !model.hasIntegerVariables()) {
+      int[] variables = new int[model.getNumberVariables()];
+      for (int k = 0; k < variables.length; k++) {
+        variables[k] = k;
+      }
+      return ImmutableList.of(solution.getValues(variables)).iterator();
+    }
+    return new OptimalPoints(model, (model.isMaximization() ? -1.0 : 1.0) * solution.getObjectiveValue(), deadline);
+  }
+
+  /**
+   * Turns the optimal point of a linear program into a Solution object.
+   *
+   * @param model - a LinearModel object.
+   * @param lp - a dual simplex of the model whose last run was optimal.
+   * @return a Solution object.
+   */
+  private Solution toSolution(LinearModel model, DualSimplex lp) {
+    double[] values = lp.getValues();
+    return new Solution(Solution.Status.Optimal, ImmutableList.of(values), new double[] { model.getObjectiveValue(values) });
+  }
+
+  /**
+   * Solves an integer program.
+   *
+   * @param model - a LinearModel object with integer variables.
+   * @param lp - the dual simplex of the model.
+   * @param deadline - the value of System.nanoTime() at which to give up.
+   * @param enumerate - true to keep nodes that tie the incumbent, so that up to the solution limit of the model optimal points are found.
+   * @return a Solution object.
+   */
+  private Solution branchAndBound(LinearModel model, DualSimplex lp, long deadline, boolean enumerate) {
+    int n = model.getNumberVariables();
+    double sign = model.isMaximization() ? -1.0 : 1.0;
+    // Incumbent objective value (as a minimization) and the optimal points found so far.
+    double best = Double.POSITIVE_INFINITY;
+    ArrayList<double[]> points = new ArrayList<double[]>();
+    HashSet<List<Long>> seen = new HashSet<List<Long>>();
+    // Feasible starts are the first incumbents.
+    for (int t = 0; t < model.getNumberStarts(); t++) {
+      double[] start = model.getStart(t);
+      if (!model.isFeasible(start, SimplexSolver.INTEGRALITY_TOLERANCE)) {
+        continue;
+      }
+      double[] values = start.clone();
+      long[] key = new long[n];
+      for (int k = 0; k < n; k++) {
+        if (model.isInteger(k)) {
+          values[k] = Math.rint(values[k]);
+          key[k] = (long) values[k];
+        }
+      }
+      best = this.addIncumbent(model, values, key, sign * model.getObjectiveValue(values), best, points, seen);
+    }
+    double cutoff = Double.isNaN(model.getCutoff()) ? Double.POSITIVE_INFINITY : sign * model.getCutoff();
+    boolean complete = true;
+    int nodes = 0;
+    ArrayDeque<Node> stack = new ArrayDeque<Node>();
+    stack.push(this.getRoot(model));
+    while (!stack.isEmpty()) {
+      if (System.nanoTime() > deadline) {
+        complete = false;
+        break;
+      }
+      Node node = stack.pop();
+      if (this.isPruned(node.bound, best, cutoff, enumerate)) {
+        continue;
+      }
+      nodes++;
+      for (int k = 0; k < n; k++) {
+        lp.setBounds(k, node.lower[k], node.upper[k]);
+      }
+      Solution.Status status = lp.run(deadline);
+      if (status == Solution.Status.Infeasible) {
+        continue;
+      } else if (status == Solution.Status.Unbounded) {
+        return new Solution(Solution.Status.Unbounded);
+      } else if (status != Solution.Status.Optimal) {
+        complete = false;
+        continue;
+      }
+      double[] values = lp.getValues();
+      double objective = sign * model.getObjectiveValue(values);
+      if (this.isPruned(objective, best, cutoff, enumerate)) {
+        continue;
+      }
+      if (this.branch(stack, model, node, values, objective)) {
+        continue;
+      }
+      // Integral solution.
+      long[] key = new long[n];
+      for (int k = 0; k < n; k++) {
+        if (model.isInteger(k)) {
+          values[k] = Math.rint(values[k]);
+          key[k] = (long) values[k];
+        }
+      }
+      best = this.addIncumbent(model, values, key, objective, best, points, seen);
+      if (enumerate && points.size() < model.getSolutionLimit()) {
+        this.split(stack, model, node, values, objective);
+      }
+    }
+    if (model.isVerbose()) {
+      System.out.println("Branch-and-bound explored " + nodes + " nodes and found " + points.size() + " optimal solutions.");
+    }
+    if (points.isEmpty()) {
+      return new Solution(complete ? Solution.Status.Infeasible : Solution.Status.Unknown);
+    }
+    double[] objectiveValues = new double[points.size()];
+    for (int l = 0; l < points.size(); l++) {
+      objectiveValues[l] = model.getObjectiveValue(points.get(l));
+    }
+    return new Solution(complete ? Solution.Status.Optimal : Solution.Status.Feasible, ImmutableList.copyOf(points), objectiveValues);
+  }
+
+  /**
+   * Getter.
+   *
+   * @param model - a model with integer variables.
+   * @return the root of the branch-and-bound tree, with the bounds of integer variables rounded inwards.
+   */
+  private Node getRoot(LinearModel model) {
+    int n = model.getNumberVariables();
+    double[] rootLower = new double[n];
+    double[] rootUpper = new double[n];
+    for (int k = 0; k < n; k++) {
+      rootLower[k] = model.isInteger(k) ? Math.ceil(model.getLowerBound(k) - SimplexSolver.INTEGRALITY_TOLERANCE) : model.getLowerBound(k);
+      rootUpper[k] = model.isInteger(k) ? Math.floor(model.getUpperBound(k) + SimplexSolver.INTEGRALITY_TOLERANCE) : model.getUpperBound(k);
+    }
+    return new Node(rootLower, rootUpper, Double.NEGATIVE_INFINITY);
+  }
+
+  /**
+   * Branches on the most fractional integer variable of the LP solution of a node, if there is one.
+   *
+   * @param stack - the nodes to explore.
+   * @param model - the model.
+   * @param node - a node.
+   * @param values - the LP solution of the node.
+   * @param objective - the objective value of the LP solution, as a minimization.
+   * @return true if the node was branched on, false if the LP solution is integral.
+   */
+  private boolean branch(ArrayDeque<Node> stack, LinearModel model, Node node, double[] values, double objective) {
+    int n = model.getNumberVariables();
+    int branch = -1;
+    double mostFractional = SimplexSolver.INTEGRALITY_TOLERANCE;
+    for (int k = 0; k < n; k++) {
+      if (model.isInteger(k)) {
+        double fractional = Math.abs(values[k] - Math.rint(values[k]));
+        if (fractional > mostFractional) {
+          branch = k;
+          mostFractional = fractional;
+        }
+      }
+    }
+    if (branch < 0) {
+      return false;
+    }
+    double down = Math.floor(values[branch]);
+    Node downNode = new Node(node.lower, Arrays.copyOf(node.upper, n), objective);
+    downNode.upper[branch] = down;
+    Node upNode = new Node(Arrays.copyOf(node.lower, n), node.upper, objective);
+    upNode.lower[branch] = down + 1;
+    // Explore first the side the LP value is closer to.
+    if (values[branch] - down < 0.5) {
+      stack.push(upNode);
+      stack.push(downNode);
+    } else {
+      stack.push(downNode);
+      stack.push(upNode);
+    }
+    return true;
+  }
+
+  /**
+   * Splits a node around an integral solution, on an integer variable x that is not yet fixed: x <= v - 1, x >= v + 1 and x = v, where v is the value
+   * of x. Every integer point of the node is in exactly one of the new nodes.
+   *
+   * @param stack - the nodes to explore.
+   * @param model - the model.
+   * @param node - a node.
+   * @param values - the integral LP solution of the node, with integer variables rounded.
+   * @param objective - the objective value of the LP solution, as a minimization.
+   * @return false if all integer variables of the node are fixed, so that it cannot be split.
+   */
+  private boolean split(ArrayDeque<Node> stack, LinearModel model, Node node, double[] values, double objective) {
+    int n = model.getNumberVariables();
+    for (int k = 0; k < n; k++) {
+      if (model.isInteger(k) && node.lower[k] < node.upper[k]) {
+        Node fixed = new Node(Arrays.copyOf(node.lower, n), Arrays.copyOf(node.upper, n), objective);
+        fixed.lower[k] = values[k];
+        fixed.upper[k] = values[k];
+        stack.push(fixed);
+        if (values[k] + 1 <= node.upper[k]) {
+          Node above = new Node(Arrays.copyOf(node.lower, n), node.upper, objective);
+          above.lower[k] = values[k] + 1;
+          stack.push(above);
+        }
+        if (values[k] - 1 >= node.lower[k]) {
+          Node below = new Node(node.lower, Arrays.copyOf(node.upper, n), objective);
+          below.upper[k] = values[k] - 1;
+          stack.push(below);
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Records an integral point that is at least as good as the incumbent.
+   *
+   * @param model - the model.
+   * @param values - the point.
+   * @param key - the values of the integer variables of the point, to recognize repeated points.
+   * @param objective - the objective value of the point, as a minimization.
+   * @param best - the objective value of the incumbent, as a minimization.
+   * @param points - the optimal points found so far.
+   * @param seen - the keys of the points found so far.
+   * @return the new objective value of the incumbent.
+   */
+  private double addIncumbent(LinearModel model, double[] values, long[] key, double objective, double best, ArrayList<double[]> points,
+      HashSet<List<Long>> seen) {
+    if (best == Double.POSITIVE_INFINITY || objective < best - SimplexSolver.OBJECTIVE_TOLERANCE * Math.max(1.0, Math.abs(best))) {
+      best = objective;
+      points.clear();
+      seen.clear();
+    } else if (objective > best + SimplexSolver.OBJECTIVE_TOLERANCE * Math.max(1.0, Math.abs(best))) {
+      return best;
+    }
+    if (points.size() < model.getSolutionLimit() && seen.add(Longs.asList(key))) {
+      points.add(values);
+    }
+    return best;
+  }
+
+  /**
+   * Decides whether a node can be discarded.
+   *
+   * @param bound - a bound on the objective value of the node, as a minimization.
+   * @param best - the objective value of the incumbent, as a minimization.
+   * @param cutoff - the cutoff of the model, as a minimization.
+   * @param enumerate - true if nodes that tie the incumbent must be kept.
+   * @return true if the node cannot contain a better (or, when enumerating, an equally good) solution, or is worse than the cutoff.
+   */
+  private boolean isPruned(double bound, double best, double cutoff, boolean enumerate) {
+    if (cutoff < Double.POSITIVE_INFINITY && bound > cutoff + SimplexSolver.OBJECTIVE_TOLERANCE * Math.max(1.0, Math.abs(cutoff))) {
+      return true;
+    }
+    if (best == Double.POSITIVE_INFINITY) {
+      return false;
+    }
+    double tolerance = SimplexSolver.OBJECTIVE_TOLERANCE * Math.max(1.0, Math.abs(best));
+    return enumerate ? bound > best + tolerance : bound >= best - tolerance;
+  }
+
+  /**
+   * The optimal points of an integer program whose optimal value is known, found one at a time by a depth-first search (see optimalPoints).
+   *
+   * @author Enrique Areyan Viqueira
+   */
+  private final class OptimalPoints implements Iterator<double[]> {
+
+    /**
+     * The model and its dual simplex.
+     */
+    private final LinearModel model;
+    private final DualSimplex lp;
+
+    /**
+     * The optimal value, as a minimization.
+     */
+    private final double optimum;
+
+    /**
+     * The value of System.nanoTime() at which to give up.
+     */
+    private final long deadline;
+
+    /**
+     * The nodes to explore.
+     */
+    private final ArrayDeque<Node> stack = new ArrayDeque<Node>();
+
+    /**
+     * The next point, or null if it has not been searched for yet.
+     */
+    private double[] next;
+
+    /**
+     * Constructor.
+     *
+     * @param model - a model with integer variables.
+     * @param optimum - the optimal value of the model, as a minimization.
+     * @param deadline - the value of System.nanoTime() at which to give up.
+     */
+    private OptimalPoints(LinearModel model, double optimum, long deadline) {
+      this.model = model;
+      this.lp = new DualSimplex(model);
+      this.optimum = optimum;
+      this.deadline = deadline;
+      this.stack.push(SimplexSolver.this.getRoot(model));
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (this.next == null) {
+        this.next = this.search();
+      }
+      return this.next != null;
+    }
+
+    @Override
+    public double[] next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      double[] point = this.next;
+      this.next = null;
+      return point;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Explores nodes until a node with all integer variables fixed has an optimal LP solution.
+     *
+     * @return the LP solution of that node, or null if the tree is exhausted or the time limit is reached.
+     */
+    private double[] search() {
+      double sign = this.model.isMaximization() ? -1.0 : 1.0;
+      while (!this.stack.isEmpty()) {
+        if (System.nanoTime() > this.deadline) {
+          this.stack.clear();
+          break;
+        }
+        Node node = this.stack.pop();
+        if (SimplexSolver.this.isPruned(node.bound, this.optimum, Double.POSITIVE_INFINITY, true)) {
+          continue;
+        }
+        for (int k = 0; k < this.model.getNumberVariables(); k++) {
+          this.lp.setBounds(k, node.lower[k], node.upper[k]);
+        }
+        if (this.lp.run(this.deadline) != Solution.Status.Optimal) {
+          continue;
+        }
+        double[] values = this.lp.getValues();
+        double objective = sign * this.model.getObjectiveValue(values);
+        if (SimplexSolver.this.isPruned(objective, this.optimum, Double.POSITIVE_INFINITY, true)
+            || SimplexSolver.this.branch(this.stack, this.model, node, values, objective)) {
+          continue;
+        }
+        for (int k = 0; k < values.length; k++) {
+          if (this.model.isInteger(k)) {
+            values[k] = Math.rint(values[k]);
+          }
+        }
+        // The point is returned at the node that fixes all of its integer values, which it shares with no other point.
+        if (!SimplexSolver.this.split(this.stack, this.model, node, values, objective)) {
+          return values;
+        }
+      }
+      return null;
+    }
+
+  }
+
+}
@@ -0,0 +1,191 @@
+package util.solver;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The result of solving a LinearModel: a status and, when a feasible point was found, the values of the variables. For integer programs solved with a
+ * solution limit larger than one, the solution may hold several optimal points, the first of which is the one reported by getValue.
+ *
+ * Exact solvers report zero residuals and gap. First-order solvers (see PdhgSolver) report the relative primal residual, dual residual and duality gap
+ * achieved by the point they return, which is only approximately feasible and optimal.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class Solution {
+
+  /**
+   * Define the status of a solution. The names coincide with those of CPLEX statuses, since callers report them as strings.
+   */
+  public static enum Status {
+    Optimal, Feasible, Infeasible, Unbounded, Unknown
+  }
+
+  /**
+   * Status of the solution.
+   */
+  private final Solution.Status status;
+
+  /**
+   * Value of each variable at each point found. Empty if no point was found.
+   */
+  private final ImmutableList<double[]> values;
+
+  /**
+   * Objective value at each point found.
+   */
+  private final double[] objectiveValues;
+
+  /**
+   * Relative primal residual, dual residual and duality gap of the first point.
+   */
+  private final double primalResidual, dualResidual, gap;
+
+  /**
+   * Constructor of a solution with no point, e.g., of an infeasible model.
+   *
+   * @param status - the status of the solution.
+   */
+  public Solution(Solution.Status status) {
+    this(status, ImmutableList.<double[]> of(), new double[0]);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param status - the status of the solution.
+   * @param values - the value of each variable at each point found.
+   * @param objectiveValues - the objective value at each point found.
+   */
+  public Solution(Solution.Status status, ImmutableList<double[]> values, double[] objectiveValues) {
+    this(status, values, objectiveValues, 0.0, 0.0, 0.0);
+  }
+
+  /**
+   * Constructor of an approximate solution.
+   *
+   * @param status - the status of the solution.
+   * @param values - the value of each variable at each point found.
+   * @param objectiveValues - the objective value at each point found.
+   * @param primalResidual - the relative violation of the constraints by the first point.
+   * @param dualResidual - the relative violation of the dual constraints.
+   * @param gap - the relative duality gap.
+   */
+  public Solution(Solution.Status status, ImmutableList<double[]> values, double[] objectiveValues, double primalResidual, double dualResidual, double gap) {
+    this.status = status;
+    this.values = values;
+    this.objectiveValues = objectiveValues;
+    this.primalResidual = primalResidual;
+    this.dualResidual = dualResidual;
+    this.gap = gap;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the status of the solution.
+   */
+  public Solution.Status getStatus() {
+    return this.status;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return true if a point was found, i.e., the status is Optimal or Feasible.
+   */
+  public boolean hasValues() {
+    return this.values.size() > 0;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the number of points found.
+   */
+  public int getNumberSolutions() {
+    return this.values.size();
+  }
+
+  /**
+   * Getter.
+   *
+   * @param k - a variable.
+   * @return the value of variable k.
+   */
+  public double getValue(int k) {
+    return this.values.get(0)[k];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param variables - an array of variables.
+   * @return the value of each variable.
+   */
+  public double[] getValues(int[] variables) {
+    return this.getValues(variables, 0);
+  }
+
+  /**
+   * Getter.
+   *
+   * @param variables - an array of variables.
+   * @param l - a point, between zero and getNumberSolutions() - 1.
+   * @return the value of each variable at point l.
+   */
+  public double[] getValues(int[] variables, int l) {
+    double[] point = this.values.get(l);
+    double[] result = new double[variables.length];
+    for (int k = 0; k < variables.length; k++) {
+      result[k] = point[variables[k]];
+    }
+    return result;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the objective value.
+   */
+  public double getObjectiveValue() {
+    return this.objectiveValues[0];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param l - a point, between zero and getNumberSolutions() - 1.
+   * @return the objective value at point l.
+   */
+  public double getObjectiveValue(int l) {
+    return this.objectiveValues[l];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the relative primal residual, zero for exact solvers.
+   */
+  public double getPrimalResidual() {
+    return this.primalResidual;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the relative dual residual, zero for exact solvers.
+   */
+  public double getDualResidual() {
+    return this.dualResidual;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return the relative duality gap, zero for exact solvers.
+   */
+  public double getGap() {
+    return this.gap;
+  }
+
+}
@@ -0,0 +1,30 @@
+package util.solver;
+
+/**
+ * Exception thrown when a solver fails, e.g., the CPLEX library is not available or reports an error.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+@SuppressWarnings("serial")
+public class SolverException extends Exception {
+
+  /**
+   * Constructor.
+   *
+   * @param message - a description of the failure.
+   */
+  public SolverException(String message) {
+    super(message);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param message - a description of the failure.
+   * @param cause - the exception thrown by the solver.
+   */
+  public SolverException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -0,0 +1,27 @@
+package util.solver;
+
+/**
+ * A backend that solves LinearModel objects. Implementations must be safe to call from several threads at once, since independent models (e.g., the
+ * pricing LPs of different allocations) may be solved concurrently.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public interface SolverProvider {
+
+  /**
+   * Getter.
+   *
+   * @return the name of the provider.
+   */
+  public String getName();
+
+  /**
+   * Solves a model. Integer requirements of the variables are honored.
+   *
+   * @param model - a LinearModel object.
+   * @return a Solution object.
+   * @throws SolverException in case the solver failed.
+   */
+  public Solution solve(LinearModel model) throws SolverException;
+
+}
@@ -0,0 +1,50 @@
+package util.solver;
+
+/**
+ * Holds the SolverProvider used by algorithms that are not given one explicitly. The default is the pure-Java SimplexSolver, so that models can be
+ * solved on machines without a CPLEX installation. Running with -Dsolver=cplex (or calling setProvider) makes CPLEX the default instead, and
+ * -Dsolver=pdhg the first-order PdhgSolver.
+ *
+ * @author Enrique Areyan Viqueira
+ */
+public class Solvers {
+
+  /**
+   * The default provider.
+   */
+  private static volatile SolverProvider provider = Solvers.createProvider(System.getProperty("solver", "java"));
+
+  /**
+   * Getter.
+   *
+   * @return the default provider.
+   */
+  public static SolverProvider getProvider() {
+    return Solvers.provider;
+  }
+
+  /**
+   * Setter.
+   *
+   * @param provider - the new default provider.
+   */
+  public static void setProvider(SolverProvider provider) {
+    Solvers.provider = provider;
+  }
+
+  /**
+   * Creates a provider by name.
+   *
+   * @param name - "cplex", "pdhg" or "java".
+   * @return a SolverProvider object. Unknown names give the pure-Java provider.
+   */
+  public static SolverProvider createProvider(String name) {
+    if ("cplex".equalsIgnoreCase(name)) {
+      return new CplexProvider();
+    } else if ("pdhg".equalsIgnoreCase(name)) {
+      return new PdhgSolver();
+    }
+    return new SimplexSolver();
+  }
+
+}
@@ -40,11 +40,25 @@ public class CPWaterfall<M extends Market<G, B>, G extends Goods, B extends Bidd
    */
   public CPWaterfall(M market) throws IloException {
     this.market = market;
-    this.cp = Cplex.getCP();
-    //this.cp.setOut(null);
   }
 
+  /**
+   * Runs the CP Waterfall model on a CP object leased for the run.
+   * 
+   * @throws IloException
+   */
   public void run() throws IloException {
+    this.cp = Cplex.leaseCP();
+    //this.cp.setOut(null);
+    try {
+      this.buildAndSolve();
+    } finally {
+      Cplex.release(this.cp);
+      this.cp = null;
+    }
+  }
+
+  private void buildAndSolve() throws IloException {
     System.out.println("Run the CP Waterfall model");
 
     // These next two maps point from a good (resp. a bidder) to a positive integer.
@@ -206,7 +220,6 @@ public class CPWaterfall<M extends Market<G, B>, G extends Goods, B extends Bidd
       // System.out.println("No solution!");
       // }
     }
-    this.cp.end();
   }
 
   public static void main(String[] args) throws Exception {
@@ -3,6 +3,7 @@ package waterfall;
 import ilog.concert.IloException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -14,6 +15,7 @@ import structures.Bidder;
 import structures.Goods;
 import structures.Market;
 import structures.MarketAllocation;
+import structures.SupplyLedger;
 import structures.exceptions.AllocationException;
 import structures.exceptions.BidderCreationException;
 import structures.exceptions.GoodsCreationException;
@@ -24,9 +26,6 @@ import allocations.interfaces.AllocationAlgo;
 import allocations.objectivefunction.SingleStepObjectiveFunction;
 import allocations.objectivefunction.interfaces.ObjectiveFunction;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
-
 /**
  * Implements the waterfall algorithm.
  * 
@@ -81,28 +80,22 @@ public class Waterfall<M extends Market<G, B>, G extends Goods, B extends Bidder
    */
   public WaterfallSolution<M, G, B> run() throws GoodsException {
 
-    // Output structures.
-    Table<G, B, Integer> allocation = HashBasedTable.create();
-    Table<G, B, Double> prices = HashBasedTable.create();
+    // Output structures. The allocation starts at zero and prices start at infinity.
+    MarketAllocation.Builder<M, G, B> allocation = MarketAllocation.<M, G, B> builder(this.market);
+    double[] prices = new double[this.market.getNumberGoods() * this.market.getNumberBidders()];
+    Arrays.fill(prices, Double.POSITIVE_INFINITY);
 
-    // Initialize the total allocation of each bidder to be zero, the allocation to be zero, and prices to be zero.
+    // Initialize the total allocation of each bidder to be zero.
     Map<B, Integer> totalAllocationToBidder = new HashMap<B, Integer>();
     for (B bidder : this.market.getBidders()) {
       totalAllocationToBidder.put(bidder, 0);
-      for (G good : this.market.getGoods()) {
-        allocation.put(good, bidder, 0);
-        prices.put(good, bidder, Double.POSITIVE_INFINITY);
-      }
     }
 
     // Initial set of goods.
     Set<G> goods = new HashSet<G>(this.market.getGoods());
 
-    // Initialize the remaining supply of each good to be their initial supply.
-    for (G good : this.market.getGoods()) {
-      good.setRemainingSupply(good.getSupply());
-      goods.add(good);
-    }
+    // The remaining supply of each good starts at its initial supply.
+    SupplyLedger<G> ledger = new SupplyLedger<G>(this.market);
 
     // Initial set of bidders.
     Set<B> bidders = new HashSet<B>(this.market.getBidders());
@@ -126,8 +119,8 @@ public class Waterfall<M extends Market<G, B>, G extends Goods, B extends Bidder
       for (B bidder : bidders) {
         int totalAvailableSupply = 0;
         for (G good : goods) {
-          if (bidder.demandsGood(good) && good.getRemainingSupply() > 0) {
-            totalAvailableSupply += good.getRemainingSupply();
+          if (bidder.demandsGood(good) && ledger.getRemainingSupply(good) > 0) {
+            totalAvailableSupply += ledger.getRemainingSupply(good);
           }
         }
         // Check that the bidder can be satisfied with the remaining supply.
@@ -171,13 +164,15 @@ public class Waterfall<M extends Market<G, B>, G extends Goods, B extends Bidder
       // System.out.println("good = " + good);
       // System.out.println("price = " + price);
       // Allocate goods to the highest bidder at the computed price.
-      allocation.put(good, higestBidder, Math.min(higestBidder.getDemand() - totalAllocationToBidder.get(higestBidder), good.getRemainingSupply()));
-      prices.put(good, higestBidder, price);
+      int goodIndex = this.market.getGoodIndex(good);
+      int bidderIndex = this.market.getBidderIndex(higestBidder);
+      allocation.set(goodIndex, bidderIndex, Math.min(higestBidder.getDemand() - totalAllocationToBidder.get(higestBidder), ledger.getRemainingSupply(goodIndex)));
+      prices[goodIndex * this.market.getNumberBidders() + bidderIndex] = price;
       // System.out.println("Allocation = " + allocation);
       // System.out.println("Prices = " + prices);
 
       // Keep track of the total given to the bidder.
-      totalAllocationToBidder.put(higestBidder, totalAllocationToBidder.get(higestBidder) + allocation.get(good, higestBidder));
+      totalAllocationToBidder.put(higestBidder, totalAllocationToBidder.get(higestBidder) + allocation.get(goodIndex, bidderIndex));
       // System.out.println("totalAllocationToBidder = " + totalAllocationToBidder);
 
       // Check if the highest bidder is satisfied and deleted it.
@@ -186,15 +181,15 @@ public class Waterfall<M extends Market<G, B>, G extends Goods, B extends Bidder
       }
 
       // Decrement goods supply.
-      good.setRemainingSupply(good.getRemainingSupply() - allocation.get(good, higestBidder));
+      ledger.consume(goodIndex, allocation.get(goodIndex, bidderIndex));
       // System.out.println("good = " + good);
 
       // Check if the good is exhausted and delete it.
-      if (good.getRemainingSupply() == 0) {
+      if (ledger.getRemainingSupply(goodIndex) == 0) {
         goods.remove(good);
       }
     }
-    WaterfallSolution<M, G, B> waterfallSolution = new WaterfallSolution<M, G, B>(this.market, allocation, prices);
+    WaterfallSolution<M, G, B> waterfallSolution = new WaterfallSolution<M, G, B>(this.market, allocation.build(new SingleStepObjectiveFunction()), prices);
     //waterfallSolution.printAllocationTable();
     //waterfallSolution.printPricesTable();
     return waterfallSolution;
@@ -1,17 +1,12 @@
 package waterfall;
 
 import java.text.DecimalFormat;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import structures.Bidder;
 import structures.Goods;
 import structures.Market;
 import structures.MarketAllocation;
 import structures.exceptions.MarketAllocationException;
-import allocations.objectivefunction.SingleStepObjectiveFunction;
-
-import com.google.common.collect.Table;
 
 /**
  * Solution of the waterfall algorithm. Contains and allocation and a matrix of prices.
@@ -30,23 +25,25 @@ public class WaterfallSolution<M extends Market<G, B>, G extends Goods, B extend
   private final M market;
 
   /**
-   * Allocation.
+   * Market Allocation object.
    */
-  private final Table<G, B, Integer> allocation;
+  private final MarketAllocation<M, G, B> marketAllocation;
 
   /**
-   * Prices.
+   * Prices. A row-major goods x bidders matrix with the price per good quoted to each bidder.
    */
-  private final Table<G, B, Double> prices;
+  private final double[] prices;
 
   /**
-   * Market Allocation object.
+   * Constructor.
+   * 
+   * @param market
+   * @param marketAllocation
+   * @param prices - a row-major goods x bidders matrix of prices.
    */
-  private MarketAllocation<M, G, B> marketAllocation;
-
-  public WaterfallSolution(M market, Table<G, B, Integer> allocation, Table<G, B, Double> prices) {
+  public WaterfallSolution(M market, MarketAllocation<M, G, B> marketAllocation, double[] prices) {
     this.market = market;
-    this.allocation = allocation;
+    this.marketAllocation = marketAllocation;
     this.prices = prices;
   }
 
@@ -58,7 +55,7 @@ public class WaterfallSolution<M extends Market<G, B>, G extends Goods, B extend
    * @return
    */
   public int getAllocation(G good, B bidder) {
-    return this.allocation.get(good, bidder);
+    return this.marketAllocation.getAllocation(this.market.getGoodIndex(good), this.market.getBidderIndex(bidder));
   }
 
   /**
@@ -68,12 +65,6 @@ public class WaterfallSolution<M extends Market<G, B>, G extends Goods, B extend
    * @throws MarketAllocationException
    */
   public MarketAllocation<M, G, B> getAllocation() throws MarketAllocationException {
-    if (this.marketAllocation == null) {
-      this.marketAllocation = new MarketAllocation<M, G, B>(this.market, this.allocation, new SingleStepObjectiveFunction());
-      // System.out.println("Getting WF allocation");
-      // this.marketAllocation.printAllocation();
-      // System.out.println("***");
-    }
     return this.marketAllocation;
   }
 
@@ -85,7 +76,7 @@ public class WaterfallSolution<M extends Market<G, B>, G extends Goods, B extend
    * @return
    */
   public double getPrice(G good, B bidder) {
-    return this.prices.get(good, bidder);
+    return this.prices[this.market.getGoodIndex(good) * this.market.getNumberBidders() + this.market.getBidderIndex(bidder)];
   }
 
   /**
@@ -94,14 +85,14 @@ public class WaterfallSolution<M extends Market<G, B>, G extends Goods, B extend
    * @param allocation
    */
   public void printAllocationTable() {
-    for (Entry<B, Map<G, Integer>> z : this.allocation.columnMap().entrySet()) {
-      System.out.print(z.getKey() + "\t\t");
+    for (B bidder : this.market.getBidders()) {
+      System.out.print(bidder + "\t\t");
     }
     System.out.println();
-    for (Entry<G, Map<B, Integer>> x : this.allocation.rowMap().entrySet()) {
-      System.out.print(String.format("%-38s \t", x.getKey()));
-      for (Entry<B, Integer> y : x.getValue().entrySet()) {
-        System.out.print(y.getValue() + "\t");
+    for (int i = 0; i < this.market.getNumberGoods(); i++) {
+      System.out.print(String.format("%-38s \t", this.market.getGoods().get(i)));
+      for (int j = 0; j < this.market.getNumberBidders(); j++) {
+        System.out.print(this.marketAllocation.getAllocation(i, j) + "\t");
       }
       System.out.println("");
     }
@@ -114,14 +105,14 @@ public class WaterfallSolution<M extends Market<G, B>, G extends Goods, B extend
    */
   public void printPricesTable() {
     DecimalFormat df = new DecimalFormat("#.00");
-    for (Entry<B, Map<G, Double>> z : this.prices.columnMap().entrySet()) {
-      System.out.print(z.getKey() + "\t\t");
+    for (B bidder : this.market.getBidders()) {
+      System.out.print(bidder + "\t\t");
     }
     System.out.println();
-    for (Entry<G, Map<B, Double>> x : this.prices.rowMap().entrySet()) {
-      System.out.print(String.format("%-38s \t", x.getKey()));
-      for (Entry<B, Double> y : x.getValue().entrySet()) {
-        System.out.print(df.format(y.getValue()) + "\t");
+    for (int i = 0; i < this.market.getNumberGoods(); i++) {
+      System.out.print(String.format("%-38s \t", this.market.getGoods().get(i)));
+      for (int j = 0; j < this.market.getNumberBidders(); j++) {
+        System.out.print(df.format(this.prices[i * this.market.getNumberBidders() + j]) + "\t");
       }
       System.out.println("");
     }